@@ -0,0 +1,16 @@
+package brooklyn.event;
+
+import java.util.List;
+
+/**
+ * A {@link SensorEventListener} which can be given several {@link SensorEvent}s at once.
+ * <p>
+ * Only used when subscribing with batch delivery requested (e.g. the {@code batchDelivery} subscription flag);
+ * otherwise {@link #onEvent(SensorEvent)} is called for each event as normal.
+ */
+public interface BatchSensorEventListener<T> extends SensorEventListener<T> {
+    /**
+     * The handler method for the events queued since the last delivery, in the order they were published.
+     */
+    void onEvents(List<SensorEvent<T>> events);
+}
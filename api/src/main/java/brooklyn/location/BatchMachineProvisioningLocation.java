@@ -0,0 +1,43 @@
+package brooklyn.location;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link MachineProvisioningLocation} that can provision several machines in one request (e.g. one call to the
+ * cloud's API), which is typically much quicker than provisioning them one at a time.
+ */
+public interface BatchMachineProvisioningLocation<T extends MachineLocation> extends MachineProvisioningLocation<T> {
+
+    /**
+     * Obtain the given number of machines in this location, all with the same flags.
+     * <p>
+     * If only some of the machines could be provisioned, those that were are returned (and any partially-provisioned
+     * machines released), so the result may contain fewer than count machines.
+     *
+     * @param flags as for {@link #obtain(Map)}
+     * @return machines that are children of this location; never empty
+     * @throws NoMachinesAvailableException if none of the machines could be provisioned
+     */
+    List<T> obtain(int count, Map<?,?> flags) throws NoMachinesAvailableException;
+
+    /**
+     * As {@link #obtain(int, Map)}, for one machine for each of the given per-machine flags. These are
+     * used (over the common flags) when preparing and registering that machine, e.g. the {@code callerContext} of the
+     * entity it is for. Only the common flags are used for the provisioning request itself, which is for all the machines.
+     *
+     * @return for each of flagsPerMachine in turn, the machine obtained for it, or null if that machine could not be
+     *         provisioned; never all null
+     * @throws NoMachinesAvailableException if none of the machines could be provisioned
+     */
+    List<T> obtain(Map<?,?> flags, List<? extends Map<?,?>> flagsPerMachine) throws NoMachinesAvailableException;
+
+    /**
+     * Indicates that (about) count calls to {@link #obtain(Map)} are about to be made concurrently, e.g. by
+     * the new members of a cluster being started. The location may then briefly hold those calls, so that
+     * those with the same flags can be provisioned together with {@link #obtain(int, Map)}.
+     * <p>
+     * This is only a hint: if fewer calls are made, those that were are provisioned after a short delay.
+     */
+    void expectObtains(int count);
+}
@@ -13,7 +13,6 @@ import brooklyn.enricher.basic.AbstractAggregatingEnricher;
 import brooklyn.event.AttributeSensor;
 import brooklyn.event.SensorEventListener;
 import brooklyn.util.GroovyJavaMethods;
-import brooklyn.util.flags.TypeCoercions;
 
 import com.google.common.base.Function;
 import com.google.common.base.Throwables;
@@ -21,14 +20,22 @@ import com.google.common.base.Throwables;
 /**
  * Subscribes to events from producers with a sensor of type T, aggregates them with the 
  * provided closure and emits the result on the target sensor V.
+ * <p>
+ * Alternatively an {@link IncrementalAggregator} can be provided, which is updated with just the old and new
+ * value of the producer whose value changed, rather than being applied to the values of all the producers on
+ * every change; the summing and averaging enrichers created here are incremental.
  * @param <T>
  */
 public class CustomAggregatingEnricher<S,T> extends AbstractAggregatingEnricher<S,T> implements SensorEventListener<S> {
     
     private static final Logger LOG = LoggerFactory.getLogger(CustomAggregatingEnricher.class);
     
+    /** null if this enricher has an {@link #incrementalAggregator} */
     protected final Function<Collection<S>, T> aggregator;
     
+    /** null if this enricher has an {@link #aggregator} */
+    protected final IncrementalAggregator<S, T> incrementalAggregator;
+    
     /**
      * The valid keys for the flags are:
      * - producers: a collection of entities to be aggregated
@@ -46,6 +53,7 @@ public class CustomAggregatingEnricher<S,T> extends AbstractAggregatingEnricher<
             Function<Collection<S>, T> aggregator, S defaultValue) {
         super(flags, source, target, defaultValue);
         this.aggregator = aggregator;
+        this.incrementalAggregator = null;
     }
     
     public CustomAggregatingEnricher(Map<String,?> flags, AttributeSensor<? extends S> source, AttributeSensor<T> target,
@@ -63,6 +71,32 @@ public class CustomAggregatingEnricher<S,T> extends AbstractAggregatingEnricher<
         this(Collections.<String,Object>emptyMap(), source, target, aggregator, null);
     }
 
+    /**
+     * @param flags
+     * @param source
+     * @param target
+     * @param aggregator   Updated as each value is added or removed; must not be shared with other enrichers
+     * @param defaultValue
+     * 
+     * @see #CustomAggregatingEnricher(Map<String,?>, AttributeSensor<S>, AttributeSensor<T> target, Function<Collection<S>, T> aggregator, S defaultValue)
+     */
+    public CustomAggregatingEnricher(Map<String,?> flags, AttributeSensor<? extends S> source, AttributeSensor<T> target,
+            IncrementalAggregator<S, T> aggregator, S defaultValue) {
+        super(flags, source, target, defaultValue);
+        this.aggregator = null;
+        this.incrementalAggregator = aggregator;
+    }
+    
+    public CustomAggregatingEnricher(Map<String,?> flags, AttributeSensor<? extends S> source, AttributeSensor<T> target,
+            IncrementalAggregator<S, T> aggregator) {
+        this(flags, source, target, aggregator, null);
+    }
+    
+    public CustomAggregatingEnricher(AttributeSensor<? extends S> source, AttributeSensor<T> target,
+            IncrementalAggregator<S, T> aggregator) {
+        this(Collections.<String,Object>emptyMap(), source, target, aggregator, null);
+    }
+
     /**
      * @param flags
      * @param source
@@ -102,10 +136,21 @@ public class CustomAggregatingEnricher<S,T> extends AbstractAggregatingEnricher<
     
     public T getAggregate() {
         synchronized (values) {
+            if (incrementalAggregator != null) return incrementalAggregator.getAggregate();
             return (T) aggregator.apply(values.values());
         }
     }
 
+    @Override
+    protected void onValueAdded(S value) {
+        if (incrementalAggregator != null) incrementalAggregator.add(value);
+    }
+
+    @Override
+    protected void onValueRemoved(S value) {
+        if (incrementalAggregator != null) incrementalAggregator.remove(value);
+    }
+
     // FIXME Clean up explosion of overloading, caused by groovy-equivalent default vals...
     public static <S,T> CustomAggregatingEnricher<S,T> newEnricher(
             Map<String,?> flags, AttributeSensor<S> source, AttributeSensor<T> target, Closure<?> aggregator, S defaultVal) {
@@ -144,15 +189,8 @@ public class CustomAggregatingEnricher<S,T> extends AbstractAggregatingEnricher<
     }
     
     public static <N extends Number, T extends Number> CustomAggregatingEnricher<N,T> newSummingEnricher(
-            Map<String,?> flags, AttributeSensor<N> source, final AttributeSensor<T> target) {
-        
-        Function<Collection<N>, T> aggregator = new Function<Collection<N>, T>() {
-            @Override public T apply(Collection<N> vals) {
-                Object result = (vals == null || vals.isEmpty()) ? 0 : sum(vals);
-                return TypeCoercions.castPrimitive(result, target.getType());
-            }
-        };
-        return new CustomAggregatingEnricher<N,T>(flags, source, target, aggregator);
+            Map<String,?> flags, AttributeSensor<N> source, AttributeSensor<T> target) {
+        return new CustomAggregatingEnricher<N,T>(flags, source, target, IncrementalAggregators.<N,T>sum(target.getType()));
     }
     public static <N extends Number> CustomAggregatingEnricher<N,N> newSummingEnricher(
             AttributeSensor<N> source, AttributeSensor<N> target) {
@@ -173,30 +211,54 @@ public class CustomAggregatingEnricher<S,T> extends AbstractAggregatingEnricher<
     public static <N extends Number> CustomAggregatingEnricher<N,Double> newAveragingEnricher(
             Map<String,?> flags, AttributeSensor<? extends N> source, AttributeSensor<Double> target,
             N defaultValue) {
-        
-        Function<Collection<N>, Double> aggregator = new Function<Collection<N>, Double>() {
-            @Override public Double apply(Collection<N> vals) {
-                int count = count(vals);
-                return (count==0) ? 0d : ((Double) sum(vals) / count);
-            }
-        };
-        return new CustomAggregatingEnricher<N,Double>(flags, source, target, aggregator, defaultValue);
+        return new CustomAggregatingEnricher<N,Double>(flags, source, target, IncrementalAggregators.<N>mean(), defaultValue);
     }
     public static <N extends Number> CustomAggregatingEnricher<Number,Double> newAveragingEnricher(
             AttributeSensor<N> source, AttributeSensor<Double> target) {
         return newAveragingEnricher(Collections.<String,Object>emptyMap(), source, target);
     }
 
-    private static <N extends Number> double sum(Iterable<N> vals) {
-        double result = 0d;
-        if (vals!=null) for (Number val : vals) if (val!=null) result += val.doubleValue();
-        return result;
+    /** creates an enricher which counts the producers which have published a (non-null) value */
+    public static <S> CustomAggregatingEnricher<S,Integer> newCountingEnricher(
+            Map<String,?> flags, AttributeSensor<? extends S> source, AttributeSensor<Integer> target) {
+        return new CustomAggregatingEnricher<S,Integer>(flags, source, target, IncrementalAggregators.<S>count());
     }
-    
-    private static int count(Iterable<? extends Object> vals) {
-        int result = 0;
-        if (vals!=null) for (Object val : vals) if (val!=null) result++;
-        return result;
+    public static <S> CustomAggregatingEnricher<S,Integer> newCountingEnricher(
+            AttributeSensor<? extends S> source, AttributeSensor<Integer> target) {
+        return newCountingEnricher(Collections.<String,Object>emptyMap(), source, target);
+    }
+
+    /** creates an enricher which publishes the smallest of the values of the sensors, or null if there are none */
+    public static <C extends Comparable<? super C>> CustomAggregatingEnricher<C,C> newMinEnricher(
+            Map<String,?> flags, AttributeSensor<? extends C> source, AttributeSensor<C> target) {
+        return new CustomAggregatingEnricher<C,C>(flags, source, target, IncrementalAggregators.<C>min());
+    }
+    public static <C extends Comparable<? super C>> CustomAggregatingEnricher<C,C> newMinEnricher(
+            AttributeSensor<? extends C> source, AttributeSensor<C> target) {
+        return newMinEnricher(Collections.<String,Object>emptyMap(), source, target);
+    }
+
+    /** creates an enricher which publishes the largest of the values of the sensors, or null if there are none */
+    public static <C extends Comparable<? super C>> CustomAggregatingEnricher<C,C> newMaxEnricher(
+            Map<String,?> flags, AttributeSensor<? extends C> source, AttributeSensor<C> target) {
+        return new CustomAggregatingEnricher<C,C>(flags, source, target, IncrementalAggregators.<C>max());
+    }
+    public static <C extends Comparable<? super C>> CustomAggregatingEnricher<C,C> newMaxEnricher(
+            AttributeSensor<? extends C> source, AttributeSensor<C> target) {
+        return newMaxEnricher(Collections.<String,Object>emptyMap(), source, target);
+    }
+
+    /** creates an enricher which publishes an estimate of the given percentile (0 to 100) of the values of the sensors,
+     * accurate to within the given relative error (e.g. 0.01), or null if there are none
+     * @see IncrementalAggregators#percentile(double, double) */
+    public static <N extends Number> CustomAggregatingEnricher<N,Double> newPercentileEnricher(
+            Map<String,?> flags, AttributeSensor<? extends N> source, AttributeSensor<Double> target,
+            double percentile, double relativeAccuracy) {
+        return new CustomAggregatingEnricher<N,Double>(flags, source, target, IncrementalAggregators.<N>percentile(percentile, relativeAccuracy));
+    }
+    public static <N extends Number> CustomAggregatingEnricher<N,Double> newPercentileEnricher(
+            AttributeSensor<? extends N> source, AttributeSensor<Double> target, double percentile, double relativeAccuracy) {
+        return newPercentileEnricher(Collections.<String,Object>emptyMap(), source, target, percentile, relativeAccuracy);
     }
 
 }
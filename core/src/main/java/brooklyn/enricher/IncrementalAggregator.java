@@ -0,0 +1,21 @@
+package brooklyn.enricher;
+
+/**
+ * Maintains an aggregate of a changing collection of values, updating it as each value is added or removed
+ * rather than recomputing it from all the values.
+ * <p>
+ * Used by {@link CustomAggregatingEnricher}, which calls these methods while holding the lock on its values,
+ * and which replaces a changed value by removing the old one and adding the new one.
+ * Implementations hold state, so each enricher needs its own instance; see {@link IncrementalAggregators}.
+ */
+public interface IncrementalAggregator<S,T> {
+
+    /** Adds a value (which may be null) to those aggregated */
+    void add(S value);
+
+    /** Removes a value previously added */
+    void remove(S value);
+
+    /** The aggregate of the values currently added */
+    T getAggregate();
+}
@@ -0,0 +1,256 @@
+package brooklyn.enricher;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import brooklyn.util.flags.TypeCoercions;
+
+import com.google.common.collect.TreeMultiset;
+
+/**
+ * Factory methods for {@link IncrementalAggregator}s, whose cost per added or removed value does not depend
+ * on the number of values. All of them ignore null values.
+ */
+public class IncrementalAggregators {
+
+    private IncrementalAggregators() {}
+
+    /** The sum of the values, cast to the given type; zero if there are none */
+    public static <N extends Number, T extends Number> IncrementalAggregator<N,T> sum(Class<T> type) {
+        return new Sum<N,T>(type);
+    }
+
+    /** The number of (non-null) values */
+    public static <S> IncrementalAggregator<S,Integer> count() {
+        return new Count<S>();
+    }
+
+    /** The mean of the values; zero if there are none */
+    public static <N extends Number> IncrementalAggregator<N,Double> mean() {
+        return new Mean<N>();
+    }
+
+    /** The smallest of the values; null if there are none */
+    public static <C extends Comparable<? super C>> IncrementalAggregator<C,C> min() {
+        return new Extreme<C>(false);
+    }
+
+    /** The largest of the values; null if there are none */
+    public static <C extends Comparable<? super C>> IncrementalAggregator<C,C> max() {
+        return new Extreme<C>(true);
+    }
+
+    /**
+     * An estimate of the given percentile (0 to 100) of the values, accurate to within the given relative error
+     * (e.g. 0.01 for 1%); null if there are none.
+     *
+     * @see PercentileSketch
+     */
+    public static <N extends Number> IncrementalAggregator<N,Double> percentile(double percentile, double relativeAccuracy) {
+        return new PercentileSketch<N>(percentile, relativeAccuracy);
+    }
+
+    /**
+     * Sums integral values (Integer, Long, Short, Byte) exactly, and others as doubles; the latter are reset
+     * whenever no such values remain, so that rounding errors from removing them do not accumulate.
+     */
+    public static class Sum<N extends Number, T extends Number> implements IncrementalAggregator<N,T> {
+        private final Class<T> type;
+        private long integralSum;
+        private double fractionalSum;
+        private int count;
+        private int fractionalCount;
+
+        public Sum(Class<T> type) {
+            this.type = checkNotNull(type, "type");
+        }
+
+        @Override
+        public void add(N value) {
+            if (value == null) return;
+            count++;
+            if (isIntegral(value)) {
+                integralSum += value.longValue();
+            } else {
+                fractionalCount++;
+                fractionalSum += value.doubleValue();
+            }
+        }
+
+        @Override
+        public void remove(N value) {
+            if (value == null) return;
+            count--;
+            if (isIntegral(value)) {
+                integralSum -= value.longValue();
+            } else if (--fractionalCount == 0) {
+                fractionalSum = 0;
+            } else {
+                fractionalSum -= value.doubleValue();
+            }
+        }
+
+        @Override
+        public T getAggregate() {
+            Object result = (count == 0) ? 0 : (fractionalCount == 0) ? (Object) integralSum : (Object) (integralSum + fractionalSum);
+            return TypeCoercions.castPrimitive(result, type);
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        private static boolean isIntegral(Number value) {
+            return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+        }
+    }
+
+    public static class Count<S> implements IncrementalAggregator<S,Integer> {
+        private int count;
+
+        @Override
+        public void add(S value) {
+            if (value != null) count++;
+        }
+
+        @Override
+        public void remove(S value) {
+            if (value != null) count--;
+        }
+
+        @Override
+        public Integer getAggregate() {
+            return count;
+        }
+    }
+
+    public static class Mean<N extends Number> implements IncrementalAggregator<N,Double> {
+        private final Sum<N,Double> sum = new Sum<N,Double>(Double.class);
+
+        @Override
+        public void add(N value) {
+            sum.add(value);
+        }
+
+        @Override
+        public void remove(N value) {
+            sum.remove(value);
+        }
+
+        @Override
+        public Double getAggregate() {
+            int count = sum.getCount();
+            return (count == 0) ? 0d : sum.getAggregate() / count;
+        }
+    }
+
+    /** Keeps the values in a sorted multiset, so adding and removing are O(log n) */
+    public static class Extreme<C extends Comparable<? super C>> implements IncrementalAggregator<C,C> {
+        private final boolean max;
+        private final TreeMultiset<C> values = TreeMultiset.create();
+
+        public Extreme(boolean max) {
+            this.max = max;
+        }
+
+        @Override
+        public void add(C value) {
+            if (value != null) values.add(value);
+        }
+
+        @Override
+        public void remove(C value) {
+            if (value != null) values.remove(value);
+        }
+
+        @Override
+        public C getAggregate() {
+            if (values.isEmpty()) return null;
+            return (max ? values.lastEntry() : values.firstEntry()).getElement();
+        }
+    }
+
+    /**
+     * Counts the values in buckets whose bounds grow geometrically, so that any value is within the given
+     * relative error of its bucket's midpoint, and the number of buckets grows only with the logarithm of the
+     * range of the values (a few hundred buckets for 1% accuracy over nine orders of magnitude).
+     * Adding and removing a value updates a single bucket; a percentile is found by walking the buckets.
+     */
+    public static class PercentileSketch<N extends Number> implements IncrementalAggregator<N,Double> {
+        private final double percentile;
+        private final double gamma;
+        private final double logGamma;
+        /** counts of positive values, and of the magnitudes of negative values, by bucket index */
+        private final NavigableMap<Integer, Integer> positive = new TreeMap<Integer, Integer>();
+        private final NavigableMap<Integer, Integer> negative = new TreeMap<Integer, Integer>();
+        private int zeroCount;
+        private int count;
+
+        public PercentileSketch(double percentile, double relativeAccuracy) {
+            checkArgument(percentile >= 0 && percentile <= 100, "percentile %s must be between 0 and 100", percentile);
+            checkArgument(relativeAccuracy > 0 && relativeAccuracy < 1, "relativeAccuracy %s must be between 0 and 1", relativeAccuracy);
+            this.percentile = percentile;
+            this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+            this.logGamma = Math.log(gamma);
+        }
+
+        @Override
+        public void add(N value) {
+            update(value, 1);
+        }
+
+        @Override
+        public void remove(N value) {
+            update(value, -1);
+        }
+
+        private void update(N value, int delta) {
+            if (value == null) return;
+            double v = value.doubleValue();
+            if (Double.isNaN(v)) return;
+            count += delta;
+            if (Math.abs(v) < Double.MIN_NORMAL) {
+                zeroCount += delta;
+            } else {
+                NavigableMap<Integer, Integer> buckets = (v > 0) ? positive : negative;
+                int index = (int) Math.ceil(Math.log(Math.abs(v)) / logGamma);
+                Integer old = buckets.get(index);
+                int updated = (old != null ? old : 0) + delta;
+                if (updated > 0) {
+                    buckets.put(index, updated);
+                } else {
+                    buckets.remove(index);
+                }
+            }
+        }
+
+        @Override
+        public Double getAggregate() {
+            if (count <= 0) return null;
+            long rank = Math.round(percentile / 100 * (count - 1));
+            long seen = 0;
+            // in ascending order of value: negatives of decreasing magnitude, then zeroes, then positives
+            for (Map.Entry<Integer, Integer> bucket : negative.descendingMap().entrySet()) {
+                seen += bucket.getValue();
+                if (seen > rank) return -valueOf(bucket.getKey());
+            }
+            seen += zeroCount;
+            if (seen > rank) return 0d;
+            for (Map.Entry<Integer, Integer> bucket : positive.entrySet()) {
+                seen += bucket.getValue();
+                if (seen > rank) return valueOf(bucket.getKey());
+            }
+            // only if values were removed which were never added
+            return null;
+        }
+
+        /** the midpoint of the bucket with the given index, i.e. of (gamma^(index-1), gamma^index] */
+        private double valueOf(int index) {
+            return 2 * Math.pow(gamma, index) / (gamma + 1);
+        }
+    }
+}
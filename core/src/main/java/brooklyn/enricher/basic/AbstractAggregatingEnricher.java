@@ -69,7 +69,7 @@ public abstract class AbstractAggregatingEnricher<S,T> extends AbstractEnricher
             S vo = values.get(producer);
             if (vo==null) {
                 S initialVal = ((EntityLocal)producer).getAttribute(source);
-                values.put(producer, initialVal != null ? initialVal : defaultValue);
+                putValue(producer, initialVal != null ? initialVal : defaultValue);
                 //we might skip in onEvent in the short window while !values.containsKey(producer)
                 //but that's okay because the put which would have been done there is done here now
             } else {
@@ -85,7 +85,12 @@ public abstract class AbstractAggregatingEnricher<S,T> extends AbstractEnricher
     public S removeProducer(Entity producer) {
         if (LOG.isDebugEnabled()) LOG.debug("{} unlinked ({}, {}) from {}", new Object[] {this, producer, source, target});
         unsubscribe(producer);
-        S removed = values.remove(producer);
+        S removed;
+        synchronized (values) {
+            boolean existed = values.containsKey(producer);
+            removed = values.remove(producer);
+            if (existed) onValueRemoved(removed);
+        }
         onUpdated();
         return removed;
     }
@@ -95,7 +100,7 @@ public abstract class AbstractAggregatingEnricher<S,T> extends AbstractEnricher
         Entity e = event.getSource();
         synchronized (values) {
             if (values.containsKey(e)) {
-                values.put(e, event.getValue());
+                putValue(e, event.getValue());
             } else {
                 if (LOG.isDebugEnabled()) LOG.debug("{} received event for unknown producer ({}); presumably that producer has recently been removed", this, e);
             }
@@ -103,6 +108,30 @@ public abstract class AbstractAggregatingEnricher<S,T> extends AbstractEnricher
         onUpdated();
     }
 
+    /** Sets the value for a producer, telling {@link #onValueRemoved(Object)} and {@link #onValueAdded(Object)}; caller must hold the lock on values */
+    private void putValue(Entity producer, S value) {
+        boolean existed = values.containsKey(producer);
+        S old = values.put(producer, value);
+        if (existed) onValueRemoved(old);
+        onValueAdded(value);
+    }
+
+    /**
+     * Called (while holding the lock on values) when a value is added, including the new value when a producer's value changes,
+     * so that subclasses can maintain an aggregate incrementally. Defaults to no-op
+     */
+    protected void onValueAdded(S value) {
+        // no-op
+    }
+
+    /**
+     * Called (while holding the lock on values) when a value is removed, including the old value when a producer's value changes.
+     * Defaults to no-op
+     */
+    protected void onValueRemoved(S value) {
+        // no-op
+    }
+
     /**
      * Called whenever the values for the set of producers changes (e.g. on an event, or on a member added/removed).
      * Defaults to no-op
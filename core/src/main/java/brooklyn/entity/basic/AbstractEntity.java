@@ -370,6 +370,7 @@ public abstract class AbstractEntity implements EntityLocal, EntityInternal {
     public void setDisplayName(String newDisplayName) {
         _displayName = newDisplayName;
         displayNameAutoGenerated = false;
+        getManagementSupport().getEntityChangeListener().onDisplayNameChanged();
     }
     
     /**
@@ -628,7 +629,19 @@ public abstract class AbstractEntity implements EntityLocal, EntityInternal {
     
     @Override
     public <T> T setAttribute(AttributeSensor<T> attribute, T val) {
-        T result = attributesInternal.update(attribute, val);
+        T result;
+        if (attributesInternal.isSuppressingUnchanged(attribute)) {
+            // compare and update atomically, so exactly one of several concurrent setters publishes a change
+            synchronized (attributesInternal) {
+                if (attributesInternal.isSuppressibleUpdate(attribute, val)) {
+                    // unchanged (or within hysteresis), so store it but don't publish or record as a change
+                    return attributesInternal.updateWithoutPublishing(attribute, val);
+                }
+                result = attributesInternal.update(attribute, val);
+            }
+        } else {
+            result = attributesInternal.update(attribute, val);
+        }
         if (result == null) {
             // could be this is a new sensor
             entityType.addSensorIfAbsent(attribute);
@@ -39,6 +39,13 @@ public class ConfigKeys {
     public static final BasicConfigKey<Boolean> LAUNCH_LATCH = new BasicConfigKey<Boolean>(
             Boolean.class, "launch.latch", "Latch for blocking launch until ready");
 
+    /**
+     * Whether setting an attribute to its current value should be a no-op, rather than publishing an event
+     * (for all of the entity's attributes; see also {@link brooklyn.event.basic.PublishOnChangeAttributeSensor}).
+     */
+    public static final BasicConfigKey<Boolean> SUPPRESS_UNCHANGED_ATTRIBUTES = new BasicConfigKey<Boolean>(
+            Boolean.class, "attributes.suppressUnchanged", "Whether to not publish attribute events when the value is unchanged", false);
+
     public static final BasicConfigKey<Integer> START_TIMEOUT = new BasicConfigKey<Integer>(
             Integer.class, "start.timeout", "Time to wait for SERVICE_UP to be set before failing (in seconds, default 60)", 60);
         
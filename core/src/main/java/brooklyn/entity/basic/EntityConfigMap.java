@@ -136,16 +136,19 @@ public class EntityConfigMap implements ConfigMap {
         } else {
             oldVal = ownConfig.put(key, val);
         }
+        entity.attributesInternal.onConfigChanged();
         entity.refreshInheritedConfigOfChildren();
         return oldVal;
     }
     
     public void setInheritedConfig(Map<ConfigKey<?>, ? extends Object> vals) {
         inheritedConfig.putAll(vals);
+        entity.attributesInternal.onConfigChanged();
     }
     
     public void clearInheritedConfig() {
         inheritedConfig.clear();
+        entity.attributesInternal.onConfigChanged();
     }
 
     @Override
@@ -0,0 +1,312 @@
+package brooklyn.entity.drivers.downloads;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.DigestInputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.config.ConfigKey;
+import brooklyn.config.StringConfigMap;
+import brooklyn.entity.basic.ConfigKeys;
+import brooklyn.event.basic.BasicConfigKey;
+import brooklyn.util.text.Strings;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+/**
+ * A cache, on the management node, of the artifacts downloaded when installing entities, so that each is
+ * fetched from its (typically remote) URL once, and then served to the machines installing it from the
+ * management node's web server (see {@link BasicDownloadsManager#setArtifactMirrorUrl(String)}).
+ * <p>
+ * Artifacts are stored by the SHA-256 of their content, so the same artifact from different URLs is stored
+ * once. Each artifact is registered under a key derived from its URLs (tried in order), with an optional
+ * expected SHA-256 (a download property "sha256") which the content must match. Only registered artifacts
+ * can be fetched, and each is fetched at most once at a time, however many machines request it.
+ * <p>
+ * The key is an HMAC of the URLs under a secret generated for (and stored in) the cache directory, so it
+ * cannot be guessed from the URLs: only those given the mirror URL when resolving downloads can fetch it.
+ * Remote artifacts are fetched with connect and read timeouts, following redirects (including from http
+ * to https), and only a 2xx response is cached.
+ */
+public class ArtifactCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactCache.class);
+
+    public static final ConfigKey<Boolean> MIRROR_ENABLED = BasicConfigKey.builder(Boolean.class)
+            .name(DownloadProducerFromProperties.DOWNLOAD_CONF_PREFIX+"mirror.enabled")
+            .description("Whether to download artifacts once to the management node, and have machines installing entities "
+                    + "fetch them from there (before trying their original URLs)")
+            .defaultValue(false)
+            .build();
+
+    public static final ConfigKey<String> MIRROR_DIR = BasicConfigKey.builder(String.class)
+            .name(DownloadProducerFromProperties.DOWNLOAD_CONF_PREFIX+"mirror.dir")
+            .description("Directory in which to cache mirrored artifacts (defaults to 'artifacts' in the brooklyn data directory)")
+            .build();
+
+    public static final ConfigKey<String> MIRROR_URL = BasicConfigKey.builder(String.class)
+            .name(DownloadProducerFromProperties.DOWNLOAD_CONF_PREFIX+"mirror.url")
+            .description("URL at which machines can reach the mirror (defaults to 'artifacts/' under the web console's URL); "
+                    + "for when that is not reachable from the machines")
+            .build();
+
+    private static final int CONNECT_TIMEOUT_MS = 30*1000;
+    private static final int READ_TIMEOUT_MS = 60*1000;
+    private static final int MAX_REDIRECTS = 10;
+
+    public static ArtifactCache newInstance(StringConfigMap config) {
+        String dir = config.getConfig(MIRROR_DIR);
+        if (Strings.isBlank(dir)) dir = new File(config.getConfig(ConfigKeys.BROOKLYN_DATA_DIR), "artifacts").getPath();
+        return new ArtifactCache(new File(dir));
+    }
+
+    private static class Registration {
+        final List<String> urls;
+        final String sha256;
+
+        Registration(List<String> urls, String sha256) {
+            this.urls = urls;
+            this.sha256 = sha256;
+        }
+    }
+
+    private final File contentDir;
+    private final File indexDir;
+    private final File secretFile;
+    private volatile SecretKeySpec secret;
+    private final ConcurrentMap<String, Registration> registrations = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, FutureTask<File>> fetches = Maps.newConcurrentMap();
+
+    public ArtifactCache(File dir) {
+        this.contentDir = new File(checkNotNull(dir, "dir"), "sha256");
+        this.indexDir = new File(dir, "index");
+        this.secretFile = new File(dir, "secret");
+    }
+
+    /** the key under which the given URLs' artifact is (or would be) registered */
+    public String keyFor(List<String> urls) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(getSecret());
+            byte[] hmac = mac.doFinal(Joiner.on("\n").join(urls).getBytes(Charsets.UTF_8));
+            return BaseEncoding.base16().lowerCase().encode(hmac);
+        } catch (GeneralSecurityException e) {
+            throw Throwables.propagate(e);
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /** the secret for the keys, generated the first time, and stored so that the cache is re-used after a restart */
+    private synchronized SecretKeySpec getSecret() throws IOException {
+        if (secret == null) {
+            byte[] bytes;
+            if (secretFile.exists()) {
+                bytes = Files.toByteArray(secretFile);
+            } else {
+                bytes = new byte[32];
+                new SecureRandom().nextBytes(bytes);
+                secretFile.getParentFile().mkdirs();
+                Files.write(bytes, secretFile);
+                secretFile.setReadable(false, false);
+                secretFile.setReadable(true, true);
+            }
+            secret = new SecretKeySpec(bytes, "HmacSHA256");
+        }
+        return secret;
+    }
+
+    /**
+     * Registers the artifact available at the given URLs (tried in order); does not fetch it.
+     * @param sha256 the expected SHA-256 of the artifact (in hex), or null if not known
+     * @return the key with which to {@link #get(String)} it
+     */
+    public String register(List<String> urls, @Nullable String sha256) {
+        String key = keyFor(urls);
+        registrations.put(key, new Registration(ImmutableList.copyOf(urls), Strings.isBlank(sha256) ? null : sha256.toLowerCase()));
+        return key;
+    }
+
+    public boolean isRegistered(String key) {
+        return registrations.containsKey(key);
+    }
+
+    /**
+     * Returns the artifact registered with the given key, fetching it if it is not yet cached (or waiting for
+     * a fetch already in progress).
+     * @return the cached file, or null if no artifact is registered with that key
+     * @throws IOException if the artifact could not be fetched from any of its URLs (with a matching checksum)
+     */
+    @Nullable
+    public File get(final String key) throws IOException {
+        final Registration registration = registrations.get(key);
+        if (registration == null) return null;
+        File cached = getCached(key, registration);
+        if (cached != null) return cached;
+
+        FutureTask<File> fetch = new FutureTask<File>(new Callable<File>() {
+            @Override public File call() throws IOException {
+                return fetch(key, registration);
+            }});
+        FutureTask<File> existing = fetches.putIfAbsent(key, fetch);
+        if (existing != null) {
+            fetch = existing;
+        } else {
+            try {
+                fetch.run();
+            } finally {
+                fetches.remove(key, fetch);
+            }
+        }
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /** the SHA-256 (in hex) of the artifact registered with the given key, or null if it is not cached */
+    @Nullable
+    public String getSha256(String key) throws IOException {
+        File index = new File(indexDir, key);
+        return index.exists() ? Files.toString(index, Charsets.UTF_8).trim() : null;
+    }
+
+    private File getCached(String key, Registration registration) throws IOException {
+        String sha256 = getSha256(key);
+        if (sha256 == null || (registration.sha256 != null && !registration.sha256.equals(sha256))) return null;
+        File result = new File(contentDir, sha256);
+        return result.exists() ? result : null;
+    }
+
+    private File fetch(String key, Registration registration) throws IOException {
+        contentDir.mkdirs();
+        indexDir.mkdirs();
+        IOException lastError = null;
+        for (String url : registration.urls) {
+            File tmp = File.createTempFile(key, ".tmp", contentDir);
+            try {
+                String sha256 = copy(url, tmp);
+                if (registration.sha256 != null && !registration.sha256.equals(sha256)) {
+                    throw new IOException("Checksum mismatch for "+url+": expected sha256 "+registration.sha256+" but was "+sha256);
+                }
+                File result = new File(contentDir, sha256);
+                if (!result.exists() && !tmp.renameTo(result)) {
+                    throw new IOException("Unable to move "+tmp+" to "+result);
+                }
+                Files.write(sha256, new File(indexDir, key), Charsets.UTF_8);
+                LOG.info("Cached artifact from {} ({} bytes, sha256 {})", new Object[] {url, result.length(), sha256});
+                return result;
+            } catch (IOException e) {
+                LOG.warn("Unable to cache artifact from "+url+" (trying any other URLs): "+e);
+                lastError = e;
+            } finally {
+                tmp.delete();
+            }
+        }
+        throw (lastError != null) ? lastError : new IOException("No URLs for artifact "+key);
+    }
+
+    /** copies the content at the url to the file, returning its SHA-256 in hex */
+    private static String copy(String url, File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw Throwables.propagate(e);
+        }
+        // open the file first, as it is the stream more likely to fail to open, and the url's is the costlier to leak
+        OutputStream out = new FileOutputStream(file);
+        try {
+            InputStream in = new DigestInputStream(openStream(url), digest);
+            try {
+                ByteStreams.copy(in, out);
+            } finally {
+                Closeables.closeQuietly(in);
+            }
+        } finally {
+            out.close();
+        }
+        return BaseEncoding.base16().lowerCase().encode(digest.digest());
+    }
+
+    /**
+     * opens the content at the url, with timeouts; for http(s), following redirects (including between http and
+     * https, which {@link HttpURLConnection} will not) and failing unless the response is 2xx
+     */
+    private static InputStream openStream(String url) throws IOException {
+        URL current = new URL(url);
+        for (int redirects = 0; ; redirects++) {
+            URLConnection connection = current.openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            if (!(connection instanceof HttpURLConnection)) {
+                return connection.getInputStream();
+            }
+            
+            HttpURLConnection http = (HttpURLConnection) connection;
+            http.setInstanceFollowRedirects(false);
+            int status = http.getResponseCode();
+            if (status >= 300 && status < 400) {
+                String location = http.getHeaderField("Location");
+                http.disconnect();
+                if (location == null) {
+                    throw new IOException("Redirect from "+current+" (HTTP status "+status+") has no location");
+                }
+                if (redirects >= MAX_REDIRECTS) {
+                    throw new IOException("Too many redirects fetching "+url+" (last to "+location+")");
+                }
+                URL next = new URL(current, location);
+                if (!"http".equals(next.getProtocol()) && !"https".equals(next.getProtocol())) {
+                    throw new IOException("Unsupported redirect from "+current+" to "+next);
+                }
+                current = next;
+            } else if (status < 200 || status >= 300) {
+                http.disconnect();
+                throw new IOException("Unable to fetch "+current+": HTTP status "+status);
+            } else {
+                return http.getInputStream();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ArtifactCache["+contentDir.getParent()+"]";
+    }
+}
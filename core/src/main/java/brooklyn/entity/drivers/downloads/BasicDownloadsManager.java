@@ -21,6 +21,9 @@ public class BasicDownloadsManager implements DownloadResolverManager {
 
     private final List<Function<? super DownloadRequirement, String>> filenameProducers = Lists.newCopyOnWriteArrayList();
 
+    private volatile ArtifactCache artifactCache;
+    private volatile String artifactMirrorUrl;
+
     /**
      * The default is (in-order) to:
      * <ol>
@@ -29,6 +32,8 @@ public class BasicDownloadsManager implements DownloadResolverManager {
      *   <li>Use the entity's Attributes.DOWNLOAD_URL
      *   <li>Use the cloudsoft fallback repo
      * </ol>
+     * If {@link ArtifactCache#MIRROR_ENABLED} then, once the web console has set the {@link #setArtifactMirrorUrl(String) mirror URL},
+     * the management node's mirror of the artifact is tried before any remote URLs.
      * @param config
      * @return
      */
@@ -51,6 +56,10 @@ public class BasicDownloadsManager implements DownloadResolverManager {
         result.registerFilenameProducer(FilenameProducers.firstPrimaryTargetOf(propertiesProducer));
         result.registerFilenameProducer(FilenameProducers.firstPrimaryTargetOf(attributeProducer));
         
+        if (config.getConfig(ArtifactCache.MIRROR_ENABLED)) {
+            result.setArtifactCache(ArtifactCache.newInstance(config));
+        }
+        
         return result;
     }
     
@@ -73,6 +82,29 @@ public class BasicDownloadsManager implements DownloadResolverManager {
         filenameProducers.add(checkNotNull(producer, "producer"));
     }
 
+    /** the cache of artifacts to mirror from the management node, or null if not mirroring */
+    public ArtifactCache getArtifactCache() {
+        return artifactCache;
+    }
+
+    public void setArtifactCache(ArtifactCache artifactCache) {
+        this.artifactCache = artifactCache;
+    }
+
+    /**
+     * Sets the URL at which the {@link #getArtifactCache() artifact cache} is served; once set, the mirror's URL
+     * for each artifact is tried before its remote URLs (after any local repo on the machine). The artifact is
+     * then at <code>artifactMirrorUrl + key + "/" + filename</code>, where <code>key</code> identifies the
+     * registered artifact in the cache.
+     */
+    public void setArtifactMirrorUrl(String artifactMirrorUrl) {
+        this.artifactMirrorUrl = (artifactMirrorUrl == null || artifactMirrorUrl.endsWith("/")) ? artifactMirrorUrl : artifactMirrorUrl+"/";
+    }
+
+    public String getArtifactMirrorUrl() {
+        return artifactMirrorUrl;
+    }
+
     @Override
     public DownloadResolver newDownloader(EntityDriver driver) {
         return newDownloader(new BasicDownloadRequirement(driver));
@@ -136,7 +168,36 @@ public class BasicDownloadsManager implements DownloadResolverManager {
             throw new IllegalArgumentException("No filenames matched for "+req+" (targets "+result+")");
         }
         
+        // Try the management node's mirror before the remote URLs
+        if (artifactCache != null && artifactMirrorUrl != null) {
+            result = insertMirror(result, filename, req);
+        }
+        
         // And return the result
         return new BasicDownloadResolver(result, filename);
     }
+
+    private Set<String> insertMirror(Set<String> targets, String filename, DownloadRequirement req) {
+        List<String> remoteUrls = Lists.newArrayList();
+        for (String target : targets) {
+            if (isRemoteUrl(target)) remoteUrls.add(target);
+        }
+        if (remoteUrls.isEmpty()) return targets;
+        
+        Object sha256 = req.getProperties().get("sha256");
+        String key = artifactCache.register(remoteUrls, (sha256 != null) ? sha256.toString() : null);
+        // the filename is only informative (the key identifies the artifact), so just keep it URL-safe
+        String mirrorUrl = artifactMirrorUrl+key+"/"+filename.replaceAll("[^A-Za-z0-9._-]", "_");
+        
+        Set<String> result = Sets.newLinkedHashSet();
+        for (String target : targets) {
+            if (isRemoteUrl(target)) result.add(mirrorUrl);
+            result.add(target);
+        }
+        return result;
+    }
+    
+    private static boolean isRemoteUrl(String target) {
+        return target.startsWith("http://") || target.startsWith("https://") || target.startsWith("ftp://");
+    }
 }
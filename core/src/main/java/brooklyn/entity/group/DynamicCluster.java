@@ -51,6 +51,25 @@ public interface DynamicCluster extends AbstractGroup, Cluster {
     public static final ConfigKey<EntityFactory> FACTORY = new BasicConfigKey<EntityFactory>(
             EntityFactory.class, "dynamiccluster.factory", "factory for creating new cluster members", null);
 
+    @SetFromFlag("maxConcurrentStarts")
+    public static final ConfigKey<Integer> MAX_CONCURRENT_STARTS = new BasicConfigKey<Integer>(
+            Integer.class, "dynamiccluster.maxConcurrentStarts", "Maximum number of new members to start at the same time when growing the cluster (0 for no limit)", 0);
+
+    @SetFromFlag("startBatchSize")
+    public static final ConfigKey<Integer> START_BATCH_SIZE = new BasicConfigKey<Integer>(
+            Integer.class, "dynamiccluster.startBatchSize", "Number of new members to create and start together when growing the cluster; " +
+            "a batch is started once there is room for all of it within maxConcurrentStarts (0 for all at once)", 0);
+
+    @SetFromFlag("overProvisionCount")
+    public static final ConfigKey<Integer> OVER_PROVISION_COUNT = new BasicConfigKey<Integer>(
+            Integer.class, "dynamiccluster.overProvisionCount", "Number of extra members to start when growing the cluster; " +
+            "those which start first are kept, and the rest are stopped", 0);
+
+    @SetFromFlag("addMembersWhenStarted")
+    public static final ConfigKey<Boolean> ADD_MEMBERS_WHEN_STARTED = new BasicConfigKey<Boolean>(
+            Boolean.class, "dynamiccluster.addMembersWhenStarted", "Whether new members are added to the cluster (and so counted in its size) " +
+            "as each one starts, rather than when they are created; implied by overProvisionCount", false);
+
     @SetFromFlag("removalStrategy")
     public static final ConfigKey<Function<Collection<Entity>, Entity>> REMOVAL_STRATEGY = new BasicConfigKey(
             Function.class, "dynamiccluster.removalstrategy", "strategy for deciding what to remove when down-sizing", null);
@@ -9,6 +9,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,11 +26,11 @@ import brooklyn.entity.basic.Lifecycle;
 import brooklyn.entity.proxying.EntitySpec;
 import brooklyn.entity.proxying.EntitySpecs;
 import brooklyn.entity.trait.Startable;
+import brooklyn.location.BatchMachineProvisioningLocation;
 import brooklyn.location.Location;
 import brooklyn.management.Task;
 import brooklyn.policy.Policy;
 import brooklyn.util.GroovyJavaMethods;
-import brooklyn.util.collections.MutableList;
 import brooklyn.util.collections.MutableMap;
 import brooklyn.util.exceptions.Exceptions;
 
@@ -49,6 +51,8 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
     // Mutex for synchronizing during re-size operations
     private final Object mutex = new Object[0];
     
+    private static final long START_POLL_PERIOD_MS = 100;
+    
     private static final Function<Collection<Entity>, Entity> defaultRemovalStrategy = new Function<Collection<Entity>, Entity>() {
         public Entity apply(Collection<Entity> contenders) {
             // choose last (i.e. newest) entity that is stoppable
@@ -225,18 +229,47 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
 
     /**
      * Increases the cluster size by the given number.
+     * <p>
+     * New members are created and started in batches of {@link #START_BATCH_SIZE}, with at most
+     * {@link #MAX_CONCURRENT_STARTS} starting at once; another batch is started as soon as there is room for it.
+     * If {@link #OVER_PROVISION_COUNT} is set, that many extra members are started, and once enough have started
+     * the rest are stopped (in the background).
      */
     private Collection<Entity> grow(int delta) {
-        Collection<Entity> addedEntities = Lists.newArrayList();
-        for (int i = 0; i < delta; i++) {
-            addedEntities.add(addNode());
+        int maxConcurrent = positiveOrUnlimited(getConfig(MAX_CONCURRENT_STARTS));
+        int batchSize = positiveOrUnlimited(getConfig(START_BATCH_SIZE));
+        Integer overProvisionCount = getConfig(OVER_PROVISION_COUNT);
+        int extra = (overProvisionCount != null) ? Math.max(0, overProvisionCount) : 0;
+        boolean addWhenStarted = extra > 0 || Boolean.TRUE.equals(getConfig(ADD_MEMBERS_WHEN_STARTED));
+        Location location = getLocation();
+        
+        int toCreate = delta + extra;
+        List<Entity> addedEntities = Lists.newArrayList();
+        Map<Entity, Throwable> errors = Maps.newLinkedHashMap();
+        Map<Entity, Task<?>> starting = Maps.newLinkedHashMap();
+        
+        while (addedEntities.size() < delta && (toCreate > 0 || !starting.isEmpty())) {
+            int nextBatch = Math.min(toCreate, Math.min(batchSize, maxConcurrent));
+            if (nextBatch > 0 && nextBatch <= maxConcurrent - starting.size()) {
+                starting.putAll(startNodes(nextBatch, location, addWhenStarted));
+                toCreate -= nextBatch;
+                continue;
+            }
+            
+            Entity entity = waitForAnyStart(starting);
+            Task<?> task = starting.remove(entity);
+            Map<Entity, Throwable> error = waitForTasksOnEntityStart(ImmutableMap.<Entity,Task<?>>of(entity, task));
+            if (error.isEmpty()) {
+                if (addWhenStarted) addMember(entity);
+                addedEntities.add(entity);
+            } else {
+                errors.putAll(error);
+            }
         }
-        Map<Entity, Task<?>> tasks = Maps.newLinkedHashMap();
-        for (Entity entity: addedEntities) {
-            Map<String,?> args = ImmutableMap.of("locations", ImmutableList.of(getLocation()));
-            tasks.put(entity, entity.invoke(Startable.START, args));
+        
+        if (!starting.isEmpty()) {
+            releaseSurplusNodes(starting);
         }
-        Map<Entity, Throwable> errors = waitForTasksOnEntityStart(tasks);
         
         if (!errors.isEmpty()) {
             if (isQuarantineEnabled()) {
@@ -246,7 +279,69 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
             }
         }
         
-        return MutableList.<Entity>builder().addAll(addedEntities).removeAll(errors.keySet()).build();
+        return addedEntities;
+    }
+    
+    private static int positiveOrUnlimited(Integer val) {
+        return (val == null || val <= 0) ? Integer.MAX_VALUE : val;
+    }
+    
+    private Map<Entity, Task<?>> startNodes(int count, Location location, boolean addWhenStarted) {
+        List<Entity> entities = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            entities.add(addWhenStarted ? createAndManageNode() : addNode());
+        }
+        
+        // If the location can provision machines in batches, let it know that the new members are about to obtain 
+        // their machines concurrently (so that it can create them with one request, rather than one each)
+        if (count > 1 && location instanceof BatchMachineProvisioningLocation) {
+            ((BatchMachineProvisioningLocation<?>)location).expectObtains(count);
+        }
+        
+        Map<Entity, Task<?>> tasks = Maps.newLinkedHashMap();
+        for (Entity entity: entities) {
+            Map<String,?> args = ImmutableMap.of("locations", ImmutableList.of(location));
+            tasks.put(entity, entity.invoke(Startable.START, args));
+        }
+        return tasks;
+    }
+    
+    /** returns (without removing) an entity whose start task has completed, blocking until there is one */
+    private Entity waitForAnyStart(Map<Entity, Task<?>> tasks) {
+        while (true) {
+            for (Map.Entry<Entity, Task<?>> entry : tasks.entrySet()) {
+                if (entry.getValue().isDone()) return entry.getKey();
+            }
+            try {
+                Iterables.getFirst(tasks.values(), null).get(START_POLL_PERIOD_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw Exceptions.propagate(e);
+            } catch (TimeoutException e) {
+                // check all tasks again
+            } catch (ExecutionException e) {
+                // task is done; reported when its entity is returned
+            }
+        }
+    }
+    
+    /** stops and removes the given nodes once they have started, without waiting for them */
+    private void releaseSurplusNodes(Map<Entity, Task<?>> tasks) {
+        for (Map.Entry<Entity, Task<?>> entry : tasks.entrySet()) {
+            final Entity entity = entry.getKey();
+            final Task<?> task = entry.getValue();
+            logger.info("Cluster {} has started enough members; stopping surplus {}", this, entity);
+            getExecutionContext().submit(MutableMap.of("displayName", "stopping surplus member "+entity), new Runnable() {
+                public void run() {
+                    try {
+                        task.get();
+                    } catch (InterruptedException e) {
+                        throw Exceptions.propagate(e);
+                    } catch (Exception e) {
+                        if (logger.isDebugEnabled()) logger.debug("Surplus member "+entity+" of "+DynamicClusterImpl.this+" failed to start (stopping anyway): "+e);
+                    }
+                    stopAndRemoveNode(entity);
+                }});
+        }
     }
     
     private void shrink(int delta) {
@@ -331,12 +426,17 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
     protected Map getCustomChildFlags() { return Maps.newLinkedHashMap(); }
     
     protected Entity addNode() {
+        Entity entity = createAndManageNode();
+        addMember(entity);
+        return entity;
+    }
+
+    private Entity createAndManageNode() {
         Map creation = Maps.newLinkedHashMap(getCustomChildFlags());
         if (logger.isDebugEnabled()) logger.debug("Creating and adding a node to cluster {}({}) with properties {}", new Object[] {this, getId(), creation});
 
         Entity entity = createNode(creation);
         Entities.manage(entity);
-        addMember(entity);
         return entity;
     }
 
@@ -5,6 +5,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,7 @@ import brooklyn.entity.basic.EntityLocal;
 import brooklyn.management.internal.EffectorUtils;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
 
 /**
@@ -56,6 +58,35 @@ public class EntityProxyImpl implements java.lang.reflect.InvocationHandler {
         }
     }
 
+    private static final Object[] NO_ARGS = new Object[0];
+    
+    private enum MethodKind { OBJECT, ENTITY_NON_EFFECTOR, OTHER }
+    
+    /**
+     * How each method invoked through a proxy is dispatched, computed on first invocation. Keyed by the 
+     * {@link Method} instances that the proxy classes pass in, so shared by all proxies of a given type.
+     * Whether an {@link MethodKind#OTHER} method is an effector is not cached here, because that depends
+     * on the entity's (dynamic) type.
+     * Weak keys (compared by identity), so that the cache does not prevent proxy classes being unloaded.
+     */
+    private static final ConcurrentMap<Method, MethodKind> METHOD_KINDS = new MapMaker().weakKeys().makeMap();
+    
+    private static MethodKind getMethodKind(Method m) {
+        MethodKind result = METHOD_KINDS.get(m);
+        if (result == null) {
+            MethodSignature sig = new MethodSignature(m);
+            if (OBJECT_METHODS.contains(sig)) {
+                result = MethodKind.OBJECT;
+            } else if (ENTITY_NON_EFFECTOR_METHODS.contains(sig)) {
+                result = MethodKind.ENTITY_NON_EFFECTOR;
+            } else {
+                result = MethodKind.OTHER;
+            }
+            METHOD_KINDS.put(m, result);
+        }
+        return result;
+    }
+
     public EntityProxyImpl(Entity entity) {
         this.delegate = checkNotNull(entity, "entity");
     }
@@ -70,15 +101,16 @@ public class EntityProxyImpl implements java.lang.reflect.InvocationHandler {
             throw new IllegalArgumentException("Static methods not supported via proxy on entity "+delegate);
         }
         
-        MethodSignature sig = new MethodSignature(m);
-
         Object result;
-        if (OBJECT_METHODS.contains(sig)) {
+        switch (getMethodKind(m)) {
+        case OBJECT:
             result = m.invoke(this, args);
-        } else if (ENTITY_NON_EFFECTOR_METHODS.contains(sig)) {
+            break;
+        case ENTITY_NON_EFFECTOR:
             result = m.invoke(delegate, args);
-        } else {
-            Object[] nonNullArgs = (args == null) ? new Object[0] : args;
+            break;
+        default:
+            Object[] nonNullArgs = (args == null) ? NO_ARGS : args;
             Effector<?> eff = findEffector(m, nonNullArgs);
             if (eff != null) {
                 result = EffectorUtils.invokeEffector(delegate, eff, nonNullArgs);
@@ -92,6 +124,10 @@ public class EntityProxyImpl implements java.lang.reflect.InvocationHandler {
     
     private Effector<?> findEffector(Method m, Object[] args) {
         String name = m.getName();
+        if (delegate instanceof AbstractEntity) {
+            // look up in the live type, rather than scanning a (synchronized) snapshot of it
+            return ((AbstractEntity)delegate).getMutableEntityType().getEffector(name);
+        }
         Set<Effector<?>> effectors = delegate.getEntityType().getEffectors();
         for (Effector<?> contender : effectors) {
             if (name.equals(contender.getName())) {
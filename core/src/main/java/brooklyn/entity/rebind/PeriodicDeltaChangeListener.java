@@ -1,7 +1,13 @@
 package brooklyn.entity.rebind;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
@@ -14,14 +20,18 @@ import brooklyn.location.Location;
 import brooklyn.management.ExecutionManager;
 import brooklyn.management.Task;
 import brooklyn.mementos.BrooklynMementoPersister;
+import brooklyn.mementos.Memento;
 import brooklyn.policy.Policy;
+import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.task.BasicTask;
 import brooklyn.util.task.ScheduledTask;
 import brooklyn.util.time.Time;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * A "simple" implementation that periodically persists all entities/locations/policies that have changed
@@ -32,6 +42,8 @@ import com.google.common.collect.Sets;
  * prevent hammering the persister when a bunch of entity attributes change (e.g. when the entity
  * has just polled over JMX/http/etc). Such a scheduled-write approach would be similar to the 
  * Nagle buffering algorithm in TCP (see tcp_nodelay).
+ * <p>
+ * When many items have changed, their mementos are generated concurrently (using a bounded number of threads).
  * 
  * @author aled
  *
@@ -47,6 +59,12 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
         Set<String> removedLocationIds = Sets.newLinkedHashSet();
         Set<String> removedEntityIds = Sets.newLinkedHashSet();
         Set<String> removedPolicyIds = Sets.newLinkedHashSet();
+        /** time of the first change recorded in this delta, or -1 if none */
+        long firstChangeTime = -1;
+        
+        void onChange() {
+            if (firstChangeTime < 0) firstChangeTime = System.currentTimeMillis();
+        }
         
         public boolean isEmpty() {
             return locations.isEmpty() && entities.isEmpty() && policies.isEmpty() && 
@@ -58,15 +76,35 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     
     private final BrooklynMementoPersister persister;
 
+    /** number of changed items above which mementos are generated concurrently */
+    private static final int PARALLEL_GENERATION_THRESHOLD = 10;
+    
     private final AtomicLong writeCount = new AtomicLong();
     
+    private final ThreadPoolExecutor mementoGenerator;
+    
+    private volatile long lastPersistLag = -1;
+    private volatile long maxPersistLag = -1;
+    private volatile long lastPersistDuration = -1;
+    
     private DeltaCollector deltaCollector = new DeltaCollector();
 
     private volatile boolean running = true;
 
     public PeriodicDeltaChangeListener(ExecutionManager executionManager, BrooklynMementoPersister persister, long periodMillis) {
+        this(executionManager, persister, periodMillis, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+    
+    /**
+     * @param maxGeneratorThreads the maximum number of mementos to generate concurrently
+     */
+    public PeriodicDeltaChangeListener(ExecutionManager executionManager, BrooklynMementoPersister persister, long periodMillis, int maxGeneratorThreads) {
         this.executionManager = executionManager;
         this.persister = persister;
+        this.mementoGenerator = new ThreadPoolExecutor(maxGeneratorThreads, maxGeneratorThreads, 1L, TimeUnit.SECONDS, 
+                new LinkedBlockingQueue<Runnable>(), 
+                new ThreadFactoryBuilder().setNameFormat("brooklyn-memento-generator-%d").setDaemon(true).build());
+        mementoGenerator.allowCoreThreadTimeOut(true);
         
         Callable<Task<?>> taskFactory = new Callable<Task<?>>() {
             @Override public Task<Void> call() {
@@ -93,6 +131,25 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     
     void stop() {
         running = false;
+        mementoGenerator.shutdownNow();
+    }
+    
+    /**
+     * Time (in milliseconds) between the earliest change included in the most recent persist and that persist 
+     * completing (i.e. handing the mementos to the persister), or -1 if nothing has been persisted.
+     */
+    public long getLastPersistLag() {
+        return lastPersistLag;
+    }
+
+    /** the largest value of {@link #getLastPersistLag()} so far */
+    public long getMaxPersistLag() {
+        return maxPersistLag;
+    }
+    
+    /** time (in milliseconds) taken to generate the mementos for the most recent persist, or -1 if none */
+    public long getLastPersistDuration() {
+        return lastPersistDuration;
     }
     
     /**
@@ -141,15 +198,45 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
                 if (prevDeltaCollector.isEmpty()) {
                     if (LOG.isTraceEnabled()) LOG.trace("No changes to persist since last delta");
                 } else {
+                    long startTime = System.currentTimeMillis();
+                    
                     PersisterDeltaImpl persisterDelta = new PersisterDeltaImpl();
-                    for (Location location : prevDeltaCollector.locations) {
-                        persisterDelta.locations.add(location.getRebindSupport().getMemento());
-                    }
-                    for (Entity entity : prevDeltaCollector.entities) {
-                        persisterDelta.entities.add(entity.getRebindSupport().getMemento());
-                    }
-                    for (Policy policy : prevDeltaCollector.policies) {
-                        persisterDelta.policies.add(policy.getRebindSupport().getMemento());
+                    int numChanged = prevDeltaCollector.locations.size() + prevDeltaCollector.entities.size() + prevDeltaCollector.policies.size();
+                    if (numChanged > PARALLEL_GENERATION_THRESHOLD) {
+                        List<Future<? extends Memento>> locationMementos = Lists.newArrayList();
+                        List<Future<? extends Memento>> entityMementos = Lists.newArrayList();
+                        List<Future<? extends Memento>> policyMementos = Lists.newArrayList();
+                        for (final Location location : prevDeltaCollector.locations) {
+                            locationMementos.add(mementoGenerator.submit(new Callable<Memento>() {
+                                public Memento call() {
+                                    return location.getRebindSupport().getMemento();
+                                }}));
+                        }
+                        for (final Entity entity : prevDeltaCollector.entities) {
+                            entityMementos.add(mementoGenerator.submit(new Callable<Memento>() {
+                                public Memento call() {
+                                    return entity.getRebindSupport().getMemento();
+                                }}));
+                        }
+                        for (final Policy policy : prevDeltaCollector.policies) {
+                            policyMementos.add(mementoGenerator.submit(new Callable<Memento>() {
+                                public Memento call() {
+                                    return policy.getRebindSupport().getMemento();
+                                }}));
+                        }
+                        addAll(persisterDelta.locations, locationMementos);
+                        addAll(persisterDelta.entities, entityMementos);
+                        addAll(persisterDelta.policies, policyMementos);
+                    } else {
+                        for (Location location : prevDeltaCollector.locations) {
+                            persisterDelta.locations.add(location.getRebindSupport().getMemento());
+                        }
+                        for (Entity entity : prevDeltaCollector.entities) {
+                            persisterDelta.entities.add(entity.getRebindSupport().getMemento());
+                        }
+                        for (Policy policy : prevDeltaCollector.policies) {
+                            persisterDelta.policies.add(policy.getRebindSupport().getMemento());
+                        }
                     }
                     persisterDelta.removedLocationIds = prevDeltaCollector.removedLocationIds;
                     persisterDelta.removedEntityIds = prevDeltaCollector.removedEntityIds;
@@ -157,6 +244,16 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
                     
                     // Tell the persister to persist it
                     persister.delta(persisterDelta);
+                    
+                    long endTime = System.currentTimeMillis();
+                    lastPersistDuration = endTime - startTime;
+                    if (prevDeltaCollector.firstChangeTime >= 0) {
+                        long lag = endTime - prevDeltaCollector.firstChangeTime;
+                        lastPersistLag = lag;
+                        if (lag > maxPersistLag) maxPersistLag = lag;
+                    }
+                    if (LOG.isDebugEnabled()) LOG.debug("Persisted {} changed items in {}ms; lag since first change {}ms (max {}ms)", 
+                            new Object[] {numChanged, lastPersistDuration, lastPersistLag, maxPersistLag});
                 }
 
             } finally {
@@ -165,6 +262,19 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
         }
     }
     
+    @SuppressWarnings("unchecked")
+    private static <T extends Memento> void addAll(Collection<T> result, List<Future<? extends Memento>> futures) {
+        try {
+            for (Future<? extends Memento> future : futures) {
+                result.add((T) future.get());
+            }
+        } catch (InterruptedException e) {
+            throw Exceptions.propagate(e);
+        } catch (ExecutionException e) {
+            throw Exceptions.propagate(e.getCause());
+        }
+    }
+    
     @Override
     public synchronized void onManaged(Entity entity) {
         if (isActive()) {
@@ -182,6 +292,7 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     @Override
     public synchronized void onChanged(Entity entity) {
         if (isActive()) {
+            deltaCollector.onChange();
             deltaCollector.entities.add(entity);
 
             // FIXME How to let the policy/location tell us about changes? Don't do this every time!
@@ -202,6 +313,7 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     @Override
     public synchronized void onUnmanaged(Entity entity) {
         if (isActive()) {
+            deltaCollector.onChange();
             deltaCollector.removedEntityIds.add(entity.getId());
             deltaCollector.entities.remove(entity);
         }
@@ -210,6 +322,7 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     @Override
     public synchronized void onUnmanaged(Location location) {
         if (isActive()) {
+            deltaCollector.onChange();
             deltaCollector.removedLocationIds.add(location.getId());
             deltaCollector.locations.remove(location);
         }
@@ -218,6 +331,7 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     @Override
     public synchronized void onChanged(Location location) {
         if (isActive()) {
+            deltaCollector.onChange();
             deltaCollector.locations.add(location);
         }
     }
@@ -225,6 +339,7 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     @Override
     public synchronized void onChanged(Policy policy) {
         if (isActive()) {
+            deltaCollector.onChange();
             deltaCollector.policies.add(policy);
         }
     }
@@ -1,5 +1,6 @@
 package brooklyn.entity.rebind;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.lang.reflect.Constructor;
@@ -7,6 +8,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -30,11 +35,16 @@ import brooklyn.mementos.LocationMemento;
 import brooklyn.mementos.PolicyMemento;
 import brooklyn.policy.Policy;
 import brooklyn.util.collections.MutableMap;
+import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.javalang.Reflections;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class RebindManagerImpl implements RebindManager {
 
@@ -45,6 +55,8 @@ public class RebindManagerImpl implements RebindManager {
 
     private volatile long periodicPersistPeriod = 1000;
     
+    private volatile int rebindThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    
     private volatile boolean running = true;
     
     private final ManagementContext managementContext;
@@ -59,6 +71,15 @@ public class RebindManagerImpl implements RebindManager {
         this.changeListener = ChangeListener.NOOP;
     }
 
+    /**
+     * Sets the number of threads with which to instantiate locations and policies when rebinding
+     * (defaults to the number of processors). Entities are instantiated one at a time, meanwhile.
+     */
+    public void setRebindThreads(int val) {
+        checkArgument(val > 0, "rebindThreads must be positive, but was %s", val);
+        this.rebindThreads = val;
+    }
+
     /**
      * Must be called before setPerister()
      */
@@ -114,42 +135,63 @@ public class RebindManagerImpl implements RebindManager {
         checkNotNull(memento, "memento");
         checkNotNull(classLoader, "classLoader");
         
-        Reflections reflections = new Reflections(classLoader);
-        Map<String,Entity> entities = Maps.newLinkedHashMap();
-        Map<String,Location> locations = Maps.newLinkedHashMap();
-        Map<String,Policy> policies = Maps.newLinkedHashMap();
+        final Reflections reflections = new Reflections(classLoader);
         
         final RebindContextImpl rebindContext = new RebindContextImpl(classLoader);
 
-        // Instantiate locations
-        LOG.info("RebindManager instantiating locations: {}", memento.getLocationIds());
-        for (LocationMemento locMemento : memento.getLocationMementos().values()) {
-            if (LOG.isTraceEnabled()) LOG.trace("RebindManager instantiating location {}", locMemento);
-            
-            Location location = newLocation(locMemento, reflections);
-            locations.put(locMemento.getId(), location);
-            rebindContext.registerLocation(locMemento.getId(), location);
-        }
-        
-        // Instantiate entities
-        LOG.info("RebindManager instantiating entities: {}", memento.getEntityIds());
-        for (EntityMemento entityMemento : memento.getEntityMementos().values()) {
-            if (LOG.isDebugEnabled()) LOG.debug("RebindManager instantiating entity {}", entityMemento);
+        // Instantiate locations, entities and policies; each is independent of the others until reconstructed.
+        // Locations and policies are instantiated concurrently. Entities are instantiated on this thread
+        // meanwhile, one at a time, because creating an entity runs its constructors and init(), i.e. arbitrary
+        // user code, which has never had to be thread-safe. All are then registered in the memento's order.
+        LOG.info("RebindManager instantiating {} locations, {} entities and {} policies", new Object[] {
+                memento.getLocationIds().size(), memento.getEntityIds().size(), memento.getPolicyIds().size()});
+        if (LOG.isDebugEnabled()) LOG.debug("RebindManager instantiating locations {}; entities {}; policies {}", new Object[] {
+                memento.getLocationIds(), memento.getEntityIds(), memento.getPolicyIds()});
+        long startTime = System.currentTimeMillis();
+        ListeningExecutorService executor = newRebindExecutor();
+        try {
+            List<ListenableFuture<Location>> locationFutures = Lists.newArrayList();
+            for (final LocationMemento locMemento : memento.getLocationMementos().values()) {
+                locationFutures.add(executor.submit(new Callable<Location>() {
+                    @Override public Location call() {
+                        if (LOG.isTraceEnabled()) LOG.trace("RebindManager instantiating location {}", locMemento);
+                        return newLocation(locMemento, reflections);
+                    }}));
+            }
+            List<ListenableFuture<Policy>> policyFutures = Lists.newArrayList();
+            for (final PolicyMemento policyMemento : memento.getPolicyMementos().values()) {
+                policyFutures.add(executor.submit(new Callable<Policy>() {
+                    @Override public Policy call() {
+                        if (LOG.isDebugEnabled()) LOG.debug("RebindManager instantiating policy {}", policyMemento);
+                        return newPolicy(policyMemento, reflections);
+                    }}));
+            }
+            List<Entity> entities = Lists.newArrayList();
+            for (EntityMemento entityMemento : memento.getEntityMementos().values()) {
+                if (LOG.isDebugEnabled()) LOG.debug("RebindManager instantiating entity {}", entityMemento);
+                entities.add(newEntity(entityMemento, reflections));
+            }
             
-            Entity entity = newEntity(entityMemento, reflections);
-            entities.put(entityMemento.getId(), entity);
-            rebindContext.registerEntity(entityMemento.getId(), entity);
+            int i = 0;
+            for (LocationMemento locMemento : memento.getLocationMementos().values()) {
+                rebindContext.registerLocation(locMemento.getId(), getInstance(locationFutures.get(i++)));
+            }
+            i = 0;
+            for (EntityMemento entityMemento : memento.getEntityMementos().values()) {
+                rebindContext.registerEntity(entityMemento.getId(), entities.get(i++));
+            }
+            i = 0;
+            for (PolicyMemento policyMemento : memento.getPolicyMementos().values()) {
+                rebindContext.registerPolicy(policyMemento.getId(), getInstance(policyFutures.get(i++)));
+            }
+        } finally {
+            executor.shutdownNow();
         }
+        LOG.info("RebindManager instantiated in {}ms", System.currentTimeMillis() - startTime);
         
-        // Instantiate policies
-        LOG.info("RebindManager instantiating policies: {}", memento.getPolicyIds());
-        for (PolicyMemento policyMemento : memento.getPolicyMementos().values()) {
-            if (LOG.isDebugEnabled()) LOG.debug("RebindManager instantiating policy {}", policyMemento);
-            
-            Policy policy = newPolicy(policyMemento, reflections);
-            policies.put(policyMemento.getId(), policy);
-            rebindContext.registerPolicy(policyMemento.getId(), policy);
-        }
+        // Reconstructing links the instances to each other (e.g. parents and children, group members),
+        // so is done on this thread
+        startTime = System.currentTimeMillis();
         
         // Reconstruct locations
         LOG.info("RebindManager reconstructing locations");
@@ -177,6 +219,7 @@ public class RebindManagerImpl implements RebindManager {
 
             entity.getRebindSupport().reconstruct(rebindContext, entityMemento);
         }
+        LOG.info("RebindManager reconstructed in {}ms", System.currentTimeMillis() - startTime);
         
         // Manage the top-level apps (causing everything under them to become managed)
         LOG.info("RebindManager managing entities");
@@ -194,6 +237,23 @@ public class RebindManagerImpl implements RebindManager {
         return apps;
     }
     
+    private ListeningExecutorService newRebindExecutor() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(rebindThreads, rebindThreads, 1L, TimeUnit.SECONDS, 
+                new LinkedBlockingQueue<Runnable>(), 
+                new ThreadFactoryBuilder().setNameFormat("brooklyn-rebind-%d").setDaemon(true).build());
+        return MoreExecutors.listeningDecorator(pool);
+    }
+    
+    private static <T> T getInstance(ListenableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw Exceptions.propagate(e);
+        } catch (ExecutionException e) {
+            throw Exceptions.propagate(e.getCause());
+        }
+    }
+    
     private Entity newEntity(EntityMemento memento, Reflections reflections) {
         String entityId = memento.getId();
         String entityType = checkNotNull(memento.getType(), "entityType of "+entityId);
@@ -6,16 +6,26 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import brooklyn.config.ConfigKey;
+import brooklyn.config.StringConfigMap;
 import brooklyn.entity.rebind.dto.BrooklynMementoImpl;
+import brooklyn.event.basic.BasicConfigKey;
 import brooklyn.mementos.BrooklynMemento;
 import brooklyn.mementos.BrooklynMementoPersister;
 import brooklyn.mementos.EntityMemento;
@@ -25,10 +35,15 @@ import brooklyn.util.exceptions.Exceptions;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
-import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class BrooklynMementoPersisterToMultiFile implements BrooklynMementoPersister {
 
@@ -47,17 +62,64 @@ public class BrooklynMementoPersisterToMultiFile implements BrooklynMementoPersi
     
     private final MementoSerializer<Object> serializer;
 
+    private final ThreadPoolExecutor pool;
     private final ListeningExecutorService executor;
 
     private static final int MAX_SERIALIZATION_ATTEMPTS = 5;
     
+    private static final long LOAD_PROGRESS_LOG_PERIOD_MS = 10*1000;
+    
+    /** default maximum number of threads for serializing and writing mementos (and for reading and deserializing them) */
+    public static final int DEFAULT_MAX_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    
+    public static final ConfigKey<String> SERIALIZER = new BasicConfigKey<String>(
+            String.class, "brooklyn.persistence.serializer",
+            "the format of persisted mementos: 'xml' (human-readable), or 'binary' (java serialization; faster and more compact, " +
+            "but requires all persisted values to be Serializable, and cannot read mementos written as xml)", "xml");
+
+    public static final ConfigKey<Integer> MAX_THREADS = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.persistence.maxThreads",
+            "the maximum number of mementos to serialize and write (or read and deserialize) concurrently", DEFAULT_MAX_THREADS);
+    
     private volatile boolean running = true;
     
+    /** totals for all writers, kept here so they do not decrease if writers are discarded */
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong skippedWriteCount = new AtomicLong();
+    
     public BrooklynMementoPersisterToMultiFile(File dir, ClassLoader classLoader) {
+        this(dir, new XmlMementoSerializer<Object>(classLoader), DEFAULT_MAX_THREADS);
+    }
+    
+    /**
+     * Uses the serializer and number of threads given by {@link #SERIALIZER} and {@link #MAX_THREADS} in the config
+     * (e.g. the management context's brooklyn properties).
+     */
+    public BrooklynMementoPersisterToMultiFile(File dir, ClassLoader classLoader, StringConfigMap config) {
+        this(dir, newSerializer(config.getConfig(SERIALIZER), classLoader), config.getConfig(MAX_THREADS));
+    }
+    
+    /** the serializer for the given format, as in {@link #SERIALIZER} */
+    public static MementoSerializer<Object> newSerializer(String format, ClassLoader classLoader) {
+        if ("xml".equalsIgnoreCase(format)) {
+            return new XmlMementoSerializer<Object>(classLoader);
+        } else if ("binary".equalsIgnoreCase(format)) {
+            return new BinaryMementoSerializer<Object>(classLoader);
+        } else {
+            throw new IllegalArgumentException("Unknown memento serializer '"+format+"' (expected 'xml' or 'binary')");
+        }
+    }
+    
+    /**
+     * @param rawSerializer the serializer for mementos, e.g. {@link XmlMementoSerializer} or {@link BinaryMementoSerializer}
+     *        (serialization will be retried, as it can fail if the memento is concurrently modified)
+     * @param maxThreads the maximum number of mementos to serialize and write (or read and deserialize) concurrently; more are queued
+     */
+    public BrooklynMementoPersisterToMultiFile(File dir, MementoSerializer<Object> rawSerializer, int maxThreads) {
         this.dir = checkNotNull(dir, "dir");
-        MementoSerializer<Object> rawSerializer = new XmlMementoSerializer<Object>(classLoader);
+        checkArgument(maxThreads > 0, "maxThreads must be positive, but was %s", maxThreads);
 //        this.serializer = new JsonMementoSerializer(classLoader);
-        this.serializer = new RetryingMementoSerializer<Object>(rawSerializer, MAX_SERIALIZATION_ATTEMPTS);
+        this.serializer = new RetryingMementoSerializer<Object>(checkNotNull(rawSerializer, "serializer"), MAX_SERIALIZATION_ATTEMPTS);
         
         checkArgument(dir.isDirectory() && dir.canWrite(), "dir "+dir+" is not a writable directory");
         
@@ -73,9 +135,14 @@ public class BrooklynMementoPersisterToMultiFile implements BrooklynMementoPersi
         policiesDir.mkdir();
         checkArgument(policiesDir.isDirectory() && policiesDir.canWrite(), "dir "+policiesDir+" is not a writable directory");
         
-        this.executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+        // Each writer only writes (or deletes) its file one at a time, so writes of different files can run concurrently
+        this.pool = new ThreadPoolExecutor(maxThreads, maxThreads, 1L, TimeUnit.SECONDS, 
+                new LinkedBlockingQueue<Runnable>(), 
+                new ThreadFactoryBuilder().setNameFormat("brooklyn-memento-persister-%d").setDaemon(true).build());
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = MoreExecutors.listeningDecorator(pool);
         
-        LOG.info("Memento-persister will use directory {}", dir);
+        LOG.info("Memento-persister will use directory {} ({}, max {} threads)", new Object[] {dir, rawSerializer.getClass().getSimpleName(), maxThreads});
     }
     
     @Override
@@ -87,8 +154,14 @@ public class BrooklynMementoPersisterToMultiFile implements BrooklynMementoPersi
         } catch (InterruptedException e) {
             throw Exceptions.propagate(e);
         }
+        LOG.info("Memento-persister stopped for directory {}; wrote {} bytes, skipped {} unchanged writes", 
+                new Object[] {dir, getBytesWritten(), getSkippedWriteCount()});
     }
     
+    /**
+     * Reads and deserializes the memento files concurrently (on this persister's bounded pool of threads),
+     * logging progress periodically for large mementos. Once stopped, the files are read on the caller's thread.
+     */
     @Override
     public BrooklynMemento loadMemento() throws IOException {
         FileFilter fileFilter = new FileFilter() {
@@ -103,26 +176,76 @@ public class BrooklynMementoPersisterToMultiFile implements BrooklynMementoPersi
         LOG.info("Loading memento from {}; {} entities, {} locations, {} policies", 
                 new Object[] {dir, entityFiles.length, locationFiles.length, policyFiles.length});
         
-        BrooklynMementoImpl.Builder builder = BrooklynMementoImpl.builder();
+        long startTime = System.currentTimeMillis();
+        AtomicInteger loadedCount = new AtomicInteger();
+        List<ListenableFuture<Object>> entityFutures = loadAll(entityFiles, loadedCount);
+        List<ListenableFuture<Object>> locationFutures = loadAll(locationFiles, loadedCount);
+        List<ListenableFuture<Object>> policyFutures = loadAll(policyFiles, loadedCount);
+        
+        int totalCount = entityFiles.length + locationFiles.length + policyFiles.length;
+        ListenableFuture<List<Object>> all = Futures.allAsList(Iterables.concat(entityFutures, locationFutures, policyFutures));
+        try {
+            while (true) {
+                try {
+                    all.get(LOAD_PROGRESS_LOG_PERIOD_MS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    LOG.info("Loading memento from {}; loaded {} of {} files", new Object[] {dir, loadedCount.get(), totalCount});
+                }
+            }
+        } catch (InterruptedException e) {
+            all.cancel(true);
+            throw Exceptions.propagate(e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw Exceptions.propagate(e.getCause());
+        }
         
-        for (File file : entityFiles) {
-            EntityMemento memento = (EntityMemento) serializer.fromString(readFile(file));
+        // add in file order, as the files were listed
+        BrooklynMementoImpl.Builder builder = BrooklynMementoImpl.builder();
+        for (ListenableFuture<Object> future : entityFutures) {
+            EntityMemento memento = (EntityMemento) Futures.getUnchecked(future);
             builder.entity(memento);
             if (memento.isTopLevelApp()) {
                 builder.applicationId(memento.getId());
             }
         }
-        for (File file : locationFiles) {
-            LocationMemento memento = (LocationMemento) serializer.fromString(readFile(file));
-            builder.location(memento);
+        for (ListenableFuture<Object> future : locationFutures) {
+            builder.location((LocationMemento) Futures.getUnchecked(future));
         }
-        for (File file : policyFiles) {
-            PolicyMemento memento = (PolicyMemento) serializer.fromString(readFile(file));
-            builder.policy(memento);
+        for (ListenableFuture<Object> future : policyFutures) {
+            builder.policy((PolicyMemento) Futures.getUnchecked(future));
         }
+        
+        LOG.info("Loaded memento from {}; {} files in {}ms", new Object[] {dir, totalCount, System.currentTimeMillis() - startTime});
         return builder.build();
     }
     
+    private List<ListenableFuture<Object>> loadAll(File[] files, final AtomicInteger loadedCount) {
+        List<ListenableFuture<Object>> result = Lists.newArrayListWithCapacity(files.length);
+        for (final File file : files) {
+            Callable<Object> job = new Callable<Object>() {
+                @Override public Object call() throws IOException {
+                    Object memento = serializer.fromString(readFile(file));
+                    loadedCount.incrementAndGet();
+                    return memento;
+                }};
+            ListenableFuture<Object> future = null;
+            if (running) {
+                try {
+                    future = executor.submit(job);
+                } catch (RejectedExecutionException e) {
+                    // stopped concurrently; fall through to read it on this thread
+                }
+            }
+            if (future == null) {
+                future = MoreExecutors.sameThreadExecutor().submit(job);
+            }
+            result.add(future);
+        }
+        return result;
+    }
+    
     @Override
     public void checkpoint(BrooklynMemento newMemento) {
         if (!running) {
@@ -149,9 +272,9 @@ public class BrooklynMementoPersisterToMultiFile implements BrooklynMementoPersi
             return;
         }
         if (LOG.isDebugEnabled()) LOG.debug("Checkpointed delta of memento; updating {} entities, {} locations and {} policies; " +
-        		"removing {} entities, {} locations and {} policies", 
+        		"removing {} entities, {} locations and {} policies; {} writes already queued", 
                 new Object[] {delta.entities(), delta.locations(), delta.policies(),
-                delta.removedEntityIds(), delta.removedLocationIds(), delta.removedPolicyIds()});
+                delta.removedEntityIds(), delta.removedLocationIds(), delta.removedPolicyIds(), getNumQueuedWrites()});
         
         for (EntityMemento entity : delta.entities()) {
             persist(entity);
@@ -187,14 +310,29 @@ public class BrooklynMementoPersisterToMultiFile implements BrooklynMementoPersi
         }
     }
 
+    /** total bytes written, for all mementos (including those since deleted) */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /** number of writes skipped because the memento was unchanged since it was last written */
+    public long getSkippedWriteCount() {
+        return skippedWriteCount.get();
+    }
+    
+    /** number of memento serializations and writes waiting for a thread */
+    public int getNumQueuedWrites() {
+        return pool.getQueue().size();
+    }
+
     private String readFile(File file) throws IOException {
-        return Joiner.on("\n").join(Files.readLines(file, Charsets.UTF_8));
+        return Files.toString(file, Charsets.UTF_8);
     }
     
     private void persist(EntityMemento entity) {
         MementoFileWriter<EntityMemento> writer = entityWriters.get(entity.getId());
         if (writer == null) {
-            entityWriters.putIfAbsent(entity.getId(), new MementoFileWriter<EntityMemento>(getFileFor(entity), executor, serializer));
+            entityWriters.putIfAbsent(entity.getId(), new MementoFileWriter<EntityMemento>(getFileFor(entity), executor, serializer, bytesWritten, skippedWriteCount));
             writer = entityWriters.get(entity.getId());
         }
         writer.write(entity);
@@ -203,7 +341,7 @@ public class BrooklynMementoPersisterToMultiFile implements BrooklynMementoPersi
     private void persist(LocationMemento location) {
         MementoFileWriter<LocationMemento> writer = locationWriters.get(location.getId());
         if (writer == null) {
-            locationWriters.putIfAbsent(location.getId(), new MementoFileWriter<LocationMemento>(getFileFor(location), executor, serializer));
+            locationWriters.putIfAbsent(location.getId(), new MementoFileWriter<LocationMemento>(getFileFor(location), executor, serializer, bytesWritten, skippedWriteCount));
             writer = locationWriters.get(location.getId());
         }
         writer.write(location);
@@ -212,7 +350,7 @@ public class BrooklynMementoPersisterToMultiFile implements BrooklynMementoPersi
     private void persist(PolicyMemento policy) {
         MementoFileWriter<PolicyMemento> writer = policyWriters.get(policy.getId());
         if (writer == null) {
-            policyWriters.putIfAbsent(policy.getId(), new MementoFileWriter<PolicyMemento>(getFileFor(policy), executor, serializer));
+            policyWriters.putIfAbsent(policy.getId(), new MementoFileWriter<PolicyMemento>(getFileFor(policy), executor, serializer, bytesWritten, skippedWriteCount));
             writer = policyWriters.get(policy.getId());
         }
         writer.write(policy);
@@ -2,6 +2,7 @@ package brooklyn.entity.rebind.persister;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -18,6 +19,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Throwables;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -28,6 +30,9 @@ import com.google.common.util.concurrent.MoreExecutors;
  * 
  * This class is thread-safe. If a write is in progress, one will be scheduled. If a write is already 
  * scheduled, we will just rely on the existing one; otherwise we will write now.
+ * <p>
+ * If the serialized form is identical to that last written, the file is not re-written. Note the value is
+ * still serialized (to compare it), so this saves only the disk write.
  * 
  * @author aled
  */
@@ -44,6 +49,13 @@ public class MementoFileWriter<T> {
     private final AtomicBoolean requireDelete = new AtomicBoolean();
     private final AtomicBoolean deleted = new AtomicBoolean();
     private final AtomicLong modCount = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong skippedWriteCount = new AtomicLong();
+    /** totals shared with other writers (e.g. a persister's), or null */
+    private final AtomicLong totalBytesWritten;
+    private final AtomicLong totalSkippedWriteCount;
+    /** digest of the last contents written; only accessed by the (sequential) write task */
+    private volatile byte[] lastWrittenDigest;
     
     /**
      * @param val
@@ -52,10 +64,21 @@ public class MementoFileWriter<T> {
      * @param serializer
      */
     public MementoFileWriter(File file, ListeningExecutorService executor, MementoSerializer<? super T> serializer) {
+        this(file, executor, serializer, null, null);
+    }
+
+    /**
+     * @param totalBytesWritten incremented as bytes are written (as well as this writer's own count), e.g. shared by all writers of a persister
+     * @param totalSkippedWriteCount incremented as unchanged writes are skipped (as well as this writer's own count)
+     */
+    public MementoFileWriter(File file, ListeningExecutorService executor, MementoSerializer<? super T> serializer, 
+            AtomicLong totalBytesWritten, AtomicLong totalSkippedWriteCount) {
         this.file = file;
         this.executor = executor;
         this.serializer = serializer;
         this.tmpFile = new File(file.getParentFile(), file.getName()+".tmp");
+        this.totalBytesWritten = totalBytesWritten;
+        this.totalSkippedWriteCount = totalSkippedWriteCount;
     }
 
     public void write(T val) {
@@ -186,14 +209,37 @@ public class MementoFileWriter<T> {
                 MoreExecutors.sameThreadExecutor());
     }
     
+    /** total bytes written to the file */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+    
+    /** number of writes skipped because the contents were unchanged since the previous write */
+    public long getSkippedWriteCount() {
+        return skippedWriteCount.get();
+    }
+    
     private void writeNow() throws IOException {
         T val = requireWrite.getAndSet(null);
         
         Stopwatch stopwatch = new Stopwatch();
         
+        byte[] contents = (serializer.toString(val)+"\n").getBytes(Charsets.UTF_8);
+        byte[] digest = Hashing.md5().hashBytes(contents).asBytes();
+        if (Arrays.equals(digest, lastWrittenDigest) && file.exists()) {
+            skippedWriteCount.incrementAndGet();
+            if (totalSkippedWriteCount != null) totalSkippedWriteCount.incrementAndGet();
+            modCount.incrementAndGet();
+            if (LOG.isTraceEnabled()) LOG.trace("Not writing {}, because unchanged", file);
+            return;
+        }
+        
         // Write to the temp file, then atomically move it to the permanent file location
-        Files.write(serializer.toString(val)+"\n", tmpFile, Charsets.UTF_8);
+        Files.write(contents, tmpFile);
         Files.move(tmpFile, file);
+        lastWrittenDigest = digest;
+        bytesWritten.addAndGet(contents.length);
+        if (totalBytesWritten != null) totalBytesWritten.addAndGet(contents.length);
 
         modCount.incrementAndGet();
 
@@ -5,12 +5,14 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import brooklyn.entity.Entity;
 import brooklyn.entity.basic.AbstractEntity;
+import brooklyn.entity.basic.ConfigKeys;
 import brooklyn.event.AttributeSensor;
 
 import com.google.common.collect.Maps;
@@ -30,10 +32,27 @@ public final class AttributeMap implements Serializable {
     final AbstractEntity entity;
 
     /**
-     * The values are stored as nested maps, with the key being the constituent parts of the sensor.
+     * The values are keyed by the sensor's (dotted) name; the constituent parts of the name are only used
+     * for the path-based methods, which join them. For sensors the key is the sensor's own name string,
+     * shared by every entity with that sensor, so lookups hash a string whose hash is cached rather than
+     * a list of strings. Keys from paths are interned, for the same sharing.
+     * <p>
+     * Uses a concurrent map to handle concurrent updates and gets (ENGR-2111). Concurrent writes to the
+     * attributes of a single entity are rare, so a low concurrency level is used to reduce the per-entity footprint.
      */
-    // Note that we synchronize on the top-level map, to handle concurrent updates and and gets (ENGR-2111)
-    private final ConcurrentMap<Collection<String>, Object> values = new ConcurrentHashMap<Collection<String>, Object>();
+    private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<String, Object>(16, 0.75f, 2);
+
+    /** the last published values of sensors with a hysteresis; created on first use */
+    private volatile ConcurrentMap<String, Number> lastPublished;
+
+    private final AtomicLong suppressedEventCount = new AtomicLong();
+
+    /**
+     * The entity's {@link ConfigKeys#SUPPRESS_UNCHANGED_ATTRIBUTES} as a Boolean, read on first use rather than
+     * on every update; until then (or after {@link #onConfigChanged()}) a marker object, which lets a reader
+     * only cache what it read if the config has not changed meanwhile.
+     */
+    private transient volatile Object suppressUnchanged;
 
     /**
      * Creates a new AttributeMap.
@@ -47,10 +66,9 @@ public final class AttributeMap implements Serializable {
 
     public Map<String, Object> asMap() {
         Map<String, Object> result = Maps.newLinkedHashMap();
-        for (Map.Entry<Collection<String>, Object> entry : values.entrySet()) {
-            String sensorName = Joiner.on('.').join(entry.getKey());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
             Object val = (isNull(entry.getValue())) ? null : entry.getValue();
-            result.put(sensorName, val);
+            result.put(entry.getKey(), val);
         }
         return result;
     }
@@ -65,17 +83,19 @@ public final class AttributeMap implements Serializable {
      */
     // TODO path must be ordered(and legal to contain duplicates like "a.b.a"; list would be better
     public <T> T update(Collection<String> path, T newValue) {
-        checkPath(path);
+        return update(toName(path).intern(), newValue);
+    }
 
+    private <T> T update(String name, T newValue) {
         if (newValue == null) {
             newValue = typedNull();
         }
 
         if (log.isTraceEnabled()) {
-            log.trace("setting sensor {}={} for {}", new Object[] {path, newValue, entity});
+            log.trace("setting sensor {}={} for {}", new Object[] {name, newValue, entity});
         }
 
-        T oldValue = (T) values.put(path, newValue);
+        T oldValue = (T) values.put(name, newValue);
         return (isNull(oldValue)) ? null : oldValue;
     }
 
@@ -83,12 +103,95 @@ public final class AttributeMap implements Serializable {
         Preconditions.checkNotNull(path, "path can't be null");
         Preconditions.checkArgument(!path.isEmpty(), "path can't be empty");
     }
+    
+    /** the dotted name for the given path, i.e. the inverse of {@link BasicSensor#getNameParts()} */
+    private String toName(Collection<String> path) {
+        checkPath(path);
+        return (path.size() == 1) ? path.iterator().next() : Joiner.on('.').join(path);
+    }
 
     public <T> T update(AttributeSensor<T> attribute, T newValue) {
         T oldValue = updateWithoutPublishing(attribute, newValue);
+        if (newValue instanceof Number && getHysteresis(attribute) > 0) {
+            lastPublished().put(attribute.getName(), (Number) newValue);
+        }
         entity.emitInternal(attribute, newValue);
         return oldValue;
     }
+
+    /**
+     * Whether unchanged values of this attribute are suppressed, i.e. the sensor is a
+     * {@link PublishOnChangeAttributeSensor} or the entity is configured with
+     * {@link ConfigKeys#SUPPRESS_UNCHANGED_ATTRIBUTES}. Callers that then use
+     * {@link #isSuppressibleUpdate(AttributeSensor, Object)} should hold this map's lock until they have
+     * stored (and published) the value, so that concurrent setters see each other's changes.
+     */
+    public boolean isSuppressingUnchanged(AttributeSensor<?> attribute) {
+        if (attribute instanceof PublishOnChangeAttributeSensor) return true;
+        Object cached = suppressUnchanged;
+        if (cached instanceof Boolean) return (Boolean) cached;
+        
+        // read the config outside the lock, as resolving it could block
+        boolean result = Boolean.TRUE.equals(entity.getConfig(ConfigKeys.SUPPRESS_UNCHANGED_ATTRIBUTES));
+        synchronized (this) {
+            if (suppressUnchanged == cached) suppressUnchanged = result;
+        }
+        return result;
+    }
+
+    /** to be called when the entity's config changes, so {@link #isSuppressingUnchanged(AttributeSensor)} re-reads it */
+    public void onConfigChanged() {
+        synchronized (this) {
+            suppressUnchanged = new Object();
+        }
+    }
+
+    /**
+     * Whether setting the attribute to this value need not publish an event, because it is unchanged and
+     * {@link #isSuppressingUnchanged(AttributeSensor) suppression applies} to the attribute. If so, the
+     * suppressed event is counted.
+     * <p>
+     * A value is unchanged if equal to the current value or, for numeric values with a hysteresis,
+     * if within the hysteresis of the last published value. An attribute that has never been set is
+     * always changed (even if set to null).
+     */
+    public <T> boolean isSuppressibleUpdate(AttributeSensor<T> attribute, T newValue) {
+        if (!isSuppressingUnchanged(attribute)) return false;
+        
+        Object rawOldValue = values.get(attribute.getName());
+        if (rawOldValue == null) return false;
+        
+        boolean unchanged;
+        double hysteresis = getHysteresis(attribute);
+        if (hysteresis > 0 && newValue instanceof Number) {
+            Number published = (lastPublished != null) ? lastPublished.get(attribute.getName()) : null;
+            Object compareTo = (published != null) ? published : rawOldValue;
+            unchanged = (compareTo instanceof Number) && 
+                    Math.abs(((Number)newValue).doubleValue() - ((Number)compareTo).doubleValue()) <= hysteresis;
+        } else {
+            unchanged = Objects.equal(isNull(rawOldValue) ? null : rawOldValue, newValue);
+        }
+        if (unchanged) suppressedEventCount.incrementAndGet();
+        return unchanged;
+    }
+
+    /** the number of updates for which {@link #isSuppressibleUpdate(AttributeSensor, Object)} was true */
+    public long getSuppressedEventCount() {
+        return suppressedEventCount.get();
+    }
+
+    private double getHysteresis(AttributeSensor<?> attribute) {
+        return (attribute instanceof PublishOnChangeAttributeSensor) ? ((PublishOnChangeAttributeSensor<?>)attribute).getHysteresis() : 0;
+    }
+
+    private ConcurrentMap<String, Number> lastPublished() {
+        if (lastPublished == null) {
+            synchronized (this) {
+                if (lastPublished == null) lastPublished = new ConcurrentHashMap<String, Number>(4, 0.75f, 1);
+            }
+        }
+        return lastPublished;
+    }
     
     public <T> T updateWithoutPublishing(AttributeSensor<T> attribute, T newValue) {
         if (log.isTraceEnabled()) {
@@ -100,7 +203,7 @@ public final class AttributeMap implements Serializable {
             }
         }
 
-        T oldValue = (T) update(attribute.getNameParts(), newValue);
+        T oldValue = (T) update(attribute.getName(), newValue);
         
         return (isNull(oldValue)) ? null : oldValue;
     }
@@ -110,18 +213,19 @@ public final class AttributeMap implements Serializable {
             log.debug("removing attribute {} on {}", attribute.getName(), entity);
         }
 
-        remove(attribute.getNameParts());
+        values.remove(attribute.getName());
+        if (lastPublished != null) lastPublished.remove(attribute.getName());
     }
 
     // TODO path must be ordered(and legal to contain duplicates like "a.b.a"; list would be better
     public void remove(Collection<String> path) {
-        checkPath(path);
+        String name = toName(path);
 
         if (log.isTraceEnabled()) {
-            log.trace("removing sensor {} for {}", new Object[] {path, entity});
+            log.trace("removing sensor {} for {}", new Object[] {name, entity});
         }
 
-        values.remove(path);
+        values.remove(name);
     }
 
     /**
@@ -135,13 +239,13 @@ public final class AttributeMap implements Serializable {
         // TODO previously this would return a map of the sub-tree if the path matched a prefix of a group of sensors, 
         // or the leaf value if only one value. Arguably that is not required - what is/was the use-case?
         // 
-        checkPath(path);
-        Object result = values.get(path);
+        Object result = values.get(toName(path));
         return (isNull(result)) ? null : result;
     }
 
     public <T> T getValue(AttributeSensor<T> sensor) {
-        return (T) getValue(sensor.getNameParts());
+        Object result = values.get(sensor.getName());
+        return (T) ((isNull(result)) ? null : result);
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,34 @@
+package brooklyn.event.basic;
+
+/**
+ * An attribute sensor for which setting the attribute to its current value does not publish an event
+ * (nor record a change for persistence), regardless of the entity's
+ * {@link brooklyn.entity.basic.ConfigKeys#SUPPRESS_UNCHANGED_ATTRIBUTES} setting.
+ * <p>
+ * For numeric values, a hysteresis can be given: a new value within that (absolute) amount of the last
+ * published value is stored, so is returned by getAttribute, but is not published.
+ */
+public class PublishOnChangeAttributeSensor<T> extends BasicAttributeSensor<T> {
+    private static final long serialVersionUID = 4715093522749304712L;
+
+    private final double hysteresis;
+
+    public PublishOnChangeAttributeSensor(Class<T> type, String name) {
+        this(type, name, name);
+    }
+    
+    public PublishOnChangeAttributeSensor(Class<T> type, String name, String description) {
+        this(type, name, description, 0);
+    }
+
+    public PublishOnChangeAttributeSensor(Class<T> type, String name, String description, double hysteresis) {
+        super(type, name, description);
+        if (hysteresis < 0) throw new IllegalArgumentException("Hysteresis must not be negative, but was "+hysteresis+" for "+name);
+        this.hysteresis = hysteresis;
+    }
+
+    /** the amount by which a numeric value must differ from the last published value for it to be published */
+    public double getHysteresis() {
+        return hysteresis;
+    }
+}
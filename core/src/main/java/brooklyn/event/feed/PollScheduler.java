@@ -0,0 +1,374 @@
+package brooklyn.event.feed;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.config.ConfigKey;
+import brooklyn.config.StringConfigMap;
+import brooklyn.event.basic.BasicConfigKey;
+import brooklyn.management.ExecutionContext;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.task.BasicTask;
+
+import com.google.common.base.Objects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the periodic jobs of all {@link Poller}s in a management context, instead of each poll job having
+ * its own {@link brooklyn.util.task.ScheduledTask}.
+ * <p>
+ * Jobs are held in a hashed timer wheel, advanced by a single thread every tick. Due jobs are submitted as tasks
+ * to the job's {@link ExecutionContext} (e.g. the entity's, so polls run with the entity's task context and tags),
+ * or run in a shared, bounded pool of threads if registered without a context. The job's {@link Registration} is
+ * re-used for every poll; but a task cannot be re-run, so polls in an execution context each create a (small)
+ * {@link BasicTask}. The first poll of a job is run immediately when it is registered; subsequent polls are at the
+ * job's period, plus a random offset of up to {@link #JITTER} of the period (fixed per job) so that jobs
+ * registered at the same time (e.g. all members of a cluster starting) do not all poll at the same moment.
+ * <p>
+ * If a poll takes longer than its period, the poll that would have been due is counted as an overrun,
+ * and the next poll is scheduled one period after that poll completes (so polls of a job never overlap).
+ * Statistics are recorded per {@link PollStats} object, typically one per feed, as well as in total.
+ */
+public class PollScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(PollScheduler.class);
+
+    public static final ConfigKey<Boolean> ENABLED = new BasicConfigKey<Boolean>(
+            Boolean.class, "brooklyn.feed.pollScheduler.enabled",
+            "whether feeds should use the shared poll scheduler (rather than a scheduled task per poll job)", true);
+
+    public static final ConfigKey<Long> TICK_DURATION = new BasicConfigKey<Long>(
+            Long.class, "brooklyn.feed.pollScheduler.tickDuration",
+            "the granularity, in milliseconds, of the poll scheduler's timer", 50L);
+
+    public static final ConfigKey<Integer> MAX_THREADS = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.feed.pollScheduler.maxThreads",
+            "the maximum number of threads for running polls registered without an execution context, " +
+            "beyond which polls are queued (0 or less means unbounded)", 8);
+
+    public static final ConfigKey<Double> JITTER = new BasicConfigKey<Double>(
+            Double.class, "brooklyn.feed.pollScheduler.jitter",
+            "the maximum random offset applied to each poll job's schedule, as a fraction of its period", 0.1d);
+
+    private static final int WHEEL_SIZE = 512;
+
+    /**
+     * Statistics for a set of poll jobs (e.g. those of a feed). Thread-safe.
+     */
+    public static class PollStats {
+        private final AtomicLong pollCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong overrunCount = new AtomicLong();
+        private final AtomicLong totalLatency = new AtomicLong();
+        private final AtomicLong maxLatency = new AtomicLong();
+        private volatile long lastLatency = -1;
+
+        void onPoll(long latency, boolean failed) {
+            pollCount.incrementAndGet();
+            if (failed) failureCount.incrementAndGet();
+            totalLatency.addAndGet(latency);
+            lastLatency = latency;
+            long oldMax;
+            while (latency > (oldMax = maxLatency.get())) {
+                if (maxLatency.compareAndSet(oldMax, latency)) break;
+            }
+        }
+
+        void onOverrun() {
+            overrunCount.incrementAndGet();
+        }
+
+        public long getPollCount() {
+            return pollCount.get();
+        }
+
+        /** polls where the job threw an exception (rather than reporting it to its handler) */
+        public long getFailureCount() {
+            return failureCount.get();
+        }
+
+        /** number of times a poll took longer than the period, so the next poll was late */
+        public long getOverrunCount() {
+            return overrunCount.get();
+        }
+
+        /** total time, in milliseconds, spent running polls */
+        public long getTotalLatency() {
+            return totalLatency.get();
+        }
+
+        public long getMaxLatency() {
+            return maxLatency.get();
+        }
+
+        /** time taken by the most recent poll, in milliseconds, or -1 if none has completed */
+        public long getLastLatency() {
+            return lastLatency;
+        }
+
+        public double getMeanLatency() {
+            long count = pollCount.get();
+            return (count == 0) ? 0 : ((double)totalLatency.get()) / count;
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this).add("polls", getPollCount()).add("overruns", getOverrunCount())
+                    .add("meanLatency", getMeanLatency()).add("maxLatency", getMaxLatency()).toString();
+        }
+    }
+
+    /**
+     * A job registered with the scheduler; the same instance is re-used for every poll of the job.
+     */
+    public class Registration implements Runnable {
+        private final Runnable job;
+        private final ExecutionContext executionContext;
+        private final long period;
+        private final long jitterOffset;
+        private final PollStats stats;
+        private volatile boolean cancelled;
+        /** time (utc millis) at which the next poll is due; guarded by the wheel lock */
+        private long deadline;
+        /** the tick on which the next poll will be run; guarded by the wheel lock */
+        private long dueTick;
+
+        Registration(Runnable job, ExecutionContext executionContext, long period, long jitterOffset, PollStats stats) {
+            this.job = job;
+            this.executionContext = executionContext;
+            this.period = period;
+            this.jitterOffset = jitterOffset;
+            this.stats = stats;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            synchronized (wheel) {
+                wheel[(int) (dueTick % WHEEL_SIZE)].remove(this);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public long getPeriod() {
+            return period;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+            long start = System.currentTimeMillis();
+            boolean failed = false;
+            try {
+                job.run();
+            } catch (Throwable t) {
+                failed = true;
+                log.warn("Error in poll job "+job+" (continuing to poll)", t);
+            }
+            long end = System.currentTimeMillis();
+            long latency = end - start;
+            stats.onPoll(latency, failed);
+            totalStats.onPoll(latency, failed);
+            if (cancelled) return;
+
+            long nextDeadline;
+            synchronized (wheel) {
+                nextDeadline = deadline + period;
+                if (nextDeadline < end) {
+                    stats.onOverrun();
+                    totalStats.onOverrun();
+                    nextDeadline = end + period;
+                }
+            }
+            schedule(this, nextDeadline);
+        }
+
+        @Override
+        public String toString() {
+            return "PollScheduler.Registration["+job+"; period="+period+"ms]";
+        }
+    }
+
+    private final long tickDuration;
+    private final double jitter;
+    private final List<Registration>[] wheel;
+    private final long startTime;
+    /** the next tick to be processed; guarded by the wheel lock */
+    private long currentTick = 0;
+    private final ExecutorService executor;
+    private final Thread timerThread;
+    private final PollStats totalStats = new PollStats();
+    private final AtomicLong registrationCount = new AtomicLong();
+    private final Random random = new Random();
+    private volatile boolean running = true;
+
+    public PollScheduler(StringConfigMap config) {
+        this(config.getConfig(TICK_DURATION), config.getConfig(MAX_THREADS), config.getConfig(JITTER));
+    }
+
+    @SuppressWarnings("unchecked")
+    public PollScheduler(long tickDuration, int maxThreads, double jitter) {
+        this.tickDuration = Math.max(1, tickDuration);
+        this.jitter = Math.max(0, jitter);
+        this.wheel = new List[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayList<Registration>();
+        }
+        this.startTime = System.currentTimeMillis();
+
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("brooklyn-poller-%d")
+                .setDaemon(true)
+                .build();
+        if (maxThreads > 0) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 1L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), threadFactory);
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        } else {
+            executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1L, TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(), threadFactory);
+        }
+
+        timerThread = new Thread(new Runnable() {
+                @Override public void run() {
+                    runTimer();
+                }},
+                "brooklyn-poll-scheduler");
+        timerThread.setDaemon(true);
+        timerThread.start();
+    }
+
+    /**
+     * Registers a job to be run now, and then periodically until the returned registration is cancelled,
+     * in the scheduler's own pool of threads.
+     *
+     * @param stats where to record the job's statistics (e.g. shared by all jobs of a feed)
+     */
+    public Registration register(Runnable job, long period, PollStats stats) {
+        return register(job, null, period, stats);
+    }
+
+    /**
+     * Registers a job to be run now, and then periodically until the returned registration is cancelled;
+     * each poll is submitted as a task to the given execution context (or run in the scheduler's pool, if null).
+     *
+     * @param stats where to record the job's statistics (e.g. shared by all jobs of a feed)
+     */
+    public Registration register(Runnable job, ExecutionContext executionContext, long period, PollStats stats) {
+        if (!running) throw new IllegalStateException("Poll scheduler "+this+" has been shut down");
+        if (period <= 0) throw new IllegalArgumentException("Poll period must be positive, but was "+period+" for "+job);
+        long jitterOffset;
+        synchronized (random) {
+            jitterOffset = (long) (random.nextDouble() * jitter * period);
+        }
+        Registration registration = new Registration(job, executionContext, period, jitterOffset, stats);
+        registrationCount.incrementAndGet();
+        long now = System.currentTimeMillis();
+        synchronized (wheel) {
+            // the first poll is now; subsequent polls are every period after now+jitterOffset
+            registration.deadline = now + registration.jitterOffset;
+        }
+        dispatch(registration);
+        return registration;
+    }
+
+    /** statistics for all jobs */
+    public PollStats getTotalStats() {
+        return totalStats;
+    }
+
+    /** total number of jobs ever registered */
+    public long getRegistrationCount() {
+        return registrationCount.get();
+    }
+
+    public void shutdownNow() {
+        running = false;
+        timerThread.interrupt();
+        executor.shutdownNow();
+    }
+
+    private void schedule(Registration registration, long deadline) {
+        synchronized (wheel) {
+            if (registration.cancelled) return;
+            registration.deadline = deadline;
+            long tick = (deadline - startTime + tickDuration - 1) / tickDuration;
+            registration.dueTick = Math.max(tick, currentTick);
+            wheel[(int) (registration.dueTick % WHEEL_SIZE)].add(registration);
+        }
+    }
+
+    /**
+     * Runs the registration's next poll; if that fails (e.g. the execution context rejects it), the job is
+     * rescheduled for one period later, so that it is not lost and other jobs due at the same time still run.
+     */
+    private void dispatch(Registration registration) {
+        try {
+            if (registration.executionContext != null) {
+                // tasks cannot be re-run, so this is the one object created per poll (the registration is re-used)
+                registration.executionContext.submit(new BasicTask<Void>(MutableMap.of("displayName", "poll"), registration));
+            } else {
+                executor.execute(registration);
+            }
+        } catch (RuntimeException e) {
+            if (!running) return; // shutting down; ignore
+            log.warn("Unable to run poll job "+registration+" (retrying after its period): "+e);
+            schedule(registration, System.currentTimeMillis() + registration.period);
+        }
+    }
+
+    private void runTimer() {
+        long nextTickTime = startTime;
+        List<Registration> due = new ArrayList<Registration>();
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                while (nextTickTime <= now) {
+                    synchronized (wheel) {
+                        Iterator<Registration> iter = wheel[(int) (currentTick % WHEEL_SIZE)].iterator();
+                        while (iter.hasNext()) {
+                            Registration contender = iter.next();
+                            if (contender.dueTick <= currentTick) {
+                                iter.remove();
+                                due.add(contender);
+                            }
+                        }
+                        currentTick++;
+                    }
+                    nextTickTime += tickDuration;
+                }
+                for (Registration registration : due) {
+                    if (!registration.cancelled) dispatch(registration);
+                }
+                due.clear();
+                Thread.sleep(Math.max(1, nextTickTime - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                if (running) log.warn("Poll scheduler "+this+" interrupted while running; continuing");
+                else return;
+            } catch (Throwable t) {
+                log.error("Error in poll scheduler "+this+" (continuing)", t);
+                due.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PollScheduler["+Integer.toHexString(System.identityHashCode(this))+"]";
+    }
+}
@@ -9,7 +9,10 @@ import org.slf4j.LoggerFactory;
 
 import brooklyn.entity.basic.EntityInternal;
 import brooklyn.entity.basic.EntityLocal;
+import brooklyn.event.feed.PollScheduler.PollStats;
+import brooklyn.management.ManagementContext;
 import brooklyn.management.Task;
+import brooklyn.management.internal.LocalManagementContext;
 import brooklyn.util.collections.MutableMap;
 import brooklyn.util.task.BasicTask;
 import brooklyn.util.task.ScheduledTask;
@@ -21,6 +24,10 @@ import com.google.common.base.Objects;
  * For executing periodic polls.
  * Jobs are added to the schedule, and then the poller is started.
  * The jobs will then be executed periodically, and the handler called for the result/failure.
+ * <p>
+ * Where the management context has a shared {@link PollScheduler}, jobs are registered with that
+ * (each poll still being run as a task in the entity's execution context); 
+ * otherwise a {@link ScheduledTask} is used for each job.
  * 
  * Assumes the schedule+start will be done single threaded, and that stop will not be done concurrently.
  */
@@ -32,6 +39,8 @@ public class Poller<V> {
     private final Set<PollJob<V>> pollJobs = new LinkedHashSet<PollJob<V>>();
     private final Set<Task> oneOffTasks = new LinkedHashSet<Task>();
     private final Set<ScheduledTask> tasks = new LinkedHashSet<ScheduledTask>();
+    private final Set<PollScheduler.Registration> registrations = new LinkedHashSet<PollScheduler.Registration>();
+    private final PollStats pollStats = new PollStats();
     private volatile boolean running = false;
     
     private static class PollJob<V> {
@@ -94,8 +103,12 @@ public class Poller<V> {
             oneOffTasks.add(((EntityInternal)entity).getExecutionContext().submit(task));
         }
         
+        PollScheduler pollScheduler = getPollScheduler();
         for (final PollJob<V> pollJob : pollJobs) {
-            if (pollJob.pollPeriod > 0) {
+            if (pollJob.pollPeriod > 0 && pollScheduler != null) {
+                registrations.add(pollScheduler.register(pollJob.wrappedJob, ((EntityInternal)entity).getExecutionContext(), 
+                        pollJob.pollPeriod, pollStats));
+            } else if (pollJob.pollPeriod > 0) {
                 Callable<Task<?>> pollingTaskFactory = new Callable<Task<?>>() {
                     public Task<?> call() {
                         return new BasicTask<V>(MutableMap.of("entity", entity), pollJob.wrappedJob); }
@@ -122,8 +135,28 @@ public class Poller<V> {
         for (ScheduledTask task : tasks) {
             task.cancel();
         }
+        for (PollScheduler.Registration registration : registrations) {
+            registration.cancel();
+        }
         oneOffTasks.clear();
         tasks.clear();
+        registrations.clear();
+    }
+
+    /** 
+     * Statistics (e.g. latency and overruns) for the periodic polls, 
+     * where these are run by the shared {@link PollScheduler}.
+     */
+    public PollStats getPollStats() {
+        return pollStats;
+    }
+    
+    private PollScheduler getPollScheduler() {
+        ManagementContext managementContext = ((EntityInternal)entity).getManagementContext();
+        if (managementContext instanceof LocalManagementContext) {
+            return ((LocalManagementContext)managementContext).getPollScheduler();
+        }
+        return null;
     }
 
     public boolean isRunning() {
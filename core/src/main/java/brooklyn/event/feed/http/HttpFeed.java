@@ -16,24 +16,30 @@ import java.util.concurrent.TimeUnit;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.CookieStore;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.conn.ssl.TrustStrategy;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import brooklyn.entity.basic.Entities;
+import brooklyn.entity.basic.EntityInternal;
 import brooklyn.entity.basic.EntityLocal;
 import brooklyn.event.feed.AbstractFeed;
 import brooklyn.event.feed.AttributePollHandler;
 import brooklyn.event.feed.DelegatingPollHandler;
 import brooklyn.event.feed.Poller;
+import brooklyn.management.ManagementContext;
+import brooklyn.management.internal.LocalManagementContext;
 import brooklyn.util.exceptions.Exceptions;
 
 import com.google.common.base.Objects;
@@ -87,6 +93,9 @@ import com.google.common.collect.Sets;
  * and it may report errors if that sensor is not available.
  * Some guidance for controlling enablement of a feed based on availability of a sensor
  * can be seen in HttpLatencyDetector (in brooklyn-policy). 
+ * <p>
+ * Where the management context has a shared {@link HttpPollClient}, requests are made with that (so 
+ * connections are pooled across all feeds); otherwise each poll has its own client.
  * 
  * @author aled
  */
@@ -254,6 +263,8 @@ public class HttpFeed extends AbstractFeed {
 
     @Override
     protected void preStart() {
+        final HttpPollClient sharedClient = getSharedClient();
+        
         for (final HttpPollIdentifier pollInfo : polls.keySet()) {
             Set<HttpPollConfig<?>> configs = polls.get(pollInfo);
             long minPeriod = Integer.MAX_VALUE;
@@ -264,20 +275,9 @@ public class HttpFeed extends AbstractFeed {
                 if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
             }
             
-            final DefaultHttpClient httpClient = new DefaultHttpClient();
-            URI uri = pollInfo.uriProvider.get();
-            // TODO if supplier returns null, we may wish to defer initialization until url available?
-            if (uri!=null && "https".equalsIgnoreCase(uri.getScheme())) {
-                try {
-                    int port = (uri.getPort() >= 0) ? uri.getPort() : 443;
-                    SSLSocketFactory socketFactory = new SSLSocketFactory(new TrustAllStrategy(), SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
-                    Scheme sch = new Scheme("https", port, socketFactory);
-                    httpClient.getConnectionManager().getSchemeRegistry().register(sch);
-                } catch (Exception e) {
-                    log.warn("Error in HTTP Feed of {}, setting trust for uri {}", entity, uri);
-                    throw Exceptions.propagate(e);
-                }
-            }
+            final HttpClient httpClient = (sharedClient != null) ? null : newHttpClient(pollInfo);
+            // as a poll's own client would have, keep its own cookies rather than those of the shared client
+            final CookieStore cookieStore = (sharedClient != null) ? new BasicCookieStore() : null;
 
             Callable<HttpPollValue> pollJob;
             
@@ -285,13 +285,13 @@ public class HttpFeed extends AbstractFeed {
                 pollJob = new Callable<HttpPollValue>() {
                     public HttpPollValue call() throws Exception {
                         if (log.isTraceEnabled()) log.trace("http polling for {} sensors at {}", entity, pollInfo);
-                        return httpGet(httpClient, pollInfo.uriProvider.get(), pollInfo.headers);
+                        return httpGet(sharedClient, cookieStore, httpClient, pollInfo.uriProvider.get(), pollInfo.headers);
                     }};
             } else if (pollInfo.method.equals("post")) {
                 pollJob = new Callable<HttpPollValue>() {
                     public HttpPollValue call() throws Exception {
                         if (log.isTraceEnabled()) log.trace("http polling for {} sensors at {}", entity, pollInfo);
-                        return httpPost(httpClient, pollInfo.uriProvider.get(), pollInfo.headers, pollInfo.body);
+                        return httpPost(sharedClient, cookieStore, httpClient, pollInfo.uriProvider.get(), pollInfo.headers, pollInfo.body);
                     }};
             } else {
                 throw new IllegalStateException("Unexpected http method: "+pollInfo.method);
@@ -301,27 +301,47 @@ public class HttpFeed extends AbstractFeed {
         }
     }
 
+    private HttpPollClient getSharedClient() {
+        ManagementContext managementContext = ((EntityInternal)entity).getManagementContext();
+        if (managementContext instanceof LocalManagementContext) {
+            return ((LocalManagementContext)managementContext).getHttpPollClient();
+        }
+        return null;
+    }
+    
+    private HttpClient newHttpClient(HttpPollIdentifier pollInfo) {
+        DefaultHttpClient httpClient = new DefaultHttpClient();
+        URI uri = pollInfo.uriProvider.get();
+        // TODO if supplier returns null, we may wish to defer initialization until url available?
+        if (uri!=null && "https".equalsIgnoreCase(uri.getScheme())) {
+            try {
+                int port = (uri.getPort() >= 0) ? uri.getPort() : 443;
+                SSLSocketFactory socketFactory = new SSLSocketFactory(new TrustAllStrategy(), SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+                Scheme sch = new Scheme("https", port, socketFactory);
+                httpClient.getConnectionManager().getSchemeRegistry().register(sch);
+            } catch (Exception e) {
+                log.warn("Error in HTTP Feed of {}, setting trust for uri {}", entity, uri);
+                throw Exceptions.propagate(e);
+            }
+        }
+        return httpClient;
+    }
+
     @SuppressWarnings("unchecked")
     private Poller<HttpPollValue> getPoller() {
         return (Poller<HttpPollValue>) poller;
     }
     
-    private HttpPollValue httpGet(HttpClient httpClient, URI uri, Map<String,String> headers) throws ClientProtocolException, IOException {
+    private HttpPollValue httpGet(HttpPollClient sharedClient, CookieStore cookieStore, HttpClient httpClient, URI uri, Map<String,String> headers) throws ClientProtocolException, IOException {
         HttpGet httpGet = new HttpGet(uri);
         for (Map.Entry<String,String> entry : headers.entrySet()) {
             httpGet.addHeader(entry.getKey(), entry.getValue());
         }
         
-        long startTime = System.currentTimeMillis();
-        HttpResponse httpResponse = httpClient.execute(httpGet);
-        try {
-            return new HttpPollValue(httpResponse, startTime);
-        } finally {
-            EntityUtils.consume(httpResponse.getEntity());
-        }
+        return execute(sharedClient, cookieStore, httpClient, httpGet);
     }
     
-    private HttpPollValue httpPost(HttpClient httpClient, URI uri, Map<String,String> headers, byte[] body) throws ClientProtocolException, IOException {
+    private HttpPollValue httpPost(HttpPollClient sharedClient, CookieStore cookieStore, HttpClient httpClient, URI uri, Map<String,String> headers, byte[] body) throws ClientProtocolException, IOException {
         HttpPost httpPost = new HttpPost(uri);
         for (Map.Entry<String,String> entry : headers.entrySet()) {
             httpPost.addHeader(entry.getKey(), entry.getValue());
@@ -331,8 +351,16 @@ public class HttpFeed extends AbstractFeed {
             httpPost.setEntity(httpEntity);
         }
         
+        return execute(sharedClient, cookieStore, httpClient, httpPost);
+    }
+    
+    private HttpPollValue execute(HttpPollClient sharedClient, CookieStore cookieStore, HttpClient httpClient, HttpUriRequest request) throws ClientProtocolException, IOException {
+        if (sharedClient != null) {
+            return sharedClient.execute(request, cookieStore);
+        }
+        
         long startTime = System.currentTimeMillis();
-        HttpResponse httpResponse = httpClient.execute(httpPost);
+        HttpResponse httpResponse = httpClient.execute(request);
         
         try {
             return new HttpPollValue(httpResponse, startTime);
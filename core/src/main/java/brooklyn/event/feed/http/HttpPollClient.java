@@ -0,0 +1,242 @@
+package brooklyn.event.feed.http;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.conn.ssl.TrustStrategy;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.config.ConfigKey;
+import brooklyn.config.StringConfigMap;
+import brooklyn.event.basic.BasicConfigKey;
+import brooklyn.util.exceptions.Exceptions;
+
+import com.google.common.base.Objects;
+
+/**
+ * An http client shared by the {@link HttpFeed}s of all entities in a management context, so that
+ * connections are pooled (and kept alive between polls) rather than each feed having its own client.
+ * <p>
+ * The number of concurrent requests to each host is limited (by {@link #MAX_CONNECTIONS_PER_HOST});
+ * a request beyond that waits for a connection, for up to the connect timeout.
+ * <p>
+ * The shared client is only used if {@link #ENABLED} is set; by default each poll has its own client.
+ * Note its limits differ from a poll's own client, which has no timeouts and no limit on connections
+ * to a host: by default at most 4 concurrent requests are made to each host, connecting times out after 10s 
+ * and waiting for data after 30s. Set {@link #MAX_CONNECTIONS_PER_HOST} higher, and {@link #CONNECT_TIMEOUT}
+ * and {@link #SOCKET_TIMEOUT} to 0 (meaning no timeout), to match that.
+ * <p>
+ * Cookies are not shared between callers: each request uses the {@link CookieStore} it is given
+ * (e.g. one per feed), as a feed's own client would.
+ * <p>
+ * As for a feed's own client, https certificates are not checked.
+ */
+public class HttpPollClient {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpPollClient.class);
+
+    public static final ConfigKey<Boolean> ENABLED = new BasicConfigKey<Boolean>(
+            Boolean.class, "brooklyn.feed.http.sharedClient.enabled",
+            "whether http feeds should use a client shared by the management context (rather than one per poll)", false);
+
+    public static final ConfigKey<Integer> MAX_CONNECTIONS_PER_HOST = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.feed.http.sharedClient.maxConnectionsPerHost",
+            "the maximum number of concurrent connections to each host (i.e. host and port)", 4);
+
+    public static final ConfigKey<Integer> MAX_CONNECTIONS = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.feed.http.sharedClient.maxConnections",
+            "the maximum number of concurrent connections in total", 1000);
+
+    public static final ConfigKey<Integer> CONNECT_TIMEOUT = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.feed.http.sharedClient.connectTimeout",
+            "timeout, in milliseconds, for connecting (and for waiting for a pooled connection); 0 means no timeout", 10*1000);
+
+    public static final ConfigKey<Integer> SOCKET_TIMEOUT = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.feed.http.sharedClient.socketTimeout",
+            "timeout, in milliseconds, waiting for data from the server; 0 means no timeout", 30*1000);
+
+    private final ThreadSafeClientConnManager connectionManager;
+    private final DefaultHttpClient httpClient;
+    
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong reusedConnectionCount = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+    
+    private static final long IDLE_CONNECTION_TIMEOUT_MS = 60*1000;
+    private final AtomicLong lastIdleCheckTime = new AtomicLong(System.currentTimeMillis());
+
+    public HttpPollClient(StringConfigMap config) {
+        this(config.getConfig(MAX_CONNECTIONS_PER_HOST), config.getConfig(MAX_CONNECTIONS), 
+                config.getConfig(CONNECT_TIMEOUT), config.getConfig(SOCKET_TIMEOUT));
+    }
+    
+    public HttpPollClient(int maxConnectionsPerHost, int maxConnections, int connectTimeout, int socketTimeout) {
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
+        try {
+            SSLSocketFactory socketFactory = new SSLSocketFactory(new TrustAllStrategy(), SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+            schemeRegistry.register(new Scheme("https", 443, socketFactory));
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+        
+        connectionManager = new ThreadSafeClientConnManager(schemeRegistry);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        connectionManager.setMaxTotal(maxConnections);
+        
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setConnectionTimeout(params, connectTimeout);
+        HttpConnectionParams.setSoTimeout(params, socketTimeout);
+        params.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, connectTimeout);
+        
+        httpClient = new DefaultHttpClient(connectionManager, params);
+    }
+    
+    /**
+     * Executes the request without cookies (i.e. any set by the response are discarded), 
+     * returning the (fully read) response.
+     */
+    public HttpPollValue execute(HttpUriRequest request) throws IOException {
+        return execute(request, new BasicCookieStore());
+    }
+    
+    /**
+     * Executes the request, returning the (fully read) response.
+     * 
+     * @param cookieStore the cookies to send, and to update from the response (rather than the client's shared store)
+     */
+    public HttpPollValue execute(HttpUriRequest request, CookieStore cookieStore) throws IOException {
+        HttpContext context = new BasicHttpContext();
+        context.setAttribute(ClientContext.COOKIE_STORE, checkNotNull(cookieStore, "cookieStore"));
+        long startTime = System.currentTimeMillis();
+        closeIdleConnectionsPeriodically(startTime);
+        boolean success = false;
+        try {
+            HttpResponse httpResponse = httpClient.execute(request, context);
+            try {
+                if (isReusedConnection(context)) reusedConnectionCount.incrementAndGet();
+                HttpPollValue result = new HttpPollValue(httpResponse, startTime);
+                success = true;
+                return result;
+            } finally {
+                // releases the connection back to the pool
+                EntityUtils.consume(httpResponse.getEntity());
+            }
+        } finally {
+            onRequestCompleted(System.currentTimeMillis() - startTime, success);
+        }
+    }
+    
+    private void closeIdleConnectionsPeriodically(long now) {
+        // e.g. for feeds that have stopped, or servers that have gone
+        long lastCheck = lastIdleCheckTime.get();
+        if (now - lastCheck > IDLE_CONNECTION_TIMEOUT_MS/2 && lastIdleCheckTime.compareAndSet(lastCheck, now)) {
+            closeIdleConnections(IDLE_CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private boolean isReusedConnection(HttpContext context) {
+        try {
+            HttpConnection connection = (HttpConnection) context.getAttribute(ExecutionContext.HTTP_CONNECTION);
+            return connection != null && connection.getMetrics().getRequestCount() > 1;
+        } catch (RuntimeException e) {
+            // e.g. connection already released; it is only for stats, so just skip
+            if (log.isTraceEnabled()) log.trace("Unable to determine connection reuse for http poll", e);
+            return false;
+        }
+    }
+
+    private void onRequestCompleted(long latency, boolean success) {
+        requestCount.incrementAndGet();
+        if (!success) failureCount.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        long oldMax;
+        while (latency > (oldMax = maxLatency.get())) {
+            if (maxLatency.compareAndSet(oldMax, latency)) break;
+        }
+    }
+    
+    public void shutdown() {
+        connectionManager.shutdown();
+    }
+    
+    /** closes connections that have not been used for the given time */
+    public void closeIdleConnections(long idleTime, TimeUnit unit) {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTime, unit);
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+    
+    /** requests that failed (e.g. connection refused or timed out), rather than returning a response */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+    
+    /** requests sent on a connection already used by a previous request */
+    public long getReusedConnectionCount() {
+        return reusedConnectionCount.get();
+    }
+    
+    /** total time, in milliseconds, for all requests (including reading the response) */
+    public long getTotalLatency() {
+        return totalLatency.get();
+    }
+    
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+    
+    public double getMeanLatency() {
+        long count = requestCount.get();
+        return (count == 0) ? 0 : ((double)totalLatency.get()) / count;
+    }
+    
+    /** number of connections currently open (whether in use or idle in the pool) */
+    public int getNumConnections() {
+        return connectionManager.getConnectionsInPool();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("requests", getRequestCount()).add("reused", getReusedConnectionCount())
+                .add("connections", getNumConnections()).add("meanLatency", getMeanLatency()).toString();
+    }
+
+    private static class TrustAllStrategy implements TrustStrategy {
+        @Override
+        public boolean isTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            return true;
+        }
+    }
+}
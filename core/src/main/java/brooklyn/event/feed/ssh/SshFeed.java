@@ -201,7 +201,7 @@ public class SshFeed extends AbstractFeed {
         ByteArrayOutputStream stdout = new ByteArrayOutputStream();
         ByteArrayOutputStream stderr = new ByteArrayOutputStream();
 
-        int exitStatus = machine.run(MutableMap.of("out", stdout, "err", stderr), command, env);
+        int exitStatus = machine.execPoll(MutableMap.of("out", stdout, "err", stderr), command, env);
 
         return new SshPollValue(machine, exitStatus, new String(stdout.toByteArray()), new String(stderr.toByteArray()));
     }
@@ -0,0 +1,189 @@
+package brooklyn.location.basic;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.location.BatchMachineProvisioningLocation;
+import brooklyn.location.MachineLocation;
+import brooklyn.location.MachineProvisioningLocation;
+import brooklyn.location.NoMachinesAvailableException;
+import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.task.Tasks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Coalesces concurrent calls to {@link MachineProvisioningLocation#obtain(Map)} into calls to
+ * {@link BatchMachineProvisioningLocation#obtain(Map, List)}, one for each distinct set of flags
+ * (ignoring the {@link LocationConfigKeys#CALLER_CONTEXT}, which differs for each caller). Each caller's own
+ * flags, including its caller context, are passed as that machine's flags.
+ * <p>
+ * Calls are only batched while they are expected (see {@link #expect(int, long)}); a location's
+ * {@code obtain(Map)} should check {@link #isExpecting()}, and otherwise obtain the machine as normal.
+ * The batch is provisioned once the expected number of calls have been made, or once the maximum wait
+ * has passed (whichever is first), in the thread of the caller that completed it. Callers are marked
+ * as blocked (see {@link Tasks#beginBlocking()}) while they wait for their batch.
+ */
+public class ObtainBatcher<T extends MachineLocation> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ObtainBatcher.class);
+
+    private static class Request<T> {
+        final Map<?,?> flags;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile T machine;
+        volatile Exception error;
+
+        Request(Map<?,?> flags) {
+            this.flags = flags;
+        }
+    }
+
+    private final BatchMachineProvisioningLocation<T> location;
+    private final Object lock = new Object();
+    /** guarded by lock */
+    private int expected;
+    /** guarded by lock */
+    private long deadline;
+    /** guarded by lock */
+    private List<Request<T>> pending = Lists.newArrayList();
+
+    public ObtainBatcher(BatchMachineProvisioningLocation<T> location) {
+        this.location = checkNotNull(location, "location");
+    }
+
+    /**
+     * Indicates that count calls to obtain are about to be made.
+     *
+     * @param maxWaitMillis how long to hold calls for, waiting for the rest of the batch
+     */
+    public void expect(int count, long maxWaitMillis) {
+        if (count <= 1 || maxWaitMillis <= 0) return;
+        synchronized (lock) {
+            long now = System.currentTimeMillis();
+            if (expected <= 0 || now >= deadline) {
+                expected = count;
+            } else {
+                expected += count;
+            }
+            deadline = Math.max(deadline, now + maxWaitMillis);
+        }
+    }
+
+    public boolean isExpecting() {
+        synchronized (lock) {
+            return expected > 0 && System.currentTimeMillis() < deadline;
+        }
+    }
+
+    public T obtain(Map<?,?> flags) throws NoMachinesAvailableException {
+        Request<T> request = new Request<T>(flags);
+        List<Request<T>> batch = null;
+        long waitUntil;
+        synchronized (lock) {
+            pending.add(request);
+            expected--;
+            if (expected <= 0) batch = takePending();
+            waitUntil = deadline;
+        }
+
+        Object blocking = Tasks.beginBlocking();
+        try {
+            if (batch == null) {
+                long waitTime = waitUntil - System.currentTimeMillis();
+                if (waitTime <= 0 || !request.done.await(waitTime, TimeUnit.MILLISECONDS)) {
+                    // not all expected calls were made in time; provision those that were (unless already being done)
+                    synchronized (lock) {
+                        if (pending.contains(request)) {
+                            if (LOG.isDebugEnabled()) LOG.debug("Timeout waiting for {} more obtain calls in {}; provisioning {}",
+                                    new Object[] {expected, location, pending.size()});
+                            batch = takePending();
+                            expected = 0;
+                        }
+                    }
+                }
+            }
+            if (batch != null) {
+                provision(batch);
+            }
+            request.done.await();
+        } catch (InterruptedException e) {
+            synchronized (lock) {
+                pending.remove(request);
+            }
+            throw Exceptions.propagate(e);
+        } finally {
+            Tasks.endBlocking(blocking);
+        }
+
+        if (request.error instanceof NoMachinesAvailableException) {
+            throw (NoMachinesAvailableException) request.error;
+        } else if (request.error != null) {
+            throw Exceptions.propagate(request.error);
+        }
+        return request.machine;
+    }
+
+    private List<Request<T>> takePending() {
+        List<Request<T>> result = ImmutableList.copyOf(pending);
+        pending.clear();
+        return result;
+    }
+
+    private void provision(List<Request<T>> batch) {
+        Map<Map<Object,Object>, List<Request<T>>> requestsByFlags = Maps.newLinkedHashMap();
+        for (Request<T> request : batch) {
+            Map<Object,Object> key = Maps.<Object,Object>newLinkedHashMap(request.flags);
+            key.remove(LocationConfigKeys.CALLER_CONTEXT.getName());
+            key.remove(LocationConfigKeys.CALLER_CONTEXT);
+            List<Request<T>> requests = requestsByFlags.get(key);
+            if (requests == null) {
+                requests = Lists.newArrayList();
+                requestsByFlags.put(key, requests);
+            }
+            requests.add(request);
+        }
+
+        // TODO Could provision groups with different flags concurrently; in practice a batch is normally one group
+        for (Map.Entry<Map<Object,Object>, List<Request<T>>> entry : requestsByFlags.entrySet()) {
+            List<Request<T>> requests = entry.getValue();
+            List<Map<?,?>> flagsPerMachine = Lists.newArrayList();
+            for (Request<T> request : requests) {
+                flagsPerMachine.add(request.flags);
+            }
+            LOG.info("Obtaining batch of {} machines in {}", requests.size(), location);
+            try {
+                List<T> machines = location.obtain(entry.getKey(), flagsPerMachine);
+                int numObtained = 0;
+                for (T machine : machines) {
+                    if (machine != null) numObtained++;
+                }
+                for (int i = 0; i < requests.size(); i++) {
+                    Request<T> request = requests.get(i);
+                    T machine = (i < machines.size()) ? machines.get(i) : null;
+                    if (machine != null) {
+                        request.machine = machine;
+                    } else {
+                        request.error = new NoMachinesAvailableException("Only "+numObtained+" of "+requests.size()+
+                                " machines could be obtained in batch in "+location);
+                    }
+                    request.done.countDown();
+                }
+            } catch (Exception e) {
+                for (Request<T> request : requests) {
+                    request.error = e;
+                    request.done.countDown();
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package brooklyn.location.basic;
 import static brooklyn.util.GroovyJavaMethods.truth;
 import groovy.lang.Closure;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
@@ -18,6 +19,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,13 +52,16 @@ import brooklyn.util.internal.ssh.sshj.SshjTool;
 import brooklyn.util.mutex.MutexSupport;
 import brooklyn.util.mutex.WithMutexes;
 import brooklyn.util.pool.BasicPool;
-import brooklyn.util.pool.Pool;
 import brooklyn.util.stream.KnownSizeInputStream;
 import brooklyn.util.stream.ReaderInputStream;
 import brooklyn.util.stream.StreamGobbler;
+import brooklyn.util.stream.TarFileWriter;
 import brooklyn.util.task.Tasks;
+import brooklyn.util.text.Identifiers;
+import brooklyn.util.text.StringEscapes.BashStringEscapes;
 import brooklyn.util.text.Strings;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
@@ -67,6 +72,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.io.Closeables;
 
@@ -138,6 +145,10 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     
     public static final ConfigKey<File> LOCAL_TEMP_DIR = SshTool.PROP_LOCAL_TEMP_DIR;
 
+    public static final ConfigKey<Boolean> POLL_VIA_EXEC = new BasicConfigKey<Boolean>(Boolean.class, "sshPollViaExec", 
+            "whether poll commands (see execPoll, used by SshFeed) should be run in an exec channel of a pooled ssh connection, " +
+            "rather than being copied to the machine and run as a script", true);
+
     /** specifies config keys where a change in the value does not require a new SshTool instance,
      * i.e. these can be specified per command on the tool */ 
     public static final Set<ConfigKey<?>> REUSABLE_SSH_PROPS = ImmutableSet.of(STDOUT, STDERR, SCRIPT_DIR);
@@ -155,7 +166,11 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
                 }
             }));
             
-    private transient  Pool<SshTool> vanillaSshToolPool;
+    private transient  BasicPool<SshTool> vanillaSshToolPool;
+    
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong totalPollLatency = new AtomicLong();
+    private final AtomicLong maxPollLatency = new AtomicLong();
     
     public SshMachineLocation() {
         this(MutableMap.of());
@@ -281,6 +296,83 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
             }});
     }
 
+    /**
+     * Runs a poll command, such as those of {@link brooklyn.event.feed.ssh.SshFeed}: typically short, and
+     * repeated frequently.
+     * <p>
+     * Unless {@link #POLL_VIA_EXEC} is false, the command runs in a new exec channel of one of this machine's 
+     * pooled ssh connections, so successive polls re-use a connection rather than each connecting afresh.
+     * Each pooled connection is leased to one caller at a time (the pool does not wait for one to be returned),
+     * so concurrent polls each open another connection. Unlike {@link #run(Map, String, Map)}, no script 
+     * is copied over sftp, run in a new shell, and then deleted. The command is run with {@code bash -e -l}, so it sees the same environment (e.g. PATH) and
+     * fails in the same way as when run as a script.
+     * <p>
+     * Only the {@code out} and {@code err} props are supported.
+     * 
+     * @return exit status of the command
+     */
+    public int execPoll(final Map<String,?> props, String command, Map<String,?> env) {
+        long start = System.currentTimeMillis();
+        try {
+            if (!getConfig(POLL_VIA_EXEC)) {
+                return run(props, command, env);
+            }
+            
+            StringBuilder script = new StringBuilder();
+            if (env != null) {
+                for (Map.Entry<String,?> entry : env.entrySet()) {
+                    if (entry.getKey() == null || entry.getValue() == null) continue;
+                    script.append("export ").append(entry.getKey()).append("=")
+                            .append(BashStringEscapes.wrapBash(entry.getValue().toString())).append("\n");
+                }
+            }
+            script.append(command);
+            final List<String> commands = ImmutableList.of("bash -e -l -c "+BashStringEscapes.wrapBash(script.toString()));
+            
+            // the streams are passed per command, so remove them from the ssh flags (else a pooled connection is not used)
+            Map<String,Object> sshFlags = new ConfigBag().putAll(props).removeAll(LOG_PREFIX, STDOUT, STDERR).getAllConfig();
+            
+            Object blocking = Tasks.beginBlocking();
+            try {
+                return execSsh(MutableMap.copyOf(sshFlags), new Function<SshTool, Integer>() {
+                    public Integer apply(SshTool ssh) {
+                        return ssh.execCommands(props, commands);
+                    }});
+            } finally {
+                Tasks.endBlocking(blocking);
+            }
+        } finally {
+            long latency = System.currentTimeMillis() - start;
+            pollCount.incrementAndGet();
+            totalPollLatency.addAndGet(latency);
+            long oldMax;
+            while (latency > (oldMax = maxPollLatency.get())) {
+                if (maxPollLatency.compareAndSet(oldMax, latency)) break;
+            }
+        }
+    }
+    
+    /** number of poll commands run by {@link #execPoll(Map, String, Map)} */
+    public long getPollCount() {
+        return pollCount.get();
+    }
+    
+    /** mean time, in milliseconds, taken by {@link #execPoll(Map, String, Map)} */
+    public double getMeanPollLatency() {
+        long count = pollCount.get();
+        return (count == 0) ? 0 : ((double)totalPollLatency.get()) / count;
+    }
+    
+    public long getMaxPollLatency() {
+        return maxPollLatency.get();
+    }
+    
+    /** number of pooled ssh connections to this machine currently open (whether in use or idle) */
+    public int getNumSshConnections() {
+        BasicPool<SshTool> pool = vanillaSshToolPool;
+        return (pool == null) ? 0 : pool.getOpenCount();
+    }
+    
     protected <T> T execSsh(Map props, Function<SshTool,T> task) {
         if (props.isEmpty() || Sets.difference(props.keySet(), REUSABLE_SSH_PROPS).isEmpty()) {
             return vanillaSshToolPool.exec(task);
@@ -339,7 +431,8 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
             if (LOG.isTraceEnabled()) LOG.trace("using ssh-tool {} (of type {}); props ", ssh, sshToolClass);
             
             Tasks.setBlockingDetails("Opening ssh connection");
-            try { ssh.connect(); } finally { Tasks.setBlockingDetails(null); }
+            Object blocking = Tasks.beginBlocking();
+            try { ssh.connect(); } finally { Tasks.endBlocking(blocking); Tasks.setBlockingDetails(null); }
             previouslyConnected = true;
             return ssh;
         } catch (Exception e) {
@@ -501,6 +594,7 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
             }
             
             Tasks.setBlockingDetails("SSH executing, "+summaryForLogging);
+            Object blocking = Tasks.beginBlocking();
             try {
                 return execSsh(MutableMap.copyOf(sshFlags.getAllConfig()), new Function<SshTool, Integer>() {
                     public Integer apply(SshTool ssh) {
@@ -510,6 +604,7 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
                     }});
 
             } finally {
+                Tasks.endBlocking(blocking);
                 Tasks.setBlockingDetails(null);
             }
             
@@ -597,6 +692,86 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
             }});
     }
 
+    /** @see #copyFilesTo(Map, Map) */
+    public Map<String,Integer> copyFilesTo(Map<String, ? extends InputStream> sources) {
+        return copyFilesTo(MutableMap.<String,Object>of(), sources);
+    }
+
+    /**
+     * Copies many files to the machine in one transfer, rather than a transfer per file as with
+     * {@link #copyTo(Map, InputStream, String)}: the files are packed into a tar locally, which is copied
+     * across and then unpacked and moved into place by a single command.
+     * <p>
+     * Requires {@code tar} on the machine; callers can fall back to copying individually any files which
+     * report a non-zero result.
+     *
+     * @param sources the contents of each file, keyed by its destination path (the streams are closed)
+     * @return the result for each destination, 0 if it was copied
+     */
+    public Map<String,Integer> copyFilesTo(final Map<String,?> props, Map<String, ? extends InputStream> sources) {
+        Map<String,Integer> result = Maps.newLinkedHashMap();
+        if (sources.isEmpty()) return result;
+        Preconditions.checkNotNull(address, "Host address must be specified for scp");
+
+        final List<String> destinations = ImmutableList.copyOf(sources.keySet());
+        final String remoteDir = "/tmp/brooklyn-batch-"+Identifiers.makeRandomId(8);
+        File tarFile = null;
+        try {
+            tarFile = File.createTempFile("brooklyn-batch", ".tar");
+            TarFileWriter tar = new TarFileWriter(tarFile);
+            try {
+                for (int i = 0; i < destinations.size(); i++) {
+                    tar.addEntry(Integer.toString(i), sources.get(destinations.get(i)));
+                }
+            } finally {
+                tar.close();
+            }
+
+            final File localTar = tarFile;
+            int copyResult = execSsh(props, new Function<SshTool,Integer>() {
+                public Integer apply(SshTool ssh) {
+                    return ssh.copyToServer(props, localTar, remoteDir+".tar");
+                }});
+
+            // each file reports its result on stdout, as "<marker> <index> <exit code>"
+            String marker = "BROOKLYN_BATCH_"+Identifiers.makeRandomId(8);
+            List<String> commands = Lists.newArrayList();
+            commands.add("mkdir -p "+remoteDir+" && tar -xf "+remoteDir+".tar -C "+remoteDir);
+            for (int i = 0; i < destinations.size(); i++) {
+                String dest = BashStringEscapes.wrapBash(destinations.get(i));
+                commands.add("mkdir -p \"$(dirname "+dest+")\" && mv -f "+remoteDir+"/"+i+" "+dest+"; echo \""+marker+" "+i+" $?\"");
+            }
+            commands.add("rm -rf "+remoteDir+" "+remoteDir+".tar");
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Map<String,Object> execProps = MutableMap.<String,Object>copyOf(props);
+            execProps.put(STDOUT.getName(), out);
+            if (copyResult == 0) {
+                execCommands(execProps, "copying "+destinations.size()+" files", commands);
+            }
+
+            for (String line : new String(out.toByteArray(), Charsets.UTF_8).split("\n")) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length == 3 && parts[0].equals(marker)) {
+                    result.put(destinations.get(Integer.parseInt(parts[1])), Integer.parseInt(parts[2]));
+                }
+            }
+            for (String dest : destinations) {
+                if (!result.containsKey(dest)) result.put(dest, (copyResult != 0) ? copyResult : -1);
+            }
+            if (LOG.isDebugEnabled()) LOG.debug("Copied {} files to {} in one transfer: {}", new Object[] {destinations.size(), this, result});
+            return result;
+
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        } finally {
+            for (InputStream source : sources.values()) {
+                Closeables.closeQuietly(source);
+            }
+            if (tarFile != null) tarFile.delete();
+        }
+    }
+
     /** installs the given URL at the indicated destination.
      * attempts to curl the sourceUrl on the remote machine,
      * then if that fails, loads locally (from classpath or file) and transfers.
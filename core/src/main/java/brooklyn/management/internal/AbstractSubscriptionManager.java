@@ -74,6 +74,11 @@ public abstract class AbstractSubscriptionManager implements SubscriptionManager
      *      if not supplied and there is a subscriber, this will be inferred from the subscriber and set up with SingleThreadedScheduler
      *      (supply this flag with value null to prevent any task preprocessor from being set)
      * <li>eventFilter - a Predicate&lt;SensorEvent&gt; instance to filter what events are delivered
+     * <li>batchDelivery - if true, events are queued and a single task delivers all those queued for the subscription
+     *      (to {@link brooklyn.event.BatchSensorEventListener#onEvents(java.util.List)} if the listener implements it,
+     *      otherwise by calling {@link SensorEventListener#onEvent(SensorEvent)} for each in turn)
+     * <li>latestValueWins - implies batchDelivery; if true, only the latest value of each attribute of each producer is delivered
+     *      from a batch, and intermediate values are dropped (events from non-attribute sensors are never dropped)
      * </ul>
      * 
      * @see SubscriptionManager#subscribe(Map, Entity, Sensor, SensorEventListener)
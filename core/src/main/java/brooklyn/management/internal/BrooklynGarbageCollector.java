@@ -36,10 +36,14 @@ import com.google.common.collect.Lists;
  *   <li>Max task age - the time after which a completed task will be automatically deleted
  *       (i.e. any task completed more than maxTaskAge+period milliseconds ago will definitely 
  *       be deleted.
+ *   <li>Max tasks global - the maximum number of tasks to be kept in memory in total, 
+ *       beyond which the oldest completed tasks are deleted regardless of tag
+ *   <li>Task history size - the number of summaries of deleted tasks to keep 
+ *       (see {@link BasicExecutionManager#getTaskHistory()})
  * </ul>
  * 
- * The default is to check with a period of one minute, to keep at most 100 tasks per tag, and to
- * delete old completed tasks after one day.
+ * The default is to check with a period of one minute, to keep at most 100 tasks per tag and 100000 in total, 
+ * to delete old completed tasks after one day, and to keep summaries of the last 1000 deleted tasks.
  * 
  * @author aled
  */
@@ -63,10 +67,21 @@ public class BrooklynGarbageCollector {
             "the number of milliseconds after which a completed task will be automatically deleted", 
             TimeUnit.DAYS.toMillis(1));
     
+    public static final ConfigKey<Integer> MAX_TASKS_GLOBAL = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.gc.maxTasksGlobal", 
+            "the maximum number of tasks to be kept in memory in total (0 or less for no limit)", 
+            100000);
+    
+    public static final ConfigKey<Integer> TASK_HISTORY_SIZE = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.gc.taskHistorySize", 
+            "the number of summaries of deleted tasks to keep, for displaying recent history", 
+            1000);
+    
     private final BasicExecutionManager executionManager;
     private final ScheduledExecutorService executor;
     private final long gcPeriodMs;
     private final int maxTasksPerTag;
+    private final int maxTasksGlobal;
     private final long maxTaskAge;
     private final boolean doSystemGc;
     private volatile boolean running = true;
@@ -76,6 +91,8 @@ public class BrooklynGarbageCollector {
 
         gcPeriodMs = brooklynProperties.getConfig(GC_PERIOD);
         maxTasksPerTag = brooklynProperties.getConfig(MAX_TASKS_PER_TAG);
+        maxTasksGlobal = brooklynProperties.getConfig(MAX_TASKS_GLOBAL);
+        executionManager.getTaskHistory().setCapacity(brooklynProperties.getConfig(TASK_HISTORY_SIZE));
         maxTaskAge = brooklynProperties.getConfig(MAX_TASK_AGE);
         doSystemGc = brooklynProperties.getConfig(DO_SYSTEM_GC);
         
@@ -151,11 +168,45 @@ public class BrooklynGarbageCollector {
     
     /**
      * Deletes old tasks. The age/number of tasks to keep is controlled by fields like 
-     * {@link #maxTasksPerTag} and {@link #maxTaskAge}. 
+     * {@link #maxTasksPerTag}, {@link #maxTasksGlobal} and {@link #maxTaskAge}. 
      */
     private void gcTasks() {
         if (!running) return;
         
+        gcTasksPerTag();
+        gcTasksGlobal();
+    }
+    
+    private static final Comparator<Task<?>> TASKS_OLDEST_FIRST = new Comparator<Task<?>>() {
+        @Override public int compare(Task<?> t1, Task<?> t2) {
+            long end1 = t1.isDone() ? t1.getEndTimeUtc() : Long.MAX_VALUE;
+            long end2 = t2.isDone() ? t2.getEndTimeUtc() : Long.MAX_VALUE;
+            return (end1 < end2) ? -1 : ((end1 == end2) ? 0 : 1);
+        }
+    };
+    
+    /**
+     * Deletes the oldest completed tasks if more than {@link #maxTasksGlobal} are in memory, 
+     * and completed tasks older than {@link #maxTaskAge} (including those with no tags, not seen by {@link #gcTasksPerTag()}).
+     */
+    private void gcTasksGlobal() {
+        if (!running) return;
+        
+        int numTasksToDelete = (maxTasksGlobal > 0) ? (int) (executionManager.getNumInMemoryTasks() - maxTasksGlobal) : 0;
+        if (numTasksToDelete <= 0 && maxTaskAge <= 0) return;
+        
+        // completed tasks are kept in the order they completed, so only those to be deleted are looked at
+        long endedBefore = (maxTaskAge > 0) ? System.currentTimeMillis() - maxTaskAge : Long.MIN_VALUE;
+        for (Task<?> taskToDelete : executionManager.getOldestCompletedTasks(Math.max(numTasksToDelete, 0), endedBefore)) {
+            executionManager.expireTask(taskToDelete);
+            numTasksToDelete--;
+        }
+        if (numTasksToDelete > 0 && LOG.isDebugEnabled()) {
+            LOG.debug("brooklyn gc unable to delete "+numTasksToDelete+" more tasks to reach max of "+maxTasksGlobal+": remaining tasks are incomplete");
+        }
+    }
+    
+    private void gcTasksPerTag() {
         Set<Object> taskTags = executionManager.getTaskTags();
         for (Object tag : taskTags) {
             if (tag == null || tag.equals(ManagementContextInternal.EFFECTOR_TAG)) {
@@ -165,23 +216,17 @@ public class BrooklynGarbageCollector {
             int numTasksToDelete = (tasksWithTag.size() - maxTasksPerTag);
             if (numTasksToDelete > 0 || maxTaskAge > 0) {
                 List<Task<?>> sortedTasks = Lists.newArrayList(tasksWithTag);
-                Collections.sort(sortedTasks, new Comparator<Task<?>>() {
-                    @Override public int compare(Task<?> t1, Task<?> t2) {
-                        long end1 = t1.isDone() ? t1.getEndTimeUtc() : Long.MAX_VALUE;
-                        long end2 = t2.isDone() ? t2.getEndTimeUtc() : Long.MAX_VALUE;
-                        return (end1 < end2) ? -1 : ((end1 == end2) ? 0 : 1);
-                    }
-                });
+                Collections.sort(sortedTasks, TASKS_OLDEST_FIRST);
                 if (numTasksToDelete > 0) {
                     for (Task<?> taskToDelete : sortedTasks.subList(0, numTasksToDelete)) {
                         if (!taskToDelete.isDone()) break;
-                        executionManager.deleteTask(taskToDelete);
+                        executionManager.expireTask(taskToDelete);
                     }
                 }
                 if (maxTaskAge > 0) {
                     for (Task<?> taskContender : sortedTasks.subList((numTasksToDelete > 0 ? numTasksToDelete : 0), sortedTasks.size())) {
                         if (taskContender.isDone() && (System.currentTimeMillis() - taskContender.getEndTimeUtc() > maxTaskAge)) {
-                            executionManager.deleteTask(taskContender);
+                            executionManager.expireTask(taskContender);
                         } else {
                             break; // all subsequent tasks will be newer; stop looking
                         }
@@ -10,6 +10,7 @@ public interface EntityChangeListener {
         @Override public void onLocationsChanged() {}
         @Override public void onMembersChanged() {}
         @Override public void onChildrenChanged() {}
+        @Override public void onDisplayNameChanged() {}
         @Override public void onPoliciesChanged() {}
         @Override public void onEffectorStarting(Effector<?> effector) {}
         @Override public void onEffectorCompleted(Effector<?> effector) {}
@@ -23,6 +24,8 @@ public interface EntityChangeListener {
 
     void onChildrenChanged();
 
+    void onDisplayNameChanged();
+
     void onPoliciesChanged();
 
     void onEffectorStarting(Effector<?> effector);
@@ -14,6 +14,7 @@ import brooklyn.entity.basic.AbstractEntity;
 import brooklyn.entity.basic.Entities;
 import brooklyn.entity.basic.EntityInternal;
 import brooklyn.event.AttributeSensor;
+import brooklyn.management.EntityManager;
 import brooklyn.management.ExecutionContext;
 import brooklyn.management.ManagementContext;
 import brooklyn.management.SubscriptionContext;
@@ -316,6 +317,16 @@ public class EntityManagementSupport {
         @Override
         public void onChildrenChanged() {
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
+            onHierarchyChanged();
+        }
+        @Override
+        public void onDisplayNameChanged() {
+            getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
+            onHierarchyChanged();
+        }
+        private void onHierarchyChanged() {
+            EntityManager entityManager = getManagementContext().getEntityManager();
+            if (entityManager instanceof LocalEntityManager) ((LocalEntityManager)entityManager).onHierarchyChanged(entity);
         }
         @Override
         public void onLocationsChanged() {
@@ -7,6 +7,9 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +60,15 @@ public class LocalEntityManager implements EntityManager {
     /** Proxies of the managed entities that are applications */
     protected final Set<Application> applications = Sets.newLinkedHashSet();
 
+    /** Incremented whenever the hierarchy of managed entities changes */
+    private final AtomicLong hierarchyVersion = new AtomicLong();
+
+    /**
+     * For each managed entity, the hierarchy version when it or any of its descendants last changed.
+     * Not guarded by this, as it is updated when children change, while holding the parent's lock.
+     */
+    protected final ConcurrentMap<String,Long> subtreeVersionsById = new ConcurrentHashMap<String,Long>();
+
     public LocalEntityManager(LocalManagementContext managementContext) {
         this.managementContext = checkNotNull(managementContext, "managementContext");
         this.entityTypeRegistry = new BasicEntityTypeRegistry();
@@ -100,6 +112,43 @@ public class LocalEntityManager implements EntityManager {
     synchronized Collection<Application> getApplications() {
         return ImmutableList.copyOf(applications);
     }
+
+    /**
+     * A number which changes whenever an entity is managed or unmanaged, or the children or display name
+     * of a managed entity change; for callers which cache views of the hierarchy (e.g. the REST API).
+     */
+    public long getHierarchyVersion() {
+        return hierarchyVersion.get();
+    }
+
+    /**
+     * A number which changes whenever the given entity or any of its descendants is managed or unmanaged, or has
+     * its children or display name changed; or -1 if the entity is not managed.
+     */
+    public long getHierarchyVersion(Entity e) {
+        Long result = subtreeVersionsById.get(e.getId());
+        return (result != null) ? result : -1;
+    }
+
+    /** Records that the children or display name of the given entity have changed */
+    void onHierarchyChanged(Entity e) {
+        if (subtreeVersionsById.containsKey(e.getId())) updateHierarchyVersion(e);
+    }
+
+    /** Gives the entity and its (managed) ancestors a new version */
+    private void updateHierarchyVersion(Entity e) {
+        long version = hierarchyVersion.incrementAndGet();
+        for (Entity it = e; it != null; it = it.getParent()) {
+            // only increase, in case of concurrent updates
+            Long old;
+            while ((old = subtreeVersionsById.get(it.getId())) != null && old < version) {
+                if (subtreeVersionsById.replace(it.getId(), old, version)) break;
+            }
+        }
+        // changed again once the ancestors are updated, so that a caller who read the version part way
+        // through will not take its (possibly stale) view to be current
+        hierarchyVersion.incrementAndGet();
+    }
     
     @Override
     public boolean isManaged(Entity e) {
@@ -280,6 +329,8 @@ public class LocalEntityManager implements EntityManager {
                 applications.add((Application)proxyE);
             }
             entities.add(proxyE);
+            subtreeVersionsById.put(e.getId(), 0L);
+            updateHierarchyVersion(e);
             return true;
         }
     }
@@ -290,12 +341,19 @@ public class LocalEntityManager implements EntityManager {
      */
     private synchronized boolean unmanageNonRecursive(Entity e) {
         Entity proxyE = toProxyEntityIfAvailable(e);
+        Entity parent = e.getParent();
         
         e.clearParent();
         if (e instanceof Application) applications.remove(proxyE);
         entities.remove(proxyE);
         entityProxiesById.remove(e.getId());
         Object old = entitiesById.remove(e.getId());
+        subtreeVersionsById.remove(e.getId());
+        if (parent != null) {
+            updateHierarchyVersion(parent);
+        } else {
+            hierarchyVersion.incrementAndGet();
+        }
         
         if (old==null) {
             log.warn("{} call to stop management of unknown entity (already unmanaged?) {}", this, e);
@@ -15,10 +15,13 @@ import org.slf4j.LoggerFactory;
 import brooklyn.config.BrooklynProperties;
 import brooklyn.entity.Application;
 import brooklyn.entity.Entity;
+import brooklyn.event.feed.PollScheduler;
+import brooklyn.event.feed.http.HttpPollClient;
 import brooklyn.management.ExecutionManager;
 import brooklyn.management.ManagementContext;
 import brooklyn.management.SubscriptionManager;
 import brooklyn.management.Task;
+import brooklyn.policy.basic.PolicyScheduler;
 import brooklyn.util.task.BasicExecutionManager;
 import brooklyn.util.text.Identifiers;
 
@@ -31,6 +34,9 @@ public class LocalManagementContext extends AbstractManagementContext {
 
     private BasicExecutionManager execution;
     private SubscriptionManager subscriptions;
+    private PollScheduler pollScheduler;
+    private HttpPollClient httpPollClient;
+    private PolicyScheduler policyScheduler;
     private LocalEntityManager entityManager;
     
     private final String shortid = Identifiers.getBase64IdFromValue(System.identityHashCode(this), 5);
@@ -96,15 +102,57 @@ public class LocalManagementContext extends AbstractManagementContext {
         if (!isRunning()) throw new IllegalStateException("Management context no longer running");
         
         if (execution == null) {
-            execution = new BasicExecutionManager(shortid);
+            execution = new BasicExecutionManager(shortid, configMap.getConfig(BasicExecutionManager.MAX_THREADS), 
+                    configMap.getConfig(BasicExecutionManager.MAX_EXTRA_THREADS));
             gc = new BrooklynGarbageCollector(configMap, execution);
         }
         return execution;
     }
     
+    /**
+     * The scheduler shared by the feeds of all entities in this management context, 
+     * or null if disabled (see {@link PollScheduler#ENABLED}).
+     */
+    public synchronized PollScheduler getPollScheduler() {
+        if (!isRunning()) throw new IllegalStateException("Management context no longer running");
+        
+        if (pollScheduler == null && configMap.getConfig(PollScheduler.ENABLED)) {
+            pollScheduler = new PollScheduler(configMap);
+        }
+        return pollScheduler;
+    }
+    
+    /**
+     * The http client shared by the http feeds of all entities in this management context,
+     * or null if disabled (see {@link HttpPollClient#ENABLED}).
+     */
+    public synchronized HttpPollClient getHttpPollClient() {
+        if (!isRunning()) throw new IllegalStateException("Management context no longer running");
+        
+        if (httpPollClient == null && configMap.getConfig(HttpPollClient.ENABLED)) {
+            httpPollClient = new HttpPollClient(configMap);
+        }
+        return httpPollClient;
+    }
+    
+    /**
+     * The scheduler shared by the policies of all entities in this management context, for their delayed work.
+     */
+    public synchronized PolicyScheduler getPolicyScheduler() {
+        if (!isRunning()) throw new IllegalStateException("Management context no longer running");
+        
+        if (policyScheduler == null) {
+            policyScheduler = new PolicyScheduler(configMap);
+        }
+        return policyScheduler;
+    }
+    
     @Override
     public void terminate() {
         super.terminate();
+        if (pollScheduler != null) pollScheduler.shutdownNow();
+        if (policyScheduler != null) policyScheduler.shutdownNow();
+        if (httpPollClient != null) httpPollClient.shutdown();
         if (execution != null) execution.shutdownNow();
         if (gc != null) gc.shutdownNow();
     }
@@ -2,13 +2,16 @@ package brooklyn.management.internal;
 
 import static brooklyn.util.JavaGroovyEquivalents.elvis;
 import static brooklyn.util.JavaGroovyEquivalents.groovyTruth;
-import static brooklyn.util.JavaGroovyEquivalents.join;
 import static brooklyn.util.JavaGroovyEquivalents.mapOf;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -19,6 +22,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import brooklyn.entity.Entity;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.BatchSensorEventListener;
 import brooklyn.event.Sensor;
 import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
@@ -47,6 +52,7 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
 
     private final AtomicLong totalEventsPublishedCount = new AtomicLong();
     private final AtomicLong totalEventsDeliveredCount = new AtomicLong();
+    private final AtomicLong totalEventsCoalescedCount = new AtomicLong();
     
     @SuppressWarnings("rawtypes")
     protected final ConcurrentMap<String, Subscription> allSubscriptions = new ConcurrentHashMap<String, Subscription>();
@@ -55,6 +61,20 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
     @SuppressWarnings("rawtypes")
     protected final ConcurrentMap<Object, Set<Subscription>> subscriptionsByToken = new ConcurrentHashMap<Object, Set<Subscription>>();
     
+    /** Key used in {@link #dispatchIndex} for a null (i.e. wildcard) producer or sensor. */
+    private static final Object WILDCARD = new Object();
+    @SuppressWarnings("rawtypes")
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+    
+    /**
+     * Index of producer to sensor to matching subscriptions (with {@link #WILDCARD} for nulls), used by {@link #publish(SensorEvent)}.
+     * <p>
+     * The arrays are copy-on-write: they are only replaced (never modified) in the synchronized subscribe and unsubscribe,
+     * so that publishing can read them without locking and without creating lookup tokens.
+     */
+    @SuppressWarnings("rawtypes")
+    private final ConcurrentMap<Object, ConcurrentMap<Object, Subscription[]>> dispatchIndex = new ConcurrentHashMap<Object, ConcurrentMap<Object, Subscription[]>>();
+    
     public LocalSubscriptionManager(ExecutionManager m) {
         this.em = m;
     }
@@ -71,6 +91,11 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         return totalEventsDeliveredCount.get();
     }
     
+    /** number of events dropped because a later value of the same attribute was delivered instead (see "latestValueWins" flag) */
+    public long getTotalEventsCoalesced() {
+        return totalEventsCoalescedCount.get();
+    }
+    
     @SuppressWarnings("unchecked")
     protected synchronized <T> SubscriptionHandle subscribe(Map<String, Object> flags, Subscription<T> s) {
         Entity producer = s.producer;
@@ -87,11 +112,14 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
             s.subscriberExecutionManagerTagSupplied = false;
         }
         s.eventFilter = (Predicate<SensorEvent<T>>) flags.remove("eventFilter");
+        s.latestValueWins = Boolean.TRUE.equals(flags.remove("latestValueWins"));
+        s.batchDelivery = Boolean.TRUE.equals(flags.remove("batchDelivery")) || s.latestValueWins;
         s.flags = flags;
         
         if (LOG.isDebugEnabled()) LOG.debug("Creating subscription {} for {} on {} {} in {}", new Object[] {s.id, s.subscriber, producer, sensor, this});
         allSubscriptions.put(s.id, s);
         addToMapOfSets(subscriptionsByToken, makeEntitySensorToken(s.producer, s.sensor), s);
+        addToDispatchIndex(s);
         if (s.subscriber!=null) {
             addToMapOfSets(subscriptionsBySubscriber, s.subscriber, s);
         }
@@ -106,12 +134,14 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         return (Set<SubscriptionHandle>) ((Set<?>) elvis(subscriptionsBySubscriber.get(subscriber), Collections.emptySet()));
     }
 
-    public synchronized Set<SubscriptionHandle> getSubscriptionsForEntitySensor(Entity source, Sensor<?> sensor) {
+    public Set<SubscriptionHandle> getSubscriptionsForEntitySensor(Entity source, Sensor<?> sensor) {
+        Object producerKey = (source != null) ? source : WILDCARD;
+        Object sensorKey = (sensor != null) ? sensor : WILDCARD;
         Set<SubscriptionHandle> subscriptions = new LinkedHashSet<SubscriptionHandle>();
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(source, sensor)), Collections.emptySet()));
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(null, sensor)), Collections.emptySet()));
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(source, null)), Collections.emptySet()));
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(null, null)), Collections.emptySet()));
+        subscriptions.addAll(Arrays.asList(getDispatchSubscriptions(producerKey, sensorKey)));
+        subscriptions.addAll(Arrays.asList(getDispatchSubscriptions(WILDCARD, sensorKey)));
+        subscriptions.addAll(Arrays.asList(getDispatchSubscriptions(producerKey, WILDCARD)));
+        subscriptions.addAll(Arrays.asList(getDispatchSubscriptions(WILDCARD, WILDCARD)));
         return subscriptions;
     }
 
@@ -127,6 +157,7 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         boolean result = allSubscriptions.remove(s.id) != null;
         boolean b2 = removeFromMapOfCollections(subscriptionsByToken, makeEntitySensorToken(s.producer, s.sensor), s);
         assert result==b2;
+        removeFromDispatchIndex(s);
         if (s.subscriber!=null) {
             boolean b3 = removeFromMapOfCollections(subscriptionsBySubscriber, s.subscriber, s);
             assert b3 == b2;
@@ -144,7 +175,6 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         return result;
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public <T> void publish(final SensorEvent<T> event) {
         // REVIEW 1459 - execution
         
@@ -161,12 +191,25 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         if (LOG.isTraceEnabled()) LOG.trace("{} got event {}", this, event);
         totalEventsPublishedCount.incrementAndGet();
         
-        Set<Subscription> subs = (Set<Subscription>) ((Set<?>) getSubscriptionsForEntitySensor(event.getSource(), event.getSensor()));
-        if (groovyTruth(subs)) {
-            if (LOG.isTraceEnabled()) LOG.trace("sending {}, {} to {}", new Object[] {event.getSensor().getName(), event, join(subs, ",")});
-            for (Subscription s : subs) {
-                if (s.eventFilter!=null && !s.eventFilter.apply(event))
-                    continue;
+        // reads the copy-on-write dispatch index without locking; see getSubscriptionsForEntitySensor for the same ordering
+        Object producerKey = (event.getSource() != null) ? event.getSource() : WILDCARD;
+        Object sensorKey = (event.getSensor() != null) ? event.getSensor() : WILDCARD;
+        deliver(getDispatchSubscriptions(producerKey, sensorKey), event);
+        if (producerKey != WILDCARD) deliver(getDispatchSubscriptions(WILDCARD, sensorKey), event);
+        if (sensorKey != WILDCARD) deliver(getDispatchSubscriptions(producerKey, WILDCARD), event);
+        if (producerKey != WILDCARD && sensorKey != WILDCARD) deliver(getDispatchSubscriptions(WILDCARD, WILDCARD), event);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> void deliver(Subscription[] subs, final SensorEvent<T> event) {
+        for (Subscription s : subs) {
+            if (s.eventFilter!=null && !s.eventFilter.apply(event))
+                continue;
+            if (LOG.isTraceEnabled()) LOG.trace("sending {}, {} to {}", new Object[] {event.getSensor().getName(), event, s});
+            if (s.batchDelivery) {
+                // counted as delivered when drained, as it may be coalesced
+                deliverBatched(s, event);
+            } else {
                 final Subscription sAtClosureCreation = s;
                 em.submit(mapOf("tag", s.subscriberExecutionManagerTag), new Runnable() {
                     public void run() {
@@ -177,6 +220,125 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         }
     }
     
+    /**
+     * Queues the event on the subscription; a task to drain the queue is only submitted if one is not already pending,
+     * so a burst of events results in a single task for the subscriber.
+     */
+    private <T> void deliverBatched(final Subscription<T> s, SensorEvent<T> event) {
+        s.pendingEvents.add(event);
+        if (s.drainScheduled.compareAndSet(false, true)) {
+            em.submit(mapOf("tag", s.subscriberExecutionManagerTag), new Runnable() {
+                public void run() {
+                    drainPendingEvents(s);
+                }});
+        }
+    }
+    
+    /**
+     * Delivers the subscription's queued events. Drains of a subscription are serialized, so events are delivered
+     * in order even if its task tag does not run tasks one at a time. An exception from the listener for one event
+     * is logged, and does not prevent delivery of the other events.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> void drainPendingEvents(Subscription<T> s) {
+        synchronized (s.drainLock) {
+            // clear the flag before draining, so an event added concurrently will cause another drain (rather than being missed)
+            s.drainScheduled.set(false);
+            List<SensorEvent<T>> events = new ArrayList<SensorEvent<T>>();
+            SensorEvent<T> next;
+            while ((next = s.pendingEvents.poll()) != null) {
+                events.add(next);
+            }
+            if (events.isEmpty()) return;
+            if (s.latestValueWins) events = coalesceAttributeEvents(events);
+            totalEventsDeliveredCount.addAndGet(events.size());
+            
+            if (s.listener instanceof BatchSensorEventListener) {
+                ((BatchSensorEventListener) s.listener).onEvents(Collections.unmodifiableList(events));
+            } else {
+                for (SensorEvent<T> event : events) {
+                    try {
+                        s.listener.onEvent(event);
+                    } catch (Exception e) {
+                        LOG.warn("Error in "+s+" handling event "+event+" (continuing with other events)", e);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Drops all but the latest event for each attribute of each producer; other events (e.g. notifications) are all kept.
+     * The order is that of the kept events.
+     */
+    private <T> List<SensorEvent<T>> coalesceAttributeEvents(List<SensorEvent<T>> events) {
+        if (events.size() <= 1) return events;
+        Map<Object, Integer> latestIndexByToken = new HashMap<Object, Integer>();
+        for (int i = 0; i < events.size(); i++) {
+            SensorEvent<T> event = events.get(i);
+            if (event.getSensor() instanceof AttributeSensor) {
+                latestIndexByToken.put(makeEntitySensorToken(event), i);
+            }
+        }
+        List<SensorEvent<T>> result = new ArrayList<SensorEvent<T>>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            SensorEvent<T> event = events.get(i);
+            if (!(event.getSensor() instanceof AttributeSensor) || latestIndexByToken.get(makeEntitySensorToken(event)) == i) {
+                result.add(event);
+            }
+        }
+        totalEventsCoalescedCount.addAndGet(events.size() - result.size());
+        return result;
+    }
+    
+    @SuppressWarnings("rawtypes")
+    private Subscription[] getDispatchSubscriptions(Object producerKey, Object sensorKey) {
+        Map<Object, Subscription[]> subsBySensor = dispatchIndex.get(producerKey);
+        if (subsBySensor == null) return NO_SUBSCRIPTIONS;
+        Subscription[] result = subsBySensor.get(sensorKey);
+        return (result != null) ? result : NO_SUBSCRIPTIONS;
+    }
+    
+    /** must be called while synchronized on this; replaces (rather than modifies) the array in {@link #dispatchIndex} */
+    @SuppressWarnings("rawtypes")
+    private void addToDispatchIndex(Subscription s) {
+        Object producerKey = (s.producer != null) ? s.producer : WILDCARD;
+        Object sensorKey = (s.sensor != null) ? s.sensor : WILDCARD;
+        ConcurrentMap<Object, Subscription[]> subsBySensor = dispatchIndex.get(producerKey);
+        if (subsBySensor == null) {
+            subsBySensor = new ConcurrentHashMap<Object, Subscription[]>();
+            dispatchIndex.put(producerKey, subsBySensor);
+        }
+        Subscription[] oldSubs = subsBySensor.get(sensorKey);
+        Subscription[] newSubs = (oldSubs != null) ? Arrays.copyOf(oldSubs, oldSubs.length+1) : new Subscription[1];
+        newSubs[newSubs.length-1] = s;
+        subsBySensor.put(sensorKey, newSubs);
+    }
+    
+    /** must be called while synchronized on this; replaces (rather than modifies) the array in {@link #dispatchIndex} */
+    @SuppressWarnings("rawtypes")
+    private void removeFromDispatchIndex(Subscription s) {
+        Object producerKey = (s.producer != null) ? s.producer : WILDCARD;
+        Object sensorKey = (s.sensor != null) ? s.sensor : WILDCARD;
+        ConcurrentMap<Object, Subscription[]> subsBySensor = dispatchIndex.get(producerKey);
+        if (subsBySensor == null) return;
+        Subscription[] oldSubs = subsBySensor.get(sensorKey);
+        if (oldSubs == null) return;
+        
+        Subscription[] newSubs = new Subscription[oldSubs.length];
+        int count = 0;
+        for (Subscription contender : oldSubs) {
+            if (!contender.equals(s)) newSubs[count++] = contender;
+        }
+        if (count == oldSubs.length) return;
+        if (count > 0) {
+            subsBySensor.put(sensorKey, Arrays.copyOf(newSubs, count));
+        } else {
+            subsBySensor.remove(sensorKey);
+            if (subsBySensor.isEmpty()) dispatchIndex.remove(producerKey);
+        }
+    }
+    
     @Override
     public String toString() {
         return tostring;
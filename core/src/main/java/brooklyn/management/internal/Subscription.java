@@ -1,6 +1,9 @@
 package brooklyn.management.internal;
 
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import brooklyn.entity.Entity;
 import brooklyn.event.Sensor;
@@ -23,6 +26,16 @@ class Subscription<T> implements SubscriptionHandle {
     public final SensorEventListener<? super T> listener;
     public Map<String,Object> flags;
     public Predicate<SensorEvent<T>> eventFilter;
+    /** whether events are queued and handed to the listener in batches, by a single task per drain */
+    public boolean batchDelivery;
+    /** when batching, whether only the latest value is kept for each attribute of each producer */
+    public boolean latestValueWins;
+    /** events waiting to be delivered, if {@link #batchDelivery} */
+    public final Queue<SensorEvent<T>> pendingEvents = new ConcurrentLinkedQueue<SensorEvent<T>>();
+    /** whether a task to drain {@link #pendingEvents} has been submitted but not yet started draining */
+    public final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    /** held while draining {@link #pendingEvents}, so that drains never overlap (e.g. if there is no single-threaded task tag) */
+    public final Object drainLock = new Object();
 
     public Subscription(Entity producer, Sensor<T> sensor, SensorEventListener<? super T> listener) {
         this.producer = producer;
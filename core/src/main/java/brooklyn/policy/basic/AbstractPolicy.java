@@ -15,6 +15,8 @@ import brooklyn.entity.rebind.BasicPolicyRebindSupport;
 import brooklyn.entity.rebind.RebindSupport;
 import brooklyn.entity.trait.Configurable;
 import brooklyn.management.ExecutionContext;
+import brooklyn.management.ManagementContext;
+import brooklyn.management.internal.LocalManagementContext;
 import brooklyn.mementos.PolicyMemento;
 import brooklyn.policy.Policy;
 import brooklyn.policy.PolicyType;
@@ -39,6 +41,8 @@ public abstract class AbstractPolicy extends AbstractEntityAdjunct implements Po
 
     protected transient ExecutionContext execution;
 
+    private transient PolicyScheduler.Queue schedulerQueue;
+
     /**
      * The config values of this entity. Updating this map should be done
      * via getConfig/setConfig.
@@ -138,10 +142,33 @@ public abstract class AbstractPolicy extends AbstractEntityAdjunct implements Po
 
     public void suspend() {
         suspended.set(true);
+        synchronized (this) {
+            if (schedulerQueue != null) schedulerQueue.suspend();
+        }
     }
 
     public void resume() {
         suspended.set(false);
+        synchronized (this) {
+            if (schedulerQueue != null) schedulerQueue.resume();
+        }
+    }
+
+    /**
+     * The queue for this policy's delayed or debounced work, in the management context's shared {@link PolicyScheduler}.
+     * Jobs are run one at a time, in order; those pending are discarded when the policy is suspended.
+     * Only available once the policy has been associated with an entity.
+     */
+    protected synchronized PolicyScheduler.Queue getSchedulerQueue() {
+        if (schedulerQueue == null) {
+            if (entity == null) throw new IllegalStateException(this+" cannot schedule work because it is not associated to an entity");
+            ManagementContext managementContext = getManagementContext();
+            PolicyScheduler scheduler = (managementContext instanceof LocalManagementContext) ?
+                    ((LocalManagementContext)managementContext).getPolicyScheduler() : PolicyScheduler.getDefault();
+            schedulerQueue = scheduler.newQueue(this);
+            if (isSuspended()) schedulerQueue.suspend();
+        }
+        return schedulerQueue;
     }
 
     public boolean isSuspended() {
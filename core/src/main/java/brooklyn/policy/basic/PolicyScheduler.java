@@ -0,0 +1,310 @@
+package brooklyn.policy.basic;
+
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.config.ConfigKey;
+import brooklyn.config.StringConfigMap;
+import brooklyn.event.basic.BasicConfigKey;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the delayed and debounced work of all policies in a management context, instead of each policy
+ * having its own (mostly idle) thread.
+ * <p>
+ * Each policy has its own {@link Queue}, whose jobs are run one at a time in the order they became due
+ * (as they would be by a single-threaded executor), but jobs of different queues run concurrently in a
+ * shared pool of threads. A single timer thread holds the delayed jobs of all queues until they are due.
+ * Statistics of the jobs' execution times are recorded per queue, as well as in total.
+ */
+public class PolicyScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyScheduler.class);
+
+    public static final ConfigKey<Integer> MAX_THREADS = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.policy.scheduler.maxThreads",
+            "the maximum number of threads for running policy jobs, beyond which jobs are queued (0 or less means unbounded)", 0);
+
+    /**
+     * Statistics for the jobs of a queue (or of all queues). Thread-safe.
+     */
+    public static class ExecutionStats {
+        private final AtomicLong executionCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong totalTime = new AtomicLong();
+        private final AtomicLong maxTime = new AtomicLong();
+
+        void onExecution(long time, boolean failed) {
+            executionCount.incrementAndGet();
+            if (failed) failureCount.incrementAndGet();
+            totalTime.addAndGet(time);
+            long oldMax;
+            while (time > (oldMax = maxTime.get())) {
+                if (maxTime.compareAndSet(oldMax, time)) break;
+            }
+        }
+
+        public long getExecutionCount() {
+            return executionCount.get();
+        }
+
+        /** jobs which threw an exception */
+        public long getFailureCount() {
+            return failureCount.get();
+        }
+
+        /** total time, in milliseconds, spent running jobs */
+        public long getTotalTime() {
+            return totalTime.get();
+        }
+
+        public long getMaxTime() {
+            return maxTime.get();
+        }
+
+        public double getMeanTime() {
+            long count = executionCount.get();
+            return (count == 0) ? 0 : ((double)totalTime.get()) / count;
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this).add("executions", getExecutionCount()).add("failures", getFailureCount())
+                    .add("meanTime", getMeanTime()).add("maxTime", getMaxTime()).toString();
+        }
+    }
+
+    /**
+     * The jobs of one policy, run serially. Suspending the queue discards all pending jobs
+     * (like {@link ExecutorService#shutdownNow()}), and jobs are ignored until it is resumed.
+     */
+    public class Queue {
+        private final Object owner;
+        private final ExecutionStats stats = new ExecutionStats();
+        /** jobs which are due, in order; guarded by this */
+        private final LinkedList<Runnable> due = new LinkedList<Runnable>();
+        /** delayed jobs held by the timer; guarded by this */
+        private final Set<ScheduledFuture<?>> delayed = Sets.newHashSet();
+        /** whether a job of this queue is running, or has been handed to the pool; guarded by this */
+        private boolean dispatched;
+        /** guarded by this */
+        private boolean suspended;
+        /** incremented on suspend, so that jobs scheduled before that are discarded; guarded by this */
+        private long generation;
+
+        private final Runnable runNext = new Runnable() {
+            public void run() {
+                runNextJob();
+            }
+            @Override public String toString() {
+                return "PolicyScheduler.Queue["+owner+"]";
+            }
+        };
+
+        Queue(Object owner) {
+            this.owner = owner;
+        }
+
+        /** runs the job as soon as the jobs before it in this queue have completed */
+        public void submit(Runnable job) {
+            schedule(job, 0, TimeUnit.MILLISECONDS);
+        }
+
+        /** runs the job after the given delay (and once the jobs before it in this queue have completed) */
+        public synchronized void schedule(final Runnable job, long delay, TimeUnit unit) {
+            if (suspended) {
+                if (log.isDebugEnabled()) log.debug("Ignoring job {} for {}, because suspended", job, owner);
+                return;
+            }
+            if (!running) throw new IllegalStateException("Policy scheduler "+PolicyScheduler.this+" has been shut down");
+            if (delay <= 0) {
+                makeDue(job, generation);
+            } else {
+                final long jobGeneration = generation;
+                final ScheduledFuture<?>[] future = new ScheduledFuture<?>[1];
+                future[0] = timer.schedule(new Runnable() {
+                        public void run() {
+                            synchronized (Queue.this) {
+                                delayed.remove(future[0]);
+                                makeDue(job, jobGeneration);
+                            }
+                        }},
+                        delay, unit);
+                delayed.add(future[0]);
+            }
+        }
+
+        /** discards all pending jobs, and ignores any new jobs until resumed (a running job is not interrupted) */
+        public synchronized void suspend() {
+            suspended = true;
+            generation++;
+            due.clear();
+            for (ScheduledFuture<?> future : delayed) {
+                future.cancel(false);
+            }
+            delayed.clear();
+            timer.purge();
+        }
+
+        public synchronized void resume() {
+            suspended = false;
+        }
+
+        public synchronized boolean isSuspended() {
+            return suspended;
+        }
+
+        /** number of jobs which are waiting (for their delay, or for the job before them) */
+        public synchronized int getPendingCount() {
+            return due.size() + delayed.size();
+        }
+
+        public ExecutionStats getStats() {
+            return stats;
+        }
+
+        /** guarded by this */
+        private void makeDue(Runnable job, long jobGeneration) {
+            if (jobGeneration != generation) return;
+            due.add(job);
+            if (!dispatched) {
+                dispatched = true;
+                dispatch();
+            }
+        }
+
+        /** guarded by this */
+        private void dispatch() {
+            try {
+                executor.execute(runNext);
+            } catch (RejectedExecutionException e) {
+                dispatched = false;
+                if (running) throw e;
+                // otherwise shutting down; ignore
+            }
+        }
+
+        private void runNextJob() {
+            Runnable job;
+            synchronized (this) {
+                job = due.poll();
+                if (job == null) {
+                    dispatched = false;
+                    return;
+                }
+            }
+            long start = System.currentTimeMillis();
+            boolean failed = false;
+            try {
+                job.run();
+            } catch (Throwable t) {
+                failed = true;
+                log.warn("Error in job "+job+" of "+owner, t);
+            }
+            long time = System.currentTimeMillis() - start;
+            stats.onExecution(time, failed);
+            totalStats.onExecution(time, failed);
+
+            synchronized (this) {
+                // one job per dispatch, so a busy policy does not hog a thread
+                if (due.isEmpty()) {
+                    dispatched = false;
+                } else {
+                    dispatch();
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "PolicyScheduler.Queue["+owner+"]";
+        }
+    }
+
+    private static PolicyScheduler defaultInstance;
+
+    /**
+     * A scheduler for policies whose entity is not (yet) in a {@link brooklyn.management.internal.LocalManagementContext}.
+     */
+    public static synchronized PolicyScheduler getDefault() {
+        if (defaultInstance == null) defaultInstance = new PolicyScheduler(0);
+        return defaultInstance;
+    }
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService executor;
+    private final ExecutionStats totalStats = new ExecutionStats();
+    private final AtomicLong queueCount = new AtomicLong();
+    private volatile boolean running = true;
+
+    public PolicyScheduler(StringConfigMap config) {
+        this(config.getConfig(MAX_THREADS));
+    }
+
+    public PolicyScheduler(int maxThreads) {
+        timer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("brooklyn-policy-scheduler")
+                .setDaemon(true)
+                .build());
+
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("brooklyn-policy-%d")
+                .setDaemon(true)
+                .build();
+        if (maxThreads > 0) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 1L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), threadFactory);
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        } else {
+            executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1L, TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(), threadFactory);
+        }
+    }
+
+    /**
+     * Returns a new queue for the jobs of the given owner (typically a policy).
+     */
+    public Queue newQueue(Object owner) {
+        if (!running) throw new IllegalStateException("Policy scheduler "+this+" has been shut down");
+        queueCount.incrementAndGet();
+        return new Queue(owner);
+    }
+
+    /** statistics for all jobs */
+    public ExecutionStats getTotalStats() {
+        return totalStats;
+    }
+
+    /** total number of queues ever created */
+    public long getQueueCount() {
+        return queueCount.get();
+    }
+
+    public void shutdownNow() {
+        running = false;
+        timer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "PolicyScheduler["+Integer.toHexString(System.identityHashCode(this))+"]";
+    }
+}
@@ -3,6 +3,7 @@ package brooklyn.util.flags;
 import groovy.lang.Closure;
 import groovy.time.TimeDuration;
 
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -16,6 +17,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -35,6 +37,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
 import com.google.common.primitives.Primitives;
 
 public class TypeCoercions {
@@ -43,9 +46,21 @@ public class TypeCoercions {
     
     private TypeCoercions() {}
 
-    private static Map<Class,Map<Class,Function>> registeredAdapters = Collections.synchronizedMap(
-            new LinkedHashMap<Class,Map<Class,Function>>());
+    /**
+     * Adapters registered with {@link #registerAdapter(Class, Class, Function)}, keyed by target type then source type.
+     * Copy-on-write: the maps are never modified once published, so can be read without locking.
+     */
+    private static volatile Map<Class,Map<Class,Function>> registeredAdapters = Collections.emptyMap();
     
+    /**
+     * The strategy found for coercing each source class to each target type (keyed by target type then source class),
+     * including where there is none; so the reflective search for a strategy is done once for each pair of types.
+     * Cleared when an adapter is registered.
+     * <p>
+     * Keys are weak (compared by identity), and plans do not hold the classes strongly (see {@link MethodCoercionPlan}),
+     * so the cache does not prevent classes being unloaded.
+     */
+    private static final ConcurrentMap<Class,ConcurrentMap<Class,CoercionPlan>> coercionPlans = new MapMaker().weakKeys().makeMap();
     
     /** attempts to coerce 'value' to 'targetType', 
      * using a variety of strategies,
@@ -58,7 +73,7 @@ public class TypeCoercions {
      * 
      * registeredAdapters.get(targetType).findFirst({ k,v -> k.isInstance(value) }, { k,v -> v.apply(value) })
      **/
-    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @SuppressWarnings({ "unchecked" })
     public static <T> T coerce(Object value, Class<T> targetType) {
         if (value==null) return null;
         if (targetType.isInstance(value)) return (T) value;
@@ -81,18 +96,75 @@ public class TypeCoercions {
             return (T) value.toString();
         }
 
+        return (T) getCoercionPlan(value.getClass(), targetType).coerce(value, targetType);
+    }
+
+    /** a strategy for coercing values of a given class to a given type, as chosen by {@link TypeCoercions#findCoercionPlan(Class, Class)} */
+    private static abstract class CoercionPlan {
+        abstract Object coerce(Object value, Class<?> targetType);
+    }
+
+    /**
+     * Invokes an {@code asX} method on the value, or a static {@code fromX} method on the target type.
+     * The method is held softly, as it references its declaring class (possibly the key of the plan);
+     * if it has been cleared, the plan is discarded and found again.
+     */
+    private static class MethodCoercionPlan extends CoercionPlan {
+        private final SoftReference<Method> method;
+        
+        MethodCoercionPlan(Method method) {
+            this.method = new SoftReference<Method>(method);
+        }
+        
+        @Override Object coerce(Object value, Class<?> targetType) {
+            Method m = method.get();
+            if (m == null) {
+                ConcurrentMap<Class,CoercionPlan> plansForTarget = coercionPlans.get(targetType);
+                if (plansForTarget != null) plansForTarget.remove(value.getClass(), this);
+                return getCoercionPlan(value.getClass(), targetType).coerce(value, targetType);
+            }
+            try {
+                return (m.getParameterTypes().length==0) ? m.invoke(value) : m.invoke(null, value);
+            } catch (Exception e) {
+                throw new ClassCastException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): "+m.getName()+" adapting failed, "+e);
+            }
+        }
+    }
+
+    private static final CoercionPlan NO_COERCION = new CoercionPlan() {
+        @Override Object coerce(Object value, Class<?> targetType) {
+            throw new ClassCastException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): no adapter known");
+        }
+    };
+    
+    private static CoercionPlan getCoercionPlan(Class<?> sourceType, Class<?> targetType) {
+        ConcurrentMap<Class,CoercionPlan> plansForTarget = coercionPlans.get(targetType);
+        if (plansForTarget == null) {
+            plansForTarget = new MapMaker().weakKeys().makeMap();
+            ConcurrentMap<Class,CoercionPlan> existing = coercionPlans.putIfAbsent(targetType, plansForTarget);
+            if (existing != null) plansForTarget = existing;
+        }
+        CoercionPlan result = plansForTarget.get(sourceType);
+        if (result == null) {
+            Map<Class,Map<Class,Function>> adapters = registeredAdapters;
+            result = findCoercionPlan(sourceType, targetType, adapters);
+            plansForTarget.put(sourceType, result);
+            // if an adapter was registered concurrently, this plan may be stale
+            if (registeredAdapters != adapters) plansForTarget.remove(sourceType);
+        }
+        return result;
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static CoercionPlan findCoercionPlan(Class<?> sourceType, Class<?> targetType, Map<Class,Map<Class,Function>> adapters) {
         //look for value.asType where Type is castable to targetType
         String targetTypeSimpleName = getVerySimpleName(targetType);
         if (targetTypeSimpleName!=null && targetTypeSimpleName.length()>0) {
-            for (Method m: value.getClass().getMethods()) {
+            for (Method m: sourceType.getMethods()) {
                 if (m.getName().startsWith("as") && m.getParameterTypes().length==0 &&
                         targetType.isAssignableFrom(m.getReturnType()) ) {
                     if (m.getName().equals("as"+getVerySimpleName(m.getReturnType()))) {
-                        try {
-                            return (T) m.invoke(value);
-                        } catch (Exception e) {
-                            throw new ClassCastException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): "+m.getName()+" adapting failed, "+e);
-                        }
+                        return new MethodCoercionPlan(m);
                     }
                 }
             }
@@ -102,13 +174,9 @@ public class TypeCoercions {
         for (Method m: targetType.getMethods()) {
             if (((m.getModifiers()&Modifier.STATIC)==Modifier.STATIC) && 
                     m.getName().startsWith("from") && m.getParameterTypes().length==1 &&
-                    m.getParameterTypes()[0].isInstance(value)) {
+                    m.getParameterTypes()[0].isAssignableFrom(sourceType)) {
                 if (m.getName().equals("from"+getVerySimpleName(m.getParameterTypes()[0]))) {
-                    try {
-                        return (T) m.invoke(null, value);
-                    } catch (Exception e) {
-                        throw new ClassCastException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): "+m.getName()+" adapting failed, "+e);
-                    }
+                    return new MethodCoercionPlan(m);
                 }
             }
         }
@@ -117,40 +185,55 @@ public class TypeCoercions {
         
         //primitives get run through again boxed up
         Class boxedT = UNBOXED_TO_BOXED_TYPES.get(targetType);
-        Class boxedVT = UNBOXED_TO_BOXED_TYPES.get(value.getClass());
+        Class boxedVT = UNBOXED_TO_BOXED_TYPES.get(sourceType);
         if (boxedT!=null || boxedVT!=null) {
-            try {
-                if (boxedT==null) boxedT=targetType;
-                Object boxedV;
-                if (boxedVT==null) { boxedV = value; }
-                else { boxedV = boxedVT.getConstructor(value.getClass()).newInstance(value); }
-                return (T) coerce(boxedV, boxedT);
-            } catch (Exception e) {
-                throw new ClassCastException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): unboxing failed, "+e);
-            }
+            // only the (java.lang) boxed types are held by the plan
+            final Class boxedTargetType = boxedT;
+            final Class boxedSourceType = boxedVT;
+            return new CoercionPlan() {
+                @Override Object coerce(Object value, Class<?> targetType) {
+                    try {
+                        Object boxedV;
+                        if (boxedSourceType==null) { boxedV = value; }
+                        else { boxedV = boxedSourceType.getConstructor(value.getClass()).newInstance(value); }
+                        return TypeCoercions.coerce(boxedV, (boxedTargetType!=null) ? boxedTargetType : targetType);
+                    } catch (Exception e) {
+                        throw new ClassCastException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): unboxing failed, "+e);
+                    }
+                }
+            };
         }
 
         if (targetType.isEnum()) {
-            try {
-                return (T) Enum.valueOf((Class)targetType, ""+value);
-            } catch (IllegalArgumentException e) {
-                // some enums (eg Lifecycle) use a tostring which is different, not ideal...
-                return (T) Enum.valueOf((Class)targetType, (""+value).toUpperCase());
-            }
+            return new CoercionPlan() {
+                @Override Object coerce(Object value, Class<?> targetType) {
+                    try {
+                        return Enum.valueOf((Class)targetType, ""+value);
+                    } catch (IllegalArgumentException e) {
+                        // some enums (eg Lifecycle) use a tostring which is different, not ideal...
+                        return Enum.valueOf((Class)targetType, (""+value).toUpperCase());
+                    }
+                }
+            };
         }
 
         //now look in registry - TODO use registry first?
-        Map<?,?> adaptersToTarget = registeredAdapters.get(targetType);
+        Map<Class,Function> adaptersToTarget = adapters.get(targetType);
         if (adaptersToTarget!=null) {
-            for (Map.Entry e: adaptersToTarget.entrySet()) {
-                if ( ((Class)e.getKey()).isInstance(value) ) {
-                    return (T) ((Function)e.getValue()).apply(value);
+            for (Map.Entry<Class,Function> e: adaptersToTarget.entrySet()) {
+                if (e.getKey().isAssignableFrom(sourceType)) {
+                    final Function adapter = e.getValue();
+                    return new CoercionPlan() {
+                        @Override Object coerce(Object value, Class<?> targetType) {
+                            return adapter.apply(value);
+                        }
+                    };
                 }
             }
         }
                 
         //not found
-        throw new ClassCastException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): no adapter known");
+        return NO_COERCION;
     }
 
     /**
@@ -313,12 +396,13 @@ public class TypeCoercions {
     }
     
     public synchronized static <A,B> void registerAdapter(Class<A> sourceType, Class<B> targetType, Function<A,B> fn) {
-        Map<Class, Function> sources = registeredAdapters.get(targetType);
-        if (sources==null) {
-            sources = Collections.synchronizedMap(new LinkedHashMap<Class, Function>());
-            registeredAdapters.put(targetType, sources);
-        }
-        sources.put(sourceType, fn);
+        Map<Class,Map<Class,Function>> newAdapters = new LinkedHashMap<Class,Map<Class,Function>>(registeredAdapters);
+        Map<Class,Function> sources = newAdapters.get(targetType);
+        Map<Class,Function> newSources = (sources==null) ? new LinkedHashMap<Class,Function>() : new LinkedHashMap<Class,Function>(sources);
+        newSources.put(sourceType, fn);
+        newAdapters.put(targetType, Collections.unmodifiableMap(newSources));
+        registeredAdapters = Collections.unmodifiableMap(newAdapters);
+        coercionPlans.clear();
     }
     
     static {
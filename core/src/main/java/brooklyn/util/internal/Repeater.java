@@ -15,6 +15,7 @@ import brooklyn.util.collections.MutableMap;
 import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.flags.FlagUtils;
 import brooklyn.util.flags.SetFromFlag;
+import brooklyn.util.task.Tasks;
 import brooklyn.util.time.Duration;
 import brooklyn.util.time.Time;
 
@@ -329,7 +330,12 @@ public class Repeater {
                 }
             }
 
-			Time.sleep(period);
+            Object blocking = Tasks.beginBlocking();
+            try {
+                Time.sleep(period);
+            } finally {
+                Tasks.endBlocking(blocking);
+            }
         }
     }
 }
@@ -18,6 +18,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
@@ -30,6 +31,8 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import brooklyn.config.ConfigKey;
+import brooklyn.event.basic.BasicConfigKey;
 import brooklyn.management.ExecutionManager;
 import brooklyn.management.Task;
 import brooklyn.util.text.Identifiers;
@@ -56,6 +59,20 @@ public class BasicExecutionManager implements ExecutionManager {
      */
     private static final boolean RENAME_THREADS = Boolean.parseBoolean(System.getProperty("brooklyn.executionManager.renameThreads"));
     
+    public static final ConfigKey<Integer> MAX_THREADS = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.executionManager.maxThreads", 
+            "the maximum number of threads for running tasks, beyond which tasks are queued; " +
+            "temporarily exceeded while tasks are blocked waiting for other tasks to complete " +
+            "(0 or less means unbounded, i.e. a new thread is created whenever none are idle)", 
+            0);
+    
+    public static final ConfigKey<Integer> MAX_EXTRA_THREADS = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.executionManager.maxExtraThreads", 
+            "the maximum number of threads beyond maxThreads allowed while task threads are blocked (e.g. waiting for " +
+            "other tasks, ssh commands or sleeps), beyond which tasks are queued even though threads are blocked " +
+            "(only applies if maxThreads is positive; if too low, tasks waiting for queued tasks can deadlock)", 
+            100);
+    
     private static class PerThreadCurrentTaskHolder {
         public static final ThreadLocal<Task> perThreadCurrentTask = new ThreadLocal<Task>();
     }
@@ -89,6 +106,15 @@ public class BasicExecutionManager implements ExecutionManager {
     private final ThreadFactory daemonThreadFactory;
     
     private final ExecutorService runner;
+    
+    /** the maximum number of threads in the runner, or -1 if unbounded */
+    private final int maxThreads;
+    
+    /** the maximum number of threads allowed beyond maxThreads while task threads are blocked */
+    private final int maxExtraThreads;
+    
+    /** number of task threads currently blocked waiting for other tasks, for which extra threads have been allowed */
+    private final AtomicInteger blockedTaskThreadCount = new AtomicInteger();
         
 	private final ScheduledExecutorService delayedRunner;
 	
@@ -108,24 +134,65 @@ public class BasicExecutionManager implements ExecutionManager {
 
     private ConcurrentMap<Object, TaskScheduler> schedulerByTag = new ConcurrentHashMap<Object, TaskScheduler>();
     
+    /** completed tasks still in memory, in the order they completed (oldest first); access is synchronized on the map */
+    private final Map<String,Task<?>> completedTasksById = new LinkedHashMap<String,Task<?>>();
+    
+    private final TaskHistory taskHistory = new TaskHistory(1000);
+    
     private final AtomicLong totalTaskCount = new AtomicLong();
     
     private final AtomicInteger incompleteTaskCount = new AtomicInteger();
     
     private final AtomicInteger activeTaskCount = new AtomicInteger();
     
+    private final AtomicLong totalTaskWaitTime = new AtomicLong();
+    
+    private final AtomicLong maxTaskWaitTime = new AtomicLong();
+    
     private final List<ExecutionListener> listeners = new CopyOnWriteArrayList<ExecutionListener>();
     
     public BasicExecutionManager(String contextid) {
+        this(contextid, 0);
+    }
+    
+    /**
+     * @param maxThreads if positive, tasks are run by a pool of at most this many threads (other tasks being queued);
+     *        otherwise a new thread is used whenever no idle thread is available. See {@link #MAX_THREADS}.
+     */
+    public BasicExecutionManager(String contextid, int maxThreads) {
+        this(contextid, maxThreads, MAX_EXTRA_THREADS.getDefaultValue());
+    }
+    
+    /**
+     * @param maxThreads if positive, tasks are run by a pool of at most this many threads (other tasks being queued);
+     *        otherwise a new thread is used whenever no idle thread is available. See {@link #MAX_THREADS}.
+     * @param maxExtraThreads the maximum number of threads allowed beyond maxThreads while task threads are blocked.
+     *        See {@link #MAX_EXTRA_THREADS}.
+     */
+    public BasicExecutionManager(String contextid, int maxThreads, int maxExtraThreads) {
         threadFactory = newThreadFactory(contextid);
         daemonThreadFactory = new ThreadFactoryBuilder()
                 .setThreadFactory(threadFactory)
                 .setDaemon(true)
                 .build();
-                
-        // use Executors.newCachedThreadPool(daemonThreadFactory), but timeout of 1s rather than 60s for better shutdown!
-        runner = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), 
-                daemonThreadFactory);
+        
+        if (maxThreads > 0) {
+            // bounded: queue tasks once all threads are busy; threads still time out after 1s when idle.
+            // tasks blocking on other tasks (e.g. effectors waiting for sub-tasks) temporarily grow the pool, 
+            // see onTaskThreadBlocking, so that the tasks they wait for are not starved of threads.
+            this.maxThreads = maxThreads;
+            this.maxExtraThreads = Math.max(0, maxExtraThreads);
+            ThreadPoolExecutor boundedRunner = new ThreadPoolExecutor(maxThreads, maxThreads, 1L, TimeUnit.SECONDS, 
+                    new LinkedBlockingQueue<Runnable>(), daemonThreadFactory);
+            boundedRunner.allowCoreThreadTimeOut(true);
+            runner = boundedRunner;
+        } else {
+            // use Executors.newCachedThreadPool(daemonThreadFactory), but timeout of 1s rather than 60s for better shutdown!
+            this.maxThreads = -1;
+            this.maxExtraThreads = 0;
+            runner = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), 
+                    daemonThreadFactory);
+        }
             
         delayedRunner = new ScheduledThreadPoolExecutor(1, daemonThreadFactory);
     }
@@ -181,7 +248,41 @@ public class BasicExecutionManager implements ExecutionManager {
                 if (tasks != null) tasks.remove(task);
             }
         }
-        tasksById.remove(task.getId());
+        // remove from both under the one lock, so that afterEnd cannot re-add a deleted task as completed
+        synchronized (completedTasksById) {
+            tasksById.remove(task.getId());
+            completedTasksById.remove(task.getId());
+        }
+    }
+
+    /**
+     * Deletes the given task, as per {@link #deleteTask(Task)}, but first (if it is done) keeps 
+     * a compact summary of it in the {@link #getTaskHistory() task history}.
+     */
+    public void expireTask(Task<?> task) {
+        if (task.isDone()) taskHistory.add(TaskRecord.of(task));
+        deleteTask(task);
+    }
+    
+    /**
+     * The completed tasks in memory, in the order they completed (oldest first): the oldest {@code count} of them
+     * (or all, if fewer), and any more which completed before {@code endedBefore}. 
+     * For deleting the oldest tasks without sorting all tasks.
+     */
+    public List<Task<?>> getOldestCompletedTasks(int count, long endedBefore) {
+        List<Task<?>> result = new ArrayList<Task<?>>();
+        synchronized (completedTasksById) {
+            for (Task<?> task : completedTasksById.values()) {
+                if (result.size() >= count && task.getEndTimeUtc() >= endedBefore) break;
+                result.add(task);
+            }
+        }
+        return result;
+    }
+    
+    /** summaries of tasks which have been {@link #expireTask(Task) expired}, most recent last */
+    public TaskHistory getTaskHistory() {
+        return taskHistory;
     }
 
     public boolean isShutdown() {
@@ -203,6 +304,81 @@ public class BasicExecutionManager implements ExecutionManager {
     public long getNumInMemoryTasks() {
         return tasksById.size();
     }
+    
+    /** the maximum number of threads for running tasks (excluding those allowed for blocked tasks), or -1 if unbounded */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+    
+    /** the maximum number of threads allowed beyond {@link #getMaxThreads()} while task threads are blocked */
+    public int getMaxExtraThreads() {
+        return maxExtraThreads;
+    }
+    
+    /** number of threads currently in the pool for running tasks (whether busy or idle) */
+    public int getNumThreads() {
+        return ((ThreadPoolExecutor)runner).getPoolSize();
+    }
+    
+    /** approximate number of threads currently running tasks */
+    public int getNumActiveThreads() {
+        return ((ThreadPoolExecutor)runner).getActiveCount();
+    }
+    
+    /** number of tasks waiting for a thread (always 0 if the number of threads is unbounded) */
+    public int getNumQueuedTasks() {
+        return ((ThreadPoolExecutor)runner).getQueue().size();
+    }
+    
+    /** number of task threads currently blocked waiting for other tasks */
+    public int getNumBlockedTaskThreads() {
+        return blockedTaskThreadCount.get();
+    }
+    
+    /** total time, in milliseconds, that started tasks spent between being submitted and being started */
+    public long getTotalTaskWaitTime() {
+        return totalTaskWaitTime.get();
+    }
+    
+    /** longest time, in milliseconds, that any started task spent between being submitted and being started */
+    public long getMaxTaskWaitTime() {
+        return maxTaskWaitTime.get();
+    }
+    
+    /**
+     * Called by a task thread before it blocks waiting on another task to complete.
+     * For a bounded pool this allows an extra thread (up to {@link #getMaxExtraThreads()}), so that if all
+     * threads are blocked the tasks they are waiting on can still run (rather than the pool deadlocking).
+     * Callers must subsequently call {@link #onTaskThreadUnblocked()}.
+     */
+    void onTaskThreadBlocking() {
+        blockedTaskThreadCount.incrementAndGet();
+        resizeBoundedRunner();
+    }
+    
+    /** @see #onTaskThreadBlocking() */
+    void onTaskThreadUnblocked() {
+        blockedTaskThreadCount.decrementAndGet();
+        resizeBoundedRunner();
+    }
+
+    /** sizes a bounded pool to maxThreads plus one per blocked thread, up to maxExtraThreads */
+    private void resizeBoundedRunner() {
+        if (maxThreads <= 0) return;
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) runner;
+        synchronized (pool) {
+            int size = maxThreads + Math.min(Math.max(0, blockedTaskThreadCount.get()), maxExtraThreads);
+            if (size > pool.getMaximumPoolSize()) {
+                // grow max before core, so core never exceeds max
+                pool.setMaximumPoolSize(size);
+                pool.setCorePoolSize(size);
+            } else if (size < pool.getMaximumPoolSize()) {
+                // shrink core before max, so core never exceeds max
+                pool.setCorePoolSize(size);
+                pool.setMaximumPoolSize(size);
+            }
+        }
+    }
 
     private Set<Task> getMutableTasksWithTag(Object tag) {
         if (tag == null) {
@@ -437,6 +613,7 @@ public class BasicExecutionManager implements ExecutionManager {
             }
             PerThreadCurrentTaskHolder.perThreadCurrentTask.set(task);
             ((BasicTask)task).startTimeUtc = System.currentTimeMillis();
+            recordTaskWaitTime(((BasicTask)task).startTimeUtc - ((BasicTask)task).submitTimeUtc);
         }
         for (Object to : (Collection)flags.get("tagLinkedPreprocessors")) { 
             TaskPreprocessor t = (TaskPreprocessor)to;
@@ -445,6 +622,15 @@ public class BasicExecutionManager implements ExecutionManager {
         ExecutionUtils.invoke(flags.get("newTaskStartCallback"), task);
     }
 
+    private void recordTaskWaitTime(long waitTime) {
+        if (waitTime < 0) return;
+        totalTaskWaitTime.addAndGet(waitTime);
+        long oldMax;
+        while (waitTime > (oldMax = maxTaskWaitTime.get())) {
+            if (maxTaskWaitTime.compareAndSet(oldMax, waitTime)) break;
+        }
+    }
+
     @SuppressWarnings("deprecation")
     protected void afterEnd(Map flags, Task<?> task) {
         activeTaskCount.decrementAndGet();
@@ -461,6 +647,10 @@ public class BasicExecutionManager implements ExecutionManager {
 
         PerThreadCurrentTaskHolder.perThreadCurrentTask.remove();
         ((BasicTask)task).endTimeUtc = System.currentTimeMillis();
+        synchronized (completedTasksById) {
+            // only if not already deleted (see deleteTask)
+            if (tasksById.containsKey(task.getId())) completedTasksById.put(task.getId(), task);
+        }
         //clear thread _after_ endTime set, so we won't get a null thread when there is no end-time
         if (RENAME_THREADS) {
             String newThreadName = "brooklyn-"+Identifiers.makeRandomId(8);
@@ -217,8 +217,13 @@ public class BasicTask<T> extends BasicTaskStub implements Task<T> {
     }
 
     public T get() throws InterruptedException, ExecutionException {
-        blockUntilStarted();
-        return result.get();
+        BasicExecutionManager blockedManager = isDone() ? null : beforeCurrentTaskThreadBlocks();
+        try {
+            blockUntilStarted();
+            return result.get();
+        } finally {
+            if (blockedManager != null) blockedManager.onTaskThreadUnblocked();
+        }
     }
 
     public T getUnchecked() {
@@ -248,6 +253,15 @@ public class BasicTask<T> extends BasicTaskStub implements Task<T> {
     }
 
     public void blockUntilEnded() {
+        BasicExecutionManager blockedManager = isDone() ? null : beforeCurrentTaskThreadBlocks();
+        try {
+            blockUntilEndedImpl();
+        } finally {
+            if (blockedManager != null) blockedManager.onTaskThreadUnblocked();
+        }
+    }
+    
+    private void blockUntilEndedImpl() {
         try { blockUntilStarted(); } catch (Throwable t) {
             if (log.isDebugEnabled())
                 log.debug("call from "+Thread.currentThread()+" blocking until "+this+" finishes ended with error: "+t);
@@ -263,6 +277,15 @@ public class BasicTask<T> extends BasicTaskStub implements Task<T> {
     }
 
     public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        BasicExecutionManager blockedManager = isDone() ? null : beforeCurrentTaskThreadBlocks();
+        try {
+            return getImpl(timeout, unit);
+        } finally {
+            if (blockedManager != null) blockedManager.onTaskThreadUnblocked();
+        }
+    }
+    
+    private T getImpl(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
         long start = System.currentTimeMillis();
         long milliseconds = TimeUnit.MILLISECONDS.convert(timeout, unit);
         long end  = start + milliseconds;
@@ -279,6 +302,21 @@ public class BasicTask<T> extends BasicTaskStub implements Task<T> {
         }
     }
 
+    /**
+     * If the current thread is running a task submitted to a {@link BasicExecutionManager}, tells that manager 
+     * the thread is about to block waiting (so a bounded pool can allow another thread) and returns the manager; 
+     * otherwise returns null.
+     */
+    @SuppressWarnings("deprecation")
+    static BasicExecutionManager beforeCurrentTaskThreadBlocks() {
+        Task<?> current = Tasks.current();
+        if (!(current instanceof BasicTask)) return null;
+        ExecutionManager currentManager = ((BasicTask<?>)current).em;
+        if (!(currentManager instanceof BasicExecutionManager)) return null;
+        ((BasicExecutionManager)currentManager).onTaskThreadBlocking();
+        return (BasicExecutionManager)currentManager;
+    }
+
     /**
      * Returns a brief status string
      *
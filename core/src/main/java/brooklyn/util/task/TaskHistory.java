@@ -0,0 +1,102 @@
+package brooklyn.util.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Objects;
+
+/**
+ * A bounded ring buffer of {@link TaskRecord}s for tasks which have been deleted from the {@link BasicExecutionManager},
+ * so that recent history can be shown (e.g. in the REST API) without keeping the tasks themselves in memory.
+ * <p>
+ * When full, the oldest record is overwritten. Thread-safe.
+ */
+public class TaskHistory {
+
+    private TaskRecord[] records;
+    /** index at which the next record will be written */
+    private int next = 0;
+    private int size = 0;
+    private long totalRecorded = 0;
+
+    public TaskHistory(int capacity) {
+        this.records = new TaskRecord[Math.max(0, capacity)];
+    }
+
+    public synchronized int getCapacity() {
+        return records.length;
+    }
+
+    /** changes the capacity, keeping the most recent records that fit */
+    public synchronized void setCapacity(int capacity) {
+        capacity = Math.max(0, capacity);
+        if (capacity == records.length) return;
+        List<TaskRecord> current = getRecentImpl();
+        records = new TaskRecord[capacity];
+        next = 0;
+        size = 0;
+        for (TaskRecord record : current.subList(Math.max(0, current.size() - capacity), current.size())) {
+            addImpl(record);
+        }
+    }
+
+    public synchronized void add(TaskRecord record) {
+        totalRecorded++;
+        addImpl(record);
+    }
+
+    private void addImpl(TaskRecord record) {
+        if (records.length == 0) return;
+        records[next] = record;
+        next = (next + 1) % records.length;
+        if (size < records.length) size++;
+    }
+
+    /** the number of records currently held */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** the number of records ever added (including those since overwritten) */
+    public synchronized long getTotalRecorded() {
+        return totalRecorded;
+    }
+
+    /** all records held, oldest first */
+    public synchronized List<TaskRecord> getRecent() {
+        return Collections.unmodifiableList(getRecentImpl());
+    }
+
+    /** records for tasks tagged with the given entity, oldest first */
+    public synchronized List<TaskRecord> getRecentForEntity(String entityId) {
+        List<TaskRecord> result = new ArrayList<TaskRecord>();
+        for (TaskRecord record : getRecentImpl()) {
+            if (record.getEntityIds().contains(entityId)) result.add(record);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /** the record for the task with the given id, or null if not held */
+    public synchronized TaskRecord get(String taskId) {
+        for (int i = 0; i < size; i++) {
+            TaskRecord record = records[(next - 1 - i + records.length) % records.length];
+            if (record.getId().equals(taskId)) return record;
+        }
+        return null;
+    }
+
+    private List<TaskRecord> getRecentImpl() {
+        List<TaskRecord> result = new ArrayList<TaskRecord>(size);
+        int start = (next - size + records.length) % Math.max(1, records.length);
+        for (int i = 0; i < size; i++) {
+            result.add(records[(start + i) % records.length]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("size", size).add("capacity", records.length).toString();
+    }
+}
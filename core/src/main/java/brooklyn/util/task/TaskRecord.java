@@ -0,0 +1,123 @@
+package brooklyn.util.task;
+
+import java.util.List;
+
+import brooklyn.entity.Entity;
+import brooklyn.management.Task;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A compact, immutable summary of a completed {@link Task}, kept in a {@link TaskHistory} after the task itself
+ * has been deleted from the {@link BasicExecutionManager}.
+ * <p>
+ * Holds no references to the task, its result, or its tags: tags are recorded as strings, and the
+ * (first) entity tag as its id and display name, so recording does not prevent any of these being garbage collected.
+ */
+public class TaskRecord {
+
+    private final String id;
+    private final String displayName;
+    private final String description;
+    private final String entityId;
+    private final String entityDisplayName;
+    private final List<String> entityIds;
+    private final List<String> tags;
+    private final long submitTimeUtc;
+    private final long startTimeUtc;
+    private final long endTimeUtc;
+    private final String statusSummary;
+    private final boolean error;
+
+    public static TaskRecord of(Task<?> task) {
+        return new TaskRecord(task);
+    }
+
+    protected TaskRecord(Task<?> task) {
+        this.id = task.getId();
+        this.displayName = task.getDisplayName();
+        this.description = task.getDescription();
+        this.submitTimeUtc = task.getSubmitTimeUtc();
+        this.startTimeUtc = task.getStartTimeUtc();
+        this.endTimeUtc = task.getEndTimeUtc();
+        this.statusSummary = task.getStatusSummary();
+        this.error = task.isError();
+        
+        Entity entity = null;
+        ImmutableList.Builder<String> entityIdsBuilder = ImmutableList.builder();
+        ImmutableList.Builder<String> tagsBuilder = ImmutableList.builder();
+        for (Object tag : task.getTags()) {
+            if (tag instanceof Entity) {
+                if (entity == null) entity = (Entity) tag;
+                entityIdsBuilder.add(((Entity)tag).getId());
+                tagsBuilder.add(((Entity)tag).getId());
+            } else if (tag != null) {
+                tagsBuilder.add(tag.toString());
+            }
+        }
+        this.entityIds = entityIdsBuilder.build();
+        this.tags = tagsBuilder.build();
+        this.entityId = (entity != null) ? entity.getId() : null;
+        this.entityDisplayName = (entity != null) ? entity.getDisplayName() : null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /** id of the first entity the task was tagged with, or null */
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public String getEntityDisplayName() {
+        return entityDisplayName;
+    }
+
+    /** ids of all entities the task was tagged with */
+    public List<String> getEntityIds() {
+        return entityIds;
+    }
+
+    /** the task's tags, as strings (or ids, for entities) */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public long getSubmitTimeUtc() {
+        return submitTimeUtc;
+    }
+
+    public long getStartTimeUtc() {
+        return startTimeUtc;
+    }
+
+    public long getEndTimeUtc() {
+        return endTimeUtc;
+    }
+
+    /** @see Task#getStatusSummary() */
+    public String getStatusSummary() {
+        return statusSummary;
+    }
+
+    /** @see Task#isError() */
+    public boolean isError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("id", id).add("displayName", displayName)
+                .add("entity", entityId).add("status", statusSummary).toString();
+    }
+}
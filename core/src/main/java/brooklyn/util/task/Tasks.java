@@ -52,6 +52,22 @@ public class Tasks {
         }
     }
 
+    /**
+     * Marks the current thread, if it is running a task, as blocked until {@link #endBlocking(Object)} is called
+     * with the returned marker; for waits other than on tasks (which {@link BasicTask} marks itself), such as
+     * waiting for a remote command or sleeping. A bounded task thread pool allows another thread in its place
+     * meanwhile (see {@link BasicExecutionManager#MAX_THREADS}).
+     * @return the marker to pass to {@link #endBlocking(Object)}, or null if not running a task
+     */
+    public static Object beginBlocking() {
+        return BasicTask.beforeCurrentTaskThreadBlocks();
+    }
+    
+    /** @see #beginBlocking() */
+    public static void endBlocking(Object marker) {
+        if (marker != null) ((BasicExecutionManager)marker).onTaskThreadUnblocked();
+    }
+
     /** the {@link Task} where the current thread is executing, if executing in a Task, otherwise null */
     @SuppressWarnings("rawtypes")
     public static Task current() { return BasicExecutionManager.getPerThreadCurrentTask().get(); }
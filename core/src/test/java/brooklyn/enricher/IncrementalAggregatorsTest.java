@@ -0,0 +1,164 @@
+package brooklyn.enricher;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class IncrementalAggregatorsTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalAggregatorsTest.class);
+
+    @Test
+    public void testSumIgnoresNullsAndCastsToTargetType() {
+        IncrementalAggregator<Integer, Long> sum = IncrementalAggregators.sum(Long.class);
+        assertEquals(sum.getAggregate(), (Long) 0L);
+        sum.add(3);
+        sum.add(null);
+        sum.add(4);
+        assertEquals(sum.getAggregate(), (Long) 7L);
+        sum.remove(3);
+        assertEquals(sum.getAggregate(), (Long) 4L);
+    }
+
+    @Test
+    public void testSumOfDoublesHasNoResidueOnceRemoved() {
+        IncrementalAggregator<Number, Double> sum = IncrementalAggregators.sum(Double.class);
+        sum.add(0.1);
+        sum.add(0.2);
+        sum.add(5);
+        sum.remove(0.1);
+        sum.remove(0.2);
+        assertEquals(sum.getAggregate(), (Double) 5d);
+    }
+
+    @Test
+    public void testCountAndMean() {
+        IncrementalAggregator<Integer, Integer> count = IncrementalAggregators.count();
+        IncrementalAggregator<Integer, Double> mean = IncrementalAggregators.mean();
+        assertEquals(mean.getAggregate(), (Double) 0d);
+        for (Integer val : Lists.newArrayList(1, null, 2, 6)) {
+            count.add(val);
+            mean.add(val);
+        }
+        assertEquals(count.getAggregate(), (Integer) 3);
+        assertEquals(mean.getAggregate(), (Double) 3d);
+        count.remove(6);
+        mean.remove(6);
+        assertEquals(count.getAggregate(), (Integer) 2);
+        assertEquals(mean.getAggregate(), (Double) 1.5d);
+    }
+
+    @Test
+    public void testMinAndMaxWithDuplicates() {
+        IncrementalAggregator<Integer, Integer> min = IncrementalAggregators.min();
+        IncrementalAggregator<Integer, Integer> max = IncrementalAggregators.max();
+        assertNull(min.getAggregate());
+        for (int val : new int[] {5, 1, 9, 1, 9}) {
+            min.add(val);
+            max.add(val);
+        }
+        min.remove(1);
+        max.remove(9);
+        assertEquals(min.getAggregate(), (Integer) 1);
+        assertEquals(max.getAggregate(), (Integer) 9);
+        min.remove(1);
+        max.remove(9);
+        assertEquals(min.getAggregate(), (Integer) 5);
+        assertEquals(max.getAggregate(), (Integer) 5);
+    }
+
+    @Test
+    public void testPercentileWithinRelativeAccuracy() {
+        double accuracy = 0.01;
+        IncrementalAggregator<Double, Double> p90 = IncrementalAggregators.percentile(90, accuracy);
+        assertNull(p90.getAggregate());
+
+        Random random = new Random(1);
+        List<Double> vals = Lists.newArrayList();
+        for (int i = 0; i < 1000; i++) {
+            double val = (random.nextDouble() - 0.1) * 1000;
+            vals.add(val);
+            p90.add(val);
+        }
+        // replace half of them, as producers' values change
+        for (int i = 0; i < 500; i++) {
+            p90.remove(vals.get(i));
+            double val = random.nextDouble() * 10;
+            vals.set(i, val);
+            p90.add(val);
+        }
+
+        Collections.sort(vals);
+        double expected = vals.get((int) Math.round(0.9 * (vals.size() - 1)));
+        double actual = p90.getAggregate();
+        assertTrue(Math.abs(actual - expected) <= accuracy * Math.abs(expected), "expected="+expected+"; actual="+actual);
+    }
+
+    /**
+     * Compares updating a sum incrementally with recomputing it from a copy of all the values, as
+     * {@link CustomAggregatingEnricher} does with a {@link Function} aggregator, for one value changing at a time
+     * across many producers.
+     */
+    @Test(groups="Integration")
+    public void testBenchmarkIncrementalAgainstFullRecompute() {
+        int numProducers = 500;
+        int numEvents = 200*1000;
+        Random random = new Random(1);
+        Map<Integer, Integer> values = Collections.synchronizedMap(Maps.<Integer, Integer>newLinkedHashMap());
+        for (int i = 0; i < numProducers; i++) {
+            values.put(i, random.nextInt(1000));
+        }
+        Function<Collection<Integer>, Long> recompute = new Function<Collection<Integer>, Long>() {
+            @Override public Long apply(Collection<Integer> vals) {
+                long result = 0;
+                for (Integer val : vals) if (val != null) result += val;
+                return result;
+            }
+        };
+
+        long fullResult = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < numEvents; i++) {
+            values.put(i % numProducers, i);
+            synchronized (values) {
+                fullResult = recompute.apply(ImmutableList.copyOf(values.values()));
+            }
+        }
+        long fullTime = System.nanoTime() - startTime;
+
+        IncrementalAggregator<Integer, Long> incremental = IncrementalAggregators.sum(Long.class);
+        for (Integer val : values.values()) {
+            incremental.add(val);
+        }
+
+        long incrementalResult = 0;
+        startTime = System.nanoTime();
+        for (int i = 0; i < numEvents; i++) {
+            Integer old = values.put(i % numProducers, i + 1);
+            incremental.remove(old);
+            incremental.add(i + 1);
+            incrementalResult = incremental.getAggregate();
+        }
+        long incrementalTime = System.nanoTime() - startTime;
+
+        LOG.info("Aggregating {} events over {} producers: full recompute {}ms, incremental {}ms",
+                new Object[] {numEvents, numProducers, fullTime/1000000, incrementalTime/1000000});
+        assertEquals(incrementalResult, fullResult + numProducers);
+        assertTrue(incrementalTime < fullTime, "full="+fullTime+"; incremental="+incrementalTime);
+    }
+}
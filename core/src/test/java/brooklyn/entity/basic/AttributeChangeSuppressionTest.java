@@ -0,0 +1,170 @@
+package brooklyn.entity.basic;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.SensorEvent;
+import brooklyn.event.SensorEventListener;
+import brooklyn.event.basic.BasicAttributeSensor;
+import brooklyn.event.basic.PublishOnChangeAttributeSensor;
+import brooklyn.test.Asserts;
+import brooklyn.test.entity.TestApplicationImpl;
+import brooklyn.test.entity.TestEntityImpl;
+import brooklyn.util.collections.MutableList;
+import brooklyn.util.collections.MutableMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class AttributeChangeSuppressionTest {
+
+    private static final int TIMEOUT_MS = 10*1000;
+    
+    private static final AttributeSensor<Integer> PLAIN = new BasicAttributeSensor<Integer>(
+            Integer.class, "test.plain");
+    private static final AttributeSensor<Integer> ON_CHANGE = new PublishOnChangeAttributeSensor<Integer>(
+            Integer.class, "test.onChange");
+    private static final AttributeSensor<Double> WITH_HYSTERESIS = new PublishOnChangeAttributeSensor<Double>(
+            Double.class, "test.hysteresis", "", 1.0);
+
+    private TestApplicationImpl app;
+    private TestEntityImpl entity;
+    private List<Object> events;
+    
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        app = new TestApplicationImpl();
+        entity = new TestEntityImpl(app);
+        events = new CopyOnWriteArrayList<Object>();
+    }
+    
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (app != null) Entities.destroyAll(app);
+    }
+
+    private void startAndSubscribe(AttributeSensor<?> sensor) {
+        Entities.startManagement(app);
+        app.subscribe(entity, sensor, new SensorEventListener<Object>() {
+            @Override public void onEvent(SensorEvent<Object> event) {
+                events.add(event.getValue());
+            }});
+    }
+    
+    private void assertEventsEventually(final List<?> expected) {
+        Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertEquals(events, expected);
+            }});
+    }
+    
+    @Test
+    public void testPublishesUnchangedValuesByDefault() {
+        startAndSubscribe(PLAIN);
+        entity.setAttribute(PLAIN, 1);
+        entity.setAttribute(PLAIN, 1);
+        entity.setAttribute(PLAIN, 2);
+        
+        assertEventsEventually(ImmutableList.of(1, 1, 2));
+        assertEquals(entity.attributesInternal.getSuppressedEventCount(), 0);
+    }
+
+    @Test
+    public void testSuppressesUnchangedValuesWhenConfigured() {
+        entity.setConfig(ConfigKeys.SUPPRESS_UNCHANGED_ATTRIBUTES, true);
+        startAndSubscribe(PLAIN);
+        entity.setAttribute(PLAIN, null);
+        entity.setAttribute(PLAIN, null);
+        entity.setAttribute(PLAIN, 1);
+        entity.setAttribute(PLAIN, 1);
+        entity.setAttribute(PLAIN, 2);
+        
+        assertEventsEventually(MutableList.of(null, 1, 2));
+        assertEquals(entity.attributesInternal.getSuppressedEventCount(), 2);
+    }
+
+    @Test
+    public void testConfigChangeAfterFirstUpdateIsSeen() {
+        startAndSubscribe(PLAIN);
+        entity.setAttribute(PLAIN, 1);
+        entity.setAttribute(PLAIN, 1);
+        entity.setConfig(ConfigKeys.SUPPRESS_UNCHANGED_ATTRIBUTES, true);
+        entity.setAttribute(PLAIN, 1);
+        entity.setAttribute(PLAIN, 2);
+        
+        assertEventsEventually(ImmutableList.of(1, 1, 2));
+        assertEquals(entity.attributesInternal.getSuppressedEventCount(), 1);
+    }
+
+    @Test
+    public void testConcurrentSettersPublishChangeOnce() throws Exception {
+        final int numThreads = 10;
+        startAndSubscribe(ON_CHANGE);
+        entity.setAttribute(ON_CHANGE, 1);
+        
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = Lists.newArrayList();
+        for (int i = 0; i < numThreads; i++) {
+            Thread t = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    entity.setAttribute(ON_CHANGE, 2);
+                }});
+            t.start();
+            threads.add(t);
+        }
+        startLatch.countDown();
+        for (Thread t : threads) {
+            t.join(TIMEOUT_MS);
+        }
+        
+        assertEventsEventually(ImmutableList.of(1, 2));
+        assertEquals(entity.attributesInternal.getSuppressedEventCount(), numThreads-1);
+    }
+
+    @Test
+    public void testSuppressesUnchangedValuesOfPublishOnChangeSensor() {
+        startAndSubscribe(ON_CHANGE);
+        entity.setAttribute(ON_CHANGE, 1);
+        entity.setAttribute(ON_CHANGE, 1);
+        entity.setAttribute(ON_CHANGE, 2);
+        
+        assertEventsEventually(ImmutableList.of(1, 2));
+        assertEquals(entity.attributesInternal.getSuppressedEventCount(), 1);
+    }
+
+    @Test
+    public void testSuppressesValuesWithinHysteresisOfLastPublished() {
+        startAndSubscribe(WITH_HYSTERESIS);
+        entity.setAttribute(WITH_HYSTERESIS, 10.0);
+        entity.setAttribute(WITH_HYSTERESIS, 10.6);
+        entity.setAttribute(WITH_HYSTERESIS, 10.9);
+        // drifted more than the hysteresis from the last published value, though not from the previous value
+        entity.setAttribute(WITH_HYSTERESIS, 11.2);
+        
+        assertEventsEventually(ImmutableList.of(10.0, 11.2));
+        assertEquals(entity.attributesInternal.getSuppressedEventCount(), 2);
+        assertEquals(entity.getAttribute(WITH_HYSTERESIS), (Double)11.2);
+    }
+    
+    @Test
+    public void testSuppressedValueIsStoredWithinHysteresis() {
+        startAndSubscribe(WITH_HYSTERESIS);
+        entity.setAttribute(WITH_HYSTERESIS, 10.0);
+        entity.setAttribute(WITH_HYSTERESIS, 10.5);
+        
+        assertEquals(entity.getAttribute(WITH_HYSTERESIS), (Double)10.5);
+    }
+}
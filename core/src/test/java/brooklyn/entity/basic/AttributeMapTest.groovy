@@ -134,4 +134,17 @@ public class AttributeMapTest {
         assertEquals(map.getValue(childSensor), "childValue")
         assertEquals(map.getValue(sensor), "parentValue")
     }
+    
+    @Test
+    public void testAsMapUsesDottedNames() {
+        BasicAttributeSensor<String> sensor = [ Integer, "a", "" ]
+        BasicAttributeSensor<String> childSensor = [ Integer, "a.b", "" ]
+        
+        map.update(sensor, "parentValue")
+        map.update(childSensor, "childValue")
+        map.update(["c", "d"], null)
+        map.remove(sensor)
+        
+        assertEquals(map.asMap(), ["a.b":"childValue", "c.d":null])
+    }
 }
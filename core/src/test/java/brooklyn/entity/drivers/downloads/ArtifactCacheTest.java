@@ -0,0 +1,134 @@
+package brooklyn.entity.drivers.downloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.mockwebserver.MockResponse;
+import com.google.mockwebserver.MockWebServer;
+
+public class ArtifactCacheTest {
+
+    private File dir;
+    private File source;
+    private ArtifactCache cache;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        dir = Files.createTempDir();
+        source = File.createTempFile("artifact", ".tar.gz");
+        Files.write("myartifact", source, Charsets.UTF_8);
+        cache = new ArtifactCache(dir);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (dir != null) Files.deleteRecursively(dir.getCanonicalFile());
+        if (source != null) source.delete();
+    }
+
+    @Test
+    public void testFetchesOnceAndStoresByContent() throws Exception {
+        String key = cache.register(ImmutableList.of(source.toURI().toString()), null);
+        File cached = cache.get(key);
+
+        String sha256 = Hashing.sha256().hashString("myartifact", Charsets.UTF_8).toString();
+        assertEquals(cached.getName(), sha256);
+        assertEquals(Files.toString(cached, Charsets.UTF_8), "myartifact");
+        assertEquals(cache.getSha256(key), sha256);
+
+        // served from the cache once the original is gone
+        assertTrue(source.delete());
+        assertEquals(cache.get(key), cached);
+    }
+
+    @Test
+    public void testVerifiesExpectedChecksum() throws Exception {
+        String key = cache.register(ImmutableList.of(source.toURI().toString()), "0123456789abcdef");
+        try {
+            cache.get(key);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.toString().contains("Checksum mismatch"), "e="+e);
+        }
+        assertNull(cache.getSha256(key));
+    }
+
+    @Test
+    public void testTriesUrlsInOrder() throws Exception {
+        String missing = new File(dir, "missing").toURI().toString();
+        String key = cache.register(ImmutableList.of(missing, source.toURI().toString()), null);
+        assertEquals(Files.toString(cache.get(key), Charsets.UTF_8), "myartifact");
+    }
+
+    @Test
+    public void testDoesNotServeUnregisteredArtifacts() throws Exception {
+        String key = cache.keyFor(ImmutableList.of(source.toURI().toString()));
+        assertFalse(cache.isRegistered(key));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testKeysAreSecretToTheCacheDir() throws Exception {
+        File otherDir = Files.createTempDir();
+        try {
+            ImmutableList<String> urls = ImmutableList.of(source.toURI().toString());
+            String key = cache.keyFor(urls);
+            assertEquals(new ArtifactCache(dir).keyFor(urls), key);
+            assertFalse(new ArtifactCache(otherDir).keyFor(urls).equals(key), "key="+key);
+        } finally {
+            Files.deleteRecursively(otherDir.getCanonicalFile());
+        }
+    }
+
+    @Test
+    public void testFollowsRedirects() throws Exception {
+        MockWebServer target = new MockWebServer();
+        MockWebServer redirector = new MockWebServer();
+        try {
+            target.enqueue(new MockResponse().setResponseCode(200).setBody("myartifact"));
+            target.play();
+            redirector.enqueue(new MockResponse().setResponseCode(302).addHeader("Location: "+target.getUrl("/artifact.tar.gz")));
+            redirector.play();
+            
+            String key = cache.register(ImmutableList.of(redirector.getUrl("/artifact.tar.gz").toString()), null);
+            assertEquals(Files.toString(cache.get(key), Charsets.UTF_8), "myartifact");
+        } finally {
+            redirector.shutdown();
+            target.shutdown();
+        }
+    }
+
+    @Test
+    public void testDoesNotCacheErrorResponses() throws Exception {
+        MockWebServer server = new MockWebServer();
+        try {
+            server.enqueue(new MockResponse().setResponseCode(404).setBody("not found"));
+            server.play();
+            
+            String key = cache.register(ImmutableList.of(server.getUrl("/artifact.tar.gz").toString()), null);
+            try {
+                cache.get(key);
+                fail();
+            } catch (IOException e) {
+                assertTrue(e.toString().contains("HTTP status 404"), "e="+e);
+            }
+            assertNull(cache.getSha256(key));
+        } finally {
+            server.shutdown();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package brooklyn.entity.drivers.downloads;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.io.File;
+
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -21,6 +24,7 @@ import brooklyn.test.entity.TestEntity;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
 
 public class BasicDownloadsRegistryTest {
 
@@ -130,6 +134,31 @@ public class BasicDownloadsRegistryTest {
         assertEquals(actual.getFilename(), "overridden.filename.tar.gz");
     }
     
+    @Test
+    public void testTriesManagementNodeMirrorBeforeRemoteUrls() throws Exception {
+        File mirrorDir = Files.createTempDir();
+        try {
+            BasicDownloadsManager downloadsManager = (BasicDownloadsManager) managementContext.getEntityDownloadsManager();
+            downloadsManager.setArtifactCache(new ArtifactCache(mirrorDir));
+            downloadsManager.setArtifactMirrorUrl("http://mgmt:8081/artifacts");
+            
+            entity.setAttribute(Attributes.VERSION, "myversion");
+            entity.setAttribute(Attributes.DOWNLOAD_URL, "http://fromattrib/${version}.tar.gz");
+            String expectedFilename = "myversion.tar.gz";
+            
+            String expectedLocalRepo = String.format("file://$HOME/.brooklyn/repository/%s/%s/%s", "TestEntity", "myversion", expectedFilename);
+            String expectedDownloadUrl = "http://fromattrib/myversion.tar.gz";
+            String expectedCloudsoftRepo = String.format("http://downloads.cloudsoftcorp.com/brooklyn/repository/%s/%s/%s", "TestEntity", "myversion", expectedFilename);
+            String key = downloadsManager.getArtifactCache().keyFor(ImmutableList.of(expectedDownloadUrl, expectedCloudsoftRepo));
+            String expectedMirror = "http://mgmt:8081/artifacts/"+key+"/"+expectedFilename;
+            
+            assertResolves(expectedLocalRepo, expectedMirror, expectedDownloadUrl, expectedCloudsoftRepo);
+            assertTrue(downloadsManager.getArtifactCache().isRegistered(key));
+        } finally {
+            Files.deleteRecursively(mirrorDir.getCanonicalFile());
+        }
+    }
+    
     private void assertResolves(String... expected) {
         DownloadResolver actual = managementContext.getEntityDownloadsManager().newDownloader(driver);
         assertEquals(actual.getTargets(), ImmutableList.copyOf(expected), "actual="+actual);
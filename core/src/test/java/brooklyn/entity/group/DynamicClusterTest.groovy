@@ -606,6 +606,54 @@ class DynamicClusterTest {
         assertEquals(cluster.members.size(), 1);
     }
     
+    @Test
+    public void testLimitsConcurrentStartsWhenGrowing() {
+        final AtomicInteger concurrent = new AtomicInteger(0)
+        final AtomicInteger maxConcurrent = new AtomicInteger(0)
+        DynamicCluster cluster = app.createAndManageChild(EntitySpecs.spec(DynamicCluster.class)
+                .configure("initialSize", 0)
+                .configure("maxConcurrentStarts", 2)
+                .configure("factory", { properties -> 
+                    return new SlowStartingEntity(properties, concurrent, maxConcurrent, null) 
+                }));
+        
+        cluster.start([loc])
+        cluster.resize(5)
+        assertEquals(cluster.currentSize, 5)
+        assertEquals(cluster.getAttribute(Changeable.GROUP_SIZE), 5)
+        assertTrue(maxConcurrent.get() <= 2, "maxConcurrent="+maxConcurrent.get())
+    }
+    
+    @Test
+    public void testOverProvisioningKeepsFirstMembersToStart() {
+        final CountDownLatch slowLatch = new CountDownLatch(1)
+        final AtomicInteger counter = new AtomicInteger(0)
+        DynamicCluster cluster = app.createAndManageChild(EntitySpecs.spec(DynamicCluster.class)
+                .configure("initialSize", 0)
+                .configure("overProvisionCount", 2)
+                .configure("factory", { properties -> 
+                    int num = counter.incrementAndGet()
+                    return new SlowStartingEntity(properties, new AtomicInteger(), new AtomicInteger(), (num <= 2 ? slowLatch : null)) 
+                }));
+        
+        cluster.start([loc])
+        try {
+            cluster.resize(2)
+            assertEquals(cluster.currentSize, 2)
+            cluster.members.each {
+                assertNull(((SlowStartingEntity)it).latch)
+            }
+        } finally {
+            slowLatch.countDown()
+        }
+        
+        // surplus members are stopped and discarded once they finish starting
+        TestUtils.executeUntilSucceeds(timeout:TIMEOUT_MS) {
+            assertEquals(cluster.children.size(), 2)
+        }
+        assertEquals(cluster.currentSize, 2)
+    }
+    
     private Throwable unwrapException(Throwable e) {
         if (e instanceof ExecutionException) {
             return unwrapException(e.cause)
@@ -653,3 +701,31 @@ class FailingEntity extends TestEntityImpl {
         }
     }
 }
+
+class SlowStartingEntity extends TestEntityImpl {
+    final AtomicInteger concurrent
+    final AtomicInteger maxConcurrent
+    final CountDownLatch latch
+
+    public SlowStartingEntity(Map flags, AtomicInteger concurrent, AtomicInteger maxConcurrent, CountDownLatch latch) {
+        super(flags)
+        this.concurrent = concurrent
+        this.maxConcurrent = maxConcurrent
+        this.latch = latch
+    }
+    
+    @Override
+    public void start(Collection<? extends Location> locs) {
+        int now = concurrent.incrementAndGet()
+        synchronized (maxConcurrent) {
+            if (now > maxConcurrent.get()) maxConcurrent.set(now)
+        }
+        try {
+            if (latch != null) latch.await()
+            else Thread.sleep(20)
+        } finally {
+            concurrent.decrementAndGet()
+        }
+        super.start(locs)
+    }
+}
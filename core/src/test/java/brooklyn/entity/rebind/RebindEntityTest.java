@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -42,6 +43,8 @@ import brooklyn.event.basic.BasicConfigKey;
 import brooklyn.event.basic.BasicSensorEvent;
 import brooklyn.location.Location;
 import brooklyn.management.internal.LocalManagementContext;
+import brooklyn.mementos.BrooklynMemento;
+import brooklyn.mementos.BrooklynMementoPersister;
 import brooklyn.mementos.EntityMemento;
 import brooklyn.test.TestUtils;
 import brooklyn.test.entity.TestEntity;
@@ -57,6 +60,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.io.Files;
 
 public class RebindEntityTest {
@@ -119,6 +123,48 @@ public class RebindEntityTest {
         assertNotSame(origE2, newE2);
     }
     
+    @Test
+    public void testRestoresManyEntitiesInstantiatedOneAtATime() throws Exception {
+        List<String> origIds = Lists.newArrayList();
+        for (int i = 0; i < 20; i++) {
+            MyEntity origE = new MyConstructionTrackingEntityImpl(origApp);
+            origIds.add(origE.getId());
+            origIds.add(new MyConstructionTrackingEntityImpl(origE).getId());
+        }
+        Entities.startManagement(origApp, managementContext);
+        MyConstructionTrackingEntityImpl.reset();
+
+        MyApplication newApp = rebind();
+
+        // constructors (and init) of entities are not run concurrently, even though rebind uses several threads
+        assertEquals(MyConstructionTrackingEntityImpl.constructedCount.get(), 40);
+        assertEquals(MyConstructionTrackingEntityImpl.maxConcurrentConstructions.get(), 1);
+        
+        List<String> newIds = Lists.newArrayList();
+        for (Entity newE : newApp.getChildren()) {
+            assertEquals(newE.getParent(), newApp);
+            newIds.add(newE.getId());
+            assertEquals(newE.getChildren().size(), 1);
+            Entity newE2 = Iterables.getOnlyElement(newE.getChildren());
+            assertEquals(newE2.getParent(), newE);
+            newIds.add(newE2.getId());
+        }
+        assertEquals(newIds, origIds);
+    }
+
+    @Test
+    public void testLoadsMementoAfterPersisterStopped() throws Exception {
+        MyEntity origE = new MyEntityImpl(origApp);
+        Entities.startManagement(origApp, managementContext);
+        RebindTestUtils.waitForPersisted(origApp);
+        
+        BrooklynMementoPersister persister = managementContext.getRebindManager().getPersister();
+        persister.stop();
+        BrooklynMemento memento = persister.loadMemento();
+        
+        assertEquals(ImmutableSet.copyOf(memento.getEntityIds()), ImmutableSet.of(origApp.getId(), origE.getId()));
+    }
+
     @Test
     public void testRestoresGroupMembers() throws Exception {
         MyEntity origE = new MyEntityImpl(origApp);
@@ -507,6 +553,49 @@ public class RebindEntityTest {
         }
     }
 
+    public static class MyConstructionTrackingEntityImpl extends MyEntityImpl {
+        private static final long serialVersionUID = 1L;
+        
+        static final AtomicInteger constructedCount = new AtomicInteger();
+        static final AtomicInteger concurrentConstructions = new AtomicInteger();
+        static final AtomicInteger maxConcurrentConstructions = new AtomicInteger();
+        
+        static void reset() {
+            constructedCount.set(0);
+            maxConcurrentConstructions.set(0);
+        }
+        
+        public MyConstructionTrackingEntityImpl() {
+            super();
+            trackConstruction();
+        }
+
+        public MyConstructionTrackingEntityImpl(Entity parent) {
+            super(parent);
+            trackConstruction();
+        }
+        
+        public MyConstructionTrackingEntityImpl(Map flags, Entity parent) {
+            super(flags, parent);
+            trackConstruction();
+        }
+        
+        private static void trackConstruction() {
+            int concurrent = concurrentConstructions.incrementAndGet();
+            try {
+                synchronized (maxConcurrentConstructions) {
+                    if (concurrent > maxConcurrentConstructions.get()) maxConcurrentConstructions.set(concurrent);
+                }
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new RuntimeInterruptedException(e);
+            } finally {
+                concurrentConstructions.decrementAndGet();
+                constructedCount.incrementAndGet();
+            }
+        }
+    }
+
     // TODO Don't want to extend EntityLocal, but tests want to call app.setAttribute
     @ImplementedBy(MyEntityReffingOthersImpl.class)
     public interface MyEntityReffingOthers extends Entity, EntityLocal {
@@ -6,6 +6,8 @@ import static org.testng.Assert.assertTrue;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.testng.annotations.AfterMethod;
@@ -24,6 +26,7 @@ import brooklyn.location.basic.AbstractLocation;
 import brooklyn.management.ManagementContext;
 import brooklyn.mementos.LocationMemento;
 import brooklyn.util.collections.MutableMap;
+import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.flags.SetFromFlag;
 
 import com.google.common.base.Predicates;
@@ -192,6 +195,25 @@ public class RebindLocationTest {
         assertEquals(newLoc.myfield, "myval");
     }
 
+    @Test
+    public void testInstantiatesLocationsConcurrently() throws Exception {
+        MyBarrierLocation origLoc1 = new MyBarrierLocation(MutableMap.of("name", "loc1"));
+        MyBarrierLocation origLoc2 = new MyBarrierLocation(MutableMap.of("name", "loc2"));
+        origApp.start(ImmutableList.of(origLoc1, origLoc2));
+        RebindTestUtils.waitForPersisted(origApp);
+        
+        // each location's constructor waits for the other's, so rebind only succeeds if they are instantiated concurrently
+        MyBarrierLocation.barrier = new CyclicBarrier(2);
+        MyApplication newApp;
+        try {
+            newApp = rebind();
+        } finally {
+            MyBarrierLocation.barrier = null;
+        }
+        
+        assertEquals(newApp.getLocations().size(), 2, "locs="+newApp.getLocations());
+    }
+
     private MyApplication rebind() throws Exception {
         RebindTestUtils.waitForPersisted(origApp);
         return (MyApplication) RebindTestUtils.rebind(mementoDir, getClass().getClassLoader());
@@ -226,6 +248,25 @@ public class RebindLocationTest {
         }
     }
     
+    public static class MyBarrierLocation extends AbstractLocation {
+        private static final long serialVersionUID = 1L;
+        
+        /** if set, the constructor waits on it (for use only while rebinding) */
+        static volatile CyclicBarrier barrier;
+        
+        public MyBarrierLocation(Map flags) {
+            super(flags);
+            CyclicBarrier b = barrier;
+            if (b != null) {
+                try {
+                    b.await(30, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw Exceptions.propagate(e);
+                }
+            }
+        }
+    }
+    
     public static class MyLocationReffingOthers extends AbstractLocation {
         private static final long serialVersionUID = 1L;
         
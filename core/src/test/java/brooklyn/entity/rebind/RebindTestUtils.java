@@ -60,7 +60,7 @@ public class RebindTestUtils {
     public static LocalManagementContext newPersistingManagementContext(File mementoDir, ClassLoader classLoader, long persistPeriodMillis) {
         checkArgument(persistPeriodMillis > 0, "persistPeriodMillis must be greater than 0; was "+persistPeriodMillis);
         LocalManagementContext result = new LocalManagementContext();
-        BrooklynMementoPersisterToMultiFile newPersister = new BrooklynMementoPersisterToMultiFile(mementoDir, classLoader);
+        BrooklynMementoPersisterToMultiFile newPersister = new BrooklynMementoPersisterToMultiFile(mementoDir, classLoader, result.getConfig());
         ((RebindManagerImpl)result.getRebindManager()).setPeriodicPersistPeriod(persistPeriodMillis);
         result.getRebindManager().setPersister(newPersister);
         return result;
@@ -78,7 +78,7 @@ public class RebindTestUtils {
     public static Application rebind(ManagementContext newManagementContext, File mementoDir, ClassLoader classLoader) throws Exception {
         LOG.info("Rebinding app, using directory "+mementoDir);
         
-        BrooklynMementoPersisterToMultiFile newPersister = new BrooklynMementoPersisterToMultiFile(mementoDir, classLoader);
+        BrooklynMementoPersisterToMultiFile newPersister = new BrooklynMementoPersisterToMultiFile(mementoDir, classLoader, newManagementContext.getConfig());
         newManagementContext.getRebindManager().setPersister(newPersister);
         List<Application> newApps = newManagementContext.getRebindManager().rebind(newPersister.loadMemento(), classLoader);
         return newApps.get(0);
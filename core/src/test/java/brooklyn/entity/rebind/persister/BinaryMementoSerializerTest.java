@@ -0,0 +1,135 @@
+package brooklyn.entity.rebind.persister;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.NotSerializableException;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.config.BrooklynProperties;
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.ApplicationBuilder;
+import brooklyn.entity.basic.Entities;
+import brooklyn.entity.proxying.EntitySpecs;
+import brooklyn.entity.rebind.RebindLocationTest.MyLocation;
+import brooklyn.entity.rebind.RebindPolicyTest.MyPolicy;
+import brooklyn.entity.rebind.dto.MementosGenerators;
+import brooklyn.event.basic.BasicAttributeSensor;
+import brooklyn.mementos.BrooklynMemento;
+import brooklyn.mementos.EntityMemento;
+import brooklyn.mementos.LocationMemento;
+import brooklyn.mementos.PolicyMemento;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.util.collections.MutableMap;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+public class BinaryMementoSerializerTest {
+
+    private static final long TIMEOUT_MS = 10*1000;
+    
+    private static final BasicAttributeSensor<Entity> ENTITY_REF = new BasicAttributeSensor<Entity>(Entity.class, "test.entityRef");
+    private static final BasicAttributeSensor<Object> UNSERIALIZABLE = new BasicAttributeSensor<Object>(Object.class, "test.unserializable");
+
+    private BinaryMementoSerializer<Object> serializer;
+    private TestApplication app;
+    private TestEntity entity;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        serializer = new BinaryMementoSerializer<Object>(getClass().getClassLoader());
+        app = ApplicationBuilder.newManagedApp(TestApplication.class);
+        entity = app.createAndManageChild(EntitySpecs.spec(TestEntity.class));
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (app != null) Entities.destroyAll(app);
+    }
+
+    @Test
+    public void testRoundTripsEntityMementoWithEntityReference() throws Exception {
+        entity.setAttribute(TestEntity.NAME, "myname");
+        entity.setAttribute(ENTITY_REF, app);
+        EntityMemento memento = entity.getRebindSupport().getMemento();
+
+        EntityMemento result = (EntityMemento) serializer.fromString(serializer.toString(memento));
+
+        assertEquals(result.getId(), entity.getId());
+        assertEquals(result.getType(), memento.getType());
+        assertEquals(result.getParent(), app.getId());
+        // the by-key views are transient, so are re-created after deserializing
+        assertEquals(result.getAttributes().get(TestEntity.NAME), "myname");
+        assertEquals(result.getAttributes().get(ENTITY_REF), app.getId());
+        assertTrue(result.getEntityReferenceAttributes().contains(ENTITY_REF), "refs="+result.getEntityReferenceAttributes());
+    }
+
+    @Test
+    public void testRoundTripsLocationMementoExcludingTransientFields() throws Exception {
+        MyLocation location = new MyLocation(MutableMap.of("myfield", "myval", "myTransientFieldSetFromFlag", "mytransientval"));
+        LocationMemento memento = location.getRebindSupport().getMemento();
+
+        LocationMemento result = (LocationMemento) serializer.fromString(serializer.toString(memento));
+
+        assertEquals(result.getId(), location.getId());
+        assertEquals(result.getLocationConfig().get("myfield"), "myval");
+        assertFalse(result.getLocationConfig().containsKey("myTransientFieldSetFromFlag"), "config="+result.getLocationConfig());
+    }
+
+    @Test
+    public void testRoundTripsPolicyMemento() throws Exception {
+        MyPolicy policy = new MyPolicy(MutableMap.of("myfield", "myval"));
+        entity.addPolicy(policy);
+        PolicyMemento memento = policy.getRebindSupport().getMemento();
+
+        PolicyMemento result = (PolicyMemento) serializer.fromString(serializer.toString(memento));
+
+        assertEquals(result.getId(), policy.getId());
+        assertEquals(result.getFlags().get("myfield"), "myval");
+    }
+
+    @Test
+    public void testPersisterConfiguredForBinaryRoundTrips() throws Exception {
+        entity.setAttribute(ENTITY_REF, app);
+        BrooklynProperties config = BrooklynProperties.Factory.newEmpty();
+        config.put(BrooklynMementoPersisterToMultiFile.SERIALIZER, "binary");
+        File mementoDir = Files.createTempDir();
+        BrooklynMementoPersisterToMultiFile persister = new BrooklynMementoPersisterToMultiFile(mementoDir, getClass().getClassLoader(), config);
+        try {
+            persister.checkpoint(MementosGenerators.newBrooklynMemento(app.getManagementContext()));
+            persister.waitForWritesCompleted(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            
+            assertFalse(Files.toString(new File(mementoDir, "entities/"+entity.getId()), Charsets.UTF_8).startsWith("<"));
+            BrooklynMemento result = persister.loadMemento();
+            assertEquals(result.getEntityMemento(entity.getId()).getAttributes().get(ENTITY_REF), app.getId());
+            assertEquals(result.getApplicationIds(), ImmutableList.of(app.getId()));
+        } finally {
+            persister.stop();
+            Files.deleteRecursively(mementoDir.getCanonicalFile());
+        }
+    }
+
+    @Test
+    public void testFailsOnUnserializableValue() throws Exception {
+        entity.setAttribute(UNSERIALIZABLE, new Object());
+        EntityMemento memento = entity.getRebindSupport().getMemento();
+
+        try {
+            serializer.toString(memento);
+            fail("Expected failure serializing "+memento);
+        } catch (Exception e) {
+            if (!(Throwables.getRootCause(e) instanceof NotSerializableException)) throw e;
+        }
+    }
+}
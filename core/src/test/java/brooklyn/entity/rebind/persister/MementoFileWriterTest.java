@@ -0,0 +1,92 @@
+package brooklyn.entity.rebind.persister;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.rebind.RebindTestUtils;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class MementoFileWriterTest {
+
+    private static final long TIMEOUT_MS = 10*1000;
+    
+    private File dir;
+    private ListeningExecutorService executor;
+    
+    private final MementoSerializer<String> identitySerializer = new MementoSerializer<String>() {
+        @Override public String toString(String memento) {
+            return memento;
+        }
+        @Override public String fromString(String string) {
+            return string;
+        }
+    };
+    
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        dir = Files.createTempDir();
+        executor = MoreExecutors.sameThreadExecutor();
+    }
+    
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (executor != null) executor.shutdownNow();
+        if (dir != null) RebindTestUtils.deleteMementoDir(dir);
+    }
+
+    @Test
+    public void testSkipsWriteWhenUnchanged() throws Exception {
+        File file = new File(dir, "myfile");
+        MementoFileWriter<String> writer = new MementoFileWriter<String>(file, executor, identitySerializer);
+        
+        writer.write("abc");
+        writer.waitForWriteCompleted(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertEquals(Files.toString(file, Charsets.UTF_8), "abc\n");
+        assertEquals(writer.getBytesWritten(), 4);
+        
+        writer.write("abc");
+        writer.waitForWriteCompleted(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertEquals(writer.getSkippedWriteCount(), 1);
+        assertEquals(writer.getBytesWritten(), 4);
+        
+        writer.write("abcd");
+        writer.waitForWriteCompleted(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertEquals(Files.toString(file, Charsets.UTF_8), "abcd\n");
+        assertEquals(writer.getSkippedWriteCount(), 1);
+        assertEquals(writer.getBytesWritten(), 9);
+    }
+    
+    @Test
+    public void testUpdatesSharedTotals() throws Exception {
+        AtomicLong totalBytesWritten = new AtomicLong();
+        AtomicLong totalSkippedWriteCount = new AtomicLong();
+        MementoFileWriter<String> writer1 = new MementoFileWriter<String>(new File(dir, "myfile1"), executor, identitySerializer, 
+                totalBytesWritten, totalSkippedWriteCount);
+        MementoFileWriter<String> writer2 = new MementoFileWriter<String>(new File(dir, "myfile2"), executor, identitySerializer, 
+                totalBytesWritten, totalSkippedWriteCount);
+        
+        writer1.write("abc");
+        writer2.write("abcd");
+        writer2.write("abcd");
+        writer1.waitForWriteCompleted(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        writer2.waitForWriteCompleted(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertEquals(totalBytesWritten.get(), 9);
+        assertEquals(totalSkippedWriteCount.get(), 1);
+        
+        // deleting a file does not reduce the totals
+        writer1.delete();
+        writer1.waitForWriteCompleted(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertEquals(totalBytesWritten.get(), 9);
+    }
+}
@@ -0,0 +1,156 @@
+package brooklyn.event.feed;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.event.feed.PollScheduler.PollStats;
+import brooklyn.event.feed.PollScheduler.Registration;
+import brooklyn.management.ExecutionContext;
+import brooklyn.management.Task;
+import brooklyn.test.Asserts;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.task.BasicExecutionContext;
+import brooklyn.util.task.BasicExecutionManager;
+import brooklyn.util.task.Tasks;
+
+public class PollSchedulerTest {
+
+    private static final int TIMEOUT_MS = 10*1000;
+
+    private PollScheduler scheduler;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        scheduler = new PollScheduler(10, 0, 0.1);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testPollsImmediatelyThenPeriodically() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final PollStats stats = new PollStats();
+        scheduler.register(new Runnable() {
+            public void run() {
+                count.incrementAndGet();
+            }}, 50, stats);
+
+        Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertTrue(count.get() >= 5, "count="+count);
+                assertTrue(stats.getPollCount() >= 5, "stats="+stats);
+            }});
+        assertEquals(stats.getFailureCount(), 0);
+    }
+
+    @Test
+    public void testPollsRunAsTasksInExecutionContext() throws Exception {
+        BasicExecutionManager em = new BasicExecutionManager("mycontext");
+        try {
+            final ExecutionContext executionContext = new BasicExecutionContext(MutableMap.of("tag", "mytag"), em);
+            final List<Task<?>> pollTasks = new CopyOnWriteArrayList<Task<?>>();
+            final List<ExecutionContext> pollContexts = new CopyOnWriteArrayList<ExecutionContext>();
+            scheduler.register(new Runnable() {
+                public void run() {
+                    pollTasks.add(Tasks.current());
+                    pollContexts.add(BasicExecutionContext.getCurrentExecutionContext());
+                }}, executionContext, 50, new PollStats());
+
+            Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+                public void run() {
+                    assertTrue(pollTasks.size() >= 2, "tasks="+pollTasks);
+                }});
+            for (Task<?> task : pollTasks) {
+                assertTrue(task.getTags().contains("mytag"), "tags="+task.getTags());
+            }
+            for (ExecutionContext context : pollContexts) {
+                assertSame(context, executionContext);
+            }
+        } finally {
+            em.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStopsPollingWhenCancelled() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Registration registration = scheduler.register(new Runnable() {
+            public void run() {
+                count.incrementAndGet();
+            }}, 20, new PollStats());
+
+        Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertTrue(count.get() >= 2, "count="+count);
+            }});
+        registration.cancel();
+        Thread.sleep(100); // allow any in-flight poll to complete
+        int countAfterCancel = count.get();
+        Thread.sleep(200);
+        assertEquals(count.get(), countAfterCancel);
+    }
+
+    @Test
+    public void testRecordsOverrunsAndFailures() throws Exception {
+        final PollStats stats = new PollStats();
+        scheduler.register(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(60);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new RuntimeException("simulated failure");
+            }}, 20, stats);
+
+        Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertTrue(stats.getOverrunCount() >= 2, "stats="+stats);
+                assertTrue(stats.getFailureCount() >= 2, "stats="+stats);
+                assertTrue(stats.getMaxLatency() >= 50, "stats="+stats);
+            }});
+    }
+
+    @Test
+    public void testKeepsPollingWhenDispatchRejected() throws Exception {
+        BasicExecutionManager em = new BasicExecutionManager("mycontext");
+        try {
+            final AtomicInteger rejectedCount = new AtomicInteger();
+            ExecutionContext rejectingContext = new BasicExecutionContext(em) {
+                @Override public <T> Task<T> submit(Task<T> task) {
+                    rejectedCount.incrementAndGet();
+                    throw new RejectedExecutionException("simulated rejection");
+                }
+            };
+            final AtomicInteger count = new AtomicInteger();
+            Runnable job = new Runnable() {
+                public void run() {
+                    count.incrementAndGet();
+                }};
+            scheduler.register(job, rejectingContext, 20, new PollStats());
+            scheduler.register(job, 20, new PollStats());
+
+            // the rejected job is retried every period, and does not stop the other job polling
+            Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+                public void run() {
+                    assertTrue(rejectedCount.get() >= 3, "rejected="+rejectedCount);
+                    assertTrue(count.get() >= 3, "count="+count);
+                }});
+        } finally {
+            em.shutdownNow();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package brooklyn.event.feed.http;
 
 import static brooklyn.test.TestUtils.executeUntilSucceeds;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.net.URL;
@@ -14,6 +16,7 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import brooklyn.config.BrooklynProperties;
 import brooklyn.entity.basic.ApplicationBuilder;
 import brooklyn.entity.basic.Entities;
 import brooklyn.entity.basic.EntityLocal;
@@ -22,6 +25,7 @@ import brooklyn.event.AttributeSensor;
 import brooklyn.event.basic.BasicAttributeSensor;
 import brooklyn.location.Location;
 import brooklyn.location.basic.LocalhostMachineProvisioningLocation;
+import brooklyn.management.internal.LocalManagementContext;
 import brooklyn.test.Asserts;
 import brooklyn.test.TestUtils;
 import brooklyn.test.entity.TestApplication;
@@ -92,6 +96,43 @@ public class HttpFeedTest {
         assertSensorEventually(SENSOR_STRING, "{\"foo\":\"myfoo\"}", TIMEOUT_MS);
     }
     
+    @Test
+    public void testPollsUseOwnClientByDefault() throws Exception {
+        assertNull(((LocalManagementContext)app.getManagementContext()).getHttpPollClient());
+    }
+    
+    @Test
+    public void testPollsUseSharedClientWithPooledConnections() throws Exception {
+        BrooklynProperties props = BrooklynProperties.Factory.newEmpty();
+        props.put(HttpPollClient.ENABLED, true);
+        TestApplication app2 = ApplicationBuilder.newManagedApp(TestApplication.class, new LocalManagementContext(props));
+        try {
+            EntityLocal entity2 = app2.createAndManageChild(EntitySpecs.spec(TestEntity.class));
+            app2.start(ImmutableList.of(new LocalhostMachineProvisioningLocation()));
+            final HttpPollClient client = ((LocalManagementContext)app2.getManagementContext()).getHttpPollClient();
+            assertNotNull(client);
+            
+            feed = HttpFeed.builder()
+                    .entity(entity2)
+                    .baseUrl(baseUrl)
+                    .poll(new HttpPollConfig<Integer>(SENSOR_INT)
+                            .period(100)
+                            .onSuccess(HttpValueFunctions.responseCode()))
+                    .build();
+            
+            assertSensorEventually(entity2, SENSOR_INT, (Integer)200, TIMEOUT_MS);
+            Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+                public void run() {
+                    assertTrue(client.getRequestCount() >= 3, "client="+client);
+                    assertTrue(client.getReusedConnectionCount() > 0, "client="+client);
+                }});
+        } finally {
+            if (feed != null) feed.stop();
+            feed = null;
+            Entities.destroyAll(app2);
+        }
+    }
+    
     @Test
     public void testPollsAndParsesHttpPostResponse() throws Exception {
         feed = HttpFeed.builder()
@@ -198,6 +239,10 @@ public class HttpFeedTest {
     }
     
     private <T> void assertSensorEventually(final AttributeSensor<T> sensor, final T expectedVal, long timeout) {
+        assertSensorEventually(entity, sensor, expectedVal, timeout);
+    }
+    
+    private <T> void assertSensorEventually(final EntityLocal entity, final AttributeSensor<T> sensor, final T expectedVal, long timeout) {
         executeUntilSucceeds(ImmutableMap.of("timeout", timeout), new Callable<Void>() {
             public Void call() {
                 assertEquals(entity.getAttribute(sensor), expectedVal);
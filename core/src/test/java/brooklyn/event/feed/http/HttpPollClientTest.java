@@ -0,0 +1,65 @@
+package brooklyn.event.feed.http;
+
+import static org.testng.Assert.assertEquals;
+
+import java.net.URL;
+import java.util.List;
+
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.mockwebserver.MockResponse;
+import com.google.mockwebserver.MockWebServer;
+import com.google.mockwebserver.RecordedRequest;
+
+public class HttpPollClientTest {
+
+    private MockWebServer server;
+    private URL baseUrl;
+    private HttpPollClient client;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).addHeader("Set-Cookie: mycookie=myval").setBody("first"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("second"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("third"));
+        server.play();
+        baseUrl = server.getUrl("/");
+        client = new HttpPollClient(4, 10, 10*1000, 10*1000);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (client != null) client.shutdown();
+        if (server != null) server.shutdown();
+    }
+
+    @Test
+    public void testCookiesAreNotSharedBetweenCookieStores() throws Exception {
+        CookieStore cookieStore1 = new BasicCookieStore();
+        CookieStore cookieStore2 = new BasicCookieStore();
+
+        client.execute(new HttpGet(baseUrl.toURI()), cookieStore1);
+        client.execute(new HttpGet(baseUrl.toURI()), cookieStore2);
+        client.execute(new HttpGet(baseUrl.toURI()), cookieStore1);
+
+        assertEquals(cookieHeaders(server.takeRequest()), ImmutableList.of());
+        assertEquals(cookieHeaders(server.takeRequest()), ImmutableList.of());
+        assertEquals(cookieHeaders(server.takeRequest()), ImmutableList.of("Cookie: mycookie=myval"));
+    }
+
+    private List<String> cookieHeaders(RecordedRequest request) {
+        List<String> result = Lists.newArrayList();
+        for (String header : request.getHeaders()) {
+            if (header.toLowerCase().startsWith("cookie:")) result.add(header);
+        }
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package brooklyn.event.feed.ssh;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 import org.testng.annotations.AfterMethod;
@@ -99,6 +100,29 @@ public class SshFeedIntegrationTest {
             }});
     }
     
+    @Test(groups="Integration")
+    public void testPollsWithEnvReuseSshConnection() throws Exception {
+        feed = SshFeed.builder()
+                .entity(entity)
+                .machine(machine)
+                .period(10)
+                .poll(new SshPollConfig<String>(SENSOR_STRING)
+                        .command("echo \"$MYVAR\"")
+                        .env("MYVAR", "my $value")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .build();
+        
+        TestUtils.executeUntilSucceeds(MutableMap.of(), new Runnable() {
+            public void run() {
+                String val = entity.getAttribute(SENSOR_STRING);
+                assertTrue(val != null && val.contains("my $value"), "val="+val);
+                assertTrue(machine.getPollCount() >= 5, "pollCount="+machine.getPollCount());
+            }});
+        
+        // polls are sequential, so should all be over the one pooled connection
+        assertEquals(machine.getNumSshConnections(), 1);
+    }
+    
     @Test(groups="Integration")
     public void testFailsOnNonZeroWhenConfigured() throws Exception {
         feed = SshFeed.builder()
@@ -0,0 +1,196 @@
+package brooklyn.location.basic;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.location.BatchMachineProvisioningLocation;
+import brooklyn.location.MachineLocation;
+import brooklyn.location.NoMachinesAvailableException;
+import brooklyn.util.collections.MutableMap;
+
+import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+public class ObtainBatcherTest {
+
+    private static final int TIMEOUT_MS = 10*1000;
+
+    public static class BatchingSimulatedLocation extends SimulatedLocation implements BatchMachineProvisioningLocation<MachineLocation> {
+        private static final long serialVersionUID = 1L;
+
+        final ObtainBatcher<MachineLocation> batcher = new ObtainBatcher<MachineLocation>(this);
+        final List<Integer> batchSizes = Collections.synchronizedList(Lists.<Integer>newArrayList());
+        final Map<MachineLocation, Map<?,?>> machineFlags = Maps.newConcurrentMap();
+        long maxWait = TIMEOUT_MS;
+        int maxMachinesPerBatch = Integer.MAX_VALUE;
+
+        @Override
+        public MachineLocation obtain(Map<?,?> flags) {
+            if (batcher.isExpecting()) {
+                try {
+                    return batcher.obtain(flags);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            batchSizes.add(1);
+            return new SimulatedLocation();
+        }
+
+        @Override
+        public List<MachineLocation> obtain(int count, Map<?,?> flags) {
+            batchSizes.add(count);
+            List<MachineLocation> result = Lists.newArrayList();
+            for (int i = 0; i < Math.min(count, maxMachinesPerBatch); i++) {
+                result.add(new SimulatedLocation());
+            }
+            return result;
+        }
+
+        @Override
+        public List<MachineLocation> obtain(Map<?,?> flags, List<? extends Map<?,?>> flagsPerMachine) {
+            List<MachineLocation> result = obtain(flagsPerMachine.size(), flags);
+            for (int i = 0; i < result.size(); i++) {
+                machineFlags.put(result.get(i), flagsPerMachine.get(i));
+            }
+            while (result.size() < flagsPerMachine.size()) {
+                result.add(null);
+            }
+            return result;
+        }
+
+        @Override
+        public void expectObtains(int count) {
+            batcher.expect(count, maxWait);
+        }
+    }
+
+    private BatchingSimulatedLocation loc;
+    private ExecutorService executor;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        loc = new BatchingSimulatedLocation();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentObtainsWithSameFlagsAreBatched() throws Exception {
+        loc.expectObtains(3);
+        List<MachineLocation> machines = obtainConcurrently(
+                ImmutableMap.of("callerContext", "a", "inboundPorts", ImmutableList.of(22)),
+                ImmutableMap.of("callerContext", "b", "inboundPorts", ImmutableList.of(22)),
+                ImmutableMap.of("callerContext", "c", "inboundPorts", ImmutableList.of(22)));
+
+        assertEquals(loc.batchSizes, ImmutableList.of(3));
+        assertEquals(Sets.newHashSet(machines).size(), 3);
+        
+        // each machine is obtained with its own caller's flags
+        List<Object> callerContexts = Lists.newArrayList();
+        for (MachineLocation machine : machines) {
+            callerContexts.add(loc.machineFlags.get(machine).get("callerContext"));
+        }
+        assertEquals(callerContexts, ImmutableList.of("a", "b", "c"));
+    }
+
+    @Test
+    public void testObtainsWithDifferentFlagsAreBatchedSeparately() throws Exception {
+        loc.expectObtains(3);
+        obtainConcurrently(
+                ImmutableMap.of("inboundPorts", ImmutableList.of(22)),
+                ImmutableMap.of("inboundPorts", ImmutableList.of(22, 8080)),
+                ImmutableMap.of("inboundPorts", ImmutableList.of(22)));
+
+        Set<Integer> batchSizes = Sets.newHashSet(loc.batchSizes);
+        assertEquals(batchSizes, ImmutableSet.of(1, 2));
+    }
+
+    @Test
+    public void testCallersWhoseMachinesCouldNotBeProvisionedFail() throws Exception {
+        loc.maxMachinesPerBatch = 2;
+        loc.expectObtains(3);
+        List<Future<MachineLocation>> futures = obtainConcurrentlyAsync(MutableMap.of(), MutableMap.of(), MutableMap.of());
+        
+        int successes = 0;
+        int failures = 0;
+        for (Future<MachineLocation> future : futures) {
+            try {
+                assertNotNull(future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+                successes++;
+            } catch (ExecutionException e) {
+                assertTrue(Iterables.any(Throwables.getCausalChain(e), Predicates.instanceOf(NoMachinesAvailableException.class)), "e="+e);
+                failures++;
+            }
+        }
+        assertEquals(loc.batchSizes, ImmutableList.of(3));
+        assertEquals(successes, 2);
+        assertEquals(failures, 1);
+    }
+
+    @Test
+    public void testProvisionsPartialBatchAfterMaxWait() throws Exception {
+        loc.maxWait = 100;
+        loc.expectObtains(3);
+        List<MachineLocation> machines = obtainConcurrently(MutableMap.of(), MutableMap.of());
+
+        assertEquals(loc.batchSizes, ImmutableList.of(2));
+        assertEquals(machines.size(), 2);
+
+        // expectation no longer applies, so subsequent calls are not held
+        loc.obtain(MutableMap.of());
+        assertEquals(loc.batchSizes, ImmutableList.of(2, 1));
+    }
+
+    @Test
+    public void testObtainsNotBatchedWhenNotExpected() throws Exception {
+        obtainConcurrently(MutableMap.of(), MutableMap.of());
+        assertEquals(loc.batchSizes, ImmutableList.of(1, 1));
+    }
+
+    private List<MachineLocation> obtainConcurrently(Map<?,?>... flagsForEachCall) throws Exception {
+        List<MachineLocation> result = Lists.newArrayList();
+        for (Future<MachineLocation> future : obtainConcurrentlyAsync(flagsForEachCall)) {
+            result.add(future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        }
+        return result;
+    }
+
+    private List<Future<MachineLocation>> obtainConcurrentlyAsync(Map<?,?>... flagsForEachCall) {
+        List<Future<MachineLocation>> futures = Lists.newArrayList();
+        for (final Map<?,?> flags : flagsForEachCall) {
+            futures.add(executor.submit(new Callable<MachineLocation>() {
+                public MachineLocation call() {
+                    return loc.obtain(flags);
+                }}));
+        }
+        return futures;
+    }
+}
@@ -0,0 +1,80 @@
+package brooklyn.location.basic;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.internal.ssh.SshTool;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+
+/**
+ * Tests that {@link SshMachineLocation#execPoll(Map, String, Map)} uses the machine's pooled ssh connections,
+ * using a stub {@link SshTool} in place of connecting.
+ */
+public class SshMachineLocationExecPollTest {
+
+    private List<Map<?,?>> connectProps;
+    private List<List<String>> commands;
+    private SshMachineLocation machine;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        connectProps = Lists.newCopyOnWriteArrayList();
+        commands = Lists.newCopyOnWriteArrayList();
+        machine = new SshMachineLocation(MutableMap.of("address", "localhost")) {
+            @Override
+            protected SshTool connectSsh(Map props) {
+                connectProps.add(ImmutableMap.copyOf(props));
+                return newStubSshTool();
+            }
+        };
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        Closeables.closeQuietly(machine);
+    }
+
+    @Test
+    public void testPollsWithStreamsUsePooledConnection() throws Exception {
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+        machine.execPoll(MutableMap.of("out", stdout, "err", stderr), "true", ImmutableMap.<String,Object>of());
+        machine.execPoll(MutableMap.of("out", stdout, "err", stderr), "true", ImmutableMap.<String,Object>of());
+
+        // connected once, by the pool (with no per-command props)
+        assertEquals(connectProps, ImmutableList.of(ImmutableMap.of()));
+        assertEquals(machine.getNumSshConnections(), 1);
+        assertEquals(commands.size(), 2);
+        assertEquals(machine.getPollCount(), 2);
+    }
+
+    private SshTool newStubSshTool() {
+        return (SshTool) Proxy.newProxyInstance(SshTool.class.getClassLoader(), new Class<?>[] {SshTool.class}, new InvocationHandler() {
+            @SuppressWarnings("unchecked")
+            @Override public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("equals")) return proxy == args[0];
+                if (name.equals("hashCode")) return System.identityHashCode(proxy);
+                if (name.equals("toString")) return "StubSshTool";
+                if (name.equals("isConnected")) return true;
+                if (name.equals("execCommands")) commands.add((List<String>) args[1]);
+                return (method.getReturnType() == int.class) ? (Object) 0 : null;
+            }});
+    }
+}
@@ -72,6 +72,21 @@ public class SshMachineLocationPerformanceTest {
         runMany(task, "small-cmd-custom-stdout", 1, 10);
     }
 
+    // Mimics SshFeed's polling
+    @Test(groups = {"Integration"})
+    public void testConsecutiveSmallPollCommands() throws Exception {
+        final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        
+        Runnable task = new Runnable() {
+            @Override public void run() {
+                machine.execPoll(ImmutableMap.of("out", stdout, "err", stderr), "true", ImmutableMap.<String,Object>of());
+            }};
+        runMany(task, "small-poll-cmd", 1, 10);
+        LOG.info("Poll commands: count {}; mean latency {}ms; ssh connections {}", 
+                new Object[] {machine.getPollCount(), machine.getMeanPollLatency(), machine.getNumSshConnections()});
+    }
+
     @Test(groups = {"Integration"})
     public void testConcurrentSmallCommands() throws Exception {
         runExecManyCommands(ImmutableList.of("true"), "small-cmd", 10, 10);
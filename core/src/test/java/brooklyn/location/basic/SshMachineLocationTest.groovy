@@ -96,6 +96,24 @@ public class SshMachineLocationTest {
         }
     }
 
+    // Note: requires `ssh localhost` to be setup such that no password is required
+    @Test(groups = "Integration")
+    public void testCopyFilesToInOneTransfer() throws Exception {
+        File dest = Files.createTempDir()
+        String file1 = new File(dest, "file1.txt").absolutePath
+        String file2 = new File(dest, "sub dir/file2.txt").absolutePath
+        try {
+            Map<String,Integer> result = host.copyFilesTo([
+                    (file1): new ByteArrayInputStream("abc".getBytes()),
+                    (file2): new ByteArrayInputStream("def".getBytes())])
+            assertEquals(result, [(file1): 0, (file2): 0])
+            assertEquals("abc", Files.readFirstLine(new File(file1), Charsets.UTF_8))
+            assertEquals("def", Files.readFirstLine(new File(file2), Charsets.UTF_8))
+        } finally {
+            Files.deleteRecursively(dest.getCanonicalFile())
+        }
+    }
+
     @Test(groups = "Integration")
     public void testInstallUrlTo() throws Exception {
         File dest = new File(System.getProperty("java.io.tmpdir")+"/"+"sssMachineLocationTest_dir/");
@@ -1,12 +1,14 @@
 package brooklyn.management.internal;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.testng.annotations.BeforeMethod;
@@ -16,13 +18,18 @@ import brooklyn.entity.Entity;
 import brooklyn.entity.basic.ApplicationBuilder;
 import brooklyn.entity.basic.BasicGroup;
 import brooklyn.entity.basic.Entities;
+import brooklyn.entity.basic.EntityInternal;
 import brooklyn.entity.proxying.EntitySpecs;
+import brooklyn.event.BatchSensorEventListener;
 import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
+import brooklyn.event.basic.BasicSensorEvent;
 import brooklyn.management.SubscriptionHandle;
 import brooklyn.management.SubscriptionManager;
 import brooklyn.test.entity.TestApplication;
 import brooklyn.test.entity.TestEntity;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.task.BasicExecutionManager;
 
 /**
  * testing the {@link SubscriptionManager} and associated classes.
@@ -123,6 +130,136 @@ public class LocalSubscriptionManagerTest {
         assertEquals(events.get(0).getSource().getId(), member.getId());
     }
     
+    @Test
+    public void testBatchDeliveryDeliversAllEventsInOrder() throws Exception {
+        final List<Integer> values = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        subscriptionManager().subscribe(MutableMap.<String,Object>of("subscriber", app, "batchDelivery", true), entity, TestEntity.SEQUENCE,
+                new BatchSensorEventListener<Integer>() {
+                    @Override public void onEvents(List<SensorEvent<Integer>> events) {
+                        for (SensorEvent<Integer> event : events) onEvent(event);
+                    }
+                    @Override public void onEvent(SensorEvent<Integer> event) {
+                        values.add(event.getValue());
+                        if (event.getValue() == 99) latch.countDown();
+                    }});
+        for (int i = 0; i < 100; i++) {
+            entity.setAttribute(TestEntity.SEQUENCE, i);
+        }
+        if (!latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            fail("Timeout waiting for batched events; got "+values);
+        }
+        assertEquals(values.size(), 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(values.get(i), (Integer)i);
+        }
+    }
+    
+    @Test
+    public void testLatestValueWinsDropsIntermediateValuesButKeepsOrder() throws Exception {
+        final List<Integer> values = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        subscriptionManager().subscribe(MutableMap.<String,Object>of("subscriber", app, "latestValueWins", true), entity, TestEntity.SEQUENCE,
+                new SensorEventListener<Integer>() {
+                    @Override public void onEvent(SensorEvent<Integer> event) {
+                        values.add(event.getValue());
+                        if (event.getValue() == 999) latch.countDown();
+                    }});
+        for (int i = 0; i < 1000; i++) {
+            entity.setAttribute(TestEntity.SEQUENCE, i);
+        }
+        if (!latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            fail("Timeout waiting for latest value; got "+values);
+        }
+        assertEquals(values.get(values.size()-1), (Integer)999);
+        for (int i = 1; i < values.size(); i++) {
+            assertTrue(values.get(i) > values.get(i-1), "values="+values);
+        }
+    }
+    
+    @Test
+    public void testLatestValueWinsCountsDroppedEventsAsCoalescedNotDelivered() throws Exception {
+        BasicExecutionManager em = new BasicExecutionManager("mycontext");
+        try {
+            LocalSubscriptionManager subs = new LocalSubscriptionManager(em);
+            final List<Integer> values = new CopyOnWriteArrayList<Integer>();
+            final CountDownLatch latch = new CountDownLatch(1);
+            subs.subscribe(MutableMap.<String,Object>of("subscriber", "mysubscriber", "latestValueWins", true), entity, TestEntity.SEQUENCE,
+                    new SensorEventListener<Integer>() {
+                        @Override public void onEvent(SensorEvent<Integer> event) {
+                            values.add(event.getValue());
+                            if (event.getValue() == 999) latch.countDown();
+                        }});
+            for (int i = 0; i < 1000; i++) {
+                subs.publish(new BasicSensorEvent<Integer>(TestEntity.SEQUENCE, entity, i));
+            }
+            if (!latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                fail("Timeout waiting for latest value; got "+values);
+            }
+            assertEquals(subs.getTotalEventsPublished(), 1000);
+            assertEquals(subs.getTotalEventsDelivered(), values.size());
+            assertEquals(subs.getTotalEventsCoalesced(), 1000 - values.size());
+        } finally {
+            em.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testBatchDeliveryContinuesAfterListenerException() throws Exception {
+        final List<Integer> values = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        subscriptionManager().subscribe(MutableMap.<String,Object>of("subscriber", app, "batchDelivery", true), entity, TestEntity.SEQUENCE,
+                new SensorEventListener<Integer>() {
+                    @Override public void onEvent(SensorEvent<Integer> event) {
+                        values.add(event.getValue());
+                        if (event.getValue() == 99) latch.countDown();
+                        if (event.getValue() % 10 == 5) throw new RuntimeException("simulated failure for "+event);
+                    }});
+        for (int i = 0; i < 100; i++) {
+            entity.setAttribute(TestEntity.SEQUENCE, i);
+        }
+        if (!latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            fail("Timeout waiting for batched events; got "+values);
+        }
+        assertEquals(values.size(), 100, "values="+values);
+    }
+    
+    @Test
+    public void testBatchDeliveryInOrderWithoutSingleThreadedTag() throws Exception {
+        final List<Integer> values = new CopyOnWriteArrayList<Integer>();
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        subscriptionManager().subscribe(MutableMap.<String,Object>of("subscriber", app, "subscriberExecutionManagerTag", "mytag", "batchDelivery", true), 
+                entity, TestEntity.SEQUENCE,
+                new SensorEventListener<Integer>() {
+                    @Override public void onEvent(SensorEvent<Integer> event) {
+                        int now = concurrent.incrementAndGet();
+                        synchronized (maxConcurrent) {
+                            if (now > maxConcurrent.get()) maxConcurrent.set(now);
+                        }
+                        values.add(event.getValue());
+                        if (event.getValue() == 99) latch.countDown();
+                        concurrent.decrementAndGet();
+                    }});
+        for (int i = 0; i < 100; i++) {
+            entity.setAttribute(TestEntity.SEQUENCE, i);
+            if (i % 10 == 0) Thread.sleep(1);
+        }
+        if (!latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            fail("Timeout waiting for batched events; got "+values);
+        }
+        assertEquals(values.size(), 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(values.get(i), (Integer)i);
+        }
+        assertEquals(maxConcurrent.get(), 1);
+    }
+    
+    private LocalSubscriptionManager subscriptionManager() {
+        return (LocalSubscriptionManager) ((EntityInternal)app).getManagementContext().getSubscriptionManager();
+    }
+    
     // Regression test for ConcurrentModificationException in issue #327
     @Test(groups="Integration")
     public void testConcurrentSubscribingAndPublishing() throws Exception {
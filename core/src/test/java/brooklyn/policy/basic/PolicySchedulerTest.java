@@ -0,0 +1,109 @@
+package brooklyn.policy.basic;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.policy.basic.PolicyScheduler.Queue;
+import brooklyn.test.Asserts;
+import brooklyn.util.collections.MutableMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class PolicySchedulerTest {
+
+    private static final int TIMEOUT_MS = 10*1000;
+
+    private PolicyScheduler scheduler;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        scheduler = new PolicyScheduler(0);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testRunsJobsOfQueueSeriallyInOrder() throws Exception {
+        final List<Integer> order = Collections.synchronizedList(Lists.<Integer>newArrayList());
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final Queue queue = scheduler.newQueue("policy1");
+        for (int i = 0; i < 5; i++) {
+            final int val = i;
+            queue.schedule(new Runnable() {
+                public void run() {
+                    int now = concurrent.incrementAndGet();
+                    synchronized (maxConcurrent) {
+                        if (now > maxConcurrent.get()) maxConcurrent.set(now);
+                    }
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    order.add(val);
+                    concurrent.decrementAndGet();
+                }}, (val < 3) ? 0 : 20, TimeUnit.MILLISECONDS);
+        }
+
+        Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertEquals(order, ImmutableList.of(0, 1, 2, 3, 4));
+            }});
+        assertEquals(maxConcurrent.get(), 1);
+        assertEquals(queue.getStats().getExecutionCount(), 5);
+        assertTrue(queue.getStats().getMaxTime() >= 10, "stats="+queue.getStats());
+    }
+
+    @Test
+    public void testRunsJobsOfDifferentQueuesConcurrently() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        Runnable job = new Runnable() {
+            public void run() {
+                latch.countDown();
+                try {
+                    latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }};
+        scheduler.newQueue("policy1").submit(job);
+        scheduler.newQueue("policy2").submit(job);
+
+        assertTrue(latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testSuspendDiscardsPendingJobs() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Runnable job = new Runnable() {
+            public void run() {
+                count.incrementAndGet();
+            }};
+        Queue queue = scheduler.newQueue("policy1");
+        queue.schedule(job, 100, TimeUnit.MILLISECONDS);
+        queue.suspend();
+        queue.submit(job);
+        assertEquals(queue.getPendingCount(), 0);
+
+        queue.resume();
+        queue.submit(job);
+        Thread.sleep(200);
+        assertEquals(count.get(), 1);
+        assertEquals(scheduler.getTotalStats().getExecutionCount(), 1);
+    }
+}
@@ -0,0 +1,96 @@
+package brooklyn.qa.performance;
+
+import static org.testng.Assert.assertEquals;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.basic.ApplicationBuilder;
+import brooklyn.entity.basic.Entities;
+import brooklyn.entity.proxying.EntityProxyImpl;
+import brooklyn.entity.proxying.EntitySpecs;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.test.entity.TestEntityImpl;
+
+/**
+ * Compares calls through an entity proxy (see {@link EntityProxyImpl}) with the same calls made directly
+ * on an entity instance, to measure the overhead of the proxy's dispatch.
+ */
+public class EntityProxyPerformanceTest extends AbstractPerformanceTest {
+
+    protected static final Logger LOG = LoggerFactory.getLogger(EntityProxyPerformanceTest.class);
+
+    private static final int NUM_ITERATIONS = 1000000;
+    
+    private TestApplication managedApp;
+    private TestEntity proxiedEntity;
+    private TestEntity directEntity;
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() {
+        super.setUp();
+        managedApp = ApplicationBuilder.newManagedApp(TestApplication.class);
+        proxiedEntity = managedApp.createAndManageChild(EntitySpecs.spec(TestEntity.class));
+        proxiedEntity.setAttribute(TestEntity.SEQUENCE, 123);
+        
+        directEntity = new TestEntityImpl(app);
+        Entities.startManagement(app);
+        directEntity.setAttribute(TestEntity.SEQUENCE, 123);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    @Override
+    public void tearDown() {
+        if (managedApp != null) Entities.destroyAll(managedApp);
+        super.tearDown();
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testGetAttributeDirect() {
+        runGetAttribute("getAttribute-direct", directEntity);
+    }
+    
+    @Test(groups={"Integration", "Acceptance"})
+    public void testGetAttributeProxied() {
+        runGetAttribute("getAttribute-proxied", proxiedEntity);
+    }
+    
+    @Test(groups={"Integration", "Acceptance"})
+    public void testNonEffectorMethodDirect() {
+        runGetSequenceValue("getSequenceValue-direct", directEntity);
+    }
+    
+    @Test(groups={"Integration", "Acceptance"})
+    public void testNonEffectorMethodProxied() {
+        runGetSequenceValue("getSequenceValue-proxied", proxiedEntity);
+    }
+    
+    protected void runGetAttribute(String prefix, final TestEntity entity) {
+        double minRatePerSec = 100000 * PERFORMANCE_EXPECTATION;
+        final int[] sum = new int[1];
+        
+        measureAndAssert(prefix, NUM_ITERATIONS, minRatePerSec, new Runnable() {
+            public void run() {
+                sum[0] += entity.getAttribute(TestEntity.SEQUENCE);
+            }});
+        
+        assertEquals(sum[0] % 123, 0);
+    }
+    
+    protected void runGetSequenceValue(String prefix, final TestEntity entity) {
+        double minRatePerSec = 100000 * PERFORMANCE_EXPECTATION;
+        final int[] sum = new int[1];
+        
+        measureAndAssert(prefix, NUM_ITERATIONS, minRatePerSec, new Runnable() {
+            public void run() {
+                sum[0] += entity.getSequenceValue();
+            }});
+        
+        assertEquals(sum[0] % 123, 0);
+    }
+}
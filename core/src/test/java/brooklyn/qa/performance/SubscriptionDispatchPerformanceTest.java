@@ -0,0 +1,169 @@
+package brooklyn.qa.performance;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.event.SensorEvent;
+import brooklyn.event.SensorEventListener;
+import brooklyn.event.basic.BasicSensorEvent;
+import brooklyn.management.internal.LocalSubscriptionManager;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.test.entity.TestEntityImpl;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.task.BasicExecutionManager;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+
+/**
+ * Measures the throughput of {@link LocalSubscriptionManager#publish(SensorEvent)} looking up subscriptions,
+ * for varying numbers of subscribers and publishing threads.
+ * <p>
+ * Subscriptions are given an event filter which rejects every event, so that what is measured is the
+ * dispatch (i.e. finding the matching subscriptions) rather than the execution of the listener tasks.
+ */
+public class SubscriptionDispatchPerformanceTest extends AbstractPerformanceTest {
+
+    protected static final Logger LOG = LoggerFactory.getLogger(SubscriptionDispatchPerformanceTest.class);
+
+    private static final int NUM_ITERATIONS = 100000;
+
+    private BasicExecutionManager executionManager;
+    private LocalSubscriptionManager subscriptionManager;
+    private List<TestEntity> entities;
+    private ExecutorService executor;
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() {
+        super.setUp();
+        executionManager = new BasicExecutionManager("perftest");
+        subscriptionManager = new LocalSubscriptionManager(executionManager);
+        executor = Executors.newCachedThreadPool();
+
+        entities = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            entities.add(new TestEntityImpl(app));
+        }
+    }
+
+    @AfterMethod(alwaysRun=true)
+    @Override
+    public void tearDown() {
+        if (executor != null) executor.shutdownNow();
+        if (executionManager != null) executionManager.shutdownNow();
+        super.tearDown();
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testPublishWithOneSubscriberOneThread() {
+        runPublish(1);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testPublishWithManySubscribersOneThread() {
+        runPublish(1000);
+    }
+
+    protected void runPublish(int numSubscribers) {
+        final int numIterations = NUM_ITERATIONS;
+        double minRatePerSec = 10000 * PERFORMANCE_EXPECTATION;
+        final TestEntity entity = entities.get(0);
+
+        subscribeRejectingAll(numSubscribers);
+
+        final SensorEvent<Integer> event = new BasicSensorEvent<Integer>(TestEntity.SEQUENCE, entity, 1);
+        measureAndAssert("publish-subscribers"+numSubscribers, numIterations, minRatePerSec, new Runnable() {
+            public void run() {
+                subscriptionManager.publish(event);
+            }});
+
+        assertEquals(subscriptionManager.getTotalEventsDelivered(), 0);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testConcurrentPublishThroughputBySubscriberAndThreadCount() {
+        int numEventsPerThread = NUM_ITERATIONS;
+        double minRatePerSec = 10000 * PERFORMANCE_EXPECTATION;
+        final TestEntity entity = entities.get(0);
+        final SensorEvent<Integer> event = new BasicSensorEvent<Integer>(TestEntity.SEQUENCE, entity, 1);
+
+        int numSubscribers = 0;
+        for (int targetSubscribers : new int[] {1, 10, 100, 1000}) {
+            subscribeRejectingAll(targetSubscribers - numSubscribers);
+            numSubscribers = targetSubscribers;
+
+            for (int numThreads : new int[] {1, 2, 4, 8}) {
+                final int numThreadsFinal = numThreads;
+                final int numEventsPerThreadFinal = numEventsPerThread;
+                long durationMillis = measure(new Runnable() {
+                    public void run() {
+                        publishConcurrently(event, numThreadsFinal, numEventsPerThreadFinal);
+                    }});
+                double numPerSec = ((double)numEventsPerThread*numThreads/Math.max(1, durationMillis) * 1000);
+                String msg = "publish-subscribers"+numSubscribers+"-threads"+numThreads+": "+durationMillis+"ms for "+
+                        (numEventsPerThread*numThreads)+" events: numPerSec="+numPerSec+"; minAcceptableRate="+minRatePerSec;
+                LOG.info(msg);
+                System.out.println(msg);
+                assertTrue(numPerSec >= minRatePerSec, msg);
+            }
+        }
+    }
+
+    private void subscribeRejectingAll(int numSubscribers) {
+        // add some unrelated subscriptions too, so that the lookup is not trivially on an empty index
+        Predicate<SensorEvent<Integer>> rejectAll = Predicates.alwaysFalse();
+        for (int i = 0; i < numSubscribers; i++) {
+            TestEntity producer = (i % 2 == 0) ? entities.get(0) : null;
+            subscriptionManager.subscribe(MutableMap.<String,Object>of("subscriber", "s"+i, "eventFilter", rejectAll,
+                    "subscriberExecutionManagerTag", null), producer, TestEntity.SEQUENCE, new NoopListener());
+            subscriptionManager.subscribe(MutableMap.<String,Object>of("subscriber", "u"+i, "subscriberExecutionManagerTag", null),
+                    entities.get(1 + (i % (entities.size()-1))), TestEntity.SEQUENCE, new NoopListener());
+        }
+    }
+
+    private void publishConcurrently(final SensorEvent<Integer> event, int numThreads, final int numEventsPerThread) {
+        if (numThreads == 1) {
+            for (int i = 0; i < numEventsPerThread; i++) {
+                subscriptionManager.publish(event);
+            }
+            return;
+        }
+        List<Future<?>> futures = Lists.newArrayList();
+        for (int t = 0; t < numThreads; t++) {
+            futures.add(executor.submit(new Callable<Void>() {
+                public Void call() {
+                    for (int i = 0; i < numEventsPerThread; i++) {
+                        subscriptionManager.publish(event);
+                    }
+                    return null;
+                }}));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private static class NoopListener implements SensorEventListener<Integer> {
+        @Override public void onEvent(SensorEvent<Integer> event) {
+        }
+    }
+}
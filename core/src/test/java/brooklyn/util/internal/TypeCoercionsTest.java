@@ -11,6 +11,7 @@ import org.testng.annotations.Test;
 
 import brooklyn.util.flags.TypeCoercions;
 
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
@@ -110,6 +111,38 @@ public class TypeCoercionsTest {
         assertEquals(TypeCoercions.coerce("1.0", Number.class), (Number) Double.valueOf(1.0));
     }
 
+    @Test
+    public void testRepeatedCoercionFailsEachTime() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                TypeCoercions.coerce(new WithAs("3"), WithFrom.class);
+                Assert.fail();
+            } catch (ClassCastException e) {
+                // expected; includes the value, so is not a cached exception
+                Assert.assertTrue(e.getMessage().contains("no adapter known"), "msg="+e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testRegisteringAdapterAffectsPreviouslyFailedCoercion() {
+        try {
+            TypeCoercions.coerce(new WithAs("4"), WithAdapter.class);
+            Assert.fail();
+        } catch (ClassCastException e) {
+            // expected
+        }
+        
+        TypeCoercions.registerAdapter(WithAs.class, WithAdapter.class, new Function<WithAs,WithAdapter>() {
+            @Override public WithAdapter apply(WithAs input) {
+                WithAdapter result = new WithAdapter();
+                result.value = input.asInteger();
+                return result;
+            }});
+        
+        assertEquals(TypeCoercions.coerce(new WithAs("4"), WithAdapter.class).value, 4);
+    }
+
     public static class WithAs {
         String value;
         public WithAs(Object x) { value = ""+x; }
@@ -127,4 +160,7 @@ public class TypeCoercionsTest {
         }
     }
 
+    public static class WithAdapter {
+        int value;
+    }
 }
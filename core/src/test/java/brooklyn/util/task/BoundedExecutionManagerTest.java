@@ -0,0 +1,163 @@
+package brooklyn.util.task;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.management.Task;
+import brooklyn.test.Asserts;
+import brooklyn.util.collections.MutableMap;
+
+import com.google.common.collect.Lists;
+
+public class BoundedExecutionManagerTest {
+
+    private static final int TIMEOUT_MS = 10*1000;
+
+    private BasicExecutionManager em;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        em = new BasicExecutionManager("mycontext", 2);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (em != null) em.shutdownNow();
+    }
+
+    @Test
+    public void testQueuesTasksBeyondMaxThreads() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        List<Task<?>> tasks = Lists.newArrayList();
+        for (int i = 0; i < 6; i++) {
+            tasks.add(em.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    int now = concurrent.incrementAndGet();
+                    synchronized (maxConcurrent) {
+                        if (now > maxConcurrent.get()) maxConcurrent.set(now);
+                    }
+                    latch.await();
+                    concurrent.decrementAndGet();
+                    return null;
+                }}));
+        }
+
+        Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertEquals(em.getNumQueuedTasks(), 4);
+                assertEquals(concurrent.get(), 2);
+            }});
+        latch.countDown();
+        for (Task<?> task : tasks) {
+            task.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(maxConcurrent.get(), 2);
+        assertEquals(em.getNumQueuedTasks(), 0);
+    }
+
+    @Test
+    public void testTasksBlockedOnSubTasksDoNotStarvePool() throws Exception {
+        final AtomicInteger maxThreadsSeen = new AtomicInteger();
+        List<Task<?>> tasks = Lists.newArrayList();
+        for (int i = 0; i < 4; i++) {
+            tasks.add(em.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    Task<String> child = em.submit(MutableMap.of(), new Callable<String>() {
+                        public String call() {
+                            synchronized (maxThreadsSeen) {
+                                maxThreadsSeen.set(Math.max(maxThreadsSeen.get(), em.getNumThreads()));
+                            }
+                            return "child";
+                        }});
+                    return "parent-"+child.get();
+                }}));
+        }
+        for (Task<?> task : tasks) {
+            assertEquals(task.get(TIMEOUT_MS, TimeUnit.MILLISECONDS), "parent-child");
+        }
+
+        assertEquals(em.getNumBlockedTaskThreads(), 0);
+        // at most one extra thread per blocked parent
+        assertTrue(maxThreadsSeen.get() <= 2+4, "maxThreadsSeen="+maxThreadsSeen);
+    }
+
+    @Test
+    public void testBlockedTasksBeyondMaxExtraThreadsAreQueued() throws Exception {
+        em.shutdownNow();
+        em = new BasicExecutionManager("mycontext", 2, 1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger concurrent = new AtomicInteger();
+        List<Task<?>> blockers = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            blockers.add(em.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    concurrent.incrementAndGet();
+                    Object blocking = Tasks.beginBlocking();
+                    try {
+                        latch.await();
+                    } finally {
+                        Tasks.endBlocking(blocking);
+                    }
+                    return null;
+                }}));
+        }
+        
+        // 2 threads, plus 1 extra for the blocked threads; the rest are queued
+        Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertEquals(concurrent.get(), 3);
+                assertEquals(em.getNumQueuedTasks(), 2);
+            }});
+        Thread.sleep(100);
+        assertEquals(concurrent.get(), 3);
+        assertTrue(em.getNumThreads() <= 3, "threads="+em.getNumThreads());
+        
+        latch.countDown();
+        for (Task<?> task : blockers) {
+            task.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(em.getNumBlockedTaskThreads(), 0);
+    }
+
+    @Test
+    public void testTasksMarkedBlockingDoNotStarvePool() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        List<Task<?>> blockers = Lists.newArrayList();
+        for (int i = 0; i < 2; i++) {
+            blockers.add(em.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    // e.g. waiting on an ssh command or sleeping between retries
+                    Object blocking = Tasks.beginBlocking();
+                    try {
+                        latch.await();
+                    } finally {
+                        Tasks.endBlocking(blocking);
+                    }
+                    return null;
+                }}));
+        }
+        Task<String> other = em.submit(new Callable<String>() {
+            public String call() {
+                return "ran";
+            }});
+        
+        assertEquals(other.get(TIMEOUT_MS, TimeUnit.MILLISECONDS), "ran");
+        latch.countDown();
+        for (Task<?> task : blockers) {
+            task.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(em.getNumBlockedTaskThreads(), 0);
+    }
+}
@@ -0,0 +1,107 @@
+package brooklyn.util.task;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.management.Task;
+import brooklyn.test.Asserts;
+import brooklyn.util.collections.MutableMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class TaskHistoryTest {
+
+    private BasicExecutionManager em;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        em = new BasicExecutionManager("mycontext");
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (em != null) em.shutdownNow();
+    }
+
+    @Test
+    public void testExpiredTaskKeptAsRecordButDeleted() throws Exception {
+        Task<String> task = runTask("mytag", "myresult");
+        em.expireTask(task);
+
+        assertNull(em.getTask(task.getId()));
+        assertEquals(em.getTasksWithTag("mytag").size(), 0);
+        TaskRecord record = em.getTaskHistory().get(task.getId());
+        assertEquals(record.getId(), task.getId());
+        assertEquals(record.getTags(), ImmutableList.of("mytag"));
+        assertEquals(record.getEndTimeUtc(), task.getEndTimeUtc());
+        assertEquals(record.isError(), false);
+    }
+
+    @Test
+    public void testRecentForEntityIgnoresStringTagsMatchingId() throws Exception {
+        Task<String> task = runTask("myentityid", "myresult");
+        em.expireTask(task);
+
+        assertEquals(em.getTaskHistory().getRecentForEntity("myentityid"), ImmutableList.of());
+    }
+
+    @Test
+    public void testOldestCompletedTasksInCompletionOrder() throws Exception {
+        Task<String> task1 = runTask("mytag", "val1");
+        Task<String> task2 = runTask("mytag", "val2");
+        Task<String> task3 = runTask("mytag", "val3");
+        em.expireTask(task2);
+
+        assertEquals(em.getOldestCompletedTasks(1, Long.MIN_VALUE), ImmutableList.of(task1));
+        assertEquals(em.getOldestCompletedTasks(0, task3.getEndTimeUtc()+1), ImmutableList.of(task1, task3));
+    }
+
+    @Test
+    public void testRingBufferOverwritesOldest() throws Exception {
+        TaskHistory history = new TaskHistory(3);
+        List<Task<String>> tasks = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            Task<String> task = runTask("mytag", "val"+i);
+            tasks.add(task);
+            history.add(TaskRecord.of(task));
+        }
+        assertEquals(history.size(), 3);
+        assertEquals(history.getTotalRecorded(), 5);
+        assertEquals(ids(history.getRecent()), ImmutableList.of(tasks.get(2).getId(), tasks.get(3).getId(), tasks.get(4).getId()));
+        assertNull(history.get(tasks.get(1).getId()));
+
+        history.setCapacity(2);
+        assertEquals(ids(history.getRecent()), ImmutableList.of(tasks.get(3).getId(), tasks.get(4).getId()));
+    }
+
+    private Task<String> runTask(String tag, final String result) throws Exception {
+        final Task<String> task = em.submit(MutableMap.of("tag", tag), new Callable<String>() {
+            public String call() {
+                return result;
+            }});
+        task.get();
+        // the result is available slightly before the manager records the task as completed
+        Asserts.succeedsEventually(new Runnable() {
+            public void run() {
+                assertTrue(em.getOldestCompletedTasks(Integer.MAX_VALUE, Long.MIN_VALUE).contains(task));
+            }});
+        return task;
+    }
+
+    private List<String> ids(List<TaskRecord> records) {
+        List<String> result = Lists.newArrayList();
+        for (TaskRecord record : records) {
+            result.add(record.getId());
+        }
+        return result;
+    }
+}
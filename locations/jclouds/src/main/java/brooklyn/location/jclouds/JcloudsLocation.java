@@ -2,6 +2,7 @@ package brooklyn.location.jclouds;
 
 import static brooklyn.util.GroovyJavaMethods.elvis;
 import static brooklyn.util.GroovyJavaMethods.truth;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -19,6 +20,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 
@@ -50,14 +54,19 @@ import brooklyn.config.ConfigKey;
 import brooklyn.config.ConfigKey.HasConfigKey;
 import brooklyn.config.ConfigUtils;
 import brooklyn.entity.basic.Entities;
+import brooklyn.location.BatchMachineProvisioningLocation;
 import brooklyn.location.NoMachinesAvailableException;
 import brooklyn.location.basic.LocationConfigUtils;
 import brooklyn.location.basic.LocationCreationUtils;
+import brooklyn.location.basic.ObtainBatcher;
 import brooklyn.location.basic.SshMachineLocation;
 import brooklyn.location.cloud.AbstractCloudMachineProvisioningLocation;
 import brooklyn.location.jclouds.templates.PortableTemplateBuilder;
+import brooklyn.location.jclouds.templates.ResolvedTemplateCache;
+import brooklyn.location.jclouds.templates.ResolvedTemplateCache.ResolvedTemplate;
 import brooklyn.util.collections.MutableMap;
 import brooklyn.util.config.ConfigBag;
+import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.flags.TypeCoercions;
 import brooklyn.util.internal.Repeater;
 import brooklyn.util.internal.ssh.SshTool;
@@ -72,7 +81,9 @@ import brooklyn.util.time.Time;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
+import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
+import com.google.common.base.Predicates;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -82,14 +93,17 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Closeables;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * For provisioning and managing VMs in a particular provider/region, using jclouds.
  * Configuration flags are defined in {@link JcloudsLocationConfig}.
  */
-public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation implements JcloudsLocationConfig {
+public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation 
+        implements BatchMachineProvisioningLocation<SshMachineLocation>, JcloudsLocationConfig {
 
     // TODO After converting from Groovy to Java, this is now very bad code! It relies entirely on putting 
     // things into and taking them out of maps; it's not type-safe, and it's thus very error-prone.
@@ -114,8 +128,11 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
     public static final List<String> NON_ADDABLE_USERS = ImmutableList.<String>builder().add(ROOT_USERNAME).addAll(ROOT_ALIASES).build();
     
     private final Map<String,Map<String, ? extends Object>> tagMapping = Maps.newLinkedHashMap();
-    private final Map<JcloudsSshMachineLocation,String> vmInstanceIds = Maps.newLinkedHashMap();
+    /** machines are registered concurrently when a batch is obtained (see {@link #obtain(int, Map)}) */
+    private final Map<JcloudsSshMachineLocation,String> vmInstanceIds = Collections.synchronizedMap(Maps.<JcloudsSshMachineLocation,String>newLinkedHashMap());
 
+    private final transient ObtainBatcher<SshMachineLocation> obtainBatcher = new ObtainBatcher<SshMachineLocation>(this);
+    
     /** typically wants at least ACCESS_IDENTITY and ACCESS_CREDENTIAL */
     public JcloudsLocation(Map<?,?> conf) {
         super(conf);
@@ -311,6 +328,10 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
      * plus any further properties to specify e.g. images, hardware profiles, accessing user
      * (for initial login, and a user potentially to create for subsequent ie normal access) */
     public JcloudsSshMachineLocation obtain(Map<?,?> flags) throws NoMachinesAvailableException {
+        if (obtainBatcher.isExpecting()) {
+            return (JcloudsSshMachineLocation) obtainBatcher.obtain(flags);
+        }
+        
         ConfigBag setup = ConfigBag.newInstanceExtending(getConfigBag(), flags);
         setCreationString(setup);
         
@@ -332,39 +353,7 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
             if (node == null)
                 throw new IllegalStateException("No nodes returned by jclouds create-nodes in " + setup.getDescription());
 
-            LoginCredentials initialCredentials = extractVmCredentials(setup, node);
-            if (initialCredentials != null)
-                node = NodeMetadataBuilder.fromNodeMetadata(node).credentials(initialCredentials).build();
-            else
-                // only happens if something broke above...
-                initialCredentials = LoginCredentials.fromCredentials(node.getCredentials());
-            
-            // Wait for the VM to be reachable over SSH
-            waitForReachable(computeService, node, initialCredentials, setup);
-            
-            String vmHostname = getPublicHostname(node, setup);
-            JcloudsSshMachineLocation sshLocByHostname = registerJcloudsSshMachineLocation(node, vmHostname, setup);
-            
-            // Apply same securityGroups rules to iptables, if iptables is running on the node
-            String waitForSshable = setup.get(WAIT_FOR_SSHABLE);
-            if (!(waitForSshable!=null && "false".equalsIgnoreCase(waitForSshable))) {
-                if (setup.get(JcloudsLocationConfig.MAP_DEV_RANDOM_TO_DEV_URANDOM))
-                    sshLocByHostname.execCommands("using urandom instead of random", 
-                        Arrays.asList("sudo mv /dev/random /dev/random-real", "sudo ln -s /dev/urandom /dev/random"));
-                
-                mapSecurityGroupRuleToIpTables(computeService, node, initialCredentials, "eth0", 
-                        (Iterable<Integer>) setup.get(INBOUND_PORTS));
-            } else {
-                // Otherwise would break CloudStack, where port-forwarding means that jclouds opinion 
-                // of using port 22 is wrong.
-            }
-            
-            // Apply any optional app-specific customization.
-            for (JcloudsLocationCustomizer customizer : getCustomizers(setup)) {
-                customizer.customize(computeService, sshLocByHostname);
-            }
-            
-            return sshLocByHostname;
+            return customizeNode(computeService, node, setup);
         } catch (RunNodesException e) {
             if (e.getNodeErrors().size() > 0) {
                 node = Iterables.get(e.getNodeErrors().keySet(), 0);
@@ -382,6 +371,170 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
 
     }
 
+    /**
+     * Obtains count VMs with one jclouds create-nodes call (so with one template resolution, and one
+     * provisioning request to the cloud), then prepares each of them (waiting for ssh, creating the user, etc) 
+     * in parallel.
+     * <p>
+     * VMs which fail to be created or prepared are destroyed, and omitted from the result.
+     * 
+     * @see #obtain(Map)
+     * @see #obtain(Map, List)
+     */
+    @Override
+    public List<SshMachineLocation> obtain(int count, Map<?,?> flags) throws NoMachinesAvailableException {
+        checkArgument(count > 0, "count must be positive, but was %s", count);
+        List<SshMachineLocation> machines = obtain(flags, Collections.nCopies(count, ImmutableMap.of()));
+        return Lists.newArrayList(Iterables.filter(machines, Predicates.notNull()));
+    }
+
+    /**
+     * As {@link #obtain(int, Map)}, but each VM is prepared and registered with its own flags (over the common flags),
+     * e.g. the callerContext of the entity it is for. The VMs' names come from the common flags (as they are created
+     * in one group), so do not reflect any one caller.
+     * <p>
+     * VMs which fail to be created or prepared are destroyed, and null in the result.
+     */
+    @Override
+    public List<SshMachineLocation> obtain(Map<?,?> flags, List<? extends Map<?,?>> flagsPerMachine) throws NoMachinesAvailableException {
+        int count = flagsPerMachine.size();
+        checkArgument(count > 0, "flagsPerMachine must not be empty");
+        final ConfigBag setup = ConfigBag.newInstanceExtending(getConfigBag(), flags);
+        setCreationString(setup);
+        
+        final ComputeService computeService = JcloudsUtil.findComputeService(setup);
+        String groupId = elvis(setup.get(GROUP_ID), new CloudMachineNamer(setup).generateNewGroupId());
+        Set<? extends NodeMetadata> nodes;
+        try {
+            LOG.info("Creating {} VMs in {} for {}", new Object[] {count, setup.getDescription(), this});
+
+            Template template = buildTemplate(computeService, setup);
+
+            if (!setup.getUnusedConfig().isEmpty())
+                LOG.debug("NOTE: unused flags passed to obtain VMs in "+setup.getDescription()+": "+
+                        setup.getUnusedConfig());
+            
+            nodes = createNodesInGroup(computeService, groupId, count, template);
+        } catch (RunNodesException e) {
+            LOG.error("Failed to start {} of {} VMs for {}: {}", new Object[] {e.getNodeErrors().size(), count, setup.getDescription(), e.getMessage()});
+            for (NodeMetadata failedNode : e.getNodeErrors().keySet()) {
+                destroyNodeQuietly(computeService, failedNode);
+            }
+            nodes = e.getSuccessfulNodes();
+        } catch (Exception e) {
+            LOG.error("Failed to start VMs for {}: {}", setup.getDescription(), e.getMessage());
+            LOG.debug(Throwables.getStackTraceAsString(e));
+            throw Throwables.propagate(e);
+        }
+        LOG.debug("jclouds created {} for {}", nodes, setup.getDescription());
+        if (nodes.isEmpty())
+            throw new NoMachinesAvailableException("No nodes created by jclouds create-nodes in " + setup.getDescription());
+
+        int numThreads = Math.max(1, Math.min(nodes.size(), setup.get(MAX_CONCURRENT_MACHINE_CUSTOMIZATIONS)));
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat("brooklyn-jclouds-customize-"+groupId+"-%d")
+                .setDaemon(true)
+                .build());
+        try {
+            // the i'th node is for the i'th flags; there are fewer nodes than flags if some could not be created
+            List<NodeMetadata> nodeList = ImmutableList.copyOf(nodes);
+            List<Future<JcloudsSshMachineLocation>> futures = Lists.newArrayList();
+            for (int i = 0; i < nodeList.size() && i < count; i++) {
+                final NodeMetadata node = nodeList.get(i);
+                final ConfigBag machineSetup = ConfigBag.newInstanceExtending(setup, flagsPerMachine.get(i));
+                setCreationString(machineSetup);
+                futures.add(executor.submit(new Callable<JcloudsSshMachineLocation>() {
+                    public JcloudsSshMachineLocation call() throws Exception {
+                        return customizeNode(computeService, node, machineSetup);
+                    }}));
+            }
+            
+            List<SshMachineLocation> result = Lists.newArrayList();
+            int numObtained = 0;
+            Exception lastError = null;
+            for (int i = 0; i < count; i++) {
+                SshMachineLocation machine = null;
+                if (i < futures.size()) {
+                    try {
+                        machine = futures.get(i).get();
+                        numObtained++;
+                    } catch (InterruptedException e) {
+                        throw Exceptions.propagate(e);
+                    } catch (Exception e) {
+                        lastError = e;
+                        LOG.error("Failed to prepare VM "+nodeList.get(i).getId()+" for "+setup.getDescription()+"; destroying it", e);
+                        destroyNodeQuietly(computeService, nodeList.get(i));
+                    }
+                }
+                result.add(machine);
+            }
+            if (numObtained == 0)
+                throw new NoMachinesAvailableException("Failed to prepare any of the "+nodes.size()+" VMs created in "+
+                        setup.getDescription(), lastError);
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /** creates the nodes (a hook for testing, so no cloud is needed) */
+    protected Set<? extends NodeMetadata> createNodesInGroup(ComputeService computeService, String groupId, int count, Template template) throws RunNodesException {
+        return computeService.createNodesInGroup(groupId, count, template);
+    }
+    
+    @Override
+    public void expectObtains(int count) {
+        obtainBatcher.expect(count, getConfig(OBTAIN_BATCH_MAX_WAIT));
+    }
+    
+    /**
+     * Prepares a newly created VM for use: waits for it to be reachable over ssh, creates the user and authorizes
+     * keys, applies the security group rules to iptables, and applies any customizers.
+     */
+    protected JcloudsSshMachineLocation customizeNode(ComputeService computeService, NodeMetadata node, ConfigBag setup) throws Exception {
+        LoginCredentials initialCredentials = extractVmCredentials(setup, node);
+        if (initialCredentials != null)
+            node = NodeMetadataBuilder.fromNodeMetadata(node).credentials(initialCredentials).build();
+        else
+            // only happens if something broke above...
+            initialCredentials = LoginCredentials.fromCredentials(node.getCredentials());
+        
+        // Wait for the VM to be reachable over SSH
+        waitForReachable(computeService, node, initialCredentials, setup);
+        
+        String vmHostname = getPublicHostname(node, setup);
+        JcloudsSshMachineLocation sshLocByHostname = registerJcloudsSshMachineLocation(node, vmHostname, setup);
+        
+        // Apply same securityGroups rules to iptables, if iptables is running on the node
+        String waitForSshable = setup.get(WAIT_FOR_SSHABLE);
+        if (!(waitForSshable!=null && "false".equalsIgnoreCase(waitForSshable))) {
+            if (setup.get(JcloudsLocationConfig.MAP_DEV_RANDOM_TO_DEV_URANDOM))
+                sshLocByHostname.execCommands("using urandom instead of random", 
+                    Arrays.asList("sudo mv /dev/random /dev/random-real", "sudo ln -s /dev/urandom /dev/random"));
+            
+            mapSecurityGroupRuleToIpTables(computeService, node, initialCredentials, "eth0", 
+                    (Iterable<Integer>) setup.get(INBOUND_PORTS));
+        } else {
+            // Otherwise would break CloudStack, where port-forwarding means that jclouds opinion 
+            // of using port 22 is wrong.
+        }
+        
+        // Apply any optional app-specific customization.
+        for (JcloudsLocationCustomizer customizer : getCustomizers(setup)) {
+            customizer.customize(computeService, sshLocByHostname);
+        }
+        
+        return sshLocByHostname;
+    }
+    
+    private void destroyNodeQuietly(ComputeService computeService, NodeMetadata node) {
+        try {
+            computeService.destroyNode(node.getId());
+        } catch (Exception e) {
+            LOG.warn("Problem destroying failed VM "+node.getId()+" in "+this+"; continuing...", e);
+        }
+    }
+
     private void mapSecurityGroupRuleToIpTables(ComputeService computeService, NodeMetadata node,
             LoginCredentials credentials, String networkInterface, Iterable<Integer> ports) {
         for (Integer port : ports) {
@@ -529,7 +682,92 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
     private static boolean listedAvailableTemplatesOnNoSuchTemplate = false;
 
     /** returns the jclouds Template which describes the image to be built */
-    protected Template buildTemplate(ComputeService computeService, ConfigBag config) {
+    protected Template buildTemplate(final ComputeService computeService, ConfigBag config) {
+        TemplateBuilder templateBuilder = newTemplateBuilder(computeService, config);
+        
+        // Re-use the image and hardware previously resolved for the same constraints, if possible
+        Template template = null;
+        ResolvedTemplateCache templateCache = null;
+        String templateCacheKey = getTemplateCacheKey(config);
+        if (templateCacheKey != null) {
+            templateCache = ResolvedTemplateCache.getInstance(config.get(TEMPLATE_CACHE_FILE));
+            final ConfigBag refreshConfig = ConfigBag.newInstanceCopying(config);
+            ResolvedTemplate resolved = templateCache.get(templateCacheKey, config.get(TEMPLATE_CACHE_TTL), 
+                    config.get(TEMPLATE_CACHE_REFRESH), new Callable<Template>() {
+                        public Template call() {
+                            return resolveTemplate(newTemplateBuilder(computeService, refreshConfig), refreshConfig);
+                        }});
+            if (resolved != null) {
+                try {
+                    template = resolved.applyTo(templateBuilder).build();
+                    LOG.debug(""+this+" using cached template "+resolved+" for "+templateCacheKey);
+                } catch (Exception e) {
+                    LOG.debug(""+this+" unable to use cached template "+resolved+" (resolving again): "+e);
+                    templateCache.invalidate(templateCacheKey);
+                    templateBuilder = newTemplateBuilder(computeService, config);
+                }
+            }
+        }
+        if (template == null) {
+            template = resolveTemplate(templateBuilder, config);
+            if (templateCache != null) templateCache.put(templateCacheKey, template);
+        }
+        
+        TemplateOptions options = template.getOptions();
+        
+        for (Map.Entry<ConfigKey<?>, CustomizeTemplateOptions> entry : SUPPORTED_TEMPLATE_OPTIONS_PROPERTIES.entrySet()) {
+            ConfigKey<?> key = entry.getKey();
+            CustomizeTemplateOptions code = entry.getValue();
+            if (config.containsKey(key))
+                code.apply(options, config, config.get(key));
+        }
+        
+        // Setup the user
+        
+        //NB: we ignore private key here because, by default we probably should not be installing it remotely;
+        //also, it may not be valid for first login (it is created before login e.g. on amazon, so valid there;
+        //but not elsewhere, e.g. on rackspace)
+        String user = getUser(config);
+        String loginUser = config.get(LOGIN_USER);
+        Boolean dontCreateUser = config.get(DONT_CREATE_USER);
+        String publicKeyData = LocationConfigUtils.getPublicKeyData(config);
+        if (truth(user) && !NON_ADDABLE_USERS.contains(user) && 
+                !user.equals(loginUser) && !truth(dontCreateUser)) {
+            // create the user, if it's not the login user and not a known root-level user
+            // by default we now give these users sudo privileges.
+            // if you want something else, that can be specified manually, 
+            // e.g. using jclouds UserAdd.Builder, with RunScriptOnNode, or template.options.runScript(xxx)
+            // (if that is a common use case, we could expose a property here)
+            // note AdminAccess requires _all_ fields set, due to http://code.google.com/p/jclouds/issues/detail?id=1095
+            AdminAccess.Builder adminBuilder = AdminAccess.builder().
+                    adminUsername(user).
+                    grantSudoToAdminUser(true);
+            adminBuilder.adminPassword(truth(config.get(PASSWORD)) ? config.get(PASSWORD) : Identifiers.makeRandomId(12));
+            if (publicKeyData!=null)
+                adminBuilder.authorizeAdminPublicKey(true).adminPublicKey(publicKeyData);
+            else
+                adminBuilder.authorizeAdminPublicKey(false).adminPublicKey("ignored").lockSsh(true);
+            adminBuilder.installAdminPrivateKey(false).adminPrivateKey("ignored");
+            adminBuilder.resetLoginPassword(true).loginPassword(Identifiers.makeRandomId(12));
+            adminBuilder.lockSsh(true);
+            options.runScript(adminBuilder.build());
+        } else if (truth(publicKeyData)) {
+            // don't create the user, but authorize the public key for the default user
+            options.authorizePublicKey(publicKeyData);
+        }
+        
+        // Finally, apply any optional app-specific customization.
+        for (JcloudsLocationCustomizer customizer : getCustomizers(config)) {
+            customizer.customize(computeService, options);
+        }
+        
+        LOG.debug("jclouds using template {} / options {} to provision machine in {}", new Object[] {
+                template, options, config.getDescription()});
+        return template;
+    }
+
+    /** returns the builder for the template, with all constraints and customizations applied (but not built) */
+    protected TemplateBuilder newTemplateBuilder(ComputeService computeService, ConfigBag config) {
         TemplateBuilder templateBuilder = (TemplateBuilder) config.get(TEMPLATE_BUILDER);
         if (templateBuilder==null)
             templateBuilder = new PortableTemplateBuilder();
@@ -563,8 +801,11 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
         for (JcloudsLocationCustomizer customizer : getCustomizers(config)) {
             customizer.customize(computeService, templateBuilder);
         }
-        
-        // Finally try to build the template
+        return templateBuilder;
+    }
+
+    /** builds the template, i.e. finds the image and hardware matching the constraints of the builder */
+    protected Template resolveTemplate(TemplateBuilder templateBuilder, ConfigBag config) {
         Template template;
         try {
             template = templateBuilder.build();
@@ -599,8 +840,7 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
                         if (m1.containsKey(IMAGE_ID)) {
                             // if caller specified an image ID, remove that, but don't apply default filters
                             m1.remove(IMAGE_ID);
-                            // TODO use key
-                            m1.putStringKey("anyOwner", true);
+                            m1.put(ANY_OWNER, true);
                         }
                         ComputeService computeServiceLessRestrictive = JcloudsUtil.findComputeService(m1);
                         Set<? extends Image> imgs = computeServiceLessRestrictive.listImages();
@@ -616,57 +856,36 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
             }
             throw new IllegalStateException("Unable to match required VM template constraints "+templateBuilder+" when trying to provision VM in "+this+". See list of images in log.", e);
         }
-        TemplateOptions options = template.getOptions();
-        
-        for (Map.Entry<ConfigKey<?>, CustomizeTemplateOptions> entry : SUPPORTED_TEMPLATE_OPTIONS_PROPERTIES.entrySet()) {
-            ConfigKey<?> key = entry.getKey();
-            CustomizeTemplateOptions code = entry.getValue();
-            if (config.containsKey(key))
-                code.apply(options, config, config.get(key));
-        }
-        
-        // Setup the user
+        return template;
+    }
+
+    /**
+     * returns the key under which the template resolved for this config can be cached, identifying the cloud account
+     * and region as well as all config which affects the images and hardware considered or the constraints on them;
+     * or null if it should not be cached (i.e. if the cache is disabled, which is the default, or if a custom
+     * template builder or customizers are supplied, which could make arbitrary changes to the template)
+     */
+    @Nullable
+    protected String getTemplateCacheKey(ConfigBag config) {
+        Long ttl = config.get(TEMPLATE_CACHE_TTL);
+        if (ttl == null || ttl <= 0) return null;
+        if (config.get(TEMPLATE_BUILDER) != null || !getCustomizers(config).isEmpty()) return null;
         
-        //NB: we ignore private key here because, by default we probably should not be installing it remotely;
-        //also, it may not be valid for first login (it is created before login e.g. on amazon, so valid there;
-        //but not elsewhere, e.g. on rackspace)
-        String user = getUser(config);
-        String loginUser = config.get(LOGIN_USER);
-        Boolean dontCreateUser = config.get(DONT_CREATE_USER);
-        String publicKeyData = LocationConfigUtils.getPublicKeyData(config);
-        if (truth(user) && !NON_ADDABLE_USERS.contains(user) && 
-                !user.equals(loginUser) && !truth(dontCreateUser)) {
-            // create the user, if it's not the login user and not a known root-level user
-            // by default we now give these users sudo privileges.
-            // if you want something else, that can be specified manually, 
-            // e.g. using jclouds UserAdd.Builder, with RunScriptOnNode, or template.options.runScript(xxx)
-            // (if that is a common use case, we could expose a property here)
-            // note AdminAccess requires _all_ fields set, due to http://code.google.com/p/jclouds/issues/detail?id=1095
-            AdminAccess.Builder adminBuilder = AdminAccess.builder().
-                    adminUsername(user).
-                    grantSudoToAdminUser(true);
-            adminBuilder.adminPassword(truth(config.get(PASSWORD)) ? config.get(PASSWORD) : Identifiers.makeRandomId(12));
-            if (publicKeyData!=null)
-                adminBuilder.authorizeAdminPublicKey(true).adminPublicKey(publicKeyData);
-            else
-                adminBuilder.authorizeAdminPublicKey(false).adminPublicKey("ignored").lockSsh(true);
-            adminBuilder.installAdminPrivateKey(false).adminPrivateKey("ignored");
-            adminBuilder.resetLoginPassword(true).loginPassword(Identifiers.makeRandomId(12));
-            adminBuilder.lockSsh(true);
-            options.runScript(adminBuilder.build());
-        } else if (truth(publicKeyData)) {
-            // don't create the user, but authorize the public key for the default user
-            options.authorizePublicKey(publicKeyData);
+        Map<String,Object> key = Maps.newTreeMap();
+        // config used by JcloudsUtil.findComputeService, which determines the images listed
+        for (ConfigKey<?> cloudKey : ImmutableList.<ConfigKey<?>>of(CLOUD_PROVIDER, CLOUD_ENDPOINT, JCLOUDS_KEY_ENDPOINT, 
+                IMAGE_OWNER, ANY_OWNER)) {
+            key.put(cloudKey.getName(), config.get(cloudKey));
         }
-        
-        // Finally, apply any optional app-specific customization.
-        for (JcloudsLocationCustomizer customizer : getCustomizers(config)) {
-            customizer.customize(computeService, options);
+        // the key is written to the cache file, so identify the account by a hash of its identity rather than the identity itself
+        String identity = config.get(ACCESS_IDENTITY);
+        key.put(ACCESS_IDENTITY.getName(), (identity == null) ? null : Hashing.sha256().hashString(identity, Charsets.UTF_8).toString());
+        // config used by newTemplateBuilder (including defaultImageId, which is applied if nothing else is specified)
+        key.put(CLOUD_REGION_ID.getName(), config.get(CLOUD_REGION_ID));
+        for (ConfigKey<?> templateKey : SUPPORTED_TEMPLATE_BUILDER_PROPERTIES.keySet()) {
+            key.put(templateKey.getName(), config.get(templateKey));
         }
-        
-        LOG.debug("jclouds using template {} / options {} to provision machine in {}", new Object[] {
-                template, options, config.getDescription()});
-        return template;
+        return Joiner.on(";").useForNull("").withKeyValueSeparator("=").join(key);
     }
 
     // TODO we really need a better way to decide which images are preferred
@@ -753,7 +972,10 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
     
     protected JcloudsSshMachineLocation registerJcloudsSshMachineLocation(NodeMetadata node, String vmHostname, ConfigBag setup) throws IOException {
         JcloudsSshMachineLocation machine = createJcloudsSshMachineLocation(node, vmHostname, setup);
-        machine.setParentLocation(this);
+        // guards the (non-thread-safe) child locations, as machines in a batch are registered concurrently
+        synchronized (this) {
+            machine.setParentLocation(this);
+        }
         vmInstanceIds.put(machine, node.getId());
         return machine;
     }
@@ -802,7 +1024,9 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
         
         LOG.info("Releasing machine {} in {}, instance id {}", new Object[] {machine, this, instanceId});
         
-        removeChildLocation(machine);
+        synchronized (this) {
+            removeChildLocation(machine);
+        }
         ComputeService computeService = null;
         try {
             computeService = JcloudsUtil.findComputeService(getConfigBag());
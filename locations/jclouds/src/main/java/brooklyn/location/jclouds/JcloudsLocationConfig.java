@@ -53,6 +53,24 @@ public interface JcloudsLocationConfig extends CloudLocationConfig {
             "Whether and how long to wait for a newly provisioned VM to be accessible via ssh; " +
             "if 'false', won't check; if 'true' uses default duration; otherwise accepts a time string e.g. '5m' (the default) or a number of milliseconds", "5m");
     
+    public static final ConfigKey<Integer> MAX_CONCURRENT_MACHINE_CUSTOMIZATIONS = new BasicConfigKey<Integer>(Integer.class, "maxConcurrentMachineCustomizations", 
+            "When obtaining several VMs in one batch, the maximum number to prepare (wait for ssh, create user, etc) at the same time", 20);
+    
+    public static final ConfigKey<Long> OBTAIN_BATCH_MAX_WAIT = new BasicConfigKey<Long>(Long.class, "obtainBatchMaxWait", 
+            "When several VMs are expected to be obtained at once (e.g. when a cluster grows), the maximum time in milliseconds " +
+            "to hold requests for VMs, so that those with the same flags can be created in one batch; 0 to disable batching", 10*1000L);
+
+    public static final ConfigKey<Long> TEMPLATE_CACHE_TTL = new BasicConfigKey<Long>(Long.class, "templateCacheTtl",
+            "Time in milliseconds for which the image and hardware resolved for a set of template constraints are re-used " +
+            "when provisioning with the same constraints; 0 (the default) to disable the cache", 0L);
+
+    public static final ConfigKey<Long> TEMPLATE_CACHE_REFRESH = new BasicConfigKey<Long>(Long.class, "templateCacheRefresh",
+            "Age in milliseconds after which a cached template is re-resolved in the background when it is next used", 60*60*1000L);
+
+    public static final ConfigKey<String> TEMPLATE_CACHE_FILE = new StringConfigKey("templateCacheFile",
+            "File in which resolved templates are persisted, so that the cache is warm after a restart " +
+            "(e.g. ~/.brooklyn/jclouds-templates.properties); blank (the default) to not persist", null);
+    
     public static final ConfigKey<Integer> MIN_RAM = new BasicConfigKey<Integer>(Integer.class, "minRam", 
             "Minimum amount of RAM (in MB), for use in selecting the machine/hardware profile", null);
     public static final ConfigKey<Integer> MIN_CORES = new BasicConfigKey<Integer>(Integer.class, "minCores", 
@@ -66,6 +84,11 @@ public interface JcloudsLocationConfig extends CloudLocationConfig {
             "A regular expression to be compared against the 'name' when selecting the VM image to be used when creating a VM", null);
     public static final ConfigKey<String> IMAGE_DESCRIPTION_REGEX = new StringConfigKey("imageDescriptionRegex", 
             "A regular expression to be compared against the 'description' when selecting the VM image to be used when creating a VM", null);
+    public static final ConfigKey<String> IMAGE_OWNER = new StringConfigKey("imageOwner", 
+            "The owner id of the VM images to be considered when selecting the VM image (aws-ec2 only)", null);
+    public static final ConfigKey<Boolean> ANY_OWNER = new BasicConfigKey<Boolean>(Boolean.class, "anyOwner", 
+            "Whether to consider VM images of any owner when selecting the VM image, rather than only those of well-known owners " +
+            "(aws-ec2 only; note this can be slow, as there are a great many images)", null);
 
     public static final ConfigKey<String> TEMPLATE_SPEC = new StringConfigKey("templateSpec", 
             "A jclouds 'spec' string consisting of properties and values to be used when creating a VM " +
@@ -200,13 +200,12 @@ public class JcloudsUtil implements JcloudsLocationConfig {
         // Enable aws-ec2 lazy image fetching, if given a specific imageId; otherwise customize for specific owners; or all as a last resort
         // See https://issues.apache.org/jira/browse/WHIRR-416
         if ("aws-ec2".equals(provider)) {
-            // TODO convert AWS-only flags to config keys
             if (truth(conf.get(IMAGE_ID))) {
                 properties.setProperty(PROPERTY_EC2_AMI_QUERY, "");
                 properties.setProperty(PROPERTY_EC2_CC_AMI_QUERY, "");
-            } else if (truth(conf.getStringKey("imageOwner"))) {
-                properties.setProperty(PROPERTY_EC2_AMI_QUERY, "owner-id="+conf.getStringKey("imageOwner")+";state=available;image-type=machine");
-            } else if (truth(conf.getStringKey("anyOwner"))) {
+            } else if (truth(conf.get(IMAGE_OWNER))) {
+                properties.setProperty(PROPERTY_EC2_AMI_QUERY, "owner-id="+conf.get(IMAGE_OWNER)+";state=available;image-type=machine");
+            } else if (truth(conf.get(ANY_OWNER))) {
                 // set `anyOwner: true` to override the default query (which is restricted to certain owners as per below), 
                 // allowing the AMI query to bind to any machine
                 // (note however, we sometimes pick defaults in JcloudsLocationFactory);
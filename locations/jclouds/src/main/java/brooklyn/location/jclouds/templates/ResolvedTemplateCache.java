@@ -0,0 +1,242 @@
+package brooklyn.location.jclouds.templates;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.domain.TemplateBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Caches the image, hardware and location which jclouds resolved for a set of template constraints, so that
+ * subsequent provisioning with the same constraints can build its template from those ids, rather than matching
+ * the constraints against the cloud's (often very large) list of images and hardware again.
+ * <p>
+ * An entry is discarded once older than the time-to-live; an entry used after its refresh age is still returned,
+ * but is re-resolved in the background. Entries can be persisted to a file, so that the cache is warm on restart.
+ * <p>
+ * Keys are opaque strings, which must identify the cloud account and region as well as the constraints.
+ */
+public class ResolvedTemplateCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResolvedTemplateCache.class);
+
+    private static final Map<String,ResolvedTemplateCache> instances = Maps.newHashMap();
+
+    private static final ExecutorService refreshExecutor;
+    static {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 10L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("brooklyn-jclouds-template-refresh-%d").setDaemon(true).build());
+        pool.allowCoreThreadTimeOut(true);
+        refreshExecutor = pool;
+    }
+
+    /**
+     * Returns the cache persisted to the given file (shared by all locations using that file),
+     * or a shared in-memory cache if the file is blank.
+     */
+    public static synchronized ResolvedTemplateCache getInstance(@Nullable String file) {
+        String path = Strings.nullToEmpty(file).trim();
+        if (path.startsWith("~")) path = System.getProperty("user.home")+path.substring(1);
+        ResolvedTemplateCache result = instances.get(path);
+        if (result == null) {
+            result = new ResolvedTemplateCache(path.length() > 0 ? new File(path) : null);
+            instances.put(path, result);
+        }
+        return result;
+    }
+
+    /** The ids resolved for a template; immutable. */
+    public static class ResolvedTemplate {
+        private final String imageId;
+        private final String hardwareId;
+        private final String locationId;
+        private final long resolvedTime;
+
+        public ResolvedTemplate(String imageId, String hardwareId, @Nullable String locationId, long resolvedTime) {
+            this.imageId = imageId;
+            this.hardwareId = hardwareId;
+            this.locationId = locationId;
+            this.resolvedTime = resolvedTime;
+        }
+
+        public static ResolvedTemplate of(Template template) {
+            return new ResolvedTemplate(template.getImage().getId(), template.getHardware().getId(),
+                    (template.getLocation() != null ? template.getLocation().getId() : null), System.currentTimeMillis());
+        }
+
+        public String getImageId() {
+            return imageId;
+        }
+
+        public String getHardwareId() {
+            return hardwareId;
+        }
+
+        public String getLocationId() {
+            return locationId;
+        }
+
+        public long getResolvedTime() {
+            return resolvedTime;
+        }
+
+        /** constrains the given builder to exactly this image, hardware and location */
+        public TemplateBuilder applyTo(TemplateBuilder templateBuilder) {
+            templateBuilder.imageId(imageId).hardwareId(hardwareId);
+            if (locationId != null) templateBuilder.locationId(locationId);
+            return templateBuilder;
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this).add("image", imageId).add("hardware", hardwareId)
+                    .add("location", locationId).toString();
+        }
+    }
+
+    private final File file;
+    private final Map<String,ResolvedTemplate> entries = new ConcurrentHashMap<String,ResolvedTemplate>();
+    private final Set<String> refreshing = Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+    private final Object fileLock = new Object();
+
+    public ResolvedTemplateCache(@Nullable File file) {
+        this.file = file;
+        if (file != null) load();
+    }
+
+    /**
+     * Returns the cached ids for the given key, or null if there is no entry younger than ttl.
+     * If the entry is older than refreshAge, the refresher is (asynchronously) called to resolve it again.
+     */
+    @Nullable
+    public ResolvedTemplate get(final String key, long ttl, long refreshAge, final Callable<Template> refresher) {
+        ResolvedTemplate result = entries.get(key);
+        if (result == null) return null;
+        long age = System.currentTimeMillis() - result.getResolvedTime();
+        if (age >= ttl) {
+            entries.remove(key);
+            return null;
+        }
+        if (age >= refreshAge && refresher != null && refreshing.add(key)) {
+            if (LOG.isDebugEnabled()) LOG.debug("Refreshing cached jclouds template {} for {}", result, key);
+            refreshExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        put(key, refresher.call());
+                    } catch (Exception e) {
+                        LOG.warn("Unable to refresh cached jclouds template for "+key+" (discarding): "+e);
+                        invalidate(key);
+                    } finally {
+                        refreshing.remove(key);
+                    }
+                }});
+        }
+        return result;
+    }
+
+    public void put(String key, Template template) {
+        put(key, ResolvedTemplate.of(template));
+    }
+
+    public void put(String key, ResolvedTemplate resolved) {
+        entries.put(key, resolved);
+        save();
+    }
+
+    public void invalidate(String key) {
+        if (entries.remove(key) != null) save();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+        Properties props = new Properties();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            props.load(in);
+        } catch (IOException e) {
+            LOG.warn("Unable to load cached jclouds templates from "+file+" (ignoring): "+e);
+            return;
+        } finally {
+            Closeables.closeQuietly(in);
+        }
+        for (String key : props.stringPropertyNames()) {
+            List<String> fields = Lists.newArrayList(Splitter.on('\t').split(props.getProperty(key)));
+            if (fields.size() != 4) continue;
+            try {
+                entries.put(key, new ResolvedTemplate(fields.get(0), fields.get(1), Strings.emptyToNull(fields.get(2)),
+                        Long.parseLong(fields.get(3))));
+            } catch (NumberFormatException e) {
+                LOG.debug("Ignoring invalid cached jclouds template "+key+" in "+file);
+            }
+        }
+        LOG.debug("Loaded {} cached jclouds templates from {}", entries.size(), file);
+    }
+
+    private void save() {
+        if (file == null) return;
+        synchronized (fileLock) {
+            Properties props = new Properties();
+            for (Map.Entry<String,ResolvedTemplate> entry : entries.entrySet()) {
+                ResolvedTemplate val = entry.getValue();
+                props.setProperty(entry.getKey(), Joiner.on('\t').join(val.getImageId(), val.getHardwareId(),
+                        Strings.nullToEmpty(val.getLocationId()), val.getResolvedTime()));
+            }
+            File tmp = new File(file.getPath()+".tmp");
+            OutputStream out = null;
+            try {
+                File dir = file.getAbsoluteFile().getParentFile();
+                if (dir != null && !dir.exists()) dir.mkdirs();
+                out = new FileOutputStream(tmp);
+                props.store(out, "jclouds templates resolved by brooklyn");
+                out.close();
+                out = null;
+                if (!tmp.renameTo(file)) {
+                    file.delete();
+                    if (!tmp.renameTo(file)) throw new IOException("Unable to rename "+tmp+" to "+file);
+                }
+            } catch (IOException e) {
+                LOG.warn("Unable to persist cached jclouds templates to "+file+" (continuing): "+e);
+            } finally {
+                Closeables.closeQuietly(out);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResolvedTemplateCache["+(file != null ? file : "in-memory")+"]";
+    }
+}
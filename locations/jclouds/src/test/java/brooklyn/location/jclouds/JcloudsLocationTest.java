@@ -1,16 +1,26 @@
 package brooklyn.location.jclouds;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
 import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.Template;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import brooklyn.location.basic.SshMachineLocation;
 import brooklyn.location.jclouds.JcloudsLocation;
 import brooklyn.location.jclouds.JcloudsLocationConfig;
 import brooklyn.util.collections.MutableMap;
@@ -18,6 +28,11 @@ import brooklyn.util.config.ConfigBag;
 import brooklyn.util.exceptions.Exceptions;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * @author Shane Witbeck
@@ -94,5 +109,107 @@ public class JcloudsLocationTest implements JcloudsLocationConfig {
     }
 
 
+    @Test
+    public void testTemplateCacheKeyDoesNotContainIdentity() throws Exception {
+        JcloudsLocation jcl = newSampleBailOutJcloudsLocationForTesting();
+        String key1 = jcl.getTemplateCacheKey(ConfigBag.newInstanceExtending(jcl.getConfigBag(), 
+                MutableMap.of(TEMPLATE_CACHE_TTL, 1000L, ACCESS_IDENTITY, "myidentity1")));
+        String key2 = jcl.getTemplateCacheKey(ConfigBag.newInstanceExtending(jcl.getConfigBag(), 
+                MutableMap.of(TEMPLATE_CACHE_TTL, 1000L, ACCESS_IDENTITY, "myidentity2")));
+        
+        assertFalse(key1.contains("myidentity"), "key="+key1);
+        assertFalse(key1.equals(key2), "key="+key1);
+    }
+
+    /** creates the given number of (stub) nodes, rather than using the cloud, and records each node's config */
+    public static class StubNodesJcloudsLocation extends JcloudsLocation {
+        public StubNodesJcloudsLocation(Map<?, ?> conf) {
+            super(conf);
+        }
+        
+        int numNodesToCreate = Integer.MAX_VALUE;
+        final List<Integer> createCounts = Lists.newCopyOnWriteArrayList();
+        final Map<String, ConfigBag> nodeConfigs = Maps.newConcurrentMap();
+        
+        @Override
+        protected Template buildTemplate(ComputeService computeService, ConfigBag config) {
+            return null;
+        }
+        @Override
+        protected Set<? extends NodeMetadata> createNodesInGroup(ComputeService computeService, String groupId, int count, Template template) {
+            createCounts.add(count);
+            Set<NodeMetadata> result = Sets.newLinkedHashSet();
+            for (int i = 0; i < Math.min(count, numNodesToCreate); i++) {
+                result.add(newStubNode(groupId+"-"+i));
+            }
+            return result;
+        }
+        @Override
+        protected JcloudsSshMachineLocation customizeNode(ComputeService computeService, NodeMetadata node, ConfigBag setup) {
+            nodeConfigs.put(node.getId(), setup);
+            return new JcloudsSshMachineLocation(MutableMap.of("address", "localhost"), this, node);
+        }
+        private NodeMetadata newStubNode(final String id) {
+            return (NodeMetadata) Proxy.newProxyInstance(NodeMetadata.class.getClassLoader(), new Class<?>[] {NodeMetadata.class}, new InvocationHandler() {
+                @Override public Object invoke(Object proxy, Method method, Object[] args) {
+                    String name = method.getName();
+                    if (name.equals("equals")) return proxy == args[0];
+                    if (name.equals("hashCode")) return System.identityHashCode(proxy);
+                    if (name.equals("getId") || name.equals("toString")) return id;
+                    return null;
+                }});
+        }
+    }
+    
+    public static StubNodesJcloudsLocation newSampleStubNodesJcloudsLocationForTesting() {
+        return new StubNodesJcloudsLocation(MutableMap.of(
+                CLOUD_PROVIDER, "aws-ec2",
+                ACCESS_IDENTITY, "bogus",
+                ACCESS_CREDENTIAL, "bogus",
+                USER, "fred"));
+    }
+    
+    @Test
+    public void testObtainBatchCreatesNodesTogether() throws Exception {
+        StubNodesJcloudsLocation jcl = newSampleStubNodesJcloudsLocationForTesting();
+        List<SshMachineLocation> machines = jcl.obtain(3, MutableMap.of(MIN_CORES, 2));
+        
+        assertEquals(jcl.createCounts, ImmutableList.of(3));
+        assertEquals(machines.size(), 3);
+        assertEquals(Sets.newHashSet(machines).size(), 3);
+        for (ConfigBag setup : jcl.nodeConfigs.values()) {
+            assertEquals(setup.get(MIN_CORES), (Integer)2);
+        }
+    }
+
+    @Test
+    public void testObtainBatchOmitsMachinesNotCreated() throws Exception {
+        StubNodesJcloudsLocation jcl = newSampleStubNodesJcloudsLocationForTesting();
+        jcl.numNodesToCreate = 2;
+        List<SshMachineLocation> machines = jcl.obtain(3, MutableMap.of());
+        
+        assertEquals(jcl.createCounts, ImmutableList.of(3));
+        assertEquals(machines.size(), 2);
+    }
+
+    @Test
+    public void testObtainBatchPreparesEachMachineWithItsOwnFlags() throws Exception {
+        StubNodesJcloudsLocation jcl = newSampleStubNodesJcloudsLocationForTesting();
+        jcl.numNodesToCreate = 2;
+        List<SshMachineLocation> machines = jcl.obtain(MutableMap.of(MIN_CORES, 2), ImmutableList.of(
+                ImmutableMap.of(CALLER_CONTEXT.getName(), "a"), 
+                ImmutableMap.of(CALLER_CONTEXT.getName(), "b"), 
+                ImmutableMap.of(CALLER_CONTEXT.getName(), "c")));
+        
+        assertEquals(jcl.createCounts, ImmutableList.of(3));
+        assertEquals(machines.size(), 3);
+        assertNull(machines.get(2));
+        for (int i = 0; i < 2; i++) {
+            ConfigBag setup = jcl.nodeConfigs.get(((JcloudsSshMachineLocation)machines.get(i)).getNode().getId());
+            assertEquals(setup.get(CALLER_CONTEXT), ImmutableList.of("a", "b").get(i));
+            assertEquals(setup.get(MIN_CORES), (Integer)2);
+        }
+    }
+
     // TODO more tests, where flags come in from resolver, named locations, etc
 }
@@ -0,0 +1,68 @@
+package brooklyn.location.jclouds.templates;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.location.jclouds.templates.ResolvedTemplateCache.ResolvedTemplate;
+
+public class ResolvedTemplateCacheTest {
+
+    private static final long TTL = 60*1000;
+
+    private File file;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        file = File.createTempFile("brooklyn-jclouds-templates", ".properties");
+        file.delete();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (file != null) file.delete();
+    }
+
+    @Test
+    public void testReturnsCachedIds() {
+        ResolvedTemplateCache cache = new ResolvedTemplateCache(null);
+        cache.put("k1", new ResolvedTemplate("image1", "hardware1", "region1", System.currentTimeMillis()));
+
+        ResolvedTemplate result = cache.get("k1", TTL, TTL, null);
+        assertEquals(result.getImageId(), "image1");
+        assertEquals(result.getHardwareId(), "hardware1");
+        assertEquals(result.getLocationId(), "region1");
+        assertNull(cache.get("k2", TTL, TTL, null));
+    }
+
+    @Test
+    public void testDiscardsEntriesOlderThanTtl() {
+        ResolvedTemplateCache cache = new ResolvedTemplateCache(null);
+        cache.put("k1", new ResolvedTemplate("image1", "hardware1", null, System.currentTimeMillis() - 2*TTL));
+
+        assertNull(cache.get("k1", TTL, TTL, null));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testPersistsEntriesToFile() {
+        ResolvedTemplateCache cache = new ResolvedTemplateCache(file);
+        cache.put("provider=aws-ec2;minRam=2048", new ResolvedTemplate("us-east-1/ami-1", "m1.small", null, System.currentTimeMillis()));
+        cache.put("provider=aws-ec2;minRam=4096", new ResolvedTemplate("us-east-1/ami-1", "m1.medium", "us-east-1", System.currentTimeMillis()));
+        cache.invalidate("provider=aws-ec2;minRam=4096");
+
+        ResolvedTemplateCache cache2 = new ResolvedTemplateCache(file);
+        assertEquals(cache2.size(), 1);
+        ResolvedTemplate result = cache2.get("provider=aws-ec2;minRam=2048", TTL, TTL, null);
+        assertNotNull(result);
+        assertEquals(result.getImageId(), "us-east-1/ami-1");
+        assertEquals(result.getHardwareId(), "m1.small");
+        assertNull(result.getLocationId());
+    }
+}
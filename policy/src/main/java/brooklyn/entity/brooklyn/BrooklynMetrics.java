@@ -37,6 +37,21 @@ public class BrooklynMetrics extends AbstractEntity {
     public static final AttributeSensor<Long> NUM_ACTIVE_TASKS = new BasicAttributeSensor<Long>(
             Long.class, "brooklyn.metrics.numActiveTasks", "Number of currently active tasks being executed");
 
+    public static final AttributeSensor<Integer> NUM_ACTIVE_THREADS = new BasicAttributeSensor<Integer>(
+            Integer.class, "brooklyn.metrics.numActiveThreads", "Number of threads currently executing tasks");
+
+    public static final AttributeSensor<Integer> NUM_QUEUED_TASKS = new BasicAttributeSensor<Integer>(
+            Integer.class, "brooklyn.metrics.numQueuedTasks", "Number of tasks waiting for a thread (only when the number of threads is bounded)");
+
+    public static final AttributeSensor<Integer> NUM_BLOCKED_TASK_THREADS = new BasicAttributeSensor<Integer>(
+            Integer.class, "brooklyn.metrics.numBlockedTaskThreads", "Number of task threads currently blocked (e.g. waiting for other tasks or ssh commands)");
+
+    public static final AttributeSensor<Long> TOTAL_TASK_WAIT_TIME = new BasicAttributeSensor<Long>(
+            Long.class, "brooklyn.metrics.totalTaskWaitTime", "Total time (in milliseconds) that tasks have waited between submission and starting");
+
+    public static final AttributeSensor<Long> MAX_TASK_WAIT_TIME = new BasicAttributeSensor<Long>(
+            Long.class, "brooklyn.metrics.maxTaskWaitTime", "Longest time (in milliseconds) that a task has waited between submission and starting");
+
     public static final AttributeSensor<Long> TOTAL_EVENTS_PUBLISHED = new BasicAttributeSensor<Long>(
             Long.class, "brooklyn.metrics.totalEventsPublished", "Total number of events published");
     
@@ -97,6 +112,11 @@ public class BrooklynMetrics extends AbstractEntity {
             setAttribute(TOTAL_TASKS_SUBMITTED, execManager.getTotalTasksSubmitted());
             setAttribute(NUM_INCOMPLETE_TASKS, execManager.getNumIncompleteTasks());
             setAttribute(NUM_ACTIVE_TASKS, execManager.getNumActiveTasks());
+            setAttribute(NUM_ACTIVE_THREADS, execManager.getNumActiveThreads());
+            setAttribute(NUM_QUEUED_TASKS, execManager.getNumQueuedTasks());
+            setAttribute(NUM_BLOCKED_TASK_THREADS, execManager.getNumBlockedTaskThreads());
+            setAttribute(TOTAL_TASK_WAIT_TIME, execManager.getTotalTaskWaitTime());
+            setAttribute(MAX_TASK_WAIT_TIME, execManager.getMaxTaskWaitTime());
         }
         if (subsManager != null) {
             setAttribute(TOTAL_EVENTS_PUBLISHED, subsManager.getTotalEventsPublished());
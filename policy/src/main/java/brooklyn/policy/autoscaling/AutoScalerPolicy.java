@@ -5,9 +5,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import groovy.lang.Closure;
 
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -36,7 +33,6 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.reflect.TypeToken;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 
 /**
@@ -310,7 +306,6 @@ public class AutoScalerPolicy extends AbstractPolicy {
     
     private final AtomicBoolean executorQueued = new AtomicBoolean(false);
     private volatile long executorTime = 0;
-    private volatile ScheduledExecutorService executor;
 
     private final SizeHistory recentUnboundedResizes;
 
@@ -354,9 +349,6 @@ public class AutoScalerPolicy extends AbstractPolicy {
         
         long maxResizeStabilizationDelay = Math.max(getResizeUpStabilizationDelay(), getResizeDownStabilizationDelay());
         recentDesiredResizes = new SizeHistory(maxResizeStabilizationDelay);
-        
-        // TODO Should re-use the execution manager's thread pool, somehow
-        executor = Executors.newSingleThreadScheduledExecutor(newThreadFactory());
     }
 
     public void setMetricLowerBound(Number val) {
@@ -493,13 +485,7 @@ public class AutoScalerPolicy extends AbstractPolicy {
     public void suspend() {
         super.suspend();
         // TODO unsubscribe from everything? And resubscribe on resume?
-        if (executor != null) executor.shutdownNow();
-    }
-    
-    @Override
-    public void resume() {
-        super.resume();
-        executor = Executors.newSingleThreadScheduledExecutor(newThreadFactory());
+        executorQueued.set(false);
     }
     
     @Override
@@ -519,12 +505,6 @@ public class AutoScalerPolicy extends AbstractPolicy {
         subscribe(poolEntity, getPoolOkSensor(), utilizationEventHandler);
     }
     
-    private ThreadFactory newThreadFactory() {
-        return new ThreadFactoryBuilder()
-                .setNameFormat("brooklyn-autoscalerpolicy-%d")
-                .build();
-    }
-
     /**
      * Forces an immediate resize (without waiting for stabilization etc) if the current size is 
      * not within the min and max limits. We schedule this so that all resize operations are done
@@ -534,7 +514,7 @@ public class AutoScalerPolicy extends AbstractPolicy {
         if (LOG.isTraceEnabled()) LOG.trace("{} checking pool size on limits changed for {} (between {} and {})", new Object[] {this, poolEntity, min, max});
         
         if (isRunning() && isEntityUp()) {
-            executor.submit(new Runnable() {
+            getSchedulerQueue().submit(new Runnable() {
                 @Override public void run() {
                     try {
                         int currentSize = getCurrentSizeOperator().apply(entity);
@@ -730,7 +710,7 @@ public class AutoScalerPolicy extends AbstractPolicy {
             long delay = Math.max(0, (executorTime + getMinPeriodBetweenExecs()) - now);
             if (LOG.isTraceEnabled()) LOG.trace("{} scheduling resize in {}ms", this, delay);
             
-            executor.schedule(new Runnable() {
+            getSchedulerQueue().schedule(new Runnable() {
                 @Override public void run() {
                     try {
                         executorTime = System.currentTimeMillis();
@@ -16,11 +16,13 @@ import brooklyn.location.Location;
 /**
  * Represents an abstract algorithm for optimally balancing worker "items" among several "containers" based on the workloads
  * of the items, and corresponding high- and low-thresholds on the containers.
+ * <p>
+ * Items are moved greedily, one at a time, from each hot container to the coldest container (and to each cold
+ * container from the hottest), up to {@link #getMaxMigrationsPerBalancingNode()} per container per run.
  * 
- * TODO: extract interface, provide default implementation
  * TODO: remove legacy code comments
  */
-public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable> {
+public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable> implements Rebalancer {
 
     // FIXME Bad idea to use MessageFormat.format in this way; if toString of entity contains
     // special characters interpreted by MessageFormat, then it will all break!
@@ -49,6 +51,7 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
         return name;
     }
     
+    @Override
     public void rebalance() {
         checkAndApplyOn(model.getPoolContents());
     }
@@ -0,0 +1,315 @@
+package brooklyn.policy.loadbalancing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.entity.Entity;
+import brooklyn.location.Location;
+
+/**
+ * Balances items among containers by computing a complete target assignment from a snapshot of the
+ * {@link BalanceablePoolModel}, and then moving only those items whose container differs in that assignment.
+ * <p>
+ * The assignment is found by a local search which aims to bring every container within its thresholds with as
+ * few migrations as possible. Each hot container is relieved by preferring the single smallest item which
+ * removes all of its excess (otherwise the largest item which fits elsewhere), moved to the container with most
+ * spare capacity; each cold container then pulls in items from containers which would not themselves become cold.
+ * Unlike {@link BalancingStrategy}, an item is never moved to a container where it would exceed the high threshold,
+ * and no item is moved more than once per run.
+ * <p>
+ * Items with an unknown workrate, or which are immovable, stay where they are (but count towards their
+ * container's workrate). Containers whose thresholds or workrate are unknown are left untouched.
+ */
+public class OptimizingBalancingStrategy<NodeType extends Entity, ItemType extends Movable> implements Rebalancer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OptimizingBalancingStrategy.class);
+
+    private final String name;
+    private final BalanceablePoolModel<NodeType, ItemType> model;
+    private final int maxMigrations;
+    private volatile int lastMigrationCount;
+
+    public OptimizingBalancingStrategy(String name, BalanceablePoolModel<NodeType, ItemType> model) {
+        this(name, model, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxMigrations the maximum number of items to move in one run
+     */
+    public OptimizingBalancingStrategy(String name, BalanceablePoolModel<NodeType, ItemType> model, int maxMigrations) {
+        this.name = name;
+        this.model = model;
+        this.maxMigrations = maxMigrations;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** the number of items moved by the most recent call to {@link #rebalance()} */
+    public int getLastMigrationCount() {
+        return lastMigrationCount;
+    }
+
+    @Override
+    public void rebalance() {
+        long startTime = System.currentTimeMillis();
+        Plan plan = new Plan();
+        if (plan.containers.size() < 2) {
+            lastMigrationCount = 0;
+            return;
+        }
+        plan.relieveHotContainers();
+        plan.fillColdContainers();
+
+        int moved = 0;
+        for (Container container : plan.containers) {
+            for (Item item : container.items) {
+                if (item.target != item.origin) {
+                    moveItem(item.item, item.origin.node, item.target.node);
+                    moved++;
+                }
+            }
+        }
+        lastMigrationCount = moved;
+        if (LOG.isDebugEnabled() && moved > 0)
+            LOG.debug("policy {} moved {} items among {} containers (computed in {}ms)",
+                    new Object[] {model.getName(), moved, plan.containers.size(), System.currentTimeMillis()-startTime});
+    }
+
+    protected void moveItem(ItemType item, NodeType oldNode, NodeType newNode) {
+        item.move(newNode);
+        model.onItemMoved(item, newNode);
+    }
+
+    private class Container {
+        final NodeType node;
+        final Location location;
+        final double lowThreshold;
+        final double highThreshold;
+        /** the workrate of the items assigned to this container in the plan */
+        double workrate;
+        /** the movable items assigned to this container in the plan, ordered by workrate */
+        final TreeSet<Item> items = new TreeSet<Item>(itemOrder);
+
+        Container(NodeType node, double lowThreshold, double highThreshold, double workrate) {
+            this.node = node;
+            this.location = model.getLocation(node);
+            this.lowThreshold = lowThreshold;
+            this.highThreshold = highThreshold;
+            this.workrate = workrate;
+        }
+
+        double getSpareCapacity() {
+            return highThreshold - workrate;
+        }
+
+        boolean accepts(Item item) {
+            return item.workrate <= getSpareCapacity() && (location == null || model.isItemAllowedIn(item.item, location));
+        }
+    }
+
+    private class Item {
+        final ItemType item;
+        final double workrate;
+        final Container origin;
+        /** the container the item is assigned to in the plan */
+        Container target;
+        /** tie-breaker, so that items of equal workrate are distinct in the ordered sets */
+        final int seq;
+
+        Item(ItemType item, double workrate, Container origin, int seq) {
+            this.item = item;
+            this.workrate = workrate;
+            this.origin = origin;
+            this.target = origin;
+            this.seq = seq;
+        }
+    }
+
+    private final Comparator<Item> itemOrder = new Comparator<Item>() {
+        @Override
+        public int compare(Item o1, Item o2) {
+            int result = Double.compare(o1.workrate, o2.workrate);
+            return (result != 0) ? result : (o1.seq < o2.seq ? -1 : (o1.seq == o2.seq ? 0 : 1));
+        }
+    };
+
+    /** the assignment of items to containers, initially as per a snapshot of the model */
+    private class Plan {
+        final List<Container> containers = new ArrayList<Container>();
+        int migrations;
+
+        Plan() {
+            int seq = 0;
+            for (NodeType node : model.getPoolContents()) {
+                double low = model.getLowThreshold(node);
+                double high = model.getHighThreshold(node);
+                Map<ItemType, Double> itemWorkrates = model.getItemWorkrates(node);
+                if (low == -1 || high == -1 || itemWorkrates == null) continue; // container presumably has been removed
+
+                Container container = new Container(node, low, high, 0);
+                for (Map.Entry<ItemType, Double> entry : itemWorkrates.entrySet()) {
+                    Double workrate = entry.getValue();
+                    if (workrate == null || workrate < 0) continue;
+                    container.workrate += workrate;
+                    if (workrate > 0 && model.isItemMoveable(entry.getKey())) {
+                        container.items.add(new Item(entry.getKey(), workrate, container, seq++));
+                    }
+                }
+                containers.add(container);
+            }
+        }
+
+        void relieveHotContainers() {
+            List<Container> hot = new ArrayList<Container>();
+            for (Container c : containers) {
+                if (c.workrate > c.highThreshold) hot.add(c);
+            }
+            // hottest first, so they get first pick of the spare capacity
+            Collections.sort(hot, new Comparator<Container>() {
+                @Override public int compare(Container o1, Container o2) {
+                    return Double.compare(o1.highThreshold - o1.workrate, o2.highThreshold - o2.workrate);
+                }});
+            for (Container c : hot) {
+                relieve(c);
+            }
+        }
+
+        void fillColdContainers() {
+            List<Container> cold = new ArrayList<Container>();
+            for (Container c : containers) {
+                if (c.workrate < c.lowThreshold) cold.add(c);
+            }
+            // coldest first
+            Collections.sort(cold, new Comparator<Container>() {
+                @Override public int compare(Container o1, Container o2) {
+                    return Double.compare(o1.workrate - o1.lowThreshold, o2.workrate - o2.lowThreshold);
+                }});
+            for (Container c : cold) {
+                fill(c);
+            }
+        }
+
+        private void relieve(Container hot) {
+            while (hot.workrate > hot.highThreshold && migrations < maxMigrations) {
+                double excess = hot.workrate - hot.highThreshold;
+                double maxSpareCapacity = 0;
+                for (Container c : containers) {
+                    if (c != hot) maxSpareCapacity = Math.max(maxSpareCapacity, c.getSpareCapacity());
+                }
+                if (maxSpareCapacity <= 0) return;
+
+                // prefer the smallest item which removes all the excess in one move
+                Item probe = new Item(null, excess, null, -1);
+                for (Item item : hot.items.tailSet(probe, true)) {
+                    if (item.workrate > maxSpareCapacity) break;
+                    Container target = findColdestAccepting(item, hot);
+                    if (target != null) {
+                        assign(item, target);
+                        return;
+                    }
+                }
+                // otherwise the largest item which fits elsewhere, and repeat
+                Item found = null;
+                Container foundTarget = null;
+                for (Item item : hot.items.headSet(probe, false).descendingSet()) {
+                    if (item.workrate > maxSpareCapacity) continue;
+                    Container target = findColdestAccepting(item, hot);
+                    if (target != null) {
+                        found = item;
+                        foundTarget = target;
+                        break;
+                    }
+                }
+                if (found == null) {
+                    if (LOG.isTraceEnabled()) LOG.trace("policy {} unable to relieve hot container {}; no other container can accept its items",
+                            model.getName(), hot.node);
+                    return;
+                }
+                assign(found, foundTarget);
+            }
+        }
+
+        private void fill(Container cold) {
+            while (cold.workrate < cold.lowThreshold && migrations < maxMigrations) {
+                double deficit = cold.lowThreshold - cold.workrate;
+                double room = cold.getSpareCapacity();
+                Item probe = new Item(null, deficit, null, -1);
+
+                // prefer the smallest item which removes all the deficit; otherwise the largest which fits
+                Item best = null;
+                boolean bestIsComplete = false;
+                for (Container source : containers) {
+                    if (source == cold) continue;
+                    double maxWorkrate = Math.min(room, source.workrate - source.lowThreshold);
+                    if (maxWorkrate <= 0) continue;
+
+                    Item candidate = null;
+                    for (Item item : source.items.tailSet(probe, true)) {
+                        if (item.workrate > maxWorkrate) break;
+                        if (isAllowedIn(item, cold)) {
+                            candidate = item;
+                            break;
+                        }
+                    }
+                    if (candidate != null) {
+                        if (!bestIsComplete || candidate.workrate < best.workrate) {
+                            best = candidate;
+                            bestIsComplete = true;
+                        }
+                        continue;
+                    }
+                    if (bestIsComplete) continue;
+                    for (Item item : source.items.headSet(probe, false).descendingSet()) {
+                        if (item.workrate > maxWorkrate) continue;
+                        if (best != null && item.workrate <= best.workrate) break;
+                        if (isAllowedIn(item, cold)) {
+                            best = item;
+                            break;
+                        }
+                    }
+                }
+                if (best == null) {
+                    if (LOG.isTraceEnabled()) LOG.trace("policy {} unable to fill cold container {}; no other container can spare items",
+                            model.getName(), cold.node);
+                    return;
+                }
+                assign(best, cold);
+            }
+        }
+
+        /** the container (other than the excluded one) with the most spare capacity which can accept the item, or null */
+        private Container findColdestAccepting(Item item, Container excluded) {
+            Container result = null;
+            for (Container c : containers) {
+                if (c == excluded || !c.accepts(item)) continue;
+                if (result == null || c.getSpareCapacity() > result.getSpareCapacity()) result = c;
+            }
+            return result;
+        }
+
+        private boolean isAllowedIn(Item item, Container container) {
+            return container.location == null || model.isItemAllowedIn(item.item, container.location);
+        }
+
+        private void assign(Item item, Container target) {
+            if (item.target == item.origin) migrations++;
+            if (target == item.origin) migrations--;
+
+            Container old = item.target;
+            old.items.remove(item);
+            old.workrate -= item.workrate;
+            item.target = target;
+            target.items.add(item);
+            target.workrate += item.workrate;
+        }
+    }
+}
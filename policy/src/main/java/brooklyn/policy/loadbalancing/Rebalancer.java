@@ -0,0 +1,14 @@
+package brooklyn.policy.loadbalancing;
+
+/**
+ * An algorithm used by {@link LoadBalancingPolicy} to move items between the containers of a
+ * {@link BalanceablePoolModel}, so that the containers' workrates are within their thresholds.
+ * 
+ * @see BalancingStrategy
+ * @see OptimizingBalancingStrategy
+ */
+public interface Rebalancer {
+
+    /** Moves items between containers as required, based on the current state of the model. */
+    public void rebalance();
+}
@@ -0,0 +1,170 @@
+package brooklyn.policy.loadbalancing;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.Entity;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Compares {@link BalancingStrategy} and {@link OptimizingBalancingStrategy} on synthetic pools, using
+ * lightweight (unmanaged) containers and items so that pools of many thousands of items are cheap to create.
+ */
+public class BalancingStrategyBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BalancingStrategyBenchmarkTest.class);
+
+    private static final int MAX_ROUNDS = 1000;
+
+    private DefaultBalanceablePoolModel<Entity, Movable> model;
+    private List<Entity> containers;
+    private AtomicInteger moveCount;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        model = new DefaultBalanceablePoolModel<Entity, Movable>("benchmark");
+        containers = Lists.newArrayList();
+        moveCount = new AtomicInteger();
+    }
+
+    @Test
+    public void testOptimizingStrategyBringsContainersWithinThresholds() {
+        // items of 1..10 on 2 of 5 containers, each with thresholds 40..80
+        populate(5, 2, 50, 40, 80, new Random(1));
+        OptimizingBalancingStrategy<Entity, Movable> strategy = new OptimizingBalancingStrategy<Entity, Movable>("benchmark", model);
+
+        strategy.rebalance();
+
+        assertWithinThresholds();
+        assertEquals(strategy.getLastMigrationCount(), moveCount.get());
+
+        strategy.rebalance();
+        assertEquals(strategy.getLastMigrationCount(), 0);
+    }
+
+    @Test
+    public void testOptimizingStrategyDoesNotMoveItemsOfBalancedPool() {
+        populate(5, 5, 50, 0, 200, new Random(1));
+        OptimizingBalancingStrategy<Entity, Movable> strategy = new OptimizingBalancingStrategy<Entity, Movable>("benchmark", model);
+
+        strategy.rebalance();
+
+        assertEquals(moveCount.get(), 0);
+    }
+
+    @Test
+    public void testOptimizingStrategyRespectsMaxMigrations() {
+        populate(5, 1, 50, 40, 80, new Random(1));
+        OptimizingBalancingStrategy<Entity, Movable> strategy = new OptimizingBalancingStrategy<Entity, Movable>("benchmark", model, 3);
+
+        strategy.rebalance();
+
+        assertEquals(moveCount.get(), 3);
+    }
+
+    @Test(groups="Integration")
+    public void testCompareStrategiesOnLargePool() {
+        Result greedy = runBenchmark(new Factory() {
+            public Rebalancer newRebalancer() {
+                return new BalancingStrategy<Entity, Movable>("benchmark", model);
+            }});
+        setUp();
+        Result optimizing = runBenchmark(new Factory() {
+            public Rebalancer newRebalancer() {
+                return new OptimizingBalancingStrategy<Entity, Movable>("benchmark", model);
+            }});
+
+        LOG.info("Balancing 10000 items among 100 containers: greedy "+greedy+"; optimizing "+optimizing);
+        assertTrue(optimizing.converged, "optimizing="+optimizing);
+        assertWithinThresholds();
+    }
+
+    private interface Factory {
+        Rebalancer newRebalancer();
+    }
+
+    private static class Result {
+        int rounds;
+        int moves;
+        long time;
+        boolean converged;
+
+        @Override
+        public String toString() {
+            return "rounds="+rounds+", moves="+moves+", time="+time+"ms, converged="+converged;
+        }
+    }
+
+    /** 10000 items (of workrate 1..10) initially on 20 of 100 containers, each with thresholds 400..700 */
+    private Result runBenchmark(Factory factory) {
+        populate(100, 20, 10000, 400, 700, new Random(1));
+        Rebalancer strategy = factory.newRebalancer();
+
+        Result result = new Result();
+        long startTime = System.currentTimeMillis();
+        while (result.rounds < MAX_ROUNDS) {
+            int movesBefore = moveCount.get();
+            strategy.rebalance();
+            result.rounds++;
+            if (moveCount.get() == movesBefore) {
+                result.converged = true;
+                break;
+            }
+        }
+        result.time = System.currentTimeMillis() - startTime;
+        result.moves = moveCount.get();
+        return result;
+    }
+
+    /** adds the containers, and the items (of random workrate 1..10) spread evenly among the first few containers */
+    private void populate(int numContainers, int numInitialContainers, int numItems, double lowThreshold, double highThreshold, Random random) {
+        for (int i = 0; i < numContainers; i++) {
+            Entity container = newProxy(Entity.class, "container-"+i);
+            containers.add(container);
+            model.onContainerAdded(container, lowThreshold, highThreshold);
+        }
+        for (int i = 0; i < numItems; i++) {
+            Movable item = newProxy(Movable.class, "item-"+i);
+            model.onItemAdded(item, containers.get(i % numInitialContainers));
+            model.onItemWorkrateUpdated(item, 1 + random.nextInt(10));
+        }
+    }
+
+    private void assertWithinThresholds() {
+        for (Entity container : containers) {
+            double workrate = model.getTotalWorkrate(container);
+            assertTrue(workrate >= model.getLowThreshold(container) && workrate <= model.getHighThreshold(container),
+                    "container="+container+"; workrate="+workrate);
+        }
+    }
+
+    /** an entity (or item) which supports only toString, equals, hashCode and move */
+    private <T> T newProxy(Class<T> type, final String name) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String methodName = method.getName();
+                if (methodName.equals("equals")) return proxy == args[0];
+                if (methodName.equals("hashCode")) return System.identityHashCode(proxy);
+                if (methodName.equals("move")) {
+                    moveCount.incrementAndGet();
+                    return null;
+                }
+                if (methodName.equals("toString") || methodName.equals("getId") || methodName.equals("getDisplayName")) return name;
+                throw new UnsupportedOperationException(methodName+" on "+name);
+            }}));
+    }
+}
@@ -4,6 +4,7 @@ import static brooklyn.util.GroovyJavaMethods.elvis;
 import static brooklyn.util.GroovyJavaMethods.truth;
 
 import java.io.File;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -25,6 +26,8 @@ import brooklyn.entity.drivers.downloads.DownloadResolverManager;
 import brooklyn.location.basic.SshMachineLocation;
 import brooklyn.util.collections.MutableMap;
 import brooklyn.util.internal.ssh.SshTool;
+import brooklyn.util.stream.ReaderInputStream;
+import brooklyn.util.stream.Streams;
 
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
@@ -241,30 +244,87 @@ public abstract class AbstractSoftwareProcessSshDriver extends AbstractSoftwareP
         return result;
     }
 
+    /**
+     * Copies the given templates (keyed by target) to the machine, in one transfer if there are several
+     * (see {@link SshMachineLocation#copyFilesTo(Map, Map)}), copying individually any that fail.
+     */
     public void copyTemplates(Map<String, String> templates) {
         if (templates != null && templates.size() > 0) {
             log.info("Customising {} with templates: {}", entity, templates);
 
+            if (templates.size() == 1) {
+                Map.Entry<String, String> entry = templates.entrySet().iterator().next();
+                copyTemplate(entry.getValue(), entry.getKey());
+                return;
+            }
+            Map<String, InputStream> batch = Maps.newLinkedHashMap();
+            Map<String, String> sources = Maps.newLinkedHashMap();
             for (Map.Entry<String, String> entry : templates.entrySet()) {
-                String source = entry.getValue();
-                String dest = entry.getKey();
-                copyTemplate(source, dest);
+                String dest = getTargetPath(entry.getKey());
+                sources.put(dest, entry.getValue());
+                batch.put(dest, new ReaderInputStream(new StringReader(processTemplate(entry.getValue()))));
             }
+            copyBatch(MutableMap.of(), batch, sources, false);
         }
     }
 
+    /**
+     * Copies the given resources (keyed by target) to the machine, in one transfer for those not fetched
+     * by the machine itself (see {@link #copyResource(Map, String, String)}), copying individually any that fail.
+     */
     public void copyResources(Map<String, String> resources) {
         if (resources != null && resources.size() > 0) {
             log.info("Customising {} with resources: {}", entity, resources);
 
+            Map<String, String> sources = Maps.newLinkedHashMap();
             for (Map.Entry<String, String> entry : resources.entrySet()) {
                 String source = entry.getValue();
                 String dest = entry.getKey();
-                copyResource(source, dest);
+                if (resources.size() == 1 || source.toLowerCase().matches("^https?://.*")) {
+                    copyResource(source, dest);
+                } else {
+                    sources.put(getTargetPath(dest), source);
+                }
+            }
+            if (sources.size() > 0) {
+                Map<String, InputStream> batch = Maps.newLinkedHashMap();
+                try {
+                    for (Map.Entry<String, String> entry : sources.entrySet()) {
+                        batch.put(entry.getKey(), getResource(entry.getValue()));
+                    }
+                } catch (RuntimeException e) {
+                    for (InputStream in : batch.values()) Streams.closeQuietly(in);
+                    throw e;
+                }
+                copyBatch(getSshFlags(), batch, sources, true);
+            }
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void copyBatch(Map flags, Map<String, InputStream> batch, Map<String, String> sources, boolean resources) {
+        Map<String, Integer> results = getMachine().copyFilesTo(flags, batch);
+        for (Map.Entry<String, Integer> result : results.entrySet()) {
+            String dest = result.getKey();
+            if (result.getValue() == 0) {
+                if (log.isDebugEnabled())
+                    log.debug("Copied {} for {}: {} to {} (batched)", new Object[] { resources ? "file" : "filtered template", entity, sources.get(dest), dest });
+            } else {
+                log.debug("Batched copy for {} of {} to {} failed - result {}; copying individually", new Object[] { entity, sources.get(dest), dest, result.getValue() });
+                if (resources) {
+                    copyResource(sources.get(dest), dest);
+                } else {
+                    copyTemplate(sources.get(dest), dest);
+                }
             }
         }
     }
 
+    /** prefixes the target with the run dir, if it is relative */
+    private String getTargetPath(String target) {
+        return new File(target).isAbsolute() ? target : getRunDir() + "/" + target;
+    }
+
     public int copyResource(File file, String target) {
         return copyResource(file.toURI().toASCIIString(), target);
     }
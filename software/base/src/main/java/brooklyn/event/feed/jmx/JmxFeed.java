@@ -1,11 +1,13 @@
 package brooklyn.event.feed.jmx;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
+import javax.management.AttributeNotFoundException;
 import javax.management.Notification;
 import javax.management.NotificationFilter;
 import javax.management.NotificationListener;
@@ -24,8 +26,10 @@ import brooklyn.event.feed.Poller;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 
@@ -208,9 +212,25 @@ public class JmxFeed extends AbstractFeed {
                 }});
         }
         
-        // Setup polling of sensors
-        for (final String jmxAttributeName : attributePolls.keys()) {
-            registerAttributePoller(attributePolls.get(jmxAttributeName));
+        // Setup polling of sensors; attributes of the same mbean polled at the same period are fetched together
+        Map<List<?>, Map<String, Set<JmxAttributePollConfig<?>>>> attributePollGroups = Maps.newLinkedHashMap();
+        for (String jmxAttributeName : attributePolls.keySet()) {
+            Set<JmxAttributePollConfig<?>> configs = attributePolls.get(jmxAttributeName);
+            JmxAttributePollConfig<?> first = Iterables.get(configs, 0);
+            List<?> groupKey = ImmutableList.of(first.getObjectName().getCanonicalName(), minPeriod(configs));
+            Map<String, Set<JmxAttributePollConfig<?>>> group = attributePollGroups.get(groupKey);
+            if (group == null) {
+                group = Maps.newLinkedHashMap();
+                attributePollGroups.put(groupKey, group);
+            }
+            group.put(first.getAttributeName(), configs);
+        }
+        for (Map<String, Set<JmxAttributePollConfig<?>>> group : attributePollGroups.values()) {
+            if (group.size() == 1) {
+                registerAttributePoller(Iterables.getOnlyElement(group.values()));
+            } else {
+                registerAttributesPoller(group);
+            }
         }
         
         // Setup polling of operations
@@ -266,21 +286,29 @@ public class JmxFeed extends AbstractFeed {
                 new DelegatingPollHandler(handlers), minPeriod);
     }
 
+    private static long minPeriod(Set<JmxAttributePollConfig<?>> configs) {
+        long minPeriod = Integer.MAX_VALUE;
+        for (JmxAttributePollConfig<?> config : configs) {
+            if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
+        }
+        return minPeriod;
+    }
+    
+    private DelegatingPollHandler<Object> newAttributePollHandler(Set<JmxAttributePollConfig<?>> configs) {
+        Set<AttributePollHandler<? super Object>> handlers = Sets.newLinkedHashSet();
+        for (JmxAttributePollConfig<?> config : configs) {
+            handlers.add(new AttributePollHandler<Object>(config, getEntity(), this));
+        }
+        return new DelegatingPollHandler<Object>(handlers);
+    }
+    
     /**
      * Registers to poll a jmx-attribute for an ObjectName, where all the given configs are for that same ObjectName + attribute.
      */
     private void registerAttributePoller(Set<JmxAttributePollConfig<?>> configs) {
-        Set<AttributePollHandler<Object>> handlers = Sets.newLinkedHashSet();
-        long minPeriod = Integer.MAX_VALUE;
-        
         final ObjectName objectName = Iterables.get(configs, 0).getObjectName();
         final String jmxAttributeName = Iterables.get(configs, 0).getAttributeName();
         
-        for (JmxAttributePollConfig<?> config : configs) {
-            handlers.add(new AttributePollHandler<Object>(config, getEntity(), this));
-            if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
-        }
-        
         // TODO Not good calling this holding the synchronization lock
         getPoller().scheduleAtFixedRate(
                 new Callable<Object>() {
@@ -289,7 +317,54 @@ public class JmxFeed extends AbstractFeed {
                         return helper.getAttribute(objectName, jmxAttributeName);
                     }
                 }, 
-                new DelegatingPollHandler(handlers), minPeriod);
+                newAttributePollHandler(configs), minPeriod(configs));
+    }
+
+    /**
+     * Registers to poll several jmx-attributes of an ObjectName with a single {@link JmxHelper#getAttributes(ObjectName, Collection)}
+     * call, where the configs for each attribute name are all for that same ObjectName and are polled at the same period.
+     * The result is fanned out to the handlers of each attribute; an attribute omitted from the result (e.g. because 
+     * it does not exist, or its getter threw) is reported as an error to just that attribute's handlers.
+     */
+    private void registerAttributesPoller(Map<String, Set<JmxAttributePollConfig<?>>> configsByAttribute) {
+        final Set<JmxAttributePollConfig<?>> anyConfigs = Iterables.get(configsByAttribute.values(), 0);
+        final ObjectName objectName = Iterables.get(anyConfigs, 0).getObjectName();
+        final Map<String, DelegatingPollHandler<Object>> handlers = Maps.newLinkedHashMap();
+        for (Map.Entry<String, Set<JmxAttributePollConfig<?>>> entry : configsByAttribute.entrySet()) {
+            handlers.put(entry.getKey(), newAttributePollHandler(entry.getValue()));
+        }
+        final List<String> jmxAttributeNames = ImmutableList.copyOf(handlers.keySet());
+        
+        getPoller().scheduleAtFixedRate(
+                new Callable<Object>() {
+                    public Object call() throws Exception {
+                        if (log.isTraceEnabled()) log.trace("jmx attributes polling for {} sensors at {} -> {}", new Object[] {getEntity(), jmxUri, jmxAttributeNames});
+                        return helper.getAttributes(objectName, jmxAttributeNames);
+                    }
+                }, 
+                new PollHandler<Object>() {
+                    @Override public void onSuccess(Object val) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> values = (Map<String, Object>) val;
+                        for (Map.Entry<String, DelegatingPollHandler<Object>> entry : handlers.entrySet()) {
+                            if (values == null) {
+                                // mbean not found; same as for a single attribute, where getAttribute returns null
+                                entry.getValue().onSuccess(null);
+                            } else if (values.containsKey(entry.getKey())) {
+                                entry.getValue().onSuccess(values.get(entry.getKey()));
+                            } else {
+                                entry.getValue().onError(new AttributeNotFoundException("Attribute "+entry.getKey()+
+                                        " not returned for "+objectName.getCanonicalName()+" at "+jmxUri));
+                            }
+                        }
+                    }
+                    @Override public void onError(Exception error) {
+                        for (DelegatingPollHandler<Object> handler : handlers.values()) {
+                            handler.onError(error);
+                        }
+                    }
+                }, 
+                minPeriod(anyConfigs));
     }
 
     /**
@@ -69,7 +69,8 @@ class GeneralisedDynamicMBean implements DynamicMBean {
 
     AttributeList getAttributes(String[] strings) {
         AttributeList result = new AttributeList()
-        mBeanInfo.attributes.each { result.add(new Attribute(it.name, attributes[it.name])) }
+        // as per the DynamicMBean contract, attributes that cannot be retrieved are omitted
+        strings.each { if (attributes.containsKey(it)) result.add(new Attribute(it, attributes[it])) }
         return result
     }
 
@@ -47,6 +47,16 @@ public interface AbstractController extends SoftwareProcess, LoadBalancer {
     public static final BasicConfigKey<ProxySslConfig> SSL_CONFIG = 
         new BasicConfigKey<ProxySslConfig>(ProxySslConfig.class, "proxy.ssl.config", "configuration (e.g. certificates) for SSL; will use SSL if set, not use SSL if not set");
 
+    @SetFromFlag("updateQuietPeriod")
+    public static final BasicConfigKey<Long> UPDATE_QUIET_PERIOD = new BasicConfigKey<Long>(
+            Long.class, "proxy.update.quietPeriod", "Time (in milliseconds) to wait for further changes to the server pool " +
+            "before updating the configuration, so that a burst of changes is applied in one update (0 to update on every change)", 500L);
+
+    @SetFromFlag("updateMaxDelay")
+    public static final BasicConfigKey<Long> UPDATE_MAX_DELAY = new BasicConfigKey<Long>(
+            Long.class, "proxy.update.maxDelay", "Maximum time (in milliseconds) that an update for a change to the server pool " +
+            "is postponed while further changes keep arriving", 5000L);
+
     public static final BasicAttributeSensor<String> ROOT_URL = WebAppService.ROOT_URL;
     
     public static final BasicAttributeSensor<Set<String>> SERVER_POOL_TARGETS = new BasicAttributeSensor(
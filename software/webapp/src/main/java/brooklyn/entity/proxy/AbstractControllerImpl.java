@@ -6,6 +6,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -16,6 +17,7 @@ import brooklyn.entity.Entity;
 import brooklyn.entity.Group;
 import brooklyn.entity.basic.AbstractEntity;
 import brooklyn.entity.basic.Attributes;
+import brooklyn.entity.basic.Entities;
 import brooklyn.entity.basic.SoftwareProcessImpl;
 import brooklyn.entity.group.AbstractMembershipTrackingPolicy;
 import brooklyn.entity.group.Cluster;
@@ -26,7 +28,10 @@ import brooklyn.entity.rebind.RebindSupport;
 import brooklyn.entity.trait.Startable;
 import brooklyn.event.AttributeSensor;
 import brooklyn.location.access.BrooklynAccessUtils;
+import brooklyn.management.ManagementContext;
+import brooklyn.management.internal.LocalManagementContext;
 import brooklyn.mementos.EntityMemento;
+import brooklyn.policy.basic.PolicyScheduler;
 import brooklyn.util.collections.MutableMap;
 
 import com.google.common.base.Function;
@@ -40,6 +45,10 @@ import com.google.common.reflect.TypeToken;
  */
 public abstract class AbstractControllerImpl extends SoftwareProcessImpl implements AbstractController {
     
+    // Changes to the server pool are applied by a deferred update (see scheduleUpdate). The management
+    // context's PolicyScheduler only times it: the update itself runs as a task in this entity's execution
+    // context, while synchronized on this, so a slow update never holds up the shared scheduler.
+    
     // TODO Should review synchronization model. Currently, all changes to the serverPoolTargets
     // (and checking for potential changes) is done while synchronized on this. That means it 
     // will also call update/reload while holding the lock. This is "conservative", but means
@@ -55,6 +64,33 @@ public abstract class AbstractControllerImpl extends SoftwareProcessImpl impleme
     protected Set<String> serverPoolAddresses = Sets.newLinkedHashSet();
     protected Map<Entity,String> serverPoolTargets = Maps.newLinkedHashMap();
     
+    /** incremented on each change to the server pool; guarded by this */
+    private long changeGeneration;
+    /** the changeGeneration last applied by update(); guarded by this */
+    private long updatedGeneration;
+    /** when the oldest and newest changes not yet applied were made, or -1; guarded by this */
+    private long firstPendingChangeTime = -1;
+    private long lastPendingChangeTime = -1;
+    /** whether a deferred update is scheduled; guarded by this */
+    private boolean updateScheduled;
+    private transient PolicyScheduler.Queue updateQueue;
+    
+    private final Runnable deferredUpdate = new Runnable() {
+        @Override public void run() {
+            if (!Entities.isManaged(AbstractControllerImpl.this)) {
+                if (LOG.isDebugEnabled()) LOG.debug("Not updating {}, as no longer managed", AbstractControllerImpl.this);
+                return;
+            }
+            getExecutionContext().submit(MutableMap.of("displayName", "deferred update"), new Runnable() {
+                @Override public void run() {
+                    runDeferredUpdate();
+                }});
+        }
+        @Override public String toString() {
+            return "deferredUpdate["+AbstractControllerImpl.this+"]";
+        }
+    };
+    
     public AbstractControllerImpl() {
         this(MutableMap.of(), null, null);
     }
@@ -236,19 +272,95 @@ public abstract class AbstractControllerImpl extends SoftwareProcessImpl impleme
      */
     protected abstract void reconfigureService();
     
+    /**
+     * Whether the configuration written by the last call to {@link #reconfigureService()} needs to be reloaded.
+     * Implementations which can tell that it is unchanged from that already deployed may return false, to avoid
+     * a needless reload. Defaults to true.
+     */
+    protected boolean isReloadRequired() {
+        return true;
+    }
+    
     @Override
     public synchronized void update() {
         if (!isActive()) updateNeeded = true;
         else {
             updateNeeded = false;
+            updatedGeneration = changeGeneration;
+            firstPendingChangeTime = -1;
+            lastPendingChangeTime = -1;
             LOG.debug("Updating {} in response to changes", this);
             reconfigureService();
-            LOG.debug("Reloading {} in response to changes", this);
-            invoke(RELOAD);
+            if (isReloadRequired()) {
+                LOG.debug("Reloading {} in response to changes", this);
+                invoke(RELOAD);
+            } else {
+                LOG.debug("Not reloading {}, as its configuration is unchanged", this);
+            }
         }
         setAttribute(SERVER_POOL_TARGETS, serverPoolAddresses);
     }
 
+    /**
+     * Records a change which requires an {@link #update()}, and schedules one for when there have been no further
+     * changes for {@link #UPDATE_QUIET_PERIOD} (but no later than {@link #UPDATE_MAX_DELAY} after this change, if
+     * changes keep arriving). A burst of changes, such as when a cluster is resized, therefore results in a single
+     * update. If the quiet period is 0, updates immediately.
+     */
+    protected synchronized void scheduleUpdate() {
+        long quietPeriod = getUpdateQuietPeriod();
+        if (quietPeriod <= 0) {
+            update();
+            return;
+        }
+        changeGeneration++;
+        long now = System.currentTimeMillis();
+        if (firstPendingChangeTime < 0) firstPendingChangeTime = now;
+        lastPendingChangeTime = now;
+        if (!updateScheduled) {
+            updateScheduled = true;
+            getUpdateQueue().schedule(deferredUpdate, quietPeriod, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void runDeferredUpdate() {
+        updateScheduled = false;
+        if (updatedGeneration == changeGeneration) {
+            // already applied, e.g. by an explicit call to update()
+            return;
+        }
+        if (!Entities.isManaged(this)) {
+            if (LOG.isDebugEnabled()) LOG.debug("Not updating {}, as no longer managed", this);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long maxDelay = getConfig(UPDATE_MAX_DELAY) != null ? getConfig(UPDATE_MAX_DELAY) : 0;
+        long due = Math.min(lastPendingChangeTime + getUpdateQuietPeriod(), firstPendingChangeTime + maxDelay);
+        if (due > now) {
+            updateScheduled = true;
+            getUpdateQueue().schedule(deferredUpdate, due - now, TimeUnit.MILLISECONDS);
+            return;
+        }
+        if (LOG.isDebugEnabled()) LOG.debug("Updating {} for changes up to generation {} (after {}ms)", 
+                new Object[] {this, changeGeneration, now - firstPendingChangeTime});
+        update();
+    }
+
+    private long getUpdateQuietPeriod() {
+        Long result = getConfig(UPDATE_QUIET_PERIOD);
+        return (result != null) ? result : 0;
+    }
+
+    private synchronized PolicyScheduler.Queue getUpdateQueue() {
+        if (updateQueue == null) {
+            ManagementContext managementContext = getManagementContext();
+            PolicyScheduler scheduler = (managementContext instanceof LocalManagementContext) ?
+                    ((LocalManagementContext)managementContext).getPolicyScheduler() : PolicyScheduler.getDefault();
+            updateQueue = scheduler.newQueue(this);
+        }
+        return updateQueue;
+    }
+
     protected synchronized void resetServerPoolMemberTrackerPolicy() {
         serverPoolMemberTrackerPolicy.reset();
         serverPoolAddresses.clear();
@@ -313,7 +425,7 @@ public abstract class AbstractControllerImpl extends SoftwareProcessImpl impleme
 
         LOG.info("Adding to {}, new member {} with address {}", new Object[] {this, member, address});
         
-        update();
+        scheduleUpdate();
         serverPoolTargets.put(member, address);
     }
     
@@ -330,7 +442,7 @@ public abstract class AbstractControllerImpl extends SoftwareProcessImpl impleme
         
         LOG.info("Removing from {}, member {} with address {}", new Object[] {this, member, address});
         
-        update();
+        scheduleUpdate();
         serverPoolTargets.remove(member);
     }
     
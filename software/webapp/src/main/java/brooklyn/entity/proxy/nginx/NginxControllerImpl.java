@@ -63,6 +63,10 @@ public class NginxControllerImpl extends AbstractControllerImpl implements Nginx
     
     private volatile HttpFeed httpFeed;
     
+    /** the configuration last copied to the server, so that an identical one need not be copied and reloaded */
+    private transient volatile String deployedConfig;
+    private transient volatile boolean reloadRequired = true;
+    
     public NginxControllerImpl() {
         super();
     }
@@ -124,14 +128,14 @@ public class NginxControllerImpl extends AbstractControllerImpl implements Nginx
             // Listen to the targets of each url-mapping changing
             subscribeToMembers(urlMappings, UrlMapping.TARGET_ADDRESSES, new SensorEventListener<Collection<String>>() {
                     @Override public void onEvent(SensorEvent<Collection<String>> event) {
-                        update(); 
+                        scheduleUpdate(); 
                     }});
             
             // Listen to url-mappings being added and removed
             AbstractMembershipTrackingPolicy policy = new AbstractMembershipTrackingPolicy() {
-                @Override protected void onEntityChange(Entity member) { update(); }
-                @Override protected void onEntityAdded(Entity member) { update(); }
-                @Override protected void onEntityRemoved(Entity member) { update(); }
+                @Override protected void onEntityChange(Entity member) { scheduleUpdate(); }
+                @Override protected void onEntityAdded(Entity member) { scheduleUpdate(); }
+                @Override protected void onEntityRemoved(Entity member) { scheduleUpdate(); }
             };
             addPolicy(policy);
             policy.setGroup(urlMappings);
@@ -159,6 +163,8 @@ public class NginxControllerImpl extends AbstractControllerImpl implements Nginx
     }
 
     public void doExtraConfigurationDuringStart() {
+        // the server may have been (re)installed, so always copy the configuration
+        deployedConfig = null;
         reconfigureService();
     }
 
@@ -167,12 +173,24 @@ public class NginxControllerImpl extends AbstractControllerImpl implements Nginx
         return getConfigFile();
     }
     
+    @Override
+    protected boolean isReloadRequired() {
+        return reloadRequired;
+    }
+    
     @Override
     protected void reconfigureService() {
+        reloadRequired = true;
 
         String cfg = getConfigFile();
         if (cfg==null) return;
         
+        if (cfg.equals(deployedConfig)) {
+            if (LOG.isDebugEnabled()) LOG.debug("Not reconfiguring {}, as its configuration is unchanged", this);
+            reloadRequired = false;
+            return;
+        }
+        
         if (LOG.isDebugEnabled()) LOG.debug("Reconfiguring {}, targetting {} and {}", new Object[] {this, serverPoolAddresses, findUrlMappings()});
         if (LOG.isTraceEnabled()) LOG.trace("Reconfiguring {}, config file:\n{}", this, cfg);
         
@@ -183,6 +201,7 @@ public class NginxControllerImpl extends AbstractControllerImpl implements Nginx
         }
         
         driver.getMachine().copyTo(new ByteArrayInputStream(cfg.getBytes()), driver.getRunDir()+"/conf/server.conf");
+        deployedConfig = cfg;
         
         installSslKeys("global", getConfig(SSL_CONFIG));
         
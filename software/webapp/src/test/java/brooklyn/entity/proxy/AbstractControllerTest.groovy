@@ -42,6 +42,7 @@ public class AbstractControllerTest {
     
     FixedListMachineProvisioningLocation loc
     List<Collection<String>> updates
+    AtomicInteger reconfigureCount
 
     @BeforeMethod(alwaysRun = true)
     public void setUp() {
@@ -51,6 +52,7 @@ public class AbstractControllerTest {
         }
         loc = new FixedListMachineProvisioningLocation<SshMachineLocation>(machines:machines)
         updates = new CopyOnWriteArrayList();
+        reconfigureCount = new AtomicInteger();
         
         app = new TestApplicationImpl()
         cluster = new DynamicClusterImpl(parent:app, initialSize:0, factory:{flags,parent -> new ClusteredEntity(flags, parent)})
@@ -71,6 +73,7 @@ public class AbstractControllerTest {
             @Override
             protected void reconfigureService() {
                 log.info "test controller reconfigure, addresses $serverPoolAddresses"
+                reconfigureCount.incrementAndGet()
                 if ((serverPoolAddresses && !updates) || (updates && serverPoolAddresses!=updates.last())) {
                     updates.add(serverPoolAddresses)
                 }
@@ -156,6 +159,25 @@ public class AbstractControllerTest {
         assertEventuallyAddressesMatch(ImmutableList.<Entity>of());
     }
 
+    @Test
+    public void testBurstOfChangesCoalescedIntoOneUpdate() {
+        // a quiet period long enough for the whole burst to fall within it, even on a slow machine
+        long quietPeriod = 2000L
+        controller.setConfig(AbstractController.UPDATE_QUIET_PERIOD, quietPeriod)
+        controller.setConfig(AbstractController.UPDATE_MAX_DELAY, 10*quietPeriod)
+        cluster.resize(5)
+        int countBefore = reconfigureCount.get()
+        cluster.children.each {
+            it.setAttribute(ClusteredEntity.HTTP_PORT, 1234)
+            it.setAttribute(Startable.SERVICE_UP, true)
+        }
+        assertEventuallyAddressesMatchCluster()
+        
+        // and no further update follows
+        Thread.sleep(quietPeriod)
+        assertEquals(reconfigureCount.get() - countBefore, 1)
+    }
+
     private void assertEventuallyAddressesMatchCluster() {
         assertEventuallyAddressesMatch(cluster.children);
     }
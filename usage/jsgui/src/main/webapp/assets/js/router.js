@@ -17,6 +17,9 @@ define([
         _.each(this._periodicFunctions, function(i) {
             clearInterval(i)
         })
+        _.each(this._closeCallbacks, function(f) {
+            f()
+        })
         this.remove()
         this.unbind()
     }
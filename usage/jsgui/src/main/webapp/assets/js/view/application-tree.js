@@ -4,8 +4,8 @@
  */
 define([
     "underscore", "jquery", "backbone", "model/app-tree", "./entity-details", "model/entity-summary",
-    "model/application", "text!tpl/apps/tree-item.html", "text!tpl/apps/details.html"
-], function (_, $, Backbone, AppTree, EntityDetailsView, EntitySummary, Application, TreeItemHtml, EntityDetailsEmptyHtml) {
+    "model/application", "view/viewutils", "text!tpl/apps/tree-item.html", "text!tpl/apps/details.html"
+], function (_, $, Backbone, AppTree, EntityDetailsView, EntitySummary, Application, ViewUtils, TreeItemHtml, EntityDetailsEmptyHtml) {
 
     var ApplicationTreeView = Backbone.View.extend({
         tagName:"ol",
@@ -147,6 +147,12 @@ define([
                 application:app
             })
             $("div#details").html(that.detailsView.render().el)
+            // reload the tree when the selected entity's children change (for as long as it is selected)
+            var reloadTree = function () { that.collection.fetch() }
+            ViewUtils.subscribeToEvents(that.detailsView, entitySummary.getEventsUrl(), {
+                children:reloadTree,
+                unmanaged:reloadTree
+            })
             // preserve the tab selected before
             $("div#details").find("a[href=\"#"+whichTab+"\"]").tab('show')            
         },
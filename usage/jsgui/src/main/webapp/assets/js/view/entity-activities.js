@@ -55,11 +55,29 @@ define([
             ViewUtils.addRefreshButton(that.table);
             
             that.collection.on("reset", that.render, that);
+            // push changed tasks if the browser supports it, otherwise poll
+            var streaming = ViewUtils.subscribeToEvents(that, that.model.getEventsUrl(), {
+                open:function () { that.collection.fetch() },
+                resync:function () { that.collection.fetch() },
+                task:function (task) { that.updateTask(task) },
+                closed:function () { that.fetchPeriodically() }
+            });
+            if (!streaming) that.fetchPeriodically();
+            that.collection.fetch();
+        },
+        fetchPeriodically: function() {
+            var that = this;
             that.callPeriodically("entity-activities", function () {
                 if (that.refreshActive)
                     that.collection.fetch();
             }, 3000);
-            that.collection.fetch();
+        },
+        updateTask: function(task) {
+            if (!this.refreshActive) return;
+            var existing = this.collection.get(task.id);
+            if (existing) existing.set(task);
+            else this.collection.add(task);
+            this.render();
         },
         refreshNow: function() {
             this.collection.fetch();
@@ -71,6 +89,8 @@ define([
             ViewUtils.toggleAutoRefresh(this);
         },
         enableAutoRefresh: function(isEnabled) {
+            // tasks pushed while paused are not shown, so catch up when resumed
+            if (isEnabled && !this.refreshActive) this.collection.fetch()
             this.refreshActive = isEnabled
         },
         render:function () {
@@ -84,7 +84,15 @@ define([
             ViewUtils.addAutoRefreshButton(that.table);
             ViewUtils.addRefreshButton(that.table);
             that.loadSensorMetadata(that);
-            that.updateSensorsPeriodically(that);
+            that.renderSensorValuesSoon = _.debounce(function() { that.renderSensorValues(that) }, 200);
+            // push changed values if the browser supports it, otherwise poll
+            var streaming = ViewUtils.subscribeToEvents(that, that.model.getEventsUrl(), {
+                open:function () { that.updateSensorsNow(that) },
+                resync:function () { that.updateSensorsNow(that) },
+                sensor:function (data) { that.updateSensor(that, data.name, data.value) },
+                closed:function () { that.updateSensorsPeriodically(that) }
+            });
+            if (!streaming) that.updateSensorsPeriodically(that);
             that.toggleFilterEmpty();
         },
         render:function () {
@@ -98,6 +106,8 @@ define([
             ViewUtils.toggleAutoRefresh(this);
         },
         enableAutoRefresh: function(isEnabled) {
+            // values pushed while paused are not shown, so catch up when resumed
+            if (isEnabled && !this.refreshActive) this.updateSensorsNow(this)
             this.refreshActive = isEnabled
         },
         refreshSensors:function () {
@@ -133,23 +143,32 @@ define([
             });
         },
         updateSensorsNow:function (that) {
-            var url = that.model.getSensorUpdateUrl(),
-                $table = that.$('#sensors-table');
+            var url = that.model.getSensorUpdateUrl();
             $.get(url, function (data) {
-                ViewUtils.updateMyDataTable($table, data, function(value, name) {
-                    var metadata = that.sensorMetadata[name]
-                    if (metadata==null) {                        
-                        // TODO should reload metadata when this happens (new sensor for which no metadata known)
-                        // (currently if we have dynamic sensors, their metadata won't appear
-                        // until the page is refreshed; don't think that's a bit problem -- mainly tooltips
-                        // for now, we just return the partial value
-                        return [name, {'name':name}, {}, value]
-                    } 
-                    return [name, metadata,
-                        metadata["actions"],
-                        value
-                    ];
-                });
+                that.sensorValues = data
+                that.renderSensorValues(that)
+            });
+        },
+        updateSensor:function (that, name, value) {
+            if (!that.refreshActive || !that.sensorValues) return;
+            that.sensorValues[name] = value
+            that.renderSensorValuesSoon()
+        },
+        renderSensorValues:function (that) {
+            var $table = that.$('#sensors-table');
+            ViewUtils.updateMyDataTable($table, that.sensorValues, function(value, name) {
+                var metadata = that.sensorMetadata[name]
+                if (metadata==null) {                        
+                    // TODO should reload metadata when this happens (new sensor for which no metadata known)
+                    // (currently if we have dynamic sensors, their metadata won't appear
+                    // until the page is refreshed; don't think that's a bit problem -- mainly tooltips
+                    // for now, we just return the partial value
+                    return [name, {'name':name}, {}, value]
+                } 
+                return [name, metadata,
+                    metadata["actions"],
+                    value
+                ];
             });
         }
     });
@@ -2,6 +2,10 @@ define([
         "underscore", "jquery", "backbone"
 ], function (_, $, Backbone) {
 
+    // server-sent event streams, keyed by url, shared by all views subscribed to them
+    var eventStreams = {}
+    var eventTypes = [ "sensor", "task", "member", "children", "resync", "unmanaged" ]
+
     var ViewUtils = {
         myDataTable:function($table, extra) {
             var settings = {
@@ -165,6 +169,54 @@ define([
                 $div.hide();
             }
         },
+        /**
+         * Calls the view's handlers (keyed by event type) with the events streamed from the given url
+         * (see EntityEventStream), sharing one connection among all views subscribed to it.
+         * The "open" handler is called when the stream is (re)connected, when the view should read the full state;
+         * the "closed" handler is called if the stream fails permanently, when the view should fall back to polling.
+         * Returns false (and subscribes nothing) if the browser does not support server-sent events.
+         * The view is unsubscribed when it is closed.
+         */
+        subscribeToEvents: function(view, url, handlers) {
+            if (!window.EventSource) return false;
+            var stream = eventStreams[url]
+            if (!stream) {
+                stream = eventStreams[url] = { source: new EventSource(url), subscribers: [] }
+                var notify = function(type, data) {
+                    _.each(stream.subscribers.slice(), function(s) {
+                        if (s[type]) s[type](data)
+                    })
+                }
+                stream.source.addEventListener("open", function() { notify("open") }, false)
+                stream.source.addEventListener("error", function() {
+                    // the browser reconnects by itself unless the stream is closed
+                    if (stream.source.readyState == 2) {
+                        delete eventStreams[url]
+                        notify("closed")
+                    }
+                }, false)
+                _.each(eventTypes, function(type) {
+                    stream.source.addEventListener(type, function(e) {
+                        notify(type, JSON.parse(e.data))
+                        if (type == "unmanaged") {
+                            stream.source.close()
+                            delete eventStreams[url]
+                        }
+                    }, false)
+                })
+            }
+            stream.subscribers.push(handlers)
+            if (stream.source.readyState == 1 && handlers.open) handlers.open()
+            if (!view._closeCallbacks) view._closeCallbacks = []
+            view._closeCallbacks.push(function() {
+                stream.subscribers = _.without(stream.subscribers, handlers)
+                if (stream.subscribers.length == 0 && eventStreams[url] === stream) {
+                    stream.source.close()
+                    delete eventStreams[url]
+                }
+            })
+            return true;
+        },
         each: function(collection, fn) {
             if (_.isFunction(collection.each)) {
                 // some objects (such as backbone collections) are not iterable
@@ -0,0 +1,69 @@
+package brooklyn.launcher;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.entity.drivers.downloads.ArtifactCache;
+
+import com.google.common.io.Files;
+
+/**
+ * Serves the artifacts of an {@link ArtifactCache}, at <code>/{key}/{filename}</code> (the filename is ignored),
+ * fetching each into the cache on first request.
+ * <p>
+ * This is not behind the web console's security filter, as it is fetched by the machines installing entities;
+ * only artifacts which have been registered (when resolving downloads for an entity) are served, and their keys
+ * are HMACs under a secret of the cache, so cannot be derived from the artifacts' URLs.
+ */
+public class ArtifactMirrorServlet extends HttpServlet {
+
+    private static final long serialVersionUID = -2725216441325626839L;
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactMirrorServlet.class);
+
+    private final ArtifactCache cache;
+
+    public ArtifactMirrorServlet(ArtifactCache cache) {
+        this.cache = checkNotNull(cache, "cache");
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getPathInfo();
+        String key = (path == null) ? "" : path.replaceFirst("^/", "").replaceFirst("/.*", "");
+        if (!cache.isRegistered(key)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        File file;
+        try {
+            file = cache.get(key);
+        } catch (IOException e) {
+            // the machine will fall back to the artifact's own URLs
+            log.warn("Unable to serve artifact "+key+" from mirror: "+e);
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+            return;
+        }
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (log.isDebugEnabled()) log.debug("Serving artifact {} to {}", key, request.getRemoteAddr());
+        response.setContentType("application/octet-stream");
+        response.setHeader("Content-Length", Long.toString(file.length()));
+        String sha256 = cache.getSha256(key);
+        if (sha256 != null) response.setHeader("ETag", "\""+sha256+"\"");
+        Files.copy(file, response.getOutputStream());
+    }
+}
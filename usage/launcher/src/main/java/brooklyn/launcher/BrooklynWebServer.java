@@ -17,6 +17,7 @@ import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ssl.SslSocketConnector;
 import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.slf4j.Logger;
@@ -24,6 +25,9 @@ import org.slf4j.LoggerFactory;
 
 import brooklyn.config.BrooklynServiceAttributes;
 import brooklyn.entity.basic.ConfigKeys;
+import brooklyn.entity.drivers.downloads.ArtifactCache;
+import brooklyn.entity.drivers.downloads.BasicDownloadsManager;
+import brooklyn.entity.drivers.downloads.DownloadResolverManager;
 import brooklyn.location.PortRange;
 import brooklyn.location.basic.LocalhostMachineProvisioningLocation;
 import brooklyn.location.basic.PortRanges;
@@ -54,6 +58,9 @@ public class BrooklynWebServer {
 
     public static final String BROOKLYN_WAR_URL = "classpath://brooklyn.war";
 
+    /** context path at which the mirror of downloads is served, if enabled (see {@link ArtifactCache#MIRROR_ENABLED}) */
+    public static final String ARTIFACT_MIRROR_PATH = "artifacts";
+
     protected Server server;
 
     private WebAppContext rootContext;
@@ -96,6 +103,8 @@ public class BrooklynWebServer {
     private File webappTempDir;
     
     private Class<BrooklynPropertiesSecurityFilter> securityFilterClazz;
+    
+    private boolean artifactMirrorDeployed;
 
     public BrooklynWebServer(ManagementContext managementContext) {
         this(Maps.newLinkedHashMap(), managementContext);
@@ -265,6 +274,8 @@ public class BrooklynWebServer {
         }
         installAsServletFilter(rootContext);
 
+        deployArtifactMirror();
+
         server.setHandler(handlers);
         server.start();
         //reinit required because grails wipes our language extension bindings
@@ -273,6 +284,30 @@ public class BrooklynWebServer {
         log.info("Started Brooklyn console at "+getRootUrl()+", running " + war + (wars != null ? " and " + wars.values() : ""));
     }
 
+    /** serves the management context's {@link ArtifactCache} (if mirroring downloads) at /artifacts, outside the security filter
+     * (the artifacts' keys are unguessable, see {@link ArtifactCache#keyFor(java.util.List)}) */
+    protected void deployArtifactMirror() {
+        DownloadResolverManager downloadsManager = managementContext.getEntityDownloadsManager();
+        if (!(downloadsManager instanceof BasicDownloadsManager)) return;
+        ArtifactCache cache = ((BasicDownloadsManager)downloadsManager).getArtifactCache();
+        if (cache == null) return;
+        
+        ServletContextHandler context = new ServletContextHandler();
+        context.setContextPath("/"+ARTIFACT_MIRROR_PATH);
+        context.addServlet(new ServletHolder(new ArtifactMirrorServlet(cache)), "/*");
+        try {
+            handlers.updateHandler(context);
+        } catch (Exception e) {
+            throw Throwables.propagate(e);
+        }
+        
+        String mirrorUrl = managementContext.getConfig().getConfig(ArtifactCache.MIRROR_URL);
+        if (Strings.isBlank(mirrorUrl)) mirrorUrl = getRootUrl()+ARTIFACT_MIRROR_PATH+"/";
+        ((BasicDownloadsManager)downloadsManager).setArtifactMirrorUrl(mirrorUrl);
+        artifactMirrorDeployed = true;
+        log.info("Mirroring downloads for entity installs at "+mirrorUrl+" (cache "+cache+")");
+    }
+
     private String newTimestampedDirName(String prefix, int randomSuffixLength) {
         return prefix + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "-" + Identifiers.makeRandomId(randomSuffixLength);
     }
@@ -301,6 +336,11 @@ public class BrooklynWebServer {
             /* NPE may be thrown e.g. if threadpool not started */
         }
         server = null;
+        if (artifactMirrorDeployed) {
+            // machines can no longer download from here
+            ((BasicDownloadsManager)managementContext.getEntityDownloadsManager()).setArtifactMirrorUrl(null);
+            artifactMirrorDeployed = false;
+        }
         LocalhostMachineProvisioningLocation.releasePort(getAddress(), actualPort);
         actualPort = -1;
         if (log.isDebugEnabled())
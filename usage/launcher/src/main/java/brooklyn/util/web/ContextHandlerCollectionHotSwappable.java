@@ -6,12 +6,12 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
-import org.eclipse.jetty.webapp.WebAppContext;
 
 public class ContextHandlerCollectionHotSwappable extends ContextHandlerCollection {
 
-    public synchronized void updateHandler(WebAppContext context) throws Exception {
+    public synchronized void updateHandler(ContextHandler context) throws Exception {
         Handler[] hl0 = getHandlers();
         List<Handler> hl = hl0!=null ? new ArrayList<Handler>(Arrays.asList(hl0)) : new ArrayList<Handler>();
         // remove any previous version
@@ -33,7 +33,7 @@ public class ContextHandlerCollectionHotSwappable extends ContextHandlerCollecti
         Iterator<Handler> hi = hl.iterator();
         while (hi.hasNext()) {
             Handler h = hi.next();
-            if ((h instanceof WebAppContext) && ((WebAppContext)h).getContextPath().equals(contextPath)) {
+            if ((h instanceof ContextHandler) && ((ContextHandler)h).getContextPath().equals(contextPath)) {
                 hi.remove();
                 return h;
             }
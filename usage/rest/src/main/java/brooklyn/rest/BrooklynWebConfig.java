@@ -28,6 +28,16 @@ public class BrooklynWebConfig {
     public final static ConfigKey<String> LDAP_REALM = new BasicConfigKey<String>(String.class,
             BASE_NAME+".security.ldap.realm");
 
+    /** the maximum number of undelivered changes held for a client of an event stream, beyond which
+     * they are discarded and the client is told to re-read the entity's state */
+    public final static ConfigKey<Integer> EVENT_STREAM_MAX_PENDING = new BasicConfigKey<Integer>(Integer.class,
+            BASE_NAME+".events.maxPending", "maximum number of undelivered changes per event stream client", 1000);
+
+    /** the time (in milliseconds) after which an event stream is closed, so that the client reconnects;
+     * this frees the server's threads held by clients which have gone away without closing the connection */
+    public final static ConfigKey<Long> EVENT_STREAM_MAX_DURATION = new BasicConfigKey<Long>(Long.class,
+            BASE_NAME+".events.maxDuration", "maximum time in milliseconds that an event stream stays open", 5*60*1000L);
+
     public final static ConfigKey<String> SECURITY_PROVIDER_EXPLICIT__PASSWORD(String user) {
         return new BasicConfigKey<String>(String.class, BASE_NAME+".security.explicit.user."+user);
     }
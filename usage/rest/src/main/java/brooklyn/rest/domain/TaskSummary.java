@@ -16,6 +16,7 @@ import org.codehaus.jackson.annotate.JsonProperty;
 import brooklyn.entity.Entity;
 import brooklyn.management.Task;
 import brooklyn.rest.util.JsonUtils;
+import brooklyn.util.task.TaskRecord;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
@@ -92,8 +93,32 @@ public TaskSummary(Task task) {
     this.detailedStatus = task.getStatusDetail(true);
   }
 
+  /** for tasks which have been deleted, of which only a summary is kept */
+  public TaskSummary(TaskRecord record) {
+    Preconditions.checkNotNull(record);
+    this.entityId = record.getEntityId();
+    this.entityDisplayName = record.getEntityDisplayName();
+    this.tags = ImmutableList.<Object>copyOf(record.getTags());
+    this.displayName = record.getDisplayName();
+    this.description = record.getDescription();
+    this.id = record.getId();
+    this.rawSubmitTimeUtc = record.getSubmitTimeUtc();
+    this.submitTimeUtc = (record.getSubmitTimeUtc() == -1) ? "" : formatter.get().format(new Date(record.getSubmitTimeUtc()));
+    this.startTimeUtc = (record.getStartTimeUtc() == -1) ? "" : formatter.get().format(new Date(record.getStartTimeUtc()));
+    this.endTimeUtc = (record.getEndTimeUtc() == -1) ? "" : formatter.get().format(new Date(record.getEndTimeUtc()));
+    this.currentStatus = record.getStatusSummary();
+    this.detailedStatus = record.getStatusSummary();
+  }
+
   public static final TaskSummary fromTask(Task<?> task) { return new TaskSummary(task); }
   
+  public static final TaskSummary fromRecord(TaskRecord record) { return new TaskSummary(record); }
+  
+  public static final Function<TaskRecord, TaskSummary> FROM_RECORD = new Function<TaskRecord, TaskSummary>() {
+      @Override
+      public TaskSummary apply(@Nullable TaskRecord input) { return fromRecord(input); }
+  };
+  
   public static final Function<Task<?>, TaskSummary> FROM_TASK = new Function<Task<?>, TaskSummary>() {
       @Override
       public TaskSummary apply(@Nullable Task<?> input) { return fromTask(input); }
@@ -1,5 +1,6 @@
 package brooklyn.rest.resources;
 
+import java.util.List;
 import java.util.Set;
 
 import javax.ws.rs.GET;
@@ -9,12 +10,17 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 
 import brooklyn.entity.Entity;
+import brooklyn.management.ExecutionManager;
 import brooklyn.management.Task;
 import brooklyn.rest.apidoc.Apidoc;
 import brooklyn.rest.domain.TaskSummary;
 import brooklyn.rest.util.WebResourceUtils;
+import brooklyn.util.task.BasicExecutionManager;
+import brooklyn.util.task.TaskRecord;
 
 import com.google.common.collect.Collections2;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.wordnik.swagger.core.ApiError;
 import com.wordnik.swagger.core.ApiErrors;
 import com.wordnik.swagger.core.ApiOperation;
@@ -33,7 +39,17 @@ public class ActivityResource extends AbstractBrooklynRestResource {
                                     @PathParam("entity") String entityId) {
       Entity entity = brooklyn().getEntity(applicationId, entityId);
       Set<Task<?>> tasks = mgmt().getExecutionManager().getTasksWithTag(entity);
-      return Collections2.transform(tasks, TaskSummary.FROM_TASK);
+      Iterable<TaskSummary> result = Collections2.transform(tasks, TaskSummary.FROM_TASK);
+      
+      // include summaries of recent tasks which have since been deleted
+      ExecutionManager em = mgmt().getExecutionManager();
+      if (em instanceof BasicExecutionManager) {
+          List<TaskRecord> history = ((BasicExecutionManager)em).getTaskHistory().getRecentForEntity(entity.getId());
+          if (!history.isEmpty()) {
+              result = Lists.newArrayList(Iterables.concat(Lists.transform(history, TaskSummary.FROM_RECORD), result));
+          }
+      }
+      return result;
   }
 
   @GET
@@ -56,8 +72,14 @@ public class ActivityResource extends AbstractBrooklynRestResource {
       // (should API be refactored to be a top-level?)
       
       Task<?> t = mgmt().getExecutionManager().getTask(taskId);
-      if (t==null)
-          throw WebResourceUtils.notFound("Cannot find task '%s'", taskId);
+      if (t==null) {
+          // task may have been deleted, with only a summary kept
+          ExecutionManager em = mgmt().getExecutionManager();
+          TaskRecord record = (em instanceof BasicExecutionManager) ? ((BasicExecutionManager)em).getTaskHistory().get(taskId) : null;
+          if (record==null)
+              throw WebResourceUtils.notFound("Cannot find task '%s'", taskId);
+          return TaskSummary.FROM_RECORD.apply(record);
+      }
       return TaskSummary.FROM_TASK.apply(t);
   }
 
@@ -14,18 +14,17 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 
-import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.node.ArrayNode;
-import org.codehaus.jackson.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import brooklyn.entity.Application;
-import brooklyn.entity.Entity;
 import brooklyn.management.Task;
 import brooklyn.rest.apidoc.Apidoc;
 import brooklyn.rest.domain.ApplicationSpec;
@@ -33,6 +32,7 @@ import brooklyn.rest.domain.ApplicationSummary;
 import brooklyn.rest.domain.EntitySpec;
 import brooklyn.rest.domain.TaskSummary;
 import brooklyn.rest.util.BrooklynRestResourceUtils;
+import brooklyn.rest.util.EntityTreeCache;
 import brooklyn.rest.util.WebResourceUtils;
 
 import com.google.common.collect.Collections2;
@@ -47,36 +47,25 @@ import com.wordnik.swagger.core.ApiParam;
 public class ApplicationResource extends AbstractBrooklynRestResource {
 
   private static final Logger log = LoggerFactory.getLogger(ApplicationResource.class);
-  
-  private final ObjectMapper mapper = new ObjectMapper();
 
   @GET
   @Path("/tree")
   @ApiOperation(
-      value = "Fetch applications and entities tree hierarchy"
+      value = "Fetch applications and entities tree hierarchy",
+      notes = "The response has an ETag; if it matches the request's If-None-Match header, the tree is unchanged " +
+          "and 304 (Not Modified) is returned instead"
   )
-  public JsonNode applicationTree() {
-    ArrayNode apps = mapper.createArrayNode();
-    for (Application application : mgmt().getApplications())
-      apps.add(recursiveTreeFromEntity(application));
-    return apps;
-  }
-  private JsonNode recursiveTreeFromEntity(Entity entity) {
-    ObjectNode aRoot = mapper.createObjectNode();
-    aRoot.put("name", entity.getDisplayName());
-    aRoot.put("id", entity.getId());
-    aRoot.put("type", entity.getEntityType().getName());
-    if (entity.getChildren().size() != 0) {
-      aRoot.put("children", childEntitiesAsArray(entity));
-    }
-    return aRoot;
-  }
-  private ArrayNode childEntitiesAsArray(Entity entity) {
-    ArrayNode node = mapper.createArrayNode();
-    for (Entity e : entity.getChildren()) {
-      node.add(recursiveTreeFromEntity(e));
+  public Response applicationTree(@Context Request request) {
+    EntityTreeCache cache = EntityTreeCache.forManagementContext(mgmt());
+    EntityTag tag = cache.getTreeTag();
+    if (tag != null) {
+      ResponseBuilder notModified = request.evaluatePreconditions(tag);
+      if (notModified != null) return notModified.build();
     }
-    return node;
+    return Response.ok(cache.getApplicationTree())
+        .tag(tag)
+        .header("Cache-Control", "no-cache")
+        .build();
   }
 
   @GET
@@ -0,0 +1,48 @@
+package brooklyn.rest.resources;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+import brooklyn.entity.basic.EntityLocal;
+import brooklyn.rest.apidoc.Apidoc;
+import brooklyn.rest.util.EntityEventStream;
+
+import com.wordnik.swagger.core.ApiError;
+import com.wordnik.swagger.core.ApiErrors;
+import com.wordnik.swagger.core.ApiOperation;
+import com.wordnik.swagger.core.ApiParam;
+
+@Path("/v1/applications/{application}/entities/{entity}/events")
+@Apidoc("Entity events")
+@Produces(EntityEventStream.MEDIA_TYPE)
+public class EventStreamResource extends AbstractBrooklynRestResource {
+
+  @GET
+  @ApiOperation(value = "Stream changes to the sensors, activities and children of an entity",
+      notes = "Returns server-sent events (text/event-stream) of types 'sensor', 'task', 'member', 'children', " +
+          "'resync' and 'unmanaged'; clients should read the entity's state once the stream is open, and again on 'resync'")
+  @ApiErrors(value = {
+      @ApiError(code = 404, reason = "Could not find application or entity")
+  })
+  public Response stream(
+      @ApiParam(value = "Application ID or name", required = true)
+      @PathParam("application") final String application,
+      @ApiParam(value = "Entity ID or name", required = true)
+      @PathParam("entity") final String entityToken,
+      @ApiParam(value = "Whether to include changes to sensor values", required = false)
+      @QueryParam("sensors") @DefaultValue("true") final boolean includeSensors,
+      @ApiParam(value = "Whether to include changes to activities", required = false)
+      @QueryParam("tasks") @DefaultValue("true") final boolean includeTasks
+  ) {
+    final EntityLocal entity = brooklyn().getEntity(application, entityToken);
+    return Response.ok(new EntityEventStream(mgmt(), entity, includeSensors, includeTasks))
+        .header("Cache-Control", "no-cache")
+        .build();
+  }
+
+}
@@ -116,7 +116,7 @@ public class BrooklynRestResourceUtils {
         if (application==null)
             throw WebResourceUtils.notFound("Cannot find entity '%s': no known ID and application not supplied for searching", entity);
         assert app!=null : "null app should not be returned from getApplication";
-        e = searchForEntityNamed(app, entity);
+        e = (EntityLocal) EntityTreeCache.forManagementContext(mgmt).findEntityNamed(app, entity);
         if (e!=null) return e;
         throw WebResourceUtils.notFound("Cannot find entity '%s' in application '%s' (%s)", entity, application, app);
     }
@@ -141,10 +141,8 @@ public class BrooklynRestResourceUtils {
     public Application getApplication(String application) {
         Entity e = mgmt.getEntityManager().getEntity(application);
         if (e!=null && e instanceof Application) return (Application)e;
-        for (Application app: mgmt.getApplications()) {
-            if (app.getId().equals(application)) return app;
-            if (application.equalsIgnoreCase(app.getDisplayName())) return app;
-        }
+        Application app = EntityTreeCache.forManagementContext(mgmt).findApplicationNamed(application);
+        if (app!=null) return app;
         throw notFound("Application '%s' not found", application);
     }
 
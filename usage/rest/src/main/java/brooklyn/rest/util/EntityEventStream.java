@@ -0,0 +1,258 @@
+package brooklyn.rest.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.Entities;
+import brooklyn.entity.trait.Changeable;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.Sensor;
+import brooklyn.event.SensorEvent;
+import brooklyn.event.SensorEventListener;
+import brooklyn.management.ManagementContext;
+import brooklyn.management.SubscriptionHandle;
+import brooklyn.management.Task;
+import brooklyn.rest.BrooklynWebConfig;
+import brooklyn.rest.domain.TaskSummary;
+import brooklyn.util.collections.MutableMap;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Streams the changes to an entity to a client, as
+ * <a href="http://www.w3.org/TR/eventsource/">server-sent events</a>, so that the client does not
+ * need to poll for (and the server does not need to rebuild) the entity's complete state.
+ * <p>
+ * Events are:
+ * <ul>
+ * <li><code>sensor</code> - an attribute's new value, as <code>{"name":..., "value":...}</code>
+ *     (only when the value differs from that last sent)
+ * <li><code>task</code> - the {@link TaskSummary} of a task of the entity, when it is submitted, started or ended
+ * <li><code>member</code> - a member added to or removed from a group, as <code>{"added":id}</code> or <code>{"removed":id}</code>
+ * <li><code>children</code> - the ids of the entity's children, when they change
+ * <li><code>resync</code> - changes were discarded (see below), so the client should re-read the entity's state
+ * <li><code>unmanaged</code> - the entity is no longer managed; the stream is closed
+ * </ul>
+ * Clients should read the entity's state after the stream is opened (and after a resync); events describe only
+ * subsequent changes.
+ * <p>
+ * Each client has its own bounded buffer: a newer value of an attribute replaces any undelivered older one,
+ * and if a client falls more than {@link BrooklynWebConfig#EVENT_STREAM_MAX_PENDING} changes behind, the changes
+ * are discarded and it is sent a resync instead. The stream is closed after
+ * {@link BrooklynWebConfig#EVENT_STREAM_MAX_DURATION}, whereupon browsers will reconnect.
+ */
+public class EntityEventStream implements StreamingOutput {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityEventStream.class);
+
+    public static final String MEDIA_TYPE = "text/event-stream";
+
+    /** how often a comment is written when there are no events, so that proxies do not time out the connection */
+    private static final long HEARTBEAT_PERIOD = 15*1000;
+
+    /** how often tasks and children are checked for changes, as they have no sensor events */
+    private static final long POLL_PERIOD = 1000;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static class Event {
+        final String type;
+        final Object data;
+
+        Event(String type, Object data) {
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    private final ManagementContext mgmt;
+    private final Entity entity;
+    private final boolean includeSensors;
+    private final boolean includeTasks;
+    private final int maxPending;
+    private final long maxDuration;
+
+    /** events not yet written, keyed so that a newer event for the same item replaces an older one; guarded by this */
+    private final LinkedHashMap<String, Event> pending = new LinkedHashMap<String, Event>();
+    /** whether events have been discarded since last written; guarded by this */
+    private boolean overflowed;
+
+    // only accessed by the thread writing the stream
+    private final Map<String, Object> sentSensorValues = Maps.newHashMap();
+    private final Map<String, Integer> sentTaskStates = Maps.newHashMap();
+    private Set<String> sentChildren;
+
+    public EntityEventStream(ManagementContext mgmt, Entity entity, boolean includeSensors, boolean includeTasks) {
+        this.mgmt = mgmt;
+        this.entity = entity;
+        this.includeSensors = includeSensors;
+        this.includeTasks = includeTasks;
+        this.maxPending = mgmt.getConfig().getConfig(BrooklynWebConfig.EVENT_STREAM_MAX_PENDING);
+        this.maxDuration = mgmt.getConfig().getConfig(BrooklynWebConfig.EVENT_STREAM_MAX_DURATION);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new OutputStreamWriter(output, Charsets.UTF_8);
+        SubscriptionHandle subscription = mgmt.getSubscriptionManager().subscribe(
+                MutableMap.<String, Object>of("subscriber", this), entity, (Sensor<Object>) null, new SensorEventListener<Object>() {
+                    @Override
+                    public void onEvent(SensorEvent<Object> event) {
+                        onSensorEvent(event);
+                    }
+                });
+        try {
+            // record the current state, so that only subsequent changes are sent
+            pollTasks(null);
+            pollChildren(null);
+            // headers are not sent until the first flush, so ensure the client sees the stream open immediately
+            writer.write(": "+entity.getId()+"\n\n");
+            writer.flush();
+
+            long startTime = System.currentTimeMillis();
+            long lastWriteTime = startTime;
+            long lastPollTime = startTime;
+            while (System.currentTimeMillis() - startTime < maxDuration) {
+                List<Event> events;
+                boolean resync;
+                synchronized (this) {
+                    if (pending.isEmpty() && !overflowed) wait(POLL_PERIOD);
+                    events = Lists.newArrayList(pending.values());
+                    pending.clear();
+                    resync = overflowed;
+                    overflowed = false;
+                }
+
+                boolean written = false;
+                if (resync) {
+                    sentSensorValues.clear();
+                    written |= writeEvent(writer, new Event("resync", entity.getId()));
+                }
+                for (Event event : events) {
+                    written |= writeEvent(writer, event);
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastPollTime >= POLL_PERIOD) {
+                    lastPollTime = now;
+                    if (!Entities.isManaged(entity)) {
+                        writeEvent(writer, new Event("unmanaged", entity.getId()));
+                        writer.flush();
+                        return;
+                    }
+                    written |= pollTasks(writer);
+                    written |= pollChildren(writer);
+                }
+                if (!written && now - lastWriteTime >= HEARTBEAT_PERIOD) {
+                    writer.write(":\n\n");
+                    written = true;
+                }
+                if (written) {
+                    writer.flush();
+                    lastWriteTime = now;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // typically the client has gone away
+            if (log.isDebugEnabled()) log.debug("Closing event stream for "+entity+": "+e);
+        } finally {
+            mgmt.getSubscriptionManager().unsubscribe(subscription);
+        }
+    }
+
+    private void onSensorEvent(SensorEvent<Object> event) {
+        Sensor<?> sensor = event.getSensor();
+        String key;
+        Event result;
+        if (sensor instanceof AttributeSensor) {
+            if (!includeSensors) return;
+            key = "sensor:"+sensor.getName();
+            result = new Event("sensor", MutableMap.<String, Object>of("name", sensor.getName(), "value", JsonUtils.toJsonable(event.getValue())));
+        } else if (Changeable.MEMBER_ADDED.equals(sensor) || Changeable.MEMBER_REMOVED.equals(sensor)) {
+            String memberId = ((Entity) event.getValue()).getId();
+            key = "member:"+memberId;
+            result = new Event("member", ImmutableMap.of(Changeable.MEMBER_ADDED.equals(sensor) ? "added" : "removed", memberId));
+        } else {
+            return;
+        }
+        synchronized (this) {
+            if (overflowed) return;
+            pending.remove(key);
+            if (pending.size() >= maxPending) {
+                pending.clear();
+                overflowed = true;
+            } else {
+                pending.put(key, result);
+            }
+            notifyAll();
+        }
+    }
+
+    /** @return whether any events were written */
+    private boolean writeEvent(Writer writer, Event event) throws IOException {
+        if ("sensor".equals(event.type)) {
+            Map<?, ?> data = (Map<?, ?>) event.data;
+            String name = (String) data.get("name");
+            Object value = data.get("value");
+            if (sentSensorValues.containsKey(name) && Objects.equal(sentSensorValues.get(name), value)) return false;
+            sentSensorValues.put(name, value);
+        }
+        writer.write("event: "+event.type+"\n");
+        writer.write("data: "+mapper.writeValueAsString(event.data)+"\n\n");
+        return true;
+    }
+
+    /** writes the summary of each task which is new or has changed state; or if writer is null, only records the states */
+    private boolean pollTasks(Writer writer) throws IOException {
+        if (!includeTasks) return false;
+        boolean written = false;
+        Set<String> current = Sets.newHashSet();
+        for (Task<?> task : mgmt.getExecutionManager().getTasksWithTag(entity)) {
+            current.add(task.getId());
+            int state = (task.isBegun() ? 1 : 0) + (task.isDone() ? 2 : 0) + (task.isError() ? 4 : 0);
+            Integer oldState = sentTaskStates.put(task.getId(), state);
+            if (writer != null && (oldState == null || oldState != state)) {
+                written |= writeEvent(writer, new Event("task", TaskSummary.FROM_TASK.apply(task)));
+            }
+        }
+        sentTaskStates.keySet().retainAll(current);
+        return written;
+    }
+
+    /** writes the ids of the entity's children if they have changed; or if writer is null, only records them */
+    private boolean pollChildren(Writer writer) throws IOException {
+        Collection<Entity> children = entity.getChildren();
+        Set<String> current = Sets.newLinkedHashSet();
+        for (Entity child : children) {
+            current.add(child.getId());
+        }
+        if (current.equals(sentChildren)) return false;
+        sentChildren = current;
+        return (writer != null) && writeEvent(writer, new Event("children", current));
+    }
+
+    @Override
+    public String toString() {
+        return "EntityEventStream["+entity+"]";
+    }
+}
@@ -0,0 +1,214 @@
+package brooklyn.rest.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.core.EntityTag;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.ObjectNode;
+
+import brooklyn.entity.Application;
+import brooklyn.entity.Entity;
+import brooklyn.management.EntityManager;
+import brooklyn.management.ManagementContext;
+import brooklyn.management.internal.LocalEntityManager;
+import brooklyn.util.text.Identifiers;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Caches the tree of applications and entities returned by the REST API, and indexes applications and entities
+ * by name, so that requests do not need to walk the whole hierarchy.
+ * <p>
+ * The cached representation of each entity is kept until the entity, or any of its descendants, changes
+ * (as reported by {@link LocalEntityManager#getHierarchyVersion(Entity)}), so that only the changed parts
+ * of the tree are rebuilt. With other kinds of management context nothing is cached.
+ */
+public class EntityTreeCache {
+
+    private static final Map<ManagementContext, EntityTreeCache> instances = new WeakHashMap<ManagementContext, EntityTreeCache>();
+
+    public static synchronized EntityTreeCache forManagementContext(ManagementContext mgmt) {
+        EntityTreeCache result = instances.get(mgmt);
+        if (result == null) {
+            result = new EntityTreeCache(mgmt);
+            instances.put(mgmt, result);
+        }
+        return result;
+    }
+
+    private static class CachedNode {
+        final long version;
+        final String type;
+        final JsonNode node;
+
+        CachedNode(long version, String type, JsonNode node) {
+            this.version = version;
+            this.type = type;
+            this.node = node;
+        }
+    }
+
+    private static class CachedNames {
+        final long version;
+        final Map<String, Entity> entitiesByName;
+
+        CachedNames(long version, Map<String, Entity> entitiesByName) {
+            this.version = version;
+            this.entitiesByName = entitiesByName;
+        }
+    }
+
+    private final ManagementContext mgmt;
+    /** distinguishes the versions of this cache from those of any previous management context (e.g. before a restart) */
+    private final String instanceId = Identifiers.makeRandomId(8);
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, CachedNode> nodes = new ConcurrentHashMap<String, CachedNode>();
+    private final Map<String, CachedNames> namesByApplication = new ConcurrentHashMap<String, CachedNames>();
+
+    // guarded by this
+    private long treeVersion = -1;
+    private JsonNode tree;
+    private long applicationsVersion = -1;
+    private Map<String, Application> applicationsByName;
+
+    public EntityTreeCache(ManagementContext mgmt) {
+        this.mgmt = mgmt;
+    }
+
+    /** a tag which changes whenever the tree changes, or null if changes are not tracked */
+    @Nullable
+    public EntityTag getTreeTag() {
+        long version = getVersion();
+        return (version >= 0) ? new EntityTag(instanceId+"-"+version) : null;
+    }
+
+    /** the tree of all applications, each node having the name, id and type of an entity, and its children */
+    public JsonNode getApplicationTree() {
+        long version = getVersion();
+        synchronized (this) {
+            if (version >= 0 && version == treeVersion) return tree;
+        }
+        ArrayNode result = mapper.createArrayNode();
+        for (Application application : mgmt.getApplications()) {
+            result.add(getTree(application));
+        }
+        synchronized (this) {
+            if (version >= 0 && version > treeVersion) {
+                purgeUnmanaged();
+                treeVersion = version;
+                tree = result;
+            }
+        }
+        return result;
+    }
+
+    /** the application with the given name (ignoring case), or null */
+    @Nullable
+    public Application findApplicationNamed(String name) {
+        long version = getVersion();
+        if (version < 0) {
+            for (Application app : mgmt.getApplications()) {
+                if (name.equalsIgnoreCase(app.getDisplayName())) return app;
+            }
+            return null;
+        }
+        synchronized (this) {
+            if (applicationsByName == null || version != applicationsVersion) {
+                Map<String, Application> index = Maps.newHashMap();
+                for (Application app : mgmt.getApplications()) {
+                    String key = app.getDisplayName() != null ? app.getDisplayName().toLowerCase() : null;
+                    if (!index.containsKey(key)) index.put(key, app);
+                }
+                applicationsByName = index;
+                applicationsVersion = version;
+            }
+            return applicationsByName.get(name.toLowerCase());
+        }
+    }
+
+    /** the first entity (depth-first) in the given application with the given id or name, or null */
+    @Nullable
+    public Entity findEntityNamed(Application application, String name) {
+        LocalEntityManager entityManager = getLocalEntityManager();
+        long version = (entityManager != null) ? entityManager.getHierarchyVersion(application) : -1;
+        if (version < 0) return searchForEntityNamed(application, name);
+
+        CachedNames cached = namesByApplication.get(application.getId());
+        if (cached == null || cached.version != version) {
+            Map<String, Entity> index = Maps.newHashMap();
+            indexNames(application, index);
+            cached = new CachedNames(version, index);
+            namesByApplication.put(application.getId(), cached);
+        }
+        return cached.entitiesByName.get(name);
+    }
+
+    private JsonNode getTree(Entity entity) {
+        LocalEntityManager entityManager = getLocalEntityManager();
+        long version = (entityManager != null) ? entityManager.getHierarchyVersion(entity) : -1;
+        CachedNode cached = nodes.get(entity.getId());
+        if (cached != null && version >= 0 && cached.version == version) return cached.node;
+
+        String type = (cached != null) ? cached.type : entity.getEntityType().getName();
+        ObjectNode result = mapper.createObjectNode();
+        result.put("name", entity.getDisplayName());
+        result.put("id", entity.getId());
+        result.put("type", type);
+        if (entity.getChildren().size() != 0) {
+            ArrayNode children = mapper.createArrayNode();
+            for (Entity child : entity.getChildren()) {
+                children.add(getTree(child));
+            }
+            result.put("children", children);
+        }
+        if (version >= 0) nodes.put(entity.getId(), new CachedNode(version, type, result));
+        return result;
+    }
+
+    private void indexNames(Entity entity, Map<String, Entity> index) {
+        if (!index.containsKey(entity.getId())) index.put(entity.getId(), entity);
+        if (entity.getDisplayName() != null && !index.containsKey(entity.getDisplayName())) index.put(entity.getDisplayName(), entity);
+        for (Entity child : entity.getChildren()) {
+            indexNames(child, index);
+        }
+    }
+
+    private Entity searchForEntityNamed(Entity root, String name) {
+        if (root.getId().equals(name) || name.equals(root.getDisplayName())) return root;
+        for (Entity child : root.getChildren()) {
+            Entity result = searchForEntityNamed(child, name);
+            if (result != null) return result;
+        }
+        return null;
+    }
+
+    /** discards the cached nodes and names of entities which are no longer managed */
+    private void purgeUnmanaged() {
+        EntityManager entityManager = mgmt.getEntityManager();
+        for (Iterator<String> iter = nodes.keySet().iterator(); iter.hasNext();) {
+            if (entityManager.getEntity(iter.next()) == null) iter.remove();
+        }
+        for (Iterator<String> iter = namesByApplication.keySet().iterator(); iter.hasNext();) {
+            if (entityManager.getEntity(iter.next()) == null) iter.remove();
+        }
+    }
+
+    private long getVersion() {
+        LocalEntityManager entityManager = getLocalEntityManager();
+        return (entityManager != null) ? entityManager.getHierarchyVersion() : -1;
+    }
+
+    @Nullable
+    private LocalEntityManager getLocalEntityManager() {
+        EntityManager entityManager = mgmt.getEntityManager();
+        return (entityManager instanceof LocalEntityManager) ? (LocalEntityManager) entityManager : null;
+    }
+}
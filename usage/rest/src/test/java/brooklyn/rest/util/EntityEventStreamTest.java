@@ -0,0 +1,100 @@
+package brooklyn.rest.util;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.config.BrooklynProperties;
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.ApplicationBuilder;
+import brooklyn.entity.basic.Entities;
+import brooklyn.entity.proxying.EntitySpecs;
+import brooklyn.management.internal.LocalManagementContext;
+import brooklyn.rest.BrooklynWebConfig;
+import brooklyn.test.Asserts;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.util.collections.MutableMap;
+
+public class EntityEventStreamTest {
+
+    private static final int TIMEOUT_MS = 10*1000;
+
+    private LocalManagementContext managementContext;
+    private TestApplication app;
+    private TestEntity entity;
+    private ByteArrayOutputStream output;
+    private Thread writer;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        BrooklynProperties props = BrooklynProperties.Factory.newEmpty();
+        props.put(BrooklynWebConfig.EVENT_STREAM_MAX_DURATION, 60*1000L);
+        managementContext = new LocalManagementContext(props);
+        app = ApplicationBuilder.newManagedApp(TestApplication.class, managementContext);
+        entity = app.createAndManageChild(EntitySpecs.spec(TestEntity.class));
+        output = new ByteArrayOutputStream();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (writer != null) writer.interrupt();
+        if (managementContext != null) managementContext.terminate();
+    }
+
+    @Test
+    public void testStreamsChangedSensorValues() throws Exception {
+        startStream(entity);
+        entity.setAttribute(TestEntity.NAME, "first");
+
+        assertOutputEventuallyContains("event: sensor\ndata: {\"name\":\"test.name\",\"value\":\"first\"}\n\n");
+
+        // an unchanged value is not sent again
+        entity.setAttribute(TestEntity.NAME, "first");
+        entity.setAttribute(TestEntity.SEQUENCE, 1);
+        assertOutputEventuallyContains("\"test.sequence\"");
+        assertFalse(output.toString().matches("(?s).*\"first\".*\"first\".*"), "output="+output);
+    }
+
+    @Test
+    public void testStreamsChildrenAndEndsWhenUnmanaged() throws Exception {
+        startStream(app);
+        TestEntity child = app.createAndManageChild(EntitySpecs.spec(TestEntity.class));
+
+        assertOutputEventuallyContains("event: children\n");
+        assertOutputEventuallyContains(child.getId());
+
+        Entities.unmanage(app);
+        assertOutputEventuallyContains("event: unmanaged\n");
+        writer.join(TIMEOUT_MS);
+        assertFalse(writer.isAlive());
+    }
+
+    private void startStream(final Entity target) {
+        final EntityEventStream stream = new EntityEventStream(managementContext, target, true, true);
+        writer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    stream.write(output);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }});
+        writer.start();
+        // the comment which opens the stream is written once subscribed
+        assertOutputEventuallyContains(": "+target.getId()+"\n\n");
+    }
+
+    private void assertOutputEventuallyContains(final String expected) {
+        Asserts.succeedsEventually(MutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                String actual = output.toString();
+                assertTrue(actual.contains(expected), "output="+actual);
+            }});
+    }
+}
@@ -0,0 +1,95 @@
+package brooklyn.rest.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import javax.ws.rs.core.EntityTag;
+
+import org.codehaus.jackson.JsonNode;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.basic.ApplicationBuilder;
+import brooklyn.entity.basic.Entities;
+import brooklyn.entity.proxying.EntitySpecs;
+import brooklyn.management.internal.LocalManagementContext;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+
+public class EntityTreeCacheTest {
+
+    private LocalManagementContext managementContext;
+    private TestApplication app;
+    private TestEntity child1;
+    private TestEntity child2;
+    private EntityTreeCache cache;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        managementContext = new LocalManagementContext();
+        app = ApplicationBuilder.newManagedApp(TestApplication.class, managementContext);
+        app.setDisplayName("myapp");
+        child1 = app.createAndManageChild(EntitySpecs.spec(TestEntity.class).displayName("child1"));
+        child2 = app.createAndManageChild(EntitySpecs.spec(TestEntity.class).displayName("child2"));
+        cache = EntityTreeCache.forManagementContext(managementContext);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (managementContext != null) Entities.destroyAll(managementContext);
+    }
+
+    @Test
+    public void testTreeUnchangedUntilHierarchyChanges() throws Exception {
+        EntityTag tag = cache.getTreeTag();
+        JsonNode tree = cache.getApplicationTree();
+        assertEquals(tree.size(), 1);
+        assertEquals(tree.get(0).get("id").asText(), app.getId());
+        assertEquals(tree.get(0).get("children").size(), 2);
+
+        assertEquals(cache.getTreeTag(), tag);
+        assertSame(cache.getApplicationTree(), tree);
+
+        // only the changed entity and its ancestors are rebuilt
+        child1.setDisplayName("renamed");
+        assertNotEquals(cache.getTreeTag(), tag);
+        JsonNode newTree = cache.getApplicationTree();
+        assertEquals(newTree.get(0).get("children").get(0).get("name").asText(), "renamed");
+        assertNotSame(newTree.get(0).get("children").get(0), tree.get(0).get("children").get(0));
+        assertSame(newTree.get(0).get("children").get(1), tree.get(0).get("children").get(1));
+    }
+
+    @Test
+    public void testTreeIncludesNewAndExcludesUnmanagedEntities() throws Exception {
+        JsonNode tree = cache.getApplicationTree();
+        TestEntity grandchild = child2.createAndManageChild(EntitySpecs.spec(TestEntity.class));
+        JsonNode newTree = cache.getApplicationTree();
+        assertEquals(newTree.get(0).get("children").get(1).get("children").get(0).get("id").asText(), grandchild.getId());
+        assertSame(newTree.get(0).get("children").get(0), tree.get(0).get("children").get(0));
+
+        Entities.unmanage(child1);
+        newTree = cache.getApplicationTree();
+        assertEquals(newTree.get(0).get("children").size(), 1);
+        assertEquals(newTree.get(0).get("children").get(0).get("id").asText(), child2.getId());
+    }
+
+    @Test
+    public void testFindsApplicationsAndEntitiesByName() throws Exception {
+        assertEquals(cache.findApplicationNamed("MyApp"), app);
+        assertNull(cache.findApplicationNamed("other"));
+        assertEquals(cache.findEntityNamed(app, "child2"), child2);
+        assertEquals(cache.findEntityNamed(app, child1.getId()), child1);
+
+        child2.setDisplayName("renamed");
+        assertNull(cache.findEntityNamed(app, "child2"));
+        assertEquals(cache.findEntityNamed(app, "renamed"), child2);
+
+        app.setDisplayName("renamedapp");
+        assertNull(cache.findApplicationNamed("myapp"));
+        assertEquals(cache.findApplicationNamed("renamedapp"), app);
+    }
+}
@@ -160,6 +160,24 @@ public class BasicPool<T> implements Pool<T> {
         }
     }
     
+    /** number of resources currently leased */
+    public int getCurrentLeasedCount() {
+        return currentLeasedCount.get();
+    }
+    
+    /** number of resources created by this pool, and not (yet) closed; i.e. those leased plus those pooled */
+    public int getOpenCount() {
+        return totalCreatedCount.get() - totalClosedCount.get();
+    }
+    
+    public int getTotalCreatedCount() {
+        return totalCreatedCount.get();
+    }
+    
+    public int getTotalClosedCount() {
+        return totalClosedCount.get();
+    }
+    
     private String getMetrics() {
         return String.format("currentLeased=%s; totalLeased=%s; totalCreated=%s; totalClosed=%s", 
                 currentLeasedCount, totalLeasedCount, totalCreatedCount, totalClosedCount);
@@ -0,0 +1,109 @@
+package brooklyn.util.stream;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+
+/**
+ * Writes a (ustar) tar archive of regular files to a local file, for transferring many files in one go
+ * and unpacking them with <code>tar -xf</code>.
+ * <p>
+ * Entries are streamed straight into the archive (so their size need not be known in advance), and
+ * must have short (at most 100 characters) relative names.
+ */
+public class TarFileWriter implements Closeable {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int MAX_NAME_LENGTH = 100;
+
+    private final RandomAccessFile out;
+    private final byte[] buffer = new byte[8192];
+    private boolean closed;
+
+    public TarFileWriter(File file) throws IOException {
+        this.out = new RandomAccessFile(file, "rw");
+        out.setLength(0);
+    }
+
+    /** adds an entry with the given contents (with mode 0644), closing the stream */
+    public void addEntry(String name, InputStream contents) throws IOException {
+        addEntry(name, contents, 0644);
+    }
+
+    /** adds an entry with the given contents and file mode, closing the stream */
+    public void addEntry(String name, InputStream contents, int mode) throws IOException {
+        Preconditions.checkState(!closed, "closed");
+        Preconditions.checkArgument(name.length() > 0 && name.length() <= MAX_NAME_LENGTH && !name.startsWith("/"),
+                "Invalid tar entry name %s", name);
+        try {
+            // write the contents after a placeholder header, then go back to write the header with the size
+            long headerPos = out.getFilePointer();
+            out.write(new byte[BLOCK_SIZE]);
+            long size = 0;
+            int len;
+            while ((len = contents.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+                size += len;
+            }
+            long padding = (BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE;
+            out.write(new byte[(int) padding]);
+            long endPos = out.getFilePointer();
+
+            out.seek(headerPos);
+            out.write(header(name, size, mode));
+            out.seek(endPos);
+        } finally {
+            Streams.closeQuietly(contents);
+        }
+    }
+
+    /** writes the end-of-archive marker, and closes the file */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            out.write(new byte[2*BLOCK_SIZE]);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static byte[] header(String name, long size, int mode) {
+        byte[] result = new byte[BLOCK_SIZE];
+        put(result, 0, MAX_NAME_LENGTH, name);
+        put(result, 100, 8, octal(mode, 7));
+        put(result, 108, 8, octal(0, 7));
+        put(result, 116, 8, octal(0, 7));
+        put(result, 124, 12, octal(size, 11));
+        put(result, 136, 12, octal(System.currentTimeMillis() / 1000, 11));
+        result[156] = '0';
+        put(result, 257, 6, "ustar");
+        put(result, 263, 2, "00");
+
+        // checksum is computed with its own field as spaces
+        Arrays.fill(result, 148, 156, (byte) ' ');
+        long checksum = 0;
+        for (byte b : result) checksum += (b & 0xff);
+        put(result, 148, 8, octal(checksum, 6));
+        return result;
+    }
+
+    private static String octal(long val, int length) {
+        String result = Long.toOctalString(val);
+        Preconditions.checkArgument(result.length() <= length, "Value %s too large for tar header", val);
+        return Strings.padStart(result, length, '0');
+    }
+
+    private static void put(byte[] header, int offset, int length, String val) {
+        byte[] bytes = val.getBytes(Charsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+    }
+}
@@ -0,0 +1,81 @@
+package brooklyn.util.stream;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class TarFileWriterTest {
+
+    private File dir;
+    private File tarFile;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        dir = Files.createTempDir();
+        tarFile = new File(dir, "test.tar");
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (dir != null) Files.deleteRecursively(dir.getCanonicalFile());
+    }
+
+    @Test
+    public void testWritesEntriesInBlocks() throws Exception {
+        writeTar("0", "abc", "1", "");
+
+        byte[] tar = Files.toByteArray(tarFile);
+        // header+content, header (empty content), end-of-archive marker
+        assertEquals(tar.length, 512*2 + 512 + 512*2);
+        assertEquals(field(tar, 0, 100), "0");
+        assertEquals(Long.parseLong(field(tar, 124, 12), 8), 3);
+        assertEquals(new String(tar, 512, 3, Charsets.US_ASCII), "abc");
+        assertEquals(field(tar, 1024, 100), "1");
+        assertEquals(Long.parseLong(field(tar, 1024+124, 12), 8), 0);
+        assertEquals(field(tar, 257, 6), "ustar");
+
+        long checksum = 0;
+        for (int i = 0; i < 512; i++) checksum += (i >= 148 && i < 156) ? ' ' : (tar[i] & 0xff);
+        assertEquals(Long.parseLong(field(tar, 148, 8).trim(), 8), checksum);
+    }
+
+    @Test(groups="Integration")
+    public void testExtractsWithTar() throws Exception {
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 1000; i++) big.append("line ").append(i).append("\n");
+        writeTar("first", "abc", "second", big.toString());
+
+        File extractDir = new File(dir, "extracted");
+        extractDir.mkdir();
+        Process process = new ProcessBuilder("tar", "-xf", tarFile.getAbsolutePath(), "-C", extractDir.getAbsolutePath()).start();
+        assertEquals(process.waitFor(), 0);
+        assertEquals(Files.toString(new File(extractDir, "first"), Charsets.UTF_8), "abc");
+        assertEquals(Files.toString(new File(extractDir, "second"), Charsets.UTF_8), big.toString());
+    }
+
+    private void writeTar(String... namesAndContents) throws IOException {
+        TarFileWriter writer = new TarFileWriter(tarFile);
+        try {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                writer.addEntry(namesAndContents[i], new ByteArrayInputStream(namesAndContents[i+1].getBytes(Charsets.UTF_8)));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String field(byte[] tar, int offset, int length) {
+        String result = new String(tar, offset, length, Charsets.US_ASCII);
+        int end = result.indexOf('\0');
+        return (end >= 0) ? result.substring(0, end) : result;
+    }
+}